@@ -0,0 +1,55 @@
+package com.dream11.queue.aggregation;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures packing and unpacking an envelope of small telemetry records. Divide by {@code
+ * records} to get the per-record cost, which replaces one SQS request per record.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class AggregatedEnvelopeBenchmark {
+
+  @Param({"10", "100", "800"})
+  private int records;
+
+  private List<String> batch;
+  private String body;
+
+  @Setup
+  public void setup() {
+    this.batch = new ArrayList<>(this.records);
+    for (int i = 0; i < this.records; i++) {
+      this.batch.add(
+          "{\"event\":\"page-view\",\"userId\":" + i + ",\"path\":\"/contest/" + i + "\"}");
+    }
+    this.body = AggregatedEnvelope.encode(this.batch);
+  }
+
+  @Benchmark
+  public String encode() {
+    return AggregatedEnvelope.encode(this.batch);
+  }
+
+  @Benchmark
+  public List<String> decode() {
+    return AggregatedEnvelope.decode(this.body);
+  }
+}
@@ -0,0 +1,89 @@
+package com.dream11.queue.codec;
+
+import com.dream11.queue.config.CompressionConfig;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures the CPU cost of compressing and decompressing verbose JSON bodies with each algorithm.
+ * The {@code originalBytes} and {@code sentBytes} counters report the body size before and after
+ * compression and base64 encoding, which gives the bytes saved per message.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CompressionBenchmark {
+
+  @Param({"GZIP", "DEFLATE"})
+  public Compression algorithm;
+
+  @Param({"30000", "200000"})
+  public int bodyLength;
+
+  private PayloadCompressor compressor;
+  private String body;
+  private String compressedBody;
+
+  @Setup
+  public void setup() {
+    this.compressor =
+        new PayloadCompressor(CompressionConfig.builder().algorithm(this.algorithm).build());
+    StringBuilder builder = new StringBuilder("[");
+    for (int i = 0; builder.length() < this.bodyLength; i++) {
+      builder
+          .append("{\"orderId\":")
+          .append(i)
+          .append(",\"tenant\":\"tenant-")
+          .append(i % 17)
+          .append("\",\"status\":\"CREATED\",\"items\":[{\"sku\":\"sku-")
+          .append(i % 101)
+          .append("\",\"quantity\":")
+          .append(i % 5)
+          .append("}]},");
+    }
+    this.body = builder.append("{}]").toString();
+    this.compressedBody = this.compressor.compress(this.body);
+  }
+
+  @Benchmark
+  public String compress(SizeCounters counters) {
+    String compressed = this.compressor.compress(this.body);
+    counters.originalBytes += this.body.length();
+    counters.sentBytes += compressed.length();
+    return compressed;
+  }
+
+  @Benchmark
+  public String decompress() {
+    return PayloadCompressor.decompress(this.compressedBody, this.algorithm.name());
+  }
+
+  /** Body sizes accumulated per compressed message. */
+  @State(Scope.Thread)
+  @AuxCounters(AuxCounters.Type.EVENTS)
+  public static class SizeCounters {
+    public long originalBytes;
+    public long sentBytes;
+
+    @Setup(Level.Iteration)
+    public void reset() {
+      this.originalBytes = 0;
+      this.sentBytes = 0;
+    }
+  }
+}
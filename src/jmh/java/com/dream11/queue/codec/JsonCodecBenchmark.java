@@ -0,0 +1,65 @@
+package com.dream11.queue.codec;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Compares serialising through an intermediate byte[] with an ObjectMapper, which is what a
+ * typical Function&lt;T, String&gt; transformer does, against JsonCodec. Run with {@code -prof gc}
+ * to see the allocation per message.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class JsonCodecBenchmark {
+
+  private ObjectMapper objectMapper;
+  private JsonCodec<Order> codec;
+  private Order order;
+
+  @Setup
+  public void setup() {
+    this.objectMapper = new ObjectMapper();
+    this.codec = JsonCodec.of(Order.class);
+    this.order = new Order("order-12345", "tenant-42", List.of("sku-1", "sku-2", "sku-3"), 129.99);
+  }
+
+  @Benchmark
+  public String transformerThroughBytes() throws Exception {
+    return new String(this.objectMapper.writeValueAsBytes(this.order), StandardCharsets.UTF_8);
+  }
+
+  @Benchmark
+  public String jsonCodec() {
+    return this.codec.encode(this.order);
+  }
+
+  public static class Order {
+    public String id;
+    public String tenant;
+    public List<String> items;
+    public double total;
+
+    public Order(String id, String tenant, List<String> items, double total) {
+      this.id = id;
+      this.tenant = tenant;
+      this.items = items;
+      this.total = total;
+    }
+  }
+}
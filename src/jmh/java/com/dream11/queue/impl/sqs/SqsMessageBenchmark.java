@@ -0,0 +1,110 @@
+package com.dream11.queue.impl.sqs;
+
+import com.dream11.queue.Message;
+import com.dream11.queue.Metadata;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import software.amazon.awssdk.services.sqs.model.MessageAttributeValue;
+
+/**
+ * Compares the eager message construction used previously by SqsConsumer with the lazy SqsMessage
+ * view. Run with {@code -prof gc} to see the allocation rate per operation.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SqsMessageBenchmark {
+
+  private software.amazon.awssdk.services.sqs.model.Message sdkMessage;
+
+  @Setup
+  public void setup() {
+    this.sdkMessage =
+        software.amazon.awssdk.services.sqs.model.Message.builder()
+            .messageId("5fea7756-0ea4-451a-a703-a558b933e274")
+            .receiptHandle("AQEBzbVv6Q3xCbzH6PZ5W8PBk1bqEXAMPLERECEIPTHANDLE")
+            .body("{\"event\":\"order-created\",\"orderId\":12345}")
+            .messageAttributes(
+                Map.of(
+                    "eventType",
+                    stringAttribute("order-created"),
+                    "tenant",
+                    stringAttribute("tenant-42"),
+                    "version",
+                    MessageAttributeValue.builder().dataType("Number").stringValue("3").build()))
+            .build();
+  }
+
+  /** Body and receipt handle only, which is what a typical handler and its ack touch. */
+  @Benchmark
+  public void eagerBodyAndAck(Blackhole blackhole) {
+    Message message = eagerMessage(this.sdkMessage);
+    blackhole.consume(message.getBody());
+    blackhole.consume(
+        message.getMetadata().getAttributes().get(SqsConsumer.RECEIPT_HANDLE).toString());
+  }
+
+  /** Body and receipt handle only, which is what a typical handler and its ack touch. */
+  @Benchmark
+  public void lazyBodyAndAck(Blackhole blackhole) {
+    Message message = new SqsMessage(this.sdkMessage);
+    blackhole.consume(message.getBody());
+    blackhole.consume(message.getMetadata().getReceiptHandle());
+  }
+
+  /** Body, receipt handle and every user attribute. */
+  @Benchmark
+  public void eagerWithAttributes(Blackhole blackhole) {
+    Message message = eagerMessage(this.sdkMessage);
+    blackhole.consume(message.getBody());
+    blackhole.consume(message.getAttributes().get("eventType"));
+    blackhole.consume(
+        message.getMetadata().getAttributes().get(SqsConsumer.RECEIPT_HANDLE).toString());
+  }
+
+  /** Body, receipt handle and every user attribute. */
+  @Benchmark
+  public void lazyWithAttributes(Blackhole blackhole) {
+    Message message = new SqsMessage(this.sdkMessage);
+    blackhole.consume(message.getBody());
+    blackhole.consume(message.getAttributes().get("eventType"));
+    blackhole.consume(message.getMetadata().getReceiptHandle());
+  }
+
+  private static MessageAttributeValue stringAttribute(String value) {
+    return MessageAttributeValue.builder().dataType("String").stringValue(value).build();
+  }
+
+  /** The message construction SqsConsumer performed before the lazy view was introduced. */
+  private static Message eagerMessage(software.amazon.awssdk.services.sqs.model.Message message) {
+    Map<String, Object> systemAttributes =
+        Map.of(
+            SqsConsumer.RECEIPT_HANDLE, message.receiptHandle(), SqsConsumer.RAW_MESSAGE, message);
+    Metadata metadata =
+        Metadata.builder().id(message.messageId()).attributes(systemAttributes).build();
+    Map<String, Object> userAttributes = new HashMap<>();
+    message
+        .messageAttributes()
+        .forEach((key, value) -> userAttributes.put(key, value.stringValue()));
+    return Message.builder()
+        .body(message.body())
+        .metadata(metadata)
+        .attributes(userAttributes)
+        .build();
+  }
+}
@@ -0,0 +1,66 @@
+package com.dream11.queue.impl.sqs;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import software.amazon.awssdk.services.sqs.SqsAsyncClient;
+import software.amazon.awssdk.services.sqs.model.SendMessageRequest;
+import software.amazon.awssdk.services.sqs.model.SendMessageResponse;
+
+/**
+ * Compares send, which returns a future per message, with sendAndForget, against an SDK client that
+ * completes immediately. Run with {@code -prof gc} to see the allocation per send.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SqsProducerSendBenchmark {
+
+  private SqsProducer<String> producer;
+
+  @Setup
+  public void setup() {
+    SqsConfig sqsConfig = SqsConfig.builder().region("us-east-1").queueUrl("queue-url").build();
+    this.producer = new SqsProducer<>(sqsConfig, new CompletedSqsAsyncClient(), s -> s);
+  }
+
+  @Benchmark
+  public CompletableFuture<Void> send() {
+    return this.producer.send("{\"event\":\"page-view\",\"userId\":42}");
+  }
+
+  @Benchmark
+  public void sendAndForget() {
+    this.producer.sendAndForget("{\"event\":\"page-view\",\"userId\":42}");
+  }
+
+  private static final class CompletedSqsAsyncClient implements SqsAsyncClient {
+    private final CompletableFuture<SendMessageResponse> response =
+        CompletableFuture.completedFuture(SendMessageResponse.builder().build());
+
+    @Override
+    public CompletableFuture<SendMessageResponse> sendMessage(SendMessageRequest request) {
+      return this.response;
+    }
+
+    @Override
+    public String serviceName() {
+      return "sqs";
+    }
+
+    @Override
+    public void close() {}
+  }
+}
@@ -0,0 +1,93 @@
+package com.dream11.queue.util;
+
+import com.dream11.queue.config.AttributeConfig;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import software.amazon.awssdk.core.SdkBytes;
+import software.amazon.awssdk.services.sqs.model.MessageAttributeValue;
+import software.amazon.awssdk.services.sqs.model.SendMessageRequest;
+
+/**
+ * Measures the cost of building an SQS send request with low-cardinality attributes, using the
+ * per-message MessageAttributeConverter against a compiled schema with a value cache. Run with
+ * {@code -prof gc} to see the allocation per send.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MessageAttributeEncoderBenchmark {
+
+  private Map<String, Object> attributes;
+  private MessageAttributeEncoder<MessageAttributeValue> schemaEncoder;
+  private MessageAttributeEncoder<MessageAttributeValue> cachingEncoder;
+
+  @Setup
+  public void setup() {
+    this.attributes = Map.of("eventType", "order-created", "tenant", "tenant-42", "version", 3);
+    MessageAttributeSchema schema =
+        MessageAttributeSchema.builder()
+            .attribute("eventType", AttributeType.STRING)
+            .attribute("tenant", AttributeType.STRING)
+            .attribute("version", AttributeType.NUMBER)
+            .build();
+    this.schemaEncoder = newEncoder(AttributeConfig.builder().schema(schema).build());
+    this.cachingEncoder =
+        newEncoder(AttributeConfig.builder().schema(schema).valueCacheSize(1024).build());
+  }
+
+  @Benchmark
+  public SendMessageRequest converter() {
+    return request(
+        MessageAttributeConverter.convert(
+            this.attributes,
+            (dataType, stringValue) ->
+                MessageAttributeValue.builder()
+                    .dataType(dataType)
+                    .stringValue(stringValue)
+                    .build()));
+  }
+
+  @Benchmark
+  public SendMessageRequest compiledSchema() {
+    return request(this.schemaEncoder.encode(this.attributes));
+  }
+
+  @Benchmark
+  public SendMessageRequest compiledSchemaWithValueCache() {
+    return request(this.cachingEncoder.encode(this.attributes));
+  }
+
+  private static SendMessageRequest request(Map<String, MessageAttributeValue> attributes) {
+    return SendMessageRequest.builder()
+        .queueUrl("https://sqs.us-east-1.amazonaws.com/123456789012/benchmark")
+        .messageBody("{\"orderId\":12345}")
+        .messageAttributes(attributes)
+        .build();
+  }
+
+  private static MessageAttributeEncoder<MessageAttributeValue> newEncoder(
+      AttributeConfig attributeConfig) {
+    return new MessageAttributeEncoder<>(
+        attributeConfig,
+        (dataType, stringValue) ->
+            MessageAttributeValue.builder().dataType(dataType).stringValue(stringValue).build(),
+        (dataType, binaryValue) ->
+            MessageAttributeValue.builder()
+                .dataType(dataType)
+                .binaryValue(SdkBytes.fromByteArray(binaryValue))
+                .build());
+  }
+}
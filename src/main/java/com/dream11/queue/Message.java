@@ -1,17 +1,24 @@
 package com.dream11.queue;
 
+import com.dream11.queue.codec.MessageCodec;
 import java.util.Map;
+import lombok.AccessLevel;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Getter;
+import lombok.NoArgsConstructor;
 
 /**
  * Represents a message in the queue system. A message consists of a body (the actual payload),
  * user-controlled attributes (e.g., routing keys), and system metadata (e.g., message ID, system
  * attributes).
+ *
+ * <p>Provider implementations may extend this class to expose a lazy view over the provider's
+ * native message, in which case the getters are overridden and the fields are left unset.
  */
 @Getter
 @AllArgsConstructor
+@NoArgsConstructor(access = AccessLevel.PROTECTED)
 @Builder
 public class Message {
 
@@ -23,4 +30,103 @@ public class Message {
 
   /** User-controlled message attributes (e.g., routingKey for message routing). */
   Map<String, Object> attributes;
+
+  /**
+   * Decodes the message body with the given codec.
+   *
+   * @param codec The codec matching the one used by the producer.
+   * @param <T> The type of message payload.
+   * @return The decoded message payload.
+   * @throws IllegalArgumentException if the body cannot be decoded.
+   */
+  public <T> T decodeBody(MessageCodec<T> codec) {
+    return codec.decode(this.getBody());
+  }
+
+  /**
+   * Returns the attribute with the given key as a long.
+   *
+   * @param key The attribute key.
+   * @return The attribute value, or null if the attribute is absent.
+   * @throws NumberFormatException if the attribute is not a valid long.
+   */
+  public Long getLong(String key) {
+    Object value = this.getAttribute(key);
+    if (value == null || value instanceof Long) {
+      return (Long) value;
+    }
+    return value instanceof Number ? ((Number) value).longValue() : Long.valueOf(value.toString());
+  }
+
+  /**
+   * Returns the attribute with the given key as a double.
+   *
+   * @param key The attribute key.
+   * @return The attribute value, or null if the attribute is absent.
+   * @throws NumberFormatException if the attribute is not a valid double.
+   */
+  public Double getDouble(String key) {
+    Object value = this.getAttribute(key);
+    if (value == null || value instanceof Double) {
+      return (Double) value;
+    }
+    return value instanceof Number
+        ? ((Number) value).doubleValue()
+        : Double.valueOf(value.toString());
+  }
+
+  /**
+   * Returns the attribute with the given key as a boolean. Booleans are sent as the strings "true"
+   * or "false", since AWS has no native boolean type.
+   *
+   * @param key The attribute key.
+   * @return The attribute value, or null if the attribute is absent.
+   * @throws IllegalArgumentException if the attribute is not "true" or "false".
+   */
+  public Boolean getBoolean(String key) {
+    Object value = this.getAttribute(key);
+    if (value == null || value instanceof Boolean) {
+      return (Boolean) value;
+    }
+    return parseBoolean(key, value.toString());
+  }
+
+  /**
+   * Returns the attribute with the given key as binary data.
+   *
+   * @param key The attribute key.
+   * @return The attribute value, or null if the attribute is absent.
+   * @throws IllegalArgumentException if the attribute is not binary.
+   */
+  public byte[] getBinary(String key) {
+    Object value = this.getAttribute(key);
+    if (value == null || value instanceof byte[]) {
+      return (byte[]) value;
+    }
+    throw new IllegalArgumentException("Message attribute '" + key + "' is not binary");
+  }
+
+  /**
+   * Parses a boolean attribute value, accepting only "true" or "false" (case-insensitive).
+   *
+   * @param key The attribute key, used in the error message.
+   * @param value The value to parse.
+   * @return The parsed boolean.
+   * @throws IllegalArgumentException if the value is not "true" or "false".
+   */
+  protected static Boolean parseBoolean(String key, String value) {
+    if ("true".equalsIgnoreCase(value)) {
+      return Boolean.TRUE;
+    }
+    if ("false".equalsIgnoreCase(value)) {
+      return Boolean.FALSE;
+    }
+    throw new IllegalArgumentException(
+        "Message attribute '" + key + "' is not a boolean: " + value);
+  }
+
+  private Object getAttribute(String key) {
+    Map<String, Object> messageAttributes = this.getAttributes();
+    return messageAttributes == null ? null : messageAttributes.get(key);
+  }
 }
@@ -1,21 +1,40 @@
 package com.dream11.queue;
 
 import java.util.Map;
+import lombok.AccessLevel;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Getter;
+import lombok.NoArgsConstructor;
 
 /**
  * System-level metadata associated with a message from the queue provider. This includes
  * information like message ID and system attributes that are populated by the queue system.
+ *
+ * <p>Provider implementations may extend this class to expose a lazy view over the provider's
+ * native message, in which case the getters are overridden and the fields are left unset.
  */
 @Getter
 @AllArgsConstructor
+@NoArgsConstructor(access = AccessLevel.PROTECTED)
 @Builder
 public class Metadata {
   /** The message ID assigned by the queue provider. */
   String id;
 
+  /** The handle used to acknowledge or extend the visibility of the message, if any. */
+  String receiptHandle;
+
   /** System-level attributes populated by the queue provider (e.g., timestamps, retry count). */
   Map<String, Object> attributes;
+
+  /**
+   * Constructs a new Metadata without a receipt handle.
+   *
+   * @param id The message ID assigned by the queue provider.
+   * @param attributes System-level attributes populated by the queue provider.
+   */
+  public Metadata(String id, Map<String, Object> attributes) {
+    this(id, null, attributes);
+  }
 }
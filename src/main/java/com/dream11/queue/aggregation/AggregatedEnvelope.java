@@ -0,0 +1,90 @@
+package com.dream11.queue.aggregation;
+
+import com.dream11.queue.util.Utf8;
+import java.util.ArrayList;
+import java.util.List;
+import lombok.experimental.UtilityClass;
+
+/**
+ * Text envelope packing several records into one message body. Each record is written as its
+ * length in characters, a colon, and the record itself, e.g. {@code 5:hello3:foo}. The envelope
+ * stays valid message text, so it can still be compressed or claim-checked like any other body.
+ */
+@UtilityClass
+public class AggregatedEnvelope {
+
+  private static final char SEPARATOR = ':';
+
+  /**
+   * Returns the number of UTF-8 bytes the given record adds to an envelope.
+   *
+   * @param record The record.
+   * @return The encoded size of the record, including its length prefix.
+   */
+  public long encodedLength(String record) {
+    return digits(record.length()) + 1 + Utf8.encodedLength(record);
+  }
+
+  /**
+   * Packs the given records into an envelope.
+   *
+   * @param records The records to pack.
+   * @return The envelope body.
+   */
+  public String encode(List<String> records) {
+    int capacity = 0;
+    for (String record : records) {
+      capacity += record.length() + 11;
+    }
+    StringBuilder builder = new StringBuilder(capacity);
+    for (String record : records) {
+      builder.append(record.length()).append(SEPARATOR).append(record);
+    }
+    return builder.toString();
+  }
+
+  /**
+   * Unpacks the records of an envelope.
+   *
+   * @param body The envelope body.
+   * @return The records, in the order they were packed.
+   * @throws IllegalArgumentException if the body is not a valid envelope.
+   */
+  public List<String> decode(String body) {
+    List<String> records = new ArrayList<>();
+    int position = 0;
+    while (position < body.length()) {
+      int separator = body.indexOf(SEPARATOR, position);
+      if (separator <= position) {
+        throw malformed(position);
+      }
+      int length;
+      try {
+        length = Integer.parseInt(body, position, separator, 10);
+      } catch (NumberFormatException e) {
+        throw malformed(position);
+      }
+      int start = separator + 1;
+      if (length < 0 || length > body.length() - start) {
+        throw malformed(position);
+      }
+      records.add(body.substring(start, start + length));
+      position = start + length;
+    }
+    return records;
+  }
+
+  private int digits(int value) {
+    int digits = 1;
+    while (value >= 10) {
+      value /= 10;
+      digits++;
+    }
+    return digits;
+  }
+
+  private IllegalArgumentException malformed(int position) {
+    return new IllegalArgumentException(
+        "Malformed aggregated message body at position " + position);
+  }
+}
@@ -0,0 +1,172 @@
+package com.dream11.queue.aggregation;
+
+import com.dream11.queue.config.AggregationConfig;
+import com.dream11.queue.util.ReservedAttributes;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BiFunction;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Buffers records and sends them as {@link AggregatedEnvelope} bodies marked with the {@link
+ * ReservedAttributes#AGGREGATED} attribute. A batch is sent when the next record would not fit,
+ * when it reaches the record limit, or when its linger time elapses.
+ */
+@Slf4j
+public class RecordAggregator implements AutoCloseable {
+  private final BiFunction<String, Map<String, Object>, CompletableFuture<Void>> sender;
+  private final int maxBatchBytes;
+  private final int maxRecords;
+  private final long lingerMillis;
+  private final ScheduledExecutorService scheduler;
+  private final Set<CompletableFuture<Void>> inFlight = ConcurrentHashMap.newKeySet();
+
+  private Batch current;
+  private boolean closed;
+
+  /**
+   * Constructs a new RecordAggregator.
+   *
+   * @param aggregationConfig The aggregation configuration.
+   * @param sender Sends an envelope body with the given attributes.
+   */
+  public RecordAggregator(
+      AggregationConfig aggregationConfig,
+      BiFunction<String, Map<String, Object>, CompletableFuture<Void>> sender) {
+    this.sender = sender;
+    this.maxBatchBytes = aggregationConfig.getMaxBatchBytes();
+    this.maxRecords = aggregationConfig.getMaxRecords();
+    this.lingerMillis = aggregationConfig.getLingerMillis();
+    this.scheduler =
+        Executors.newSingleThreadScheduledExecutor(
+            runnable -> {
+              Thread thread = new Thread(runnable, "message-kit-aggregator");
+              thread.setDaemon(true);
+              return thread;
+            });
+  }
+
+  /**
+   * Adds a record to the current batch.
+   *
+   * @param record The encoded record.
+   * @return A CompletableFuture that completes when the batch containing the record is sent.
+   * @throws IllegalStateException if the aggregator is closed.
+   */
+  public CompletableFuture<Void> add(String record) {
+    long size = AggregatedEnvelope.encodedLength(record);
+    Batch full = null;
+    Batch filled = null;
+    CompletableFuture<Void> future;
+    synchronized (this) {
+      if (this.closed) {
+        throw new IllegalStateException("Aggregator is closed");
+      }
+      if (this.current != null && this.current.bytes + size > this.maxBatchBytes) {
+        full = this.current;
+        this.current = null;
+      }
+      if (this.current == null) {
+        this.current = this.newBatch();
+      }
+      this.current.add(record, size);
+      future = this.current.future;
+      if (this.current.records.size() >= this.maxRecords
+          || this.current.bytes >= this.maxBatchBytes) {
+        filled = this.current;
+        this.current = null;
+      }
+    }
+    if (full != null) {
+      this.send(full);
+    }
+    if (filled != null) {
+      this.send(filled);
+    }
+    return future.copy();
+  }
+
+  /** Sends the current batch, if any, without waiting for it to complete. */
+  public void flush() {
+    Batch batch;
+    synchronized (this) {
+      batch = this.current;
+      this.current = null;
+    }
+    if (batch != null) {
+      this.send(batch);
+    }
+  }
+
+  /** Sends the current batch and waits for all batches in flight to complete. */
+  @Override
+  public void close() {
+    synchronized (this) {
+      this.closed = true;
+    }
+    this.flush();
+    this.scheduler.shutdownNow();
+    CompletableFuture.allOf(this.inFlight.toArray(new CompletableFuture[0]))
+        .exceptionally(e -> null)
+        .join();
+  }
+
+  private Batch newBatch() {
+    Batch batch = new Batch();
+    if (this.lingerMillis > 0) {
+      this.scheduler.schedule(() -> this.flush(batch), this.lingerMillis, TimeUnit.MILLISECONDS);
+    }
+    return batch;
+  }
+
+  private void flush(Batch batch) {
+    synchronized (this) {
+      if (this.current != batch) {
+        return;
+      }
+      this.current = null;
+    }
+    this.send(batch);
+  }
+
+  private void send(Batch batch) {
+    CompletableFuture<Void> future = batch.future;
+    this.inFlight.add(future);
+    future.whenComplete((v, e) -> this.inFlight.remove(future));
+    try {
+      this.sender
+          .apply(
+              AggregatedEnvelope.encode(batch.records),
+              Map.of(ReservedAttributes.AGGREGATED, batch.records.size()))
+          .whenComplete(
+              (v, e) -> {
+                if (e != null) {
+                  future.completeExceptionally(e);
+                } else {
+                  future.complete(null);
+                }
+              });
+    } catch (RuntimeException e) {
+      log.error("Failed to send aggregated batch of {} records", batch.records.size(), e);
+      future.completeExceptionally(e);
+    }
+  }
+
+  private static final class Batch {
+    private final List<String> records = new ArrayList<>();
+    private final CompletableFuture<Void> future = new CompletableFuture<>();
+    private long bytes;
+
+    private void add(String record, long size) {
+      this.records.add(record);
+      this.bytes += size;
+    }
+  }
+}
@@ -0,0 +1,37 @@
+package com.dream11.queue.claimcheck;
+
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Storage for message bodies that are too large to send through the queue provider. Producers
+ * store the body and send only its key, and consumers fetch the body by key on receive.
+ *
+ * <p>Implementations must be thread-safe. An S3-compatible store is a typical implementation for
+ * production, and {@link FileSystemBlobStore} can be used for tests.
+ */
+public interface BlobStore {
+  /**
+   * Stores a blob under the given key.
+   *
+   * @param key The key of the blob.
+   * @param data The blob content.
+   * @return A CompletableFuture that completes when the blob is stored.
+   */
+  CompletableFuture<Void> put(String key, byte[] data);
+
+  /**
+   * Fetches the blob stored under the given key.
+   *
+   * @param key The key of the blob.
+   * @return A CompletableFuture containing the blob content.
+   */
+  CompletableFuture<byte[]> get(String key);
+
+  /**
+   * Deletes the blob stored under the given key. Deleting a missing blob is not an error.
+   *
+   * @param key The key of the blob.
+   * @return A CompletableFuture that completes when the blob is deleted.
+   */
+  CompletableFuture<Void> delete(String key);
+}
@@ -0,0 +1,96 @@
+package com.dream11.queue.claimcheck;
+
+import com.dream11.queue.config.ClaimCheckConfig;
+import com.dream11.queue.util.ReservedAttributes;
+import com.dream11.queue.util.Utf8;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Offloads large message bodies to a {@link BlobStore} and resolves them on receive. An offloaded
+ * message carries the blob key as its body and is marked with the {@link
+ * ReservedAttributes#CLAIM_CHECK} attribute.
+ */
+public class ClaimCheck {
+  private final BlobStore blobStore;
+  private final int thresholdBytes;
+  private final boolean deleteOnAcknowledge;
+
+  /**
+   * Constructs a new ClaimCheck with the given configuration.
+   *
+   * @param claimCheckConfig The claim-check configuration.
+   */
+  public ClaimCheck(ClaimCheckConfig claimCheckConfig) {
+    this.blobStore = claimCheckConfig.getBlobStore();
+    this.thresholdBytes = claimCheckConfig.getThresholdBytes();
+    this.deleteOnAcknowledge = claimCheckConfig.isDeleteOnAcknowledge();
+  }
+
+  /**
+   * Checks if a blob store is configured.
+   *
+   * @return true if bodies can be offloaded and resolved.
+   */
+  public boolean isEnabled() {
+    return this.blobStore != null;
+  }
+
+  /**
+   * Checks if the given body is larger than the threshold and should be offloaded.
+   *
+   * @param body The message body.
+   * @return true if the body should be offloaded.
+   */
+  public boolean shouldOffload(String body) {
+    // A char encodes to at most 3 UTF-8 bytes, so short bodies skip the exact count.
+    return this.isEnabled()
+        && (long) body.length() * 3 > this.thresholdBytes
+        && Utf8.encodedLength(body) > this.thresholdBytes;
+  }
+
+  /**
+   * Stores the given body in the blob store under a new random key.
+   *
+   * @param body The message body.
+   * @return A CompletableFuture containing the key to send in place of the body.
+   */
+  public CompletableFuture<String> offload(String body) {
+    String key = UUID.randomUUID().toString();
+    return this.blobStore.put(key, body.getBytes(StandardCharsets.UTF_8)).thenApply(__ -> key);
+  }
+
+  /**
+   * Returns the given attributes with the claim-check marker added.
+   *
+   * @param attributes The user attributes (can be null).
+   * @return A new map containing the user attributes and the claim-check marker.
+   */
+  public Map<String, Object> markOffloaded(Map<String, Object> attributes) {
+    return ReservedAttributes.with(attributes, ReservedAttributes.CLAIM_CHECK, Boolean.TRUE);
+  }
+
+  /**
+   * Fetches an offloaded body from the blob store.
+   *
+   * @param key The key received as the message body.
+   * @return A CompletableFuture containing the original body.
+   */
+  public CompletableFuture<String> resolve(String key) {
+    return this.blobStore.get(key).thenApply(data -> new String(data, StandardCharsets.UTF_8));
+  }
+
+  /**
+   * Deletes an offloaded body after its message is acknowledged, unless disabled by configuration.
+   *
+   * @param key The key received as the message body.
+   * @return A CompletableFuture that completes when the body is deleted.
+   */
+  public CompletableFuture<Void> release(String key) {
+    return this.deleteOnAcknowledge
+        ? this.blobStore.delete(key)
+        : CompletableFuture.completedFuture(null);
+  }
+}
@@ -0,0 +1,93 @@
+package com.dream11.queue.claimcheck;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * BlobStore backed by a local directory, with one file per blob. Intended for tests and local
+ * development, where producers and consumers share a filesystem.
+ */
+public class FileSystemBlobStore implements BlobStore {
+  private final Path directory;
+  private final Executor executor;
+
+  /**
+   * Constructs a new FileSystemBlobStore that performs I/O on the common fork-join pool.
+   *
+   * @param directory The directory in which blobs are stored. It is created if missing.
+   */
+  public FileSystemBlobStore(Path directory) {
+    this(directory, ForkJoinPool.commonPool());
+  }
+
+  /**
+   * Constructs a new FileSystemBlobStore that performs I/O on the given executor.
+   *
+   * @param directory The directory in which blobs are stored. It is created if missing.
+   * @param executor The executor used for file I/O.
+   */
+  public FileSystemBlobStore(Path directory, Executor executor) {
+    try {
+      this.directory = Files.createDirectories(directory).toAbsolutePath().normalize();
+    } catch (IOException e) {
+      throw new UncheckedIOException("Failed to create blob directory: " + directory, e);
+    }
+    this.executor = executor;
+  }
+
+  @Override
+  public CompletableFuture<Void> put(String key, byte[] data) {
+    return CompletableFuture.runAsync(
+        () -> {
+          Path file = this.resolve(key);
+          try {
+            Path temp = Files.createTempFile(this.directory, key, ".tmp");
+            Files.write(temp, data);
+            Files.move(temp, file, StandardCopyOption.ATOMIC_MOVE);
+          } catch (IOException e) {
+            throw new UncheckedIOException("Failed to store blob: " + key, e);
+          }
+        },
+        this.executor);
+  }
+
+  @Override
+  public CompletableFuture<byte[]> get(String key) {
+    return CompletableFuture.supplyAsync(
+        () -> {
+          try {
+            return Files.readAllBytes(this.resolve(key));
+          } catch (IOException e) {
+            throw new UncheckedIOException("Failed to read blob: " + key, e);
+          }
+        },
+        this.executor);
+  }
+
+  @Override
+  public CompletableFuture<Void> delete(String key) {
+    return CompletableFuture.runAsync(
+        () -> {
+          try {
+            Files.deleteIfExists(this.resolve(key));
+          } catch (IOException e) {
+            throw new UncheckedIOException("Failed to delete blob: " + key, e);
+          }
+        },
+        this.executor);
+  }
+
+  private Path resolve(String key) {
+    Path file = this.directory.resolve(key).normalize();
+    if (!this.directory.equals(file.getParent())) {
+      throw new IllegalArgumentException("Invalid blob key: " + key);
+    }
+    return file;
+  }
+}
@@ -0,0 +1,92 @@
+package com.dream11.queue.codec;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+import java.util.zip.InflaterInputStream;
+
+/** Compression algorithms that can be applied to message bodies. */
+public enum Compression {
+  /** No compression. */
+  NONE {
+    @Override
+    public byte[] compress(byte[] data) {
+      return data;
+    }
+
+    @Override
+    public byte[] decompress(byte[] data) {
+      return data;
+    }
+  },
+
+  /** GZIP compression. */
+  GZIP {
+    @Override
+    public byte[] compress(byte[] data) {
+      ByteArrayOutputStream buffer = new ByteArrayOutputStream(data.length / 4 + 64);
+      try (OutputStream out = new GZIPOutputStream(buffer, BUFFER_SIZE)) {
+        out.write(data);
+      } catch (IOException e) {
+        throw new UncheckedIOException("Failed to compress message body", e);
+      }
+      return buffer.toByteArray();
+    }
+
+    @Override
+    public byte[] decompress(byte[] data) {
+      try (InputStream in = new GZIPInputStream(new ByteArrayInputStream(data), BUFFER_SIZE)) {
+        return in.readAllBytes();
+      } catch (IOException e) {
+        throw new UncheckedIOException("Failed to decompress message body", e);
+      }
+    }
+  },
+
+  /** DEFLATE (zlib) compression, which has a smaller header than GZIP. */
+  DEFLATE {
+    @Override
+    public byte[] compress(byte[] data) {
+      ByteArrayOutputStream buffer = new ByteArrayOutputStream(data.length / 4 + 64);
+      try (OutputStream out = new DeflaterOutputStream(buffer)) {
+        out.write(data);
+      } catch (IOException e) {
+        throw new UncheckedIOException("Failed to compress message body", e);
+      }
+      return buffer.toByteArray();
+    }
+
+    @Override
+    public byte[] decompress(byte[] data) {
+      try (InputStream in = new InflaterInputStream(new ByteArrayInputStream(data))) {
+        return in.readAllBytes();
+      } catch (IOException e) {
+        throw new UncheckedIOException("Failed to decompress message body", e);
+      }
+    }
+  };
+
+  private static final int BUFFER_SIZE = 8192;
+
+  /**
+   * Compresses the given data.
+   *
+   * @param data The data to compress.
+   * @return The compressed data.
+   */
+  public abstract byte[] compress(byte[] data);
+
+  /**
+   * Decompresses the given data.
+   *
+   * @param data The compressed data.
+   * @return The decompressed data.
+   */
+  public abstract byte[] decompress(byte[] data);
+}
@@ -0,0 +1,68 @@
+package com.dream11.queue.codec;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * JSON codec backed by Jackson. The reader and writer for the payload type are resolved once when
+ * the codec is created, and payloads are written straight to a String through Jackson's recycled
+ * buffers instead of going through an intermediate byte[].
+ *
+ * <p>Jackson is an optional dependency of this library and must be on the classpath to use this
+ * codec.
+ *
+ * @param <T> The type of message payload handled by this codec.
+ */
+public final class JsonCodec<T> implements MessageCodec<T> {
+  private static final ObjectMapper DEFAULT_OBJECT_MAPPER = new ObjectMapper();
+  private static final Map<Class<?>, JsonCodec<?>> DEFAULT_CODECS = new ConcurrentHashMap<>();
+
+  private final ObjectWriter writer;
+  private final ObjectReader reader;
+
+  /**
+   * Constructs a new JsonCodec for the given type using the given object mapper.
+   *
+   * @param objectMapper The object mapper used to build the reader and writer.
+   * @param type The type of message payload.
+   */
+  public JsonCodec(ObjectMapper objectMapper, Class<T> type) {
+    this.writer = objectMapper.writerFor(type);
+    this.reader = objectMapper.readerFor(type);
+  }
+
+  /**
+   * Returns the shared codec for the given type, using a default object mapper.
+   *
+   * @param type The type of message payload.
+   * @param <T> The type of message payload.
+   * @return The JSON codec for the type.
+   */
+  @SuppressWarnings("unchecked")
+  public static <T> JsonCodec<T> of(Class<T> type) {
+    return (JsonCodec<T>)
+        DEFAULT_CODECS.computeIfAbsent(type, t -> new JsonCodec<>(DEFAULT_OBJECT_MAPPER, t));
+  }
+
+  @Override
+  public String encode(T message) {
+    try {
+      return this.writer.writeValueAsString(message);
+    } catch (JsonProcessingException e) {
+      throw new IllegalArgumentException("Failed to encode message as JSON", e);
+    }
+  }
+
+  @Override
+  public T decode(String body) {
+    try {
+      return this.reader.readValue(body);
+    } catch (JsonProcessingException e) {
+      throw new IllegalArgumentException("Failed to decode message body as JSON", e);
+    }
+  }
+}
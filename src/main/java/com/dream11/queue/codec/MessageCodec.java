@@ -0,0 +1,63 @@
+package com.dream11.queue.codec;
+
+import java.util.function.Function;
+
+/**
+ * Converts message payloads to and from the string body sent to the queue provider. Producers use
+ * {@link #encode(Object)} before sending and consumers use {@link #decode(String)} through {@link
+ * com.dream11.queue.Message#decodeBody(MessageCodec)}.
+ *
+ * <p>Implementations must be thread-safe, since a single codec is shared by every send of a
+ * producer.
+ *
+ * @param <T> The type of message payload handled by this codec.
+ */
+public interface MessageCodec<T> {
+  /**
+   * Encodes a message payload to the body sent to the queue provider.
+   *
+   * @param message The message payload.
+   * @return The encoded message body.
+   * @throws IllegalArgumentException if the payload cannot be encoded.
+   */
+  String encode(T message);
+
+  /**
+   * Decodes a message body received from the queue provider.
+   *
+   * @param body The message body.
+   * @return The decoded message payload.
+   * @throws IllegalArgumentException if the body cannot be decoded.
+   */
+  T decode(String body);
+
+  /**
+   * Returns a codec that sends strings as-is.
+   *
+   * @return The string codec.
+   */
+  static MessageCodec<String> ofString() {
+    return StringCodec.INSTANCE;
+  }
+
+  /**
+   * Returns an encode-only codec backed by the given transformer. Decoding is not supported.
+   *
+   * @param transformer The function to transform messages from type T to String.
+   * @param <T> The type of message payload.
+   * @return A codec that encodes with the transformer.
+   */
+  static <T> MessageCodec<T> fromFunction(Function<T, String> transformer) {
+    return new MessageCodec<>() {
+      @Override
+      public String encode(T message) {
+        return transformer.apply(message);
+      }
+
+      @Override
+      public T decode(String body) {
+        throw new UnsupportedOperationException("Decoding is not supported by this codec");
+      }
+    };
+  }
+}
@@ -0,0 +1,67 @@
+package com.dream11.queue.codec;
+
+import com.dream11.queue.config.CompressionConfig;
+import com.dream11.queue.util.ReservedAttributes;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.Map;
+
+/**
+ * Compresses message bodies on send and decompresses them on receive. Compressed bodies are base64
+ * encoded, since SQS and SNS bodies must be text, and are marked with the {@link
+ * ReservedAttributes#COMPRESSION} attribute naming the algorithm.
+ */
+public class PayloadCompressor {
+  private final Compression algorithm;
+  private final int minBodyLength;
+
+  /**
+   * Constructs a new PayloadCompressor with the given configuration.
+   *
+   * @param compressionConfig The compression configuration.
+   */
+  public PayloadCompressor(CompressionConfig compressionConfig) {
+    this.algorithm = compressionConfig.getAlgorithm();
+    this.minBodyLength = compressionConfig.getMinBodyLength();
+  }
+
+  /**
+   * Compresses the given body if it is long enough and compression makes it smaller.
+   *
+   * @param body The message body.
+   * @return The compressed, base64 encoded body, or null if the body should be sent as-is.
+   */
+  public String compress(String body) {
+    if (this.algorithm == Compression.NONE || body.length() < this.minBodyLength) {
+      return null;
+    }
+    byte[] compressed = this.algorithm.compress(body.getBytes(StandardCharsets.UTF_8));
+    String encoded = Base64.getEncoder().encodeToString(compressed);
+    return encoded.length() < body.length() ? encoded : null;
+  }
+
+  /**
+   * Returns the given attributes with the compression marker added.
+   *
+   * @param attributes The user attributes (can be null).
+   * @return A new map containing the user attributes and the compression marker.
+   */
+  public Map<String, Object> markCompressed(Map<String, Object> attributes) {
+    return ReservedAttributes.with(
+        attributes, ReservedAttributes.COMPRESSION, this.algorithm.name());
+  }
+
+  /**
+   * Decompresses a body received with the {@link ReservedAttributes#COMPRESSION} attribute.
+   *
+   * @param body The compressed, base64 encoded body.
+   * @param algorithm The value of the compression attribute.
+   * @return The original body.
+   * @throws IllegalArgumentException if the algorithm is unknown or the body is not valid base64.
+   */
+  public static String decompress(String body, String algorithm) {
+    byte[] compressed = Base64.getDecoder().decode(body);
+    return new String(
+        Compression.valueOf(algorithm).decompress(compressed), StandardCharsets.UTF_8);
+  }
+}
@@ -0,0 +1,18 @@
+package com.dream11.queue.codec;
+
+/** Codec that sends string payloads as-is. */
+final class StringCodec implements MessageCodec<String> {
+  static final StringCodec INSTANCE = new StringCodec();
+
+  private StringCodec() {}
+
+  @Override
+  public String encode(String message) {
+    return message;
+  }
+
+  @Override
+  public String decode(String body) {
+    return body;
+  }
+}
@@ -0,0 +1,29 @@
+package com.dream11.queue.config;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+
+/**
+ * Configuration class for acknowledging messages in message queue consumers. Batched
+ * acknowledgements are deleted with one request per batch, so an acknowledgement completes when
+ * its batch is deleted rather than right away.
+ */
+@Getter
+@AllArgsConstructor
+@Builder
+@NoArgsConstructor
+public class AcknowledgementConfig {
+  /** Whether acknowledgements are batched. */
+  @Builder.Default private boolean batched = false;
+
+  /** The maximum number of acknowledgements in a batch. */
+  @Builder.Default private int maxBatchSize = 10;
+
+  /**
+   * The time in milliseconds a partially filled batch waits for more acknowledgements before it is
+   * sent. A value of 0 sends every acknowledgement right away. Must not be negative.
+   */
+  @Builder.Default private long lingerMillis = 100;
+}
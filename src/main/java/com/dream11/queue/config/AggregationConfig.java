@@ -0,0 +1,30 @@
+package com.dream11.queue.config;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+
+/**
+ * Configuration class for packing several messages into one provider message in message queue
+ * producers. Only messages sent without attributes are aggregated.
+ */
+@Getter
+@AllArgsConstructor
+@Builder
+@NoArgsConstructor
+public class AggregationConfig {
+  /** Whether messages are aggregated. */
+  @Builder.Default private boolean enabled = false;
+
+  /** The maximum size, in UTF-8 bytes, of an aggregated body before compression. */
+  @Builder.Default private int maxBatchBytes = 240 * 1024;
+
+  /** The maximum number of messages in an aggregated body. */
+  @Builder.Default private int maxRecords = 1000;
+
+  /**
+   * The time in milliseconds a partially filled batch waits for more messages before it is sent.
+   */
+  @Builder.Default private long lingerMillis = 20;
+}
@@ -0,0 +1,27 @@
+package com.dream11.queue.config;
+
+import com.dream11.queue.util.MessageAttributeSchema;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+
+/** Configuration class for encoding message attributes in message queue producers. */
+@Getter
+@AllArgsConstructor
+@Builder
+@NoArgsConstructor
+public class AttributeConfig {
+  /**
+   * The schema of the attributes sent by the producer. Attributes not declared in the schema are
+   * typed from their value on every send.
+   */
+  private MessageAttributeSchema schema;
+
+  /**
+   * The maximum number of encoded attribute values to cache, keyed by attribute key and value.
+   * Caching pays off for low-cardinality values such as event type or tenant. A value of 0
+   * disables the cache.
+   */
+  @Builder.Default private int valueCacheSize = 0;
+}
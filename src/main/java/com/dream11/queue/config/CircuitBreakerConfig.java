@@ -0,0 +1,40 @@
+package com.dream11.queue.config;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+
+/**
+ * Configuration class for the circuit breaker of the consumer engine, which stops polling while
+ * handlers keep failing, such as when a downstream dependency is down.
+ */
+@Getter
+@AllArgsConstructor
+@Builder
+@NoArgsConstructor
+public class CircuitBreakerConfig {
+  /** Whether the circuit breaker is enabled. */
+  @Builder.Default private boolean enabled = false;
+
+  /**
+   * The number of most recently handled messages whose outcomes decide whether the circuit opens.
+   * The circuit does not open before this many messages have been handled.
+   */
+  @Builder.Default private int windowSize = 20;
+
+  /** The rate of failed messages in the window, between 0 and 1, at which the circuit opens. */
+  @Builder.Default private double failureRateThreshold = 0.5;
+
+  /**
+   * The time in milliseconds after which a handler counts as failed even if it returns normally. A
+   * value of 0 disables this.
+   */
+  @Builder.Default private long slowCallMillis = 0;
+
+  /** The time in milliseconds the circuit stays open before messages are let through as probes. */
+  @Builder.Default private long openMillis = 30_000;
+
+  /** The number of consecutive probes that must succeed for the circuit to close again. */
+  @Builder.Default private int halfOpenProbes = 3;
+}
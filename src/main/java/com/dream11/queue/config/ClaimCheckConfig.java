@@ -0,0 +1,32 @@
+package com.dream11.queue.config;
+
+import com.dream11.queue.claimcheck.BlobStore;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+
+/**
+ * Configuration class for offloading large message bodies to a {@link BlobStore}. Producers and
+ * consumers of the same queue must be configured with the same store.
+ */
+@Getter
+@AllArgsConstructor
+@Builder
+@NoArgsConstructor
+public class ClaimCheckConfig {
+  /** The store for offloaded bodies. A null value disables offloading. */
+  private BlobStore blobStore;
+
+  /**
+   * The body size, in UTF-8 bytes, above which the body is offloaded. The default leaves headroom
+   * for message attributes under the 256 KB SQS and SNS limit.
+   */
+  @Builder.Default private int thresholdBytes = 240 * 1024;
+
+  /**
+   * Whether consumers delete the offloaded body after acknowledging the message. Disable this when
+   * several queues subscribe to the same SNS topic, and expire blobs in the store instead.
+   */
+  @Builder.Default private boolean deleteOnAcknowledge = true;
+}
@@ -0,0 +1,29 @@
+package com.dream11.queue.config;
+
+import java.util.concurrent.Executor;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+
+/**
+ * Configuration class for the threads that complete the futures returned by producers and
+ * consumers. By default they complete on the SDK's completion executor, which is shared by every
+ * request of a client, so slow callbacks delay the completion of other requests.
+ */
+@Getter
+@AllArgsConstructor
+@Builder
+@NoArgsConstructor
+public class CompletionConfig {
+  /** The executor on which returned futures complete. Null keeps the SDK's executor. */
+  @Builder.Default private Executor executor = null;
+
+  /**
+   * Whether futures complete directly on the SDK's I/O threads, without handing off to an
+   * executor. This saves a thread hop per request, but a slow callback then stalls the I/O of every
+   * request on the client. Only applies to clients created by the library, and is ignored when an
+   * executor is set.
+   */
+  @Builder.Default private boolean directCompletion = false;
+}
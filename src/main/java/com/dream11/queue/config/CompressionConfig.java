@@ -0,0 +1,20 @@
+package com.dream11.queue.config;
+
+import com.dream11.queue.codec.Compression;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+
+/** Configuration class for compressing message bodies in message queue producers. */
+@Getter
+@AllArgsConstructor
+@Builder
+@NoArgsConstructor
+public class CompressionConfig {
+  /** The compression algorithm. {@link Compression#NONE} disables compression. */
+  @Builder.Default private Compression algorithm = Compression.NONE;
+
+  /** The minimum body length, in characters, for a body to be compressed. */
+  @Builder.Default private int minBodyLength = 1024;
+}
@@ -0,0 +1,37 @@
+package com.dream11.queue.config;
+
+import com.dream11.queue.producer.MessageProducer;
+import java.util.Set;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+
+/**
+ * Configuration class for moving poison messages to a dead-letter queue from message queue
+ * consumers. Unlike a redrive policy, which is set on the queue, it also moves messages whose
+ * handler failed with a non-retryable exception, without waiting for further receives.
+ */
+@Getter
+@AllArgsConstructor
+@Builder
+@NoArgsConstructor
+public class DeadLetterConfig {
+  /**
+   * The producer that sends messages to the dead-letter queue. It is not closed by the consumer. A
+   * null value disables dead-lettering.
+   */
+  private MessageProducer<String> producer;
+
+  /**
+   * The number of receives after which a message is moved as soon as it is received again, before
+   * any handler runs. 0 disables the check.
+   */
+  @Builder.Default private int maxReceiveCount = 0;
+
+  /**
+   * The exceptions after which a message is moved instead of being received again. An exception
+   * matches if it, or one of its causes, is an instance of one of these classes.
+   */
+  @Builder.Default private Set<Class<? extends Throwable>> nonRetryableExceptions = Set.of();
+}
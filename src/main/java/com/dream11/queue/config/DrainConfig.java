@@ -0,0 +1,26 @@
+package com.dream11.queue.config;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+
+/**
+ * Configuration class for draining consumers on close. A draining close stops receiving, waits for
+ * received messages to be acknowledged, and makes the messages still unacknowledged visible again
+ * right away instead of after their visibility timeout.
+ */
+@Getter
+@AllArgsConstructor
+@Builder
+@NoArgsConstructor
+public class DrainConfig {
+  /** Whether closing the consumer drains it. */
+  @Builder.Default private boolean enabled = false;
+
+  /** The time in milliseconds that closing waits for received messages to be acknowledged. */
+  @Builder.Default private long timeoutMillis = 30_000;
+
+  /** Whether messages still unacknowledged after the timeout are made visible again. */
+  @Builder.Default private boolean releaseUnacknowledged = true;
+}
@@ -0,0 +1,31 @@
+package com.dream11.queue.config;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+
+/** Configuration class for the consumer engine, which runs a handler for every received message. */
+@Getter
+@AllArgsConstructor
+@Builder
+@NoArgsConstructor
+public class EngineConfig {
+  /** The maximum number of messages handled at the same time. */
+  @Builder.Default private int maxConcurrency = 64;
+
+  /** The time in seconds each receive waits for messages (long polling). */
+  @Builder.Default private int receiveTimeoutSeconds = 20;
+
+  /**
+   * Whether handlers run on virtual threads on Java 21 and later. Otherwise, and on earlier
+   * versions, handlers run on a pool of {@code maxConcurrency} platform threads.
+   */
+  @Builder.Default private boolean virtualThreads = true;
+
+  /** The time in milliseconds that closing the engine waits for running handlers. */
+  @Builder.Default private long shutdownTimeoutMillis = 30_000;
+
+  /** The configuration for pausing polling while handlers keep failing. */
+  @Builder.Default private CircuitBreakerConfig circuitBreakerConfig = new CircuitBreakerConfig();
+}
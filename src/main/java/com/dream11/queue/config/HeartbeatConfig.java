@@ -22,4 +22,10 @@ public class HeartbeatConfig {
    * many concurrent heartbeat operations can be performed.
    */
   @Builder.Default private Integer executorThreadPoolSize = 2;
+
+  /**
+   * Whether heartbeats are sent from virtual threads on Java 21 and later, so a heartbeat waiting
+   * on I/O does not hold a platform thread. Ignored on earlier versions.
+   */
+  @Builder.Default private boolean virtualThreads = false;
 }
@@ -0,0 +1,40 @@
+package com.dream11.queue.config;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+
+/**
+ * Configuration class for hedged sends. A send that has not completed within the observed latency
+ * percentile is sent again, and the first request to succeed completes the send. The duplicate
+ * request may also be delivered, so consumers must tolerate duplicates, as they must for SQS
+ * standard queues and SNS anyway. Sends whose body is offloaded to the claim-check store are not
+ * hedged.
+ */
+@Getter
+@AllArgsConstructor
+@Builder
+@NoArgsConstructor
+public class HedgingConfig {
+  /** Whether sends are hedged. */
+  @Builder.Default private boolean enabled = false;
+
+  /** The latency percentile, between 0 and 1, after which a send is hedged. */
+  @Builder.Default private double percentile = 0.95;
+
+  /** The minimum delay in milliseconds before a send is hedged. */
+  @Builder.Default private long minDelayMillis = 5;
+
+  /**
+   * The maximum delay in milliseconds before a send is hedged. It is also used until enough
+   * latencies have been observed.
+   */
+  @Builder.Default private long maxDelayMillis = 1000;
+
+  /**
+   * The maximum share of sends that are hedged. It bounds the extra load when the provider is slow
+   * for every request rather than for a few.
+   */
+  @Builder.Default private double maxHedgeRatio = 0.1;
+}
@@ -0,0 +1,37 @@
+package com.dream11.queue.config;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+
+/** Configuration class for iterating over and streaming the messages of a consumer. */
+@Getter
+@AllArgsConstructor
+@Builder
+@NoArgsConstructor
+public class IterationConfig {
+  /** The time in seconds each receive waits for messages (long polling). */
+  @Builder.Default private int receiveTimeoutSeconds = 20;
+
+  /**
+   * The number of consecutive empty receives after which iteration ends, treating the queue as
+   * drained. A value of 0 never ends iteration.
+   */
+  @Builder.Default private int emptyReceivesToDrain = 3;
+
+  /**
+   * Whether the next receive is started as soon as a batch is returned, so it overlaps with the
+   * processing of the batch.
+   */
+  @Builder.Default private boolean prefetch = true;
+
+  /** The maximum number of receives running at once when a stream is processed in parallel. */
+  @Builder.Default private int maxConcurrentReceives = 4;
+
+  /**
+   * The minimum time in milliseconds between lease checks of buffered messages. Keep it well below
+   * the time before expiry at which the consumer extends or releases a lease.
+   */
+  @Builder.Default private long leaseCheckIntervalMillis = 1000;
+}
@@ -0,0 +1,37 @@
+package com.dream11.queue.config;
+
+import com.dream11.queue.consumer.LeaseAction;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+
+/**
+ * Configuration class for tracking the leases of received messages in message queue consumers. A
+ * lease ends when the visibility timeout of a message expires, after which the message can be
+ * received again. Messages that wait in a buffer before they are processed are checked before they
+ * are dispatched, so that they are not processed after their lease expired.
+ */
+@Getter
+@AllArgsConstructor
+@Builder
+@NoArgsConstructor
+public class LeaseConfig {
+  /** Whether leases are tracked. */
+  @Builder.Default private boolean enabled = false;
+
+  /**
+   * The visibility timeout in seconds requested with every receive, and requested again when a
+   * lease is extended.
+   */
+  @Builder.Default private int visibilityTimeoutSeconds = 30;
+
+  /**
+   * The minimum time in milliseconds left on a lease for a message to be dispatched as is. Leases
+   * with less time left are extended or released.
+   */
+  @Builder.Default private long minRemainingMillis = 5_000;
+
+  /** What is done with messages whose lease has less than the minimum time left. */
+  @Builder.Default private LeaseAction action = LeaseAction.EXTEND;
+}
@@ -0,0 +1,42 @@
+package com.dream11.queue.config;
+
+import com.dream11.queue.consumer.PollingPolicy;
+import java.util.List;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+
+/**
+ * Configuration class for consumers over several queues, such as separate high, normal and low
+ * priority queues that share one consumer engine.
+ */
+@Getter
+@AllArgsConstructor
+@Builder
+@NoArgsConstructor
+public class MultiQueueConfig {
+  /** The order in which the queues are polled. */
+  @Builder.Default private PollingPolicy policy = PollingPolicy.PRIORITY;
+
+  /**
+   * The weights of the queues for weighted polling, in the order of the queues. Queues without a
+   * weight have a weight of 1.
+   */
+  @Builder.Default private List<Integer> weights = List.of();
+
+  /**
+   * The time in milliseconds after which a queue that has not been polled is polled before the
+   * queues the policy prefers, so that busy queues cannot starve it. A value of 0 disables this.
+   */
+  @Builder.Default private long maxStarvationMillis = 10_000;
+
+  /**
+   * The time in milliseconds a queue is not polled after a poll returned no messages. It doubles
+   * with every further empty poll.
+   */
+  @Builder.Default private long idleBackoffMillis = 500;
+
+  /** The maximum time in milliseconds a queue is not polled after polls returned no messages. */
+  @Builder.Default private long maxIdleBackoffMillis = 10_000;
+}
@@ -0,0 +1,37 @@
+package com.dream11.queue.config;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+
+/**
+ * Configuration class for consumers that multiplex many queues, most of them idle, over one shared
+ * client and a few concurrent receives.
+ */
+@Getter
+@AllArgsConstructor
+@Builder
+@NoArgsConstructor
+public class MultiplexConfig {
+  /** The maximum number of receives in flight at the same time, across all queues. */
+  @Builder.Default private int pollSlots = 10;
+
+  /**
+   * The maximum time in seconds a receive waits for messages (long polling). A queue is only
+   * long-polled until the next queue is due to be polled.
+   */
+  @Builder.Default private int maxWaitSeconds = 20;
+
+  /**
+   * The time in milliseconds a queue is not polled after a receive returned no messages. It doubles
+   * with every further empty receive. Queues that return messages are polled again right away.
+   */
+  @Builder.Default private long idleBackoffMillis = 1_000;
+
+  /**
+   * The maximum time in milliseconds a queue is not polled after receives returned no messages,
+   * which bounds the pickup latency of idle queues.
+   */
+  @Builder.Default private long maxIdleBackoffMillis = 60_000;
+}
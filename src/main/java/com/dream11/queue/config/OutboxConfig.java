@@ -0,0 +1,43 @@
+package com.dream11.queue.config;
+
+import com.dream11.queue.outbox.FsyncPolicy;
+import java.nio.file.Path;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+
+/**
+ * Configuration class for the local outbox of message queue producers. When enabled, sends are
+ * appended to segment files on local disk and published by a background drainer, so they survive
+ * provider outages and process restarts.
+ */
+@Getter
+@AllArgsConstructor
+@Builder
+@NoArgsConstructor
+public class OutboxConfig {
+  /** The directory holding the segment files. A null value disables the outbox. */
+  private Path directory;
+
+  /** The size in bytes of each memory-mapped segment file. */
+  @Builder.Default private int segmentBytes = 16 * 1024 * 1024;
+
+  /** The maximum disk space in bytes used by segment files. Appends fail when it is reached. */
+  @Builder.Default private long maxDiskBytes = 1024L * 1024 * 1024;
+
+  /** When appended records are forced to disk. */
+  @Builder.Default private FsyncPolicy fsyncPolicy = FsyncPolicy.INTERVAL;
+
+  /** The interval in milliseconds between forces with {@link FsyncPolicy#INTERVAL}. */
+  @Builder.Default private long fsyncIntervalMillis = 1000;
+
+  /** The maximum number of records the drainer sends concurrently. */
+  @Builder.Default private int drainBatchSize = 10;
+
+  /** The initial delay in milliseconds before retrying records that failed to send. */
+  @Builder.Default private long retryBackoffMillis = 100;
+
+  /** The maximum delay in milliseconds between retries. */
+  @Builder.Default private long maxRetryBackoffMillis = 30_000;
+}
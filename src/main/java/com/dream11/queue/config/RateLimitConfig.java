@@ -0,0 +1,22 @@
+package com.dream11.queue.config;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+
+/**
+ * Configuration class for rate limiting. Producers take one permit per message sent, and consumers
+ * take one permit per message received.
+ */
+@Getter
+@AllArgsConstructor
+@Builder
+@NoArgsConstructor
+public class RateLimitConfig {
+  /** The sustained rate in permits per second. A value of 0 disables rate limiting. */
+  @Builder.Default private double permitsPerSecond = 0;
+
+  /** The number of permits that can be taken at once after an idle period. */
+  @Builder.Default private int burst = 1;
+}
@@ -0,0 +1,39 @@
+package com.dream11.queue.config;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+
+/**
+ * Configuration class for retrying failed requests and failed entries of batch requests. Retries
+ * wait a random delay up to an exponentially growing bound (full jitter), with a larger base delay
+ * when the provider throttles. Every retry takes tokens from a retry budget, and successes give
+ * tokens back, so retries stop while most requests are failing instead of multiplying the load.
+ */
+@Getter
+@AllArgsConstructor
+@Builder
+@NoArgsConstructor
+public class RetryConfig {
+  /** The maximum number of retries of a request or batch entry. */
+  @Builder.Default private int maxRetries = 3;
+
+  /** The base delay in milliseconds of the backoff after a transient failure. */
+  @Builder.Default private long baseDelayMillis = 100;
+
+  /** The base delay in milliseconds of the backoff after the provider throttled a request. */
+  @Builder.Default private long throttlingBaseDelayMillis = 500;
+
+  /** The maximum delay in milliseconds between two attempts. */
+  @Builder.Default private long maxBackoffMillis = 20_000;
+
+  /** The number of tokens in the retry budget. A value of 0 disables the budget. */
+  @Builder.Default private int retryBudget = 500;
+
+  /** The tokens a retry after a transient failure takes from the budget. */
+  @Builder.Default private int retryCost = 5;
+
+  /** The tokens a retry after throttling takes from the budget. */
+  @Builder.Default private int throttlingRetryCost = 5;
+}
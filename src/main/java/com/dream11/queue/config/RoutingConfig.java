@@ -0,0 +1,40 @@
+package com.dream11.queue.config;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+
+/**
+ * Configuration class for producers that choose the destination queue or topic per send. The
+ * encoding options apply to every destination.
+ */
+@Getter
+@AllArgsConstructor
+@Builder
+@NoArgsConstructor
+public class RoutingConfig {
+  /**
+   * The AWS region used for queue names and for queue URLs that do not name a region, such as
+   * URLs of a local endpoint.
+   */
+  private String region;
+
+  /** The endpoint used for every region instead of the default endpoint. */
+  private String endpoint;
+
+  /** Whether queue URLs looked up for queue names are cached. */
+  @Builder.Default private boolean cacheQueueUrls = true;
+
+  /** The configuration for encoding message attributes. */
+  @Builder.Default private AttributeConfig attributeConfig = new AttributeConfig();
+
+  /** The configuration for compressing message bodies. */
+  @Builder.Default private CompressionConfig compressionConfig = new CompressionConfig();
+
+  /** The configuration for offloading large message bodies to a blob store. */
+  @Builder.Default private ClaimCheckConfig claimCheckConfig = new ClaimCheckConfig();
+
+  /** The configuration for retrying failed requests. */
+  @Builder.Default private RetryConfig retryConfig = new RetryConfig();
+}
@@ -0,0 +1,19 @@
+package com.dream11.queue.config;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+
+/** Configuration class for spreading messages across shard queues. */
+@Getter
+@AllArgsConstructor
+@Builder
+@NoArgsConstructor
+public class ShardingConfig {
+  /**
+   * The number of points each shard takes on the hash ring. More points spread keys more evenly at
+   * the cost of a larger ring.
+   */
+  @Builder.Default private int virtualNodes = 128;
+}
@@ -0,0 +1,28 @@
+package com.dream11.queue.config;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+
+/**
+ * Configuration class for the default deadlines of provider requests. A request past its deadline
+ * is aborted and its connection is released. Per-call deadlines can be set with the {@code
+ * Duration} overloads of the producer and consumer methods.
+ */
+@Getter
+@AllArgsConstructor
+@Builder
+@NoArgsConstructor
+public class TimeoutConfig {
+  /**
+   * The deadline in milliseconds for a whole request, including retries. A value of 0 uses the SDK
+   * default.
+   */
+  @Builder.Default private long apiCallTimeoutMillis = 0;
+
+  /**
+   * The deadline in milliseconds for each attempt of a request. A value of 0 uses the SDK default.
+   */
+  @Builder.Default private long apiCallAttemptTimeoutMillis = 0;
+}
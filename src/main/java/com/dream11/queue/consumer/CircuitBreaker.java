@@ -0,0 +1,181 @@
+package com.dream11.queue.consumer;
+
+import com.dream11.queue.config.CircuitBreakerConfig;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Circuit breaker over the outcomes of handled messages. The circuit opens when the failure rate of
+ * the most recent messages reaches the threshold, and stays open for the configured time. It then
+ * lets one message through at a time as a probe, closing again after enough consecutive probes
+ * succeed and opening again as soon as one fails or runs longer than the open time.
+ */
+final class CircuitBreaker {
+  private static final long MIN_WAIT_NANOS = TimeUnit.MILLISECONDS.toNanos(1);
+
+  /** What a message dispatched by the engine is allowed to be. */
+  enum Permit {
+    /** A message handled while the circuit is closed. */
+    CALL,
+
+    /** A message handled alone while the circuit is half-open. */
+    PROBE,
+
+    /** The message must not be handled, as the circuit is open or a probe is in flight. */
+    DENIED
+  }
+
+  private final CircuitBreakerConfig circuitBreakerConfig;
+  private final boolean[] window;
+  private int windowCount;
+  private int windowIndex;
+  private int windowFailures;
+  private CircuitBreakerState state = CircuitBreakerState.CLOSED;
+  private long openUntilNanos;
+  private boolean probeInFlight;
+  private long probeStartedNanos;
+  private boolean probeAbandoned;
+  private int succeededProbes;
+
+  CircuitBreaker(CircuitBreakerConfig circuitBreakerConfig) {
+    if (circuitBreakerConfig.getWindowSize() <= 0
+        || circuitBreakerConfig.getHalfOpenProbes() <= 0) {
+      throw new IllegalArgumentException("windowSize and halfOpenProbes must be positive");
+    }
+    this.circuitBreakerConfig = circuitBreakerConfig;
+    this.window = new boolean[circuitBreakerConfig.getWindowSize()];
+  }
+
+  /**
+   * Waits while the circuit is open, or half-open with a probe in flight. A probe still in flight
+   * after the open time is abandoned: the circuit opens again and stays open until the abandoned
+   * probe completes, and the outcome of that probe is ignored.
+   *
+   * @return True if a probe was abandoned, opening the circuit again, in which case the caller must
+   *     wait again; false once messages may be received.
+   * @throws InterruptedException if the thread is interrupted while waiting.
+   */
+  synchronized boolean awaitPermission() throws InterruptedException {
+    long openNanos = TimeUnit.MILLISECONDS.toNanos(this.circuitBreakerConfig.getOpenMillis());
+    while (true) {
+      long now = System.nanoTime();
+      if (this.state == CircuitBreakerState.OPEN) {
+        long remaining = this.openUntilNanos - now;
+        if (remaining > 0) {
+          TimeUnit.NANOSECONDS.timedWait(this, remaining);
+        } else if (this.probeAbandoned) {
+          TimeUnit.NANOSECONDS.timedWait(this, Math.max(openNanos, MIN_WAIT_NANOS));
+        } else {
+          this.state = CircuitBreakerState.HALF_OPEN;
+          this.succeededProbes = 0;
+        }
+      } else if (this.state == CircuitBreakerState.HALF_OPEN && this.probeInFlight) {
+        long remaining = this.probeStartedNanos + openNanos - now;
+        if (remaining > 0) {
+          TimeUnit.NANOSECONDS.timedWait(this, remaining);
+        } else {
+          this.probeInFlight = false;
+          this.probeAbandoned = true;
+          this.open();
+          return true;
+        }
+      } else {
+        return false;
+      }
+    }
+  }
+
+  /**
+   * Returns whether a message may be handled now, and as what.
+   *
+   * @return The permit of the message.
+   */
+  synchronized Permit tryAcquire() {
+    switch (this.state) {
+      case CLOSED:
+        return Permit.CALL;
+      case HALF_OPEN:
+        if (this.probeInFlight) {
+          return Permit.DENIED;
+        }
+        this.probeInFlight = true;
+        this.probeStartedNanos = System.nanoTime();
+        return Permit.PROBE;
+      default:
+        return Permit.DENIED;
+    }
+  }
+
+  /**
+   * Records the outcome of a handled message.
+   *
+   * @param permit The permit the message was handled with.
+   * @param failed Whether the message failed.
+   * @return True if the circuit opened because of this outcome.
+   */
+  synchronized boolean record(Permit permit, boolean failed) {
+    if (permit == Permit.PROBE) {
+      this.notifyAll();
+      if (this.probeAbandoned) {
+        this.probeAbandoned = false;
+        return false;
+      }
+      this.probeInFlight = false;
+      if (failed) {
+        this.open();
+        return true;
+      }
+      if (++this.succeededProbes >= this.circuitBreakerConfig.getHalfOpenProbes()) {
+        this.state = CircuitBreakerState.CLOSED;
+      }
+      return false;
+    }
+    // Outcomes of messages dispatched before the circuit opened do not count.
+    if (permit != Permit.CALL || this.state != CircuitBreakerState.CLOSED) {
+      return false;
+    }
+    if (this.windowCount == this.window.length) {
+      this.windowFailures -= this.window[this.windowIndex] ? 1 : 0;
+    } else {
+      this.windowCount++;
+    }
+    this.window[this.windowIndex] = failed;
+    this.windowFailures += failed ? 1 : 0;
+    this.windowIndex = (this.windowIndex + 1) % this.window.length;
+    if (this.windowCount == this.window.length
+        && this.windowFailures
+            >= this.circuitBreakerConfig.getFailureRateThreshold() * this.window.length) {
+      this.open();
+      return true;
+    }
+    return false;
+  }
+
+  /**
+   * Returns whether a handler that ran for the given time counts as failed.
+   *
+   * @param nanos The time the handler ran.
+   * @return True if the handler was slower than the configured slow call time.
+   */
+  boolean isSlow(long nanos) {
+    long slowCallMillis = this.circuitBreakerConfig.getSlowCallMillis();
+    return slowCallMillis > 0 && nanos > TimeUnit.MILLISECONDS.toNanos(slowCallMillis);
+  }
+
+  synchronized CircuitBreakerState getState() {
+    if (this.state == CircuitBreakerState.OPEN
+        && !this.probeAbandoned
+        && this.openUntilNanos - System.nanoTime() <= 0) {
+      return CircuitBreakerState.HALF_OPEN;
+    }
+    return this.state;
+  }
+
+  private void open() {
+    this.state = CircuitBreakerState.OPEN;
+    long openNanos = TimeUnit.MILLISECONDS.toNanos(this.circuitBreakerConfig.getOpenMillis());
+    this.openUntilNanos = System.nanoTime() + openNanos;
+    this.windowCount = 0;
+    this.windowIndex = 0;
+    this.windowFailures = 0;
+  }
+}
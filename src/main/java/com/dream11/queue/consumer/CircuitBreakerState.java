@@ -0,0 +1,13 @@
+package com.dream11.queue.consumer;
+
+/** The state of the circuit breaker of a consumer engine. */
+public enum CircuitBreakerState {
+  /** Messages are received and handled as usual. */
+  CLOSED,
+
+  /** Handlers failed too often, so no messages are received. */
+  OPEN,
+
+  /** Messages are handled one at a time, as probes of whether handlers succeed again. */
+  HALF_OPEN
+}
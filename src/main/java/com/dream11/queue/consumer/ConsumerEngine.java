@@ -0,0 +1,410 @@
+package com.dream11.queue.consumer;
+
+import com.dream11.queue.Message;
+import com.dream11.queue.config.CircuitBreakerConfig;
+import com.dream11.queue.config.EngineConfig;
+import com.dream11.queue.util.Threads;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Runs a handler for every message received by a consumer. A poller thread receives messages
+ * while fewer than the configured number are being handled, and each message is handled on its own
+ * thread, then acknowledged if the handler returns normally. Messages whose handler throws are not
+ * acknowledged, so they are received again once their visibility timeout expires, unless the
+ * consumer moves them to a dead-letter queue with {@link MessageConsumer#reject}. Messages that
+ * wait for a free handler have their leases checked with {@link MessageConsumer#refreshLeases}
+ * before they are dispatched. On Java 21 and later handlers run on virtual threads, so blocking
+ * handlers do not need a large thread pool.
+ *
+ * <p>With the circuit breaker enabled, polling stops while too many handlers fail or run slowly,
+ * and messages received but not yet dispatched are released when the circuit opens. Once the
+ * circuit has been open for the configured time, messages are received and handled one at a time
+ * as probes until enough of them succeed. A probe that runs longer than the open time opens the
+ * circuit again.
+ */
+@Slf4j
+public class ConsumerEngine implements AutoCloseable {
+  private static final long RECEIVE_FAILURE_BACKOFF_MILLIS = 1000;
+
+  private final MessageConsumer consumer;
+  private final MessageHandler handler;
+  private final EngineConfig engineConfig;
+  private final Semaphore permits;
+  private final ExecutorService handlerExecutor;
+  private final Thread poller;
+  private final AtomicBoolean started = new AtomicBoolean();
+  private final AtomicInteger inFlightMessages = new AtomicInteger();
+  private final LongAdder handledMessages = new LongAdder();
+  private final LongAdder failedMessages = new LongAdder();
+  private final LongAdder failedAcknowledgements = new LongAdder();
+  private final LongAdder releasedMessages = new LongAdder();
+  private final LongAdder deadLetteredMessages = new LongAdder();
+  private final LongAdder circuitBreakerTrips = new LongAdder();
+  private final CircuitBreaker circuitBreaker;
+  private volatile boolean running;
+  private volatile CompletableFuture<List<Message>> pendingReceive;
+
+  /**
+   * Constructs a new ConsumerEngine with the default configuration.
+   *
+   * @param consumer The consumer to receive messages from.
+   * @param handler The handler run for every message.
+   */
+  public ConsumerEngine(MessageConsumer consumer, MessageHandler handler) {
+    this(consumer, handler, new EngineConfig());
+  }
+
+  /**
+   * Constructs a new ConsumerEngine with the given configuration. The engine does not start
+   * polling until {@link #start} is called.
+   *
+   * @param consumer The consumer to receive messages from.
+   * @param handler The handler run for every message.
+   * @param engineConfig The engine configuration.
+   */
+  public ConsumerEngine(
+      MessageConsumer consumer, MessageHandler handler, EngineConfig engineConfig) {
+    if (engineConfig.getMaxConcurrency() <= 0) {
+      throw new IllegalArgumentException("maxConcurrency must be positive");
+    }
+    this.consumer = consumer;
+    this.handler = handler;
+    this.engineConfig = engineConfig;
+    this.permits = new Semaphore(engineConfig.getMaxConcurrency());
+    this.handlerExecutor =
+        Threads.newHandlerExecutor(
+            "message-kit-handler",
+            engineConfig.getMaxConcurrency(),
+            engineConfig.isVirtualThreads());
+    this.poller = new Thread(this::poll, "message-kit-poller");
+    this.circuitBreaker = newCircuitBreaker(engineConfig.getCircuitBreakerConfig());
+  }
+
+  /**
+   * Starts polling the consumer.
+   *
+   * @throws IllegalStateException if the engine has already been started.
+   */
+  public void start() {
+    if (!this.started.compareAndSet(false, true)) {
+      throw new IllegalStateException("Engine has already been started");
+    }
+    this.running = true;
+    this.poller.start();
+  }
+
+  /**
+   * Returns the number of messages handled and acknowledged.
+   *
+   * @return The number of handled messages.
+   */
+  public long getHandledMessages() {
+    return this.handledMessages.sum();
+  }
+
+  /**
+   * Returns the number of messages whose handler failed.
+   *
+   * @return The number of failed messages.
+   */
+  public long getFailedMessages() {
+    return this.failedMessages.sum();
+  }
+
+  /**
+   * Returns the number of messages handled successfully whose acknowledgement failed. These
+   * messages are not rejected, and are received again, right away if the consumer releases them or
+   * otherwise after their visibility timeout.
+   *
+   * @return The number of failed acknowledgements.
+   */
+  public long getFailedAcknowledgements() {
+    return this.failedAcknowledgements.sum();
+  }
+
+  /**
+   * Returns the number of received messages that were released without being handled because the
+   * engine was closing.
+   *
+   * @return The number of released messages.
+   */
+  public long getReleasedMessages() {
+    return this.releasedMessages.sum();
+  }
+
+  /**
+   * Returns the number of failed messages that the consumer moved to a dead-letter queue.
+   *
+   * @return The number of dead-lettered messages.
+   */
+  public long getDeadLetteredMessages() {
+    return this.deadLetteredMessages.sum();
+  }
+
+  /**
+   * Returns the number of times the circuit breaker opened, including when a probe timed out.
+   *
+   * @return The number of circuit breaker trips.
+   */
+  public long getCircuitBreakerTrips() {
+    return this.circuitBreakerTrips.sum();
+  }
+
+  /**
+   * Returns the state of the circuit breaker.
+   *
+   * @return The circuit breaker state, always closed if the circuit breaker is disabled.
+   */
+  public CircuitBreakerState getCircuitBreakerState() {
+    return this.circuitBreaker == null
+        ? CircuitBreakerState.CLOSED
+        : this.circuitBreaker.getState();
+  }
+
+  /**
+   * Returns the number of messages being handled.
+   *
+   * @return The number of messages in flight.
+   */
+  public int getInFlightMessages() {
+    return this.inFlightMessages.get();
+  }
+
+  /**
+   * Stops polling and waits for running handlers to finish, up to the configured shutdown timeout.
+   * Handlers still running after the timeout are interrupted. Messages received but not yet handed
+   * to a handler are released, so they can be received again right away. The consumer is not
+   * closed.
+   */
+  @Override
+  public void close() {
+    this.running = false;
+    CompletableFuture<List<Message>> receive = this.pendingReceive;
+    if (receive != null) {
+      receive.cancel(true);
+    }
+    this.poller.interrupt();
+    this.handlerExecutor.shutdown();
+    try {
+      if (!this.handlerExecutor.awaitTermination(
+          this.engineConfig.getShutdownTimeoutMillis(), TimeUnit.MILLISECONDS)) {
+        log.warn("Handlers did not finish within the shutdown timeout, interrupting them");
+        this.handlerExecutor.shutdownNow();
+      }
+      // The poller releases the messages it received but did not dispatch before it exits.
+      this.poller.join(this.engineConfig.getShutdownTimeoutMillis());
+    } catch (InterruptedException e) {
+      this.handlerExecutor.shutdownNow();
+      Thread.currentThread().interrupt();
+    }
+  }
+
+  private void poll() {
+    while (this.running) {
+      try {
+        // No messages are received while the circuit is open or a probe is in flight.
+        while (this.circuitBreaker != null && this.circuitBreaker.awaitPermission()) {
+          this.circuitBreakerTrips.increment();
+          log.warn("Circuit breaker probe timed out, pausing polling");
+        }
+        // Hold a permit across the receive so it is only issued when a handler slot is free.
+        this.permits.acquire();
+        List<Message> messages;
+        try {
+          messages = this.receive();
+        } catch (RuntimeException | ExecutionException e) {
+          this.permits.release();
+          throw e;
+        }
+        this.dispatch(messages);
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        return;
+      } catch (CancellationException e) {
+        log.debug("Receive cancelled");
+      } catch (RuntimeException | ExecutionException e) {
+        log.error("Failed to receive messages", e);
+        if (!this.sleep(RECEIVE_FAILURE_BACKOFF_MILLIS)) {
+          return;
+        }
+      }
+    }
+  }
+
+  private List<Message> receive() throws InterruptedException, ExecutionException {
+    int timeout = this.engineConfig.getReceiveTimeoutSeconds();
+    // A half-open circuit handles one probe at a time, so only one message is received for it.
+    CompletableFuture<List<Message>> receive =
+        this.circuitBreaker != null
+                && this.circuitBreaker.getState() == CircuitBreakerState.HALF_OPEN
+            ? this.consumer.receive(timeout, 1)
+            : this.consumer.receive(timeout);
+    this.pendingReceive = receive;
+    if (!this.running) {
+      receive.cancel(true);
+    }
+    return receive.get();
+  }
+
+  private void dispatch(List<Message> messages) throws InterruptedException {
+    if (messages.isEmpty()) {
+      this.permits.release();
+      return;
+    }
+    List<Message> pending = messages;
+    boolean first = true;
+    while (!pending.isEmpty()) {
+      try {
+        if (!first) {
+          this.permits.acquire();
+        }
+      } catch (InterruptedException e) {
+        this.release(pending);
+        throw e;
+      }
+      first = false;
+      if (!this.running) {
+        this.permits.release();
+        this.release(pending);
+        return;
+      }
+      // The remaining messages may have waited for a handler slot longer than their lease allows.
+      // Check them before taking a permit of the circuit, so that a probe is never taken for a
+      // message that is then dropped.
+      pending = this.refreshLeases(pending);
+      if (pending.isEmpty()) {
+        this.permits.release();
+        return;
+      }
+      CircuitBreaker.Permit permit =
+          this.circuitBreaker == null
+              ? CircuitBreaker.Permit.CALL
+              : this.circuitBreaker.tryAcquire();
+      if (permit == CircuitBreaker.Permit.DENIED) {
+        // The circuit opened, or the first message is the only probe while it is half-open.
+        this.permits.release();
+        this.release(pending);
+        return;
+      }
+      Message message = pending.get(0);
+      this.inFlightMessages.incrementAndGet();
+      try {
+        this.handlerExecutor.execute(() -> this.handle(message, permit));
+      } catch (RejectedExecutionException e) {
+        this.inFlightMessages.decrementAndGet();
+        this.permits.release();
+        this.record(permit, false);
+        this.release(pending);
+        return;
+      }
+      pending = pending.subList(1, pending.size());
+    }
+  }
+
+  private List<Message> refreshLeases(List<Message> messages) {
+    try {
+      return this.consumer.refreshLeases(messages).join();
+    } catch (RuntimeException e) {
+      log.warn("Failed to check the leases of {} buffered messages", messages.size(), e);
+      return messages;
+    }
+  }
+
+  private void release(List<Message> messages) {
+    try {
+      // join() rather than get(), as the poller is usually interrupted by close() at this point.
+      this.consumer.release(new ArrayList<>(messages)).join();
+      this.releasedMessages.add(messages.size());
+    } catch (RuntimeException e) {
+      log.warn("Failed to release {} unhandled messages", messages.size(), e);
+    }
+  }
+
+  private void handle(Message message, CircuitBreaker.Permit permit) {
+    boolean failed = false;
+    try {
+      long startNanos = System.nanoTime();
+      try {
+        this.handler.handle(message);
+      } catch (InterruptedException e) {
+        this.failedMessages.increment();
+        Thread.currentThread().interrupt();
+        return;
+      } catch (Exception e) {
+        this.failedMessages.increment();
+        log.error("Failed to handle message", e);
+        // Poison messages moved to a dead-letter queue do not mean that handlers are failing.
+        failed = !this.reject(message, e);
+        return;
+      }
+      failed =
+          this.circuitBreaker != null
+              && this.circuitBreaker.isSlow(System.nanoTime() - startNanos);
+      this.acknowledge(message);
+    } finally {
+      // Record first, so the poller does not dispatch another message before the circuit opens.
+      this.record(permit, failed);
+      this.inFlightMessages.decrementAndGet();
+      this.permits.release();
+    }
+  }
+
+  private void acknowledge(Message message) {
+    // The message was handled, so a failed acknowledgement must not reject it.
+    try {
+      this.consumer.acknowledgeMessage(message).get();
+      this.handledMessages.increment();
+    } catch (InterruptedException e) {
+      this.failedAcknowledgements.increment();
+      Thread.currentThread().interrupt();
+    } catch (ExecutionException | RuntimeException e) {
+      this.failedAcknowledgements.increment();
+      log.error("Failed to acknowledge message", e);
+    }
+  }
+
+  private boolean reject(Message message, Exception error) {
+    try {
+      if (this.consumer.reject(message, error).join()) {
+        this.deadLetteredMessages.increment();
+        return true;
+      }
+    } catch (RuntimeException e) {
+      log.warn("Failed to reject message", e);
+    }
+    return false;
+  }
+
+  private void record(CircuitBreaker.Permit permit, boolean failed) {
+    if (this.circuitBreaker != null && this.circuitBreaker.record(permit, failed)) {
+      this.circuitBreakerTrips.increment();
+      log.warn("Circuit breaker opened, pausing polling");
+    }
+  }
+
+  private static CircuitBreaker newCircuitBreaker(CircuitBreakerConfig circuitBreakerConfig) {
+    return circuitBreakerConfig.isEnabled() ? new CircuitBreaker(circuitBreakerConfig) : null;
+  }
+
+  private boolean sleep(long millis) {
+    try {
+      Thread.sleep(millis);
+      return true;
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      return false;
+    }
+  }
+}
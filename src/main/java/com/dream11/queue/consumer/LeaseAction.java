@@ -0,0 +1,10 @@
+package com.dream11.queue.consumer;
+
+/** What a consumer does with a buffered message whose lease is about to expire. */
+public enum LeaseAction {
+  /** Extend the lease, so the message is still processed by this consumer. */
+  EXTEND,
+
+  /** Release the message, so it can be received again right away by any consumer. */
+  RELEASE
+}
@@ -1,14 +1,22 @@
 package com.dream11.queue.consumer;
 
 import com.dream11.queue.Message;
+import com.dream11.queue.config.IterationConfig;
+import com.dream11.queue.util.Futures;
+import java.time.Duration;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Spliterator;
+import java.util.Spliterators;
 import java.util.concurrent.CompletableFuture;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 /**
  * Interface for consuming messages from a message queue. Implementations of this interface handle
  * the specifics of receiving and acknowledging messages from different message queue providers.
  */
-public interface MessageConsumer extends AutoCloseable {
+public interface MessageConsumer extends AutoCloseable, Iterable<Message> {
   /**
    * Receives a list of messages asynchronously. The number of messages received will depend on the
    * configuration of the consumer.
@@ -26,6 +34,32 @@ public interface MessageConsumer extends AutoCloseable {
    */
   CompletableFuture<List<Message>> receive(int timeout);
 
+  /**
+   * Receives at most the given number of messages asynchronously with a specified timeout.
+   * Consumers that cannot limit a receive receive as many messages as configured, so callers must
+   * handle any extra messages.
+   *
+   * @param timeout The timeout in seconds to wait for messages.
+   * @param maxMessages The maximum number of messages to receive.
+   * @return A CompletableFuture containing a list of received messages. By default the messages of
+   *     {@link #receive(int)}.
+   */
+  default CompletableFuture<List<Message>> receive(int timeout, int maxMessages) {
+    return this.receive(timeout);
+  }
+
+  /**
+   * Receives a list of messages asynchronously, failing the returned future with a {@link
+   * java.util.concurrent.TimeoutException} if the receive has not completed within the deadline.
+   *
+   * @param timeout The timeout in seconds to wait for messages.
+   * @param deadline The deadline. Null, zero or negative values wait indefinitely.
+   * @return A CompletableFuture containing a list of received messages.
+   */
+  default CompletableFuture<List<Message>> receive(int timeout, Duration deadline) {
+    return Futures.withDeadline(this.receive(timeout), deadline);
+  }
+
   /**
    * Acknowledges a message, indicating that it has been processed. This typically removes the
    * message from the queue or marks it as processed.
@@ -35,6 +69,61 @@ public interface MessageConsumer extends AutoCloseable {
    */
   CompletableFuture<Void> acknowledgeMessage(Message message);
 
+  /**
+   * Acknowledges a message, failing the returned future with a {@link
+   * java.util.concurrent.TimeoutException} if the acknowledgement has not completed within the
+   * deadline.
+   *
+   * @param message The message to acknowledge.
+   * @param deadline The deadline. Null, zero or negative values wait indefinitely.
+   * @return A CompletableFuture that completes when the message is acknowledged.
+   */
+  default CompletableFuture<Void> acknowledgeMessage(Message message, Duration deadline) {
+    return Futures.withDeadline(this.acknowledgeMessage(message), deadline);
+  }
+
+  /**
+   * Releases received messages that will not be processed, so that they can be received again
+   * right away instead of after their visibility timeout. Released messages must not be
+   * acknowledged afterwards.
+   *
+   * @param messages The messages to release.
+   * @return A CompletableFuture that completes when the messages are released, failed with an
+   *     {@link UnsupportedOperationException} if the consumer cannot release messages.
+   */
+  default CompletableFuture<Void> release(List<Message> messages) {
+    return CompletableFuture.failedFuture(
+        new UnsupportedOperationException("Releasing messages is not supported"));
+  }
+
+  /**
+   * Checks the leases of received messages that waited in a buffer before they are dispatched.
+   * Consumers that track leases extend or release the messages whose visibility timeout is about
+   * to expire, and drop the messages whose visibility timeout has already expired, so that they
+   * are not processed twice.
+   *
+   * @param messages The buffered messages.
+   * @return A CompletableFuture containing the messages that can be dispatched, in order. By
+   *     default all of them.
+   */
+  default CompletableFuture<List<Message>> refreshLeases(List<Message> messages) {
+    return CompletableFuture.completedFuture(messages);
+  }
+
+  /**
+   * Reports a message whose processing failed. Consumers with a dead-letter queue move the message
+   * there right away when the failure is non-retryable, so that it is not received and processed
+   * again.
+   *
+   * @param message The message whose processing failed.
+   * @param error The failure.
+   * @return A CompletableFuture containing true if the message was moved to a dead-letter queue. By
+   *     default false, and the message is received again after its visibility timeout.
+   */
+  default CompletableFuture<Boolean> reject(Message message, Throwable error) {
+    return CompletableFuture.completedFuture(false);
+  }
+
   /**
    * Sends a heartbeat for the given message.
    *
@@ -43,6 +132,57 @@ public interface MessageConsumer extends AutoCloseable {
    */
   CompletableFuture<Void> sendHeartbeat(Message message);
 
+  /**
+   * Returns a blocking iterator over the messages of the queue, so that {@code for (Message message
+   * : consumer)} receives messages as the loop consumes them. Iteration ends after three
+   * consecutive empty receives. Messages are not acknowledged by the iterator.
+   *
+   * <p>The iterator has no close path. If the loop ends before iteration does, the messages it
+   * prefetched are not released and stay invisible until their visibility timeout expires. Use
+   * {@link #stream(IterationConfig)} in a try-with-resources statement to release them.
+   *
+   * @return A blocking iterator over received messages.
+   */
+  @Override
+  default Iterator<Message> iterator() {
+    return Spliterators.iterator(this.spliterator());
+  }
+
+  /**
+   * Returns a blocking spliterator over the messages of the queue, configured with the defaults of
+   * {@link IterationConfig}.
+   *
+   * @return A blocking spliterator over received messages.
+   */
+  @Override
+  default Spliterator<Message> spliterator() {
+    return new MessageSpliterator(this, new IterationConfig());
+  }
+
+  /**
+   * Returns a stream of the messages of the queue, configured with the defaults of {@link
+   * IterationConfig}.
+   *
+   * @return A stream of received messages.
+   */
+  default Stream<Message> stream() {
+    return this.stream(new IterationConfig());
+  }
+
+  /**
+   * Returns a stream of the messages of the queue. Messages are received lazily as the stream is
+   * consumed, and the stream ends once the queue looks drained. A parallel stream receives with
+   * several concurrent receives. Closing the stream cancels its pending receives. Messages are not
+   * acknowledged by the stream.
+   *
+   * @param iterationConfig The iteration configuration.
+   * @return A stream of received messages.
+   */
+  default Stream<Message> stream(IterationConfig iterationConfig) {
+    MessageSpliterator spliterator = new MessageSpliterator(this, iterationConfig);
+    return StreamSupport.stream(spliterator, false).onClose(spliterator::close);
+  }
+
   /**
    * Closes the message consumer, releasing any resources. This method should be called when the
    * consumer is no longer needed.
@@ -0,0 +1,19 @@
+package com.dream11.queue.consumer;
+
+import com.dream11.queue.Message;
+
+/**
+ * Handles messages received by a {@link ConsumerEngine}. Handlers may block; the engine runs each
+ * message on its own thread, virtual on Java 21 and later.
+ */
+@FunctionalInterface
+public interface MessageHandler {
+  /**
+   * Handles a message. The message is acknowledged if this method returns normally, and received
+   * again after its visibility timeout if it throws.
+   *
+   * @param message The message to handle.
+   * @throws Exception if the message could not be handled.
+   */
+  void handle(Message message) throws Exception;
+}
@@ -0,0 +1,156 @@
+package com.dream11.queue.consumer;
+
+import com.dream11.queue.Message;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Routes the acknowledgements, releases, lease checks, rejections and heartbeats of received
+ * messages to the consumer each message was received from, for consumers over several queues. The
+ * consumer of a message is forgotten once the message is acknowledged, released or rejected,
+ * whether or not that succeeded, and once a lease check drops it.
+ */
+public class MessageRouter {
+  /** The consumer each received message came from. */
+  private final Map<Message, MessageConsumer> owners =
+      Collections.synchronizedMap(new IdentityHashMap<>());
+
+  /**
+   * Records the consumer that received the messages.
+   *
+   * @param messages The received messages.
+   * @param consumer The consumer that received them.
+   */
+  public void received(List<Message> messages, MessageConsumer consumer) {
+    messages.forEach(message -> this.owners.put(message, consumer));
+  }
+
+  /**
+   * Acknowledges a message with the consumer that received it.
+   *
+   * @param message The message.
+   * @return The acknowledgement, failed with an IllegalArgumentException if the message is unknown.
+   */
+  public CompletableFuture<Void> acknowledgeMessage(Message message) {
+    MessageConsumer consumer = this.owners.get(message);
+    if (consumer == null) {
+      return notReceived();
+    }
+    return consumer.acknowledgeMessage(message).whenComplete((v, e) -> this.owners.remove(message));
+  }
+
+  /**
+   * Releases messages with the consumers that received them.
+   *
+   * @param messages The messages.
+   * @return The releases, failed with an IllegalArgumentException if a message is unknown.
+   */
+  public CompletableFuture<Void> release(List<Message> messages) {
+    Map<MessageConsumer, List<Message>> byConsumer = this.groupByConsumer(messages);
+    if (byConsumer == null) {
+      return notReceived();
+    }
+    List<CompletableFuture<Void>> releases = new ArrayList<>();
+    byConsumer.forEach(
+        (consumer, released) ->
+            releases.add(
+                consumer
+                    .release(released)
+                    .whenComplete((v, e) -> released.forEach(this.owners::remove))));
+    return CompletableFuture.allOf(releases.toArray(new CompletableFuture[0]));
+  }
+
+  /**
+   * Checks the leases of messages with the consumers that received them.
+   *
+   * @param messages The messages, in the order they are buffered.
+   * @return The messages that can still be dispatched, in the same order, failed with an
+   *     IllegalArgumentException if a message is unknown.
+   */
+  public CompletableFuture<List<Message>> refreshLeases(List<Message> messages) {
+    Map<MessageConsumer, List<Message>> byConsumer = this.groupByConsumer(messages);
+    if (byConsumer == null) {
+      return notReceived();
+    }
+    List<CompletableFuture<List<Message>>> refreshes = new ArrayList<>();
+    byConsumer.forEach((consumer, buffered) -> refreshes.add(consumer.refreshLeases(buffered)));
+    return CompletableFuture.allOf(refreshes.toArray(new CompletableFuture[0]))
+        .thenApply(
+            v -> {
+              Set<Message> dispatchable = Collections.newSetFromMap(new IdentityHashMap<>());
+              refreshes.forEach(refresh -> dispatchable.addAll(refresh.join()));
+              // Keep the order of the buffer, which may interleave the queues.
+              List<Message> refreshed = new ArrayList<>();
+              for (Message message : messages) {
+                if (dispatchable.contains(message)) {
+                  refreshed.add(message);
+                } else {
+                  this.owners.remove(message);
+                }
+              }
+              return refreshed;
+            });
+  }
+
+  /**
+   * Rejects a message with the consumer that received it.
+   *
+   * @param message The message.
+   * @param error The error that caused the rejection.
+   * @return The rejection, failed with an IllegalArgumentException if the message is unknown.
+   */
+  public CompletableFuture<Boolean> reject(Message message, Throwable error) {
+    MessageConsumer consumer = this.owners.get(message);
+    if (consumer == null) {
+      return notReceived();
+    }
+    return consumer.reject(message, error).whenComplete((moved, e) -> this.owners.remove(message));
+  }
+
+  /**
+   * Sends a heartbeat for a message with the consumer that received it.
+   *
+   * @param message The message.
+   * @return The heartbeat, failed with an IllegalArgumentException if the message is unknown.
+   */
+  public CompletableFuture<Void> sendHeartbeat(Message message) {
+    MessageConsumer consumer = this.owners.get(message);
+    if (consumer == null) {
+      return notReceived();
+    }
+    return consumer.sendHeartbeat(message);
+  }
+
+  /**
+   * Returns the number of received messages that are not yet acknowledged, released or rejected.
+   *
+   * @return The number of routed messages.
+   */
+  public int getRoutedMessages() {
+    return this.owners.size();
+  }
+
+  /** Groups messages by the consumer they were received by, or returns null for unknown ones. */
+  private Map<MessageConsumer, List<Message>> groupByConsumer(List<Message> messages) {
+    Map<MessageConsumer, List<Message>> byConsumer = new LinkedHashMap<>();
+    for (Message message : messages) {
+      MessageConsumer consumer = this.owners.get(message);
+      if (consumer == null) {
+        return null;
+      }
+      byConsumer.computeIfAbsent(consumer, key -> new ArrayList<>()).add(message);
+    }
+    return byConsumer;
+  }
+
+  private static <T> CompletableFuture<T> notReceived() {
+    return CompletableFuture.failedFuture(
+        new IllegalArgumentException("Message was not received by this consumer"));
+  }
+}
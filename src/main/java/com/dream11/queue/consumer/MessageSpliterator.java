@@ -0,0 +1,266 @@
+package com.dream11.queue.consumer;
+
+import com.dream11.queue.Message;
+import com.dream11.queue.config.IterationConfig;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Queue;
+import java.util.Set;
+import java.util.Spliterator;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Blocking spliterator over the messages of a consumer. Messages are received lazily, on the first
+ * request, and with prefetching the next receive starts as soon as a batch is returned. Splitting
+ * creates spliterators with their own receives, so a parallel stream receives from several threads
+ * at once. Each spliterator ends once it sees the configured number of consecutive empty receives.
+ *
+ * <p>The leases of buffered messages are checked at most once per configured interval. A
+ * spliterator may be closed from another thread while it is iterated: each one hands its buffer
+ * and pending receive over under its own lock, so every message is either returned or released.
+ */
+@Slf4j
+final class MessageSpliterator implements Spliterator<Message>, AutoCloseable {
+  private final MessageConsumer consumer;
+  private final IterationConfig iterationConfig;
+  private final AtomicInteger remainingSplits;
+  private final Queue<MessageSpliterator> splits;
+
+  /** Messages received but not returned yet. Guarded by this spliterator's lock. */
+  private final Queue<Message> buffer = new ArrayDeque<>();
+
+  /** The receive in flight. Whoever clears it takes ownership of its messages. */
+  private final AtomicReference<CompletableFuture<List<Message>>> pendingReceive =
+      new AtomicReference<>();
+
+  private final long leaseCheckIntervalNanos;
+  private long leasesCheckedAtNanos;
+  private int emptyReceives;
+  private volatile boolean drained;
+
+  MessageSpliterator(MessageConsumer consumer, IterationConfig iterationConfig) {
+    this(
+        consumer,
+        iterationConfig,
+        new AtomicInteger(iterationConfig.getMaxConcurrentReceives() - 1),
+        new ConcurrentLinkedQueue<>());
+  }
+
+  private MessageSpliterator(
+      MessageConsumer consumer,
+      IterationConfig iterationConfig,
+      AtomicInteger remainingSplits,
+      Queue<MessageSpliterator> splits) {
+    this.consumer = consumer;
+    this.iterationConfig = iterationConfig;
+    this.remainingSplits = remainingSplits;
+    this.splits = splits;
+    this.leaseCheckIntervalNanos =
+        TimeUnit.MILLISECONDS.toNanos(iterationConfig.getLeaseCheckIntervalMillis());
+    splits.add(this);
+  }
+
+  @Override
+  public boolean tryAdvance(Consumer<? super Message> action) {
+    Message message;
+    do {
+      if (!this.fill()) {
+        return false;
+      }
+      // Buffered messages may have waited longer than their lease allows.
+      if (System.nanoTime() - this.leasesCheckedAtNanos >= this.leaseCheckIntervalNanos) {
+        this.refreshLeases();
+      }
+      message = this.poll();
+    } while (message == null);
+    action.accept(message);
+    return true;
+  }
+
+  @Override
+  public Spliterator<Message> trySplit() {
+    while (true) {
+      int remaining = this.remainingSplits.get();
+      if (remaining <= 0) {
+        return null;
+      }
+      if (this.remainingSplits.compareAndSet(remaining, remaining - 1)) {
+        return new MessageSpliterator(
+            this.consumer, this.iterationConfig, this.remainingSplits, this.splits);
+      }
+    }
+  }
+
+  @Override
+  public long estimateSize() {
+    return Long.MAX_VALUE;
+  }
+
+  @Override
+  public int characteristics() {
+    return NONNULL | CONCURRENT;
+  }
+
+  /**
+   * Ends iteration on this spliterator and the spliterators split from it, cancelling their
+   * pending receives. Messages that were received but not consumed, either buffered or returned
+   * by a prefetch that completed, are released so they can be received again right away. Safe to
+   * call while other threads iterate the spliterators.
+   */
+  @Override
+  public void close() {
+    List<Message> unconsumed = new ArrayList<>();
+    for (MessageSpliterator split : this.splits) {
+      split.drained = true;
+      CompletableFuture<List<Message>> receive = split.pendingReceive.getAndSet(null);
+      if (receive != null) {
+        unconsumed.addAll(abandon(receive));
+      }
+      synchronized (split) {
+        unconsumed.addAll(split.buffer);
+        split.buffer.clear();
+      }
+    }
+    this.release(unconsumed);
+  }
+
+  private boolean fill() {
+    while (this.isBufferEmpty()) {
+      if (this.drained) {
+        return false;
+      }
+      CompletableFuture<List<Message>> receive = this.pendingReceive.get();
+      if (receive == null) {
+        receive = this.startReceive();
+        if (receive == null) {
+          return false;
+        }
+      }
+      List<Message> messages;
+      try {
+        messages = receive.get();
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        this.close();
+        return false;
+      } catch (CancellationException e) {
+        return false;
+      } catch (ExecutionException e) {
+        this.pendingReceive.compareAndSet(receive, null);
+        throw new IllegalStateException("Failed to receive messages", e.getCause());
+      }
+      if (!this.pendingReceive.compareAndSet(receive, null)) {
+        // close() took the messages of this receive to release them.
+        return false;
+      }
+      if (messages.isEmpty()) {
+        int emptyReceivesToDrain = this.iterationConfig.getEmptyReceivesToDrain();
+        this.drained = emptyReceivesToDrain > 0 && ++this.emptyReceives >= emptyReceivesToDrain;
+      } else {
+        this.emptyReceives = 0;
+        if (!this.buffer(messages)) {
+          this.release(messages);
+          return false;
+        }
+        if (this.iterationConfig.isPrefetch() && !this.drained) {
+          this.startReceive();
+        }
+      }
+    }
+    return true;
+  }
+
+  /**
+   * Starts a receive, unless the spliterator was closed while it was started.
+   *
+   * @return The receive, or null if the spliterator was closed.
+   */
+  private CompletableFuture<List<Message>> startReceive() {
+    CompletableFuture<List<Message>> receive =
+        this.consumer.receive(this.iterationConfig.getReceiveTimeoutSeconds());
+    this.pendingReceive.set(receive);
+    if (this.drained && this.pendingReceive.compareAndSet(receive, null)) {
+      // close() ran before the receive was set, so it did not cancel it.
+      this.release(abandon(receive));
+      return null;
+    }
+    return receive;
+  }
+
+  /**
+   * Adds received messages to the buffer, unless the spliterator was closed.
+   *
+   * @return false if the spliterator was closed and the messages must be released.
+   */
+  private synchronized boolean buffer(List<Message> messages) {
+    if (this.drained) {
+      return false;
+    }
+    this.buffer.addAll(messages);
+    // Messages were just received, so their leases need no check until the interval passes.
+    this.leasesCheckedAtNanos = System.nanoTime();
+    return true;
+  }
+
+  private synchronized boolean isBufferEmpty() {
+    return this.buffer.isEmpty();
+  }
+
+  private synchronized Message poll() {
+    return this.buffer.poll();
+  }
+
+  private void refreshLeases() {
+    List<Message> buffered;
+    synchronized (this) {
+      buffered = new ArrayList<>(this.buffer);
+    }
+    this.leasesCheckedAtNanos = System.nanoTime();
+    List<Message> dispatchable;
+    try {
+      dispatchable = this.consumer.refreshLeases(buffered).join();
+    } catch (RuntimeException e) {
+      log.warn("Failed to check the leases of {} buffered messages", buffered.size(), e);
+      return;
+    }
+    if (dispatchable == buffered) {
+      return;
+    }
+    Set<Message> kept = Collections.newSetFromMap(new IdentityHashMap<>());
+    kept.addAll(dispatchable);
+    synchronized (this) {
+      // The consumer already expired or released the messages it dropped.
+      this.buffer.removeIf(message -> !kept.contains(message));
+    }
+  }
+
+  private void release(List<Message> messages) {
+    if (messages.isEmpty()) {
+      return;
+    }
+    try {
+      this.consumer.release(messages).join();
+    } catch (RuntimeException e) {
+      log.warn("Failed to release {} unconsumed messages", messages.size(), e);
+    }
+  }
+
+  private static List<Message> abandon(CompletableFuture<List<Message>> receive) {
+    // A receive that cannot be cancelled has already completed.
+    if (receive.cancel(true) || receive.isCompletedExceptionally()) {
+      return List.of();
+    }
+    return receive.join();
+  }
+}
@@ -0,0 +1,355 @@
+package com.dream11.queue.consumer;
+
+import com.dream11.queue.Message;
+import com.dream11.queue.config.MultiQueueConfig;
+import com.dream11.queue.impl.sqs.SqsConfig;
+import com.dream11.queue.impl.sqs.SqsConsumer;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Consumer over several queues, such as separate high, normal and low priority queues. Run by one
+ * {@link ConsumerEngine}, all queues share its handlers. Each receive short-polls the queues in the
+ * order chosen by the {@link PollingPolicy} and returns the messages of the first queue that has
+ * any. A queue whose poll returns no messages is not polled again until its idle backoff has
+ * passed, and the backoff doubles with every further empty poll, so idle queues make few requests.
+ * When every queue is backing off, the receive long-polls the queue whose backoff ends first. A
+ * queue that has not been polled for the maximum starvation time is polled first, so that busy
+ * queues cannot starve it.
+ *
+ * <p>Acknowledgements, releases, lease checks, rejections and heartbeats are passed by a {@link
+ * MessageRouter} to the consumer of the queue the message was received from.
+ */
+@Slf4j
+public class MultiQueueConsumer implements MessageConsumer {
+  private final MultiQueueConfig multiQueueConfig;
+  private final List<PolledQueue> queues = new ArrayList<>();
+
+  /** The consumer each received message came from. */
+  private final MessageRouter router = new MessageRouter();
+
+  private final Set<Receive> pendingReceives = ConcurrentHashMap.newKeySet();
+  private final LongAdder polls = new LongAdder();
+  private final LongAdder emptyPolls = new LongAdder();
+  private volatile boolean closing;
+
+  /**
+   * Constructs a new MultiQueueConsumer with an SqsConsumer for each queue.
+   *
+   * @param sqsConfigs The configurations of the queues. For priority polling, in order of
+   *     decreasing priority.
+   * @param multiQueueConfig The multi-queue configuration.
+   */
+  public MultiQueueConsumer(List<SqsConfig> sqsConfigs, MultiQueueConfig multiQueueConfig) {
+    this(sqsConfigs, multiQueueConfig, SqsConsumer::new);
+  }
+
+  /**
+   * Constructs a new MultiQueueConsumer with the given consumer factory. This constructor is
+   * useful when you want to provide custom consumers.
+   *
+   * @param sqsConfigs The configurations of the queues. For priority polling, in order of
+   *     decreasing priority.
+   * @param multiQueueConfig The multi-queue configuration.
+   * @param consumerFactory Creates the consumer of a queue.
+   * @throws IllegalArgumentException if no queue is given or the configuration is invalid.
+   */
+  public MultiQueueConsumer(
+      List<SqsConfig> sqsConfigs,
+      MultiQueueConfig multiQueueConfig,
+      Function<SqsConfig, MessageConsumer> consumerFactory) {
+    if (sqsConfigs.isEmpty()) {
+      throw new IllegalArgumentException("At least one queue is required");
+    }
+    if (multiQueueConfig.getIdleBackoffMillis() <= 0
+        || multiQueueConfig.getMaxIdleBackoffMillis() < multiQueueConfig.getIdleBackoffMillis()) {
+      throw new IllegalArgumentException(
+          "idleBackoffMillis must be positive and at most maxIdleBackoffMillis");
+    }
+    List<Integer> weights = multiQueueConfig.getWeights();
+    if (weights.size() > sqsConfigs.size() || weights.stream().anyMatch(weight -> weight <= 0)) {
+      throw new IllegalArgumentException("weights must be positive, at most one per queue");
+    }
+    this.multiQueueConfig = multiQueueConfig;
+    long now = System.nanoTime();
+    for (int i = 0; i < sqsConfigs.size(); i++) {
+      SqsConfig sqsConfig = sqsConfigs.get(i);
+      int weight = i < weights.size() ? weights.get(i) : 1;
+      this.queues.add(
+          new PolledQueue(sqsConfig.getQueueUrl(), consumerFactory.apply(sqsConfig), weight, now));
+    }
+  }
+
+  /**
+   * Receives the messages of the queue chosen by the polling policy, without waiting for messages.
+   *
+   * @return A CompletableFuture containing a list of received messages.
+   */
+  @Override
+  public CompletableFuture<List<Message>> receive() {
+    return this.receive(0);
+  }
+
+  /**
+   * Receives the messages of the queue chosen by the polling policy. Queues are polled until one of
+   * them returns messages or the timeout elapses.
+   *
+   * @param timeout The timeout in seconds to wait for messages.
+   * @return A CompletableFuture containing a list of received messages, empty if no queue returned
+   *     messages within the timeout.
+   */
+  @Override
+  public CompletableFuture<List<Message>> receive(int timeout) {
+    if (this.closing) {
+      return CompletableFuture.failedFuture(new IllegalStateException("Consumer is closed"));
+    }
+    Receive receive = new Receive(System.nanoTime() + TimeUnit.SECONDS.toNanos(timeout));
+    this.pendingReceives.add(receive);
+    receive.result.whenComplete((messages, error) -> this.pendingReceives.remove(receive));
+    receive.next();
+    return receive.result;
+  }
+
+  @Override
+  public CompletableFuture<Void> acknowledgeMessage(Message message) {
+    return this.router.acknowledgeMessage(message);
+  }
+
+  @Override
+  public CompletableFuture<Void> release(List<Message> messages) {
+    return this.router.release(messages);
+  }
+
+  @Override
+  public CompletableFuture<List<Message>> refreshLeases(List<Message> messages) {
+    return this.router.refreshLeases(messages);
+  }
+
+  @Override
+  public CompletableFuture<Boolean> reject(Message message, Throwable error) {
+    return this.router.reject(message, error);
+  }
+
+  @Override
+  public CompletableFuture<Void> sendHeartbeat(Message message) {
+    return this.router.sendHeartbeat(message);
+  }
+
+  /**
+   * Returns the number of polls of the queues.
+   *
+   * @return The number of polls.
+   */
+  public long getPolls() {
+    return this.polls.sum();
+  }
+
+  /**
+   * Returns the number of polls of the queues that returned no messages.
+   *
+   * @return The number of empty polls.
+   */
+  public long getEmptyPolls() {
+    return this.emptyPolls.sum();
+  }
+
+  /** Cancels pending receives and closes the consumers of all queues. */
+  @Override
+  public void close() {
+    this.closing = true;
+    this.pendingReceives.forEach(receive -> receive.result.cancel(true));
+    for (PolledQueue queue : this.queues) {
+      try {
+        queue.consumer.close();
+      } catch (RuntimeException e) {
+        log.warn("Failed to close the consumer of queue {}", queue.name, e);
+      }
+    }
+  }
+
+  /**
+   * Returns the queues that can be polled, in the order they are polled. Weighted polling uses
+   * smooth weighted round-robin over these queues, then starved queues are moved to the front.
+   */
+  private synchronized List<PolledQueue> schedule(long now) {
+    List<PolledQueue> eligible = new ArrayList<>();
+    for (PolledQueue queue : this.queues) {
+      if (queue.backoffUntilNanos - now <= 0) {
+        eligible.add(queue);
+      }
+    }
+    if (eligible.isEmpty()) {
+      return eligible;
+    }
+    if (this.multiQueueConfig.getPolicy() == PollingPolicy.WEIGHTED) {
+      long totalWeight = 0;
+      for (PolledQueue queue : eligible) {
+        queue.currentWeight += queue.weight;
+        totalWeight += queue.weight;
+      }
+      // The sort is stable, so ties keep the order of the queues.
+      eligible.sort(
+          Comparator.comparingLong((PolledQueue queue) -> queue.currentWeight).reversed());
+      eligible.get(0).currentWeight -= totalWeight;
+    }
+    long maxStarvationNanos =
+        TimeUnit.MILLISECONDS.toNanos(this.multiQueueConfig.getMaxStarvationMillis());
+    if (maxStarvationNanos > 0) {
+      List<PolledQueue> starved = new ArrayList<>();
+      for (PolledQueue queue : eligible) {
+        if (now - queue.lastPolledNanos >= maxStarvationNanos) {
+          starved.add(queue);
+        }
+      }
+      starved.sort(Comparator.comparingLong(queue -> queue.lastPolledNanos - now));
+      eligible.removeAll(starved);
+      eligible.addAll(0, starved);
+    }
+    return eligible;
+  }
+
+  private synchronized PolledQueue nextEligible(long now) {
+    PolledQueue next = this.queues.get(0);
+    for (PolledQueue queue : this.queues) {
+      if (queue.backoffUntilNanos - now < next.backoffUntilNanos - now) {
+        next = queue;
+      }
+    }
+    return next;
+  }
+
+  private synchronized void polled(PolledQueue queue, int received, long now) {
+    queue.lastPolledNanos = now;
+    this.polls.increment();
+    if (received > 0) {
+      queue.backoffMillis = 0;
+      queue.backoffUntilNanos = now;
+      return;
+    }
+    this.emptyPolls.increment();
+    queue.backoffMillis =
+        queue.backoffMillis == 0
+            ? this.multiQueueConfig.getIdleBackoffMillis()
+            : Math.min(queue.backoffMillis * 2, this.multiQueueConfig.getMaxIdleBackoffMillis());
+    queue.backoffUntilNanos = now + TimeUnit.MILLISECONDS.toNanos(queue.backoffMillis);
+  }
+
+  private static final class PolledQueue {
+    private final String name;
+    private final MessageConsumer consumer;
+    private final int weight;
+
+    // Guarded by the MultiQueueConsumer.
+    private long currentWeight;
+    private long lastPolledNanos;
+    private long backoffMillis;
+    private volatile long backoffUntilNanos;
+
+    private PolledQueue(String name, MessageConsumer consumer, int weight, long now) {
+      this.name = name;
+      this.consumer = consumer;
+      this.weight = weight;
+      this.lastPolledNanos = now;
+      this.backoffUntilNanos = now;
+    }
+  }
+
+  /** A receive, which polls the queues one at a time until one returns messages. */
+  private final class Receive {
+    private final CompletableFuture<List<Message>> result = new CompletableFuture<>();
+    private final long deadlineNanos;
+    private volatile CompletableFuture<?> current;
+
+    private Receive(long deadlineNanos) {
+      this.deadlineNanos = deadlineNanos;
+      this.result.whenComplete(
+          (messages, error) -> {
+            CompletableFuture<?> poll = this.current;
+            if (this.result.isCancelled() && poll != null) {
+              poll.cancel(true);
+            }
+          });
+    }
+
+    private void next() {
+      if (this.result.isDone()) {
+        return;
+      }
+      long now = System.nanoTime();
+      List<PolledQueue> order = MultiQueueConsumer.this.schedule(now);
+      if (!order.isEmpty()) {
+        this.poll(order, 0, 0);
+        return;
+      }
+      // Every queue is backing off, so wait for the first one whose backoff ends.
+      PolledQueue next = MultiQueueConsumer.this.nextEligible(now);
+      long waitNanos = Math.min(next.backoffUntilNanos - now, this.deadlineNanos - now);
+      if (waitNanos <= 0) {
+        this.result.complete(List.of());
+      } else if (waitNanos < TimeUnit.SECONDS.toNanos(1)) {
+        this.current =
+            CompletableFuture.runAsync(
+                this::next, CompletableFuture.delayedExecutor(waitNanos, TimeUnit.NANOSECONDS));
+      } else {
+        // A long poll waits as cheaply as a sleep, and returns as soon as the queue has messages.
+        this.poll(List.of(next), 0, (int) TimeUnit.NANOSECONDS.toSeconds(waitNanos));
+      }
+    }
+
+    private void poll(List<PolledQueue> order, int index, int waitSeconds) {
+      PolledQueue queue = order.get(index);
+      CompletableFuture<List<Message>> poll;
+      try {
+        poll = queue.consumer.receive(waitSeconds);
+      } catch (RuntimeException e) {
+        poll = CompletableFuture.failedFuture(e);
+      }
+      this.current = poll;
+      if (this.result.isCancelled()) {
+        poll.cancel(true);
+      }
+      poll.whenComplete(
+          (messages, error) -> {
+            if (error == null) {
+              this.onPolled(order, index, waitSeconds, messages);
+            } else if (!this.result.isDone()) {
+              log.warn("Failed to receive messages from queue {}", queue.name, error);
+              this.onPolled(order, index, waitSeconds, List.of());
+            }
+          });
+    }
+
+    private void onPolled(
+        List<PolledQueue> order, int index, int waitSeconds, List<Message> messages) {
+      PolledQueue queue = order.get(index);
+      MultiQueueConsumer.this.polled(queue, messages.size(), System.nanoTime());
+      if (messages.isEmpty()) {
+        if (index + 1 < order.size()) {
+          this.poll(order, index + 1, waitSeconds);
+        } else {
+          this.next();
+        }
+        return;
+      }
+      MultiQueueConsumer.this.router.received(messages, queue.consumer);
+      if (!this.result.complete(messages)) {
+        // The receive was cancelled while the poll completed.
+        MultiQueueConsumer.this
+            .release(messages)
+            .exceptionally(
+                e -> {
+                  log.warn("Failed to release {} messages", messages.size(), e);
+                  return null;
+                });
+      }
+    }
+  }
+}
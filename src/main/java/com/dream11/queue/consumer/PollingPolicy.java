@@ -0,0 +1,10 @@
+package com.dream11.queue.consumer;
+
+/** The order in which a consumer over several queues polls them. */
+public enum PollingPolicy {
+  /** Poll the queues in the order they are given, so earlier queues are always preferred. */
+  PRIORITY,
+
+  /** Poll the queues in proportion to their weights, with smooth weighted round-robin. */
+  WEIGHTED
+}
@@ -0,0 +1,148 @@
+package com.dream11.queue.hedging;
+
+import com.dream11.queue.config.HedgingConfig;
+import com.dream11.queue.util.Futures;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * Runs asynchronous calls with hedging. If a call has not completed after the configured latency
+ * percentile, the call is made a second time, and the first attempt to succeed completes the
+ * result while the other is cancelled. The delay adapts to the latencies of recent calls, measured
+ * from the start of the call to its result whichever attempt completes it, so calls won by a hedge
+ * still count as slow.
+ */
+public class Hedger {
+  private static final long REFRESH_SAMPLES = 128;
+
+  private final HedgingConfig hedgingConfig;
+  private final LatencyTracker latencies = new LatencyTracker();
+  private final LongAdder calls = new LongAdder();
+  private final LongAdder hedges = new LongAdder();
+  private final LongAdder hedgeWins = new LongAdder();
+  private final AtomicInteger recorded = new AtomicInteger();
+  private volatile long delayNanos;
+
+  /**
+   * Constructs a new Hedger with the given configuration.
+   *
+   * @param hedgingConfig The hedging configuration.
+   */
+  public Hedger(HedgingConfig hedgingConfig) {
+    this.hedgingConfig = hedgingConfig;
+    this.delayNanos = TimeUnit.MILLISECONDS.toNanos(hedgingConfig.getMaxDelayMillis());
+  }
+
+  /**
+   * Runs a call, hedging it if it is slow. The call must be safe to make twice.
+   *
+   * @param call Starts one attempt of the call.
+   * @param <T> The type of the call's result.
+   * @return A CompletableFuture that completes with the first successful attempt, or with the
+   *     last failure if every attempt failed.
+   */
+  public <T> CompletableFuture<T> execute(Supplier<CompletableFuture<T>> call) {
+    this.calls.increment();
+    CompletableFuture<T> result = new CompletableFuture<>();
+    AtomicBoolean settled = new AtomicBoolean();
+    AtomicInteger pending = new AtomicInteger(1);
+    long start = System.nanoTime();
+    CompletableFuture<T> primary = call.get();
+    primary.whenComplete(
+        (value, error) -> {
+          if (error != null) {
+            this.fail(result, pending, error);
+          } else if (settled.compareAndSet(false, true)) {
+            this.record(System.nanoTime() - start);
+            result.complete(value);
+          }
+        });
+    Futures.propagateCancellation(result, primary);
+    if (result.isDone()) {
+      return result;
+    }
+    CompletableFuture.delayedExecutor(this.delayNanos, TimeUnit.NANOSECONDS)
+        .execute(
+            () -> {
+              if (result.isDone() || !this.hedgeAllowed() || pending.getAndIncrement() == 0) {
+                return;
+              }
+              this.hedges.increment();
+              CompletableFuture<T> hedge;
+              try {
+                hedge = call.get();
+              } catch (RuntimeException e) {
+                this.fail(result, pending, e);
+                return;
+              }
+              hedge.whenComplete(
+                  (value, error) -> {
+                    if (error != null) {
+                      this.fail(result, pending, error);
+                    } else if (settled.compareAndSet(false, true)) {
+                      this.record(System.nanoTime() - start);
+                      this.hedgeWins.increment();
+                      primary.cancel(true);
+                      result.complete(value);
+                    }
+                  });
+              result.whenComplete((value, error) -> hedge.cancel(true));
+            });
+    return result;
+  }
+
+  /**
+   * Returns the current delay before a call is hedged.
+   *
+   * @return The delay in nanoseconds.
+   */
+  public long getDelayNanos() {
+    return this.delayNanos;
+  }
+
+  /**
+   * Returns the number of calls that were hedged.
+   *
+   * @return The number of hedged calls.
+   */
+  public long getHedges() {
+    return this.hedges.sum();
+  }
+
+  /**
+   * Returns the number of hedged calls completed by the second attempt.
+   *
+   * @return The number of calls won by the hedge.
+   */
+  public long getHedgeWins() {
+    return this.hedgeWins.sum();
+  }
+
+  private void fail(CompletableFuture<?> result, AtomicInteger pending, Throwable error) {
+    if (pending.decrementAndGet() == 0) {
+      result.completeExceptionally(error);
+    }
+  }
+
+  private boolean hedgeAllowed() {
+    return this.hedges.sum() < this.hedgingConfig.getMaxHedgeRatio() * this.calls.sum();
+  }
+
+  private void record(long nanos) {
+    this.latencies.record(nanos);
+    if (this.recorded.incrementAndGet() % REFRESH_SAMPLES != 0) {
+      return;
+    }
+    long micros = this.latencies.percentileMicros(this.hedgingConfig.getPercentile());
+    if (micros >= 0) {
+      long millis = TimeUnit.MICROSECONDS.toMillis(micros);
+      millis = Math.max(millis, this.hedgingConfig.getMinDelayMillis());
+      millis = Math.min(millis, this.hedgingConfig.getMaxDelayMillis());
+      this.delayNanos = TimeUnit.MILLISECONDS.toNanos(millis);
+    }
+  }
+}
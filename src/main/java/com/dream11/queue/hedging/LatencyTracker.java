@@ -0,0 +1,83 @@
+package com.dream11.queue.hedging;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Lock-free latency histogram with log-linear buckets: eight buckets per power of two of
+ * microseconds, so every bucket is within 12.5% of its values. Counts are halved once every {@link
+ * #DECAY_SAMPLES} samples, so the histogram follows changes in latency.
+ */
+final class LatencyTracker {
+  static final int MIN_SAMPLES = 100;
+  static final int DECAY_SAMPLES = 10_000;
+  private static final int SUB_BUCKET_BITS = 3;
+  private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+  private static final int BUCKETS = SUB_BUCKETS * (64 - SUB_BUCKET_BITS + 1);
+
+  private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+  private final AtomicLong samples = new AtomicLong();
+
+  /**
+   * Records a latency.
+   *
+   * @param nanos The latency in nanoseconds.
+   */
+  void record(long nanos) {
+    this.counts.incrementAndGet(bucket(Math.max(0, nanos / 1000)));
+    if (this.samples.incrementAndGet() % DECAY_SAMPLES == 0) {
+      for (int i = 0; i < BUCKETS; i++) {
+        long count;
+        do {
+          count = this.counts.get(i);
+        } while (count > 1 && !this.counts.compareAndSet(i, count, count / 2));
+      }
+    }
+  }
+
+  /**
+   * Returns the latency at the given percentile, or -1 if fewer than {@link #MIN_SAMPLES}
+   * latencies have been recorded.
+   *
+   * @param percentile The percentile, between 0 and 1.
+   * @return The upper bound of the percentile's bucket in microseconds, or -1.
+   */
+  long percentileMicros(double percentile) {
+    long total = 0;
+    long[] snapshot = new long[BUCKETS];
+    for (int i = 0; i < BUCKETS; i++) {
+      snapshot[i] = this.counts.get(i);
+      total += snapshot[i];
+    }
+    if (total < MIN_SAMPLES) {
+      return -1;
+    }
+    long rank = (long) Math.ceil(total * percentile);
+    long seen = 0;
+    for (int i = 0; i < BUCKETS; i++) {
+      seen += snapshot[i];
+      if (seen >= rank) {
+        return upperBound(i);
+      }
+    }
+    return upperBound(BUCKETS - 1);
+  }
+
+  static int bucket(long micros) {
+    if (micros < SUB_BUCKETS) {
+      return (int) micros;
+    }
+    int exponent = 63 - Long.numberOfLeadingZeros(micros);
+    int subBucket = (int) (micros >>> (exponent - SUB_BUCKET_BITS)) & (SUB_BUCKETS - 1);
+    return (exponent - SUB_BUCKET_BITS + 1) * SUB_BUCKETS + subBucket;
+  }
+
+  static long upperBound(int bucket) {
+    if (bucket < SUB_BUCKETS) {
+      return bucket;
+    }
+    int exponent = bucket / SUB_BUCKETS + SUB_BUCKET_BITS - 1;
+    long subBucket = bucket % SUB_BUCKETS;
+    return ((SUB_BUCKETS + subBucket + 1) << (exponent - SUB_BUCKET_BITS)) - 1;
+  }
+}
@@ -1,15 +1,27 @@
 package com.dream11.queue.impl.sns;
 
-import com.dream11.queue.util.MessageAttributeConverter;
+import com.dream11.queue.claimcheck.ClaimCheck;
+import com.dream11.queue.codec.PayloadCompressor;
+import com.dream11.queue.hedging.Hedger;
+import com.dream11.queue.util.CompletionExecutors;
+import com.dream11.queue.util.Futures;
+import com.dream11.queue.util.MessageAttributeEncoder;
+import com.dream11.queue.util.RequestOverrides;
+import com.dream11.queue.util.RetryPolicies;
 import java.net.URI;
 import java.util.Map;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.function.Consumer;
 import software.amazon.awssdk.auth.credentials.DefaultCredentialsProvider;
+import software.amazon.awssdk.awscore.AwsRequestOverrideConfiguration;
+import software.amazon.awssdk.core.SdkBytes;
 import software.amazon.awssdk.regions.Region;
 import software.amazon.awssdk.services.sns.SnsAsyncClient;
 import software.amazon.awssdk.services.sns.SnsAsyncClientBuilder;
 import software.amazon.awssdk.services.sns.model.MessageAttributeValue;
 import software.amazon.awssdk.services.sns.model.PublishRequest;
+import software.amazon.awssdk.services.sns.model.PublishResponse;
 
 /**
  * Client for interacting with Amazon SNS. This class handles the low-level operations of publishing
@@ -18,10 +30,18 @@ import software.amazon.awssdk.services.sns.model.PublishRequest;
 public class SnsClient {
   private final SnsConfig snsConfig;
   private final SnsAsyncClient snsAsyncClient;
+  private final MessageAttributeEncoder<MessageAttributeValue> attributeEncoder;
+  private final PayloadCompressor payloadCompressor;
+  private final ClaimCheck claimCheck;
+  private final Hedger hedger;
+  private final AwsRequestOverrideConfiguration requestOverride;
+  private final Executor completionExecutor;
 
   /**
    * Constructs a new SnsClient with the given configuration and SNS client. This constructor is
-   * useful when you want to provide a custom SNS client.
+   * useful when you want to provide a custom SNS client. The completion executor of a provided
+   * client cannot be changed, so with a configured completion executor each request completes on
+   * the client's executor first and then hands off to the configured one.
    *
    * @param snsConfig The SNS configuration.
    * @param snsAsyncClient The SNS async client.
@@ -29,6 +49,12 @@ public class SnsClient {
   public SnsClient(SnsConfig snsConfig, SnsAsyncClient snsAsyncClient) {
     this.snsConfig = snsConfig;
     this.snsAsyncClient = snsAsyncClient;
+    this.attributeEncoder = newAttributeEncoder(snsConfig);
+    this.payloadCompressor = new PayloadCompressor(snsConfig.getCompressionConfig());
+    this.claimCheck = new ClaimCheck(snsConfig.getClaimCheckConfig());
+    this.hedger = newHedger(snsConfig);
+    this.requestOverride = RequestOverrides.of(snsConfig.getTimeoutConfig());
+    this.completionExecutor = snsConfig.getCompletionConfig().getExecutor();
   }
 
   /**
@@ -43,11 +69,20 @@ public class SnsClient {
     SnsAsyncClientBuilder snsClientBuilder =
         SnsAsyncClient.builder()
             .credentialsProvider(DefaultCredentialsProvider.create())
-            .region(Region.of(snsConfig.getRegion()));
+            .region(Region.of(snsConfig.getRegion()))
+            .overrideConfiguration(RetryPolicies.clientOverride(snsConfig.getRetryConfig()))
+            .asyncConfiguration(
+                CompletionExecutors.asyncConfiguration(snsConfig.getCompletionConfig()));
     if (this.snsConfig.getEndpoint() != null && !this.snsConfig.getEndpoint().isEmpty()) {
       snsClientBuilder.endpointOverride(URI.create(snsConfig.getEndpoint()));
     }
     this.snsAsyncClient = snsClientBuilder.build();
+    this.attributeEncoder = newAttributeEncoder(snsConfig);
+    this.payloadCompressor = new PayloadCompressor(snsConfig.getCompressionConfig());
+    this.claimCheck = new ClaimCheck(snsConfig.getClaimCheckConfig());
+    this.hedger = newHedger(snsConfig);
+    this.requestOverride = RequestOverrides.of(snsConfig.getTimeoutConfig());
+    this.completionExecutor = null;
   }
 
   /**
@@ -61,31 +96,114 @@ public class SnsClient {
   }
 
   /**
-   * Publishes a message asynchronously to the SNS topic with custom attributes.
+   * Publishes a message asynchronously to the SNS topic with custom attributes. The message is
+   * compressed first if compression is configured and the message is long enough. If the result is
+   * still larger than the claim-check threshold, it is stored in the blob store and only its key is
+   * published. Cancelling the returned future, or failing it with a {@link
+   * java.util.concurrent.TimeoutException}, aborts the request.
    *
    * @param message The message to publish.
    * @param attributes User-defined message attributes (can be null or empty).
    * @return A CompletableFuture that completes when the message is published.
    */
   public CompletableFuture<Void> publish(String message, Map<String, Object> attributes) {
+    CompletableFuture<PublishResponse> request = this.publishAsync(message, attributes);
+    return Futures.propagateCancellation(request.thenAccept(__ -> {}), request);
+  }
+
+  /**
+   * Publishes a message and passes its outcome to a callback instead of returning a future. The
+   * callback is attached to the SDK future with {@code whenComplete}, which still creates one
+   * dependent future, but the stages {@link #publish(String, Map)} adds for the caller are skipped.
+   * The callback is invoked with the failure, or with null once the message is published. The
+   * message is compressed and claim-checked as in {@link #publish(String, Map)}.
+   *
+   * @param message The message to publish.
+   * @param attributes User-defined message attributes (can be null or empty).
+   * @param completion Invoked once with the failure, or null on success.
+   */
+  public void publishAndForget(
+      String message, Map<String, Object> attributes, Consumer<Throwable> completion) {
+    this.publishAsync(message, attributes)
+        .whenComplete((response, error) -> completion.accept(error));
+  }
+
+  private CompletableFuture<PublishResponse> publishAsync(
+      String message, Map<String, Object> attributes) {
+    String compressed = this.payloadCompressor.compress(message);
+    if (compressed != null) {
+      message = compressed;
+      attributes = this.payloadCompressor.markCompressed(attributes);
+    }
+    if (this.claimCheck.shouldOffload(message)) {
+      Map<String, Object> offloadedAttributes = this.claimCheck.markOffloaded(attributes);
+      return this.claimCheck
+          .offload(message)
+          .thenCompose(
+              key -> this.sendRequest(this.buildRequest(key, offloadedAttributes), false));
+    }
+    return this.sendRequest(this.buildRequest(message, attributes), true);
+  }
+
+  private CompletableFuture<PublishResponse> sendRequest(PublishRequest request, boolean hedged) {
+    // A hedged duplicate of an offloaded publish would share its blob, which the first delivery to
+    // be acknowledged deletes, so offloaded publishes are never hedged
+    if (this.hedger == null || !hedged) {
+      return this.onCompletionExecutor(this.snsAsyncClient.publish(request));
+    }
+    return this.onCompletionExecutor(
+        this.hedger.execute(() -> this.snsAsyncClient.publish(request)));
+  }
+
+  private PublishRequest buildRequest(String message, Map<String, Object> attributes) {
     PublishRequest.Builder requestBuilder =
-        PublishRequest.builder().topicArn(snsConfig.getTopicArn()).message(message);
-
-    Map<String, MessageAttributeValue> messageAttributes =
-        MessageAttributeConverter.convert(
-            attributes,
-            (dataType, stringValue) ->
-                MessageAttributeValue.builder()
-                    .dataType(dataType)
-                    .stringValue(stringValue)
-                    .build());
+        PublishRequest.builder()
+            .topicArn(snsConfig.getTopicArn())
+            .message(message)
+            .overrideConfiguration(this.requestOverride);
+
+    Map<String, MessageAttributeValue> messageAttributes = this.attributeEncoder.encode(attributes);
     requestBuilder.messageAttributes(messageAttributes);
 
-    return this.snsAsyncClient.publish(requestBuilder.build()).thenAccept(__ -> {});
+    return requestBuilder.build();
+  }
+
+  /**
+   * Returns the hedger of publishes, which reports how often publishes were hedged.
+   *
+   * @return The hedger, or null if hedging is disabled.
+   */
+  public Hedger getHedger() {
+    return this.hedger;
   }
 
   /** Closes the SNS client, releasing any resources. */
   public void close() {
     this.snsAsyncClient.close();
   }
+
+  private <T> CompletableFuture<T> onCompletionExecutor(CompletableFuture<T> request) {
+    return this.completionExecutor == null
+        ? request
+        : Futures.completeOn(request, this.completionExecutor);
+  }
+
+  private static Hedger newHedger(SnsConfig snsConfig) {
+    return snsConfig.getHedgingConfig().isEnabled()
+        ? new Hedger(snsConfig.getHedgingConfig())
+        : null;
+  }
+
+  private static MessageAttributeEncoder<MessageAttributeValue> newAttributeEncoder(
+      SnsConfig snsConfig) {
+    return new MessageAttributeEncoder<>(
+        snsConfig.getAttributeConfig(),
+        (dataType, stringValue) ->
+            MessageAttributeValue.builder().dataType(dataType).stringValue(stringValue).build(),
+        (dataType, binaryValue) ->
+            MessageAttributeValue.builder()
+                .dataType(dataType)
+                .binaryValue(SdkBytes.fromByteArray(binaryValue))
+                .build());
+  }
 }
@@ -1,22 +1,39 @@
 package com.dream11.queue.impl.sns;
 
+import com.dream11.queue.aggregation.RecordAggregator;
+import com.dream11.queue.codec.MessageCodec;
+import com.dream11.queue.hedging.Hedger;
+import com.dream11.queue.outbox.Outbox;
 import com.dream11.queue.producer.MessageProducer;
+import com.dream11.queue.producer.SendErrorListener;
+import com.dream11.queue.ratelimit.TokenBucket;
+import com.dream11.queue.util.Futures;
 import java.util.Map;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
 import java.util.function.Function;
 import lombok.extern.slf4j.Slf4j;
 import software.amazon.awssdk.services.sns.SnsAsyncClient;
 
 /**
- * Implementation of MessageProducer for Amazon SNS. This producer handles publishing messages to an
- * SNS topic and provides functionality to transform messages before publishing.
+ * Implementation of MessageProducer for Amazon SNS. This producer handles publishing messages to
+ * an SNS topic and encodes messages with a {@link MessageCodec} before publishing.
  *
  * @param <T> The type of message that this producer will handle.
  */
 @Slf4j
 public class SnsProducer<T> implements MessageProducer<T> {
   private final SnsClient snsClient;
-  private final Function<T, String> transformer;
+  private final MessageCodec<T> codec;
+  private final Outbox outbox;
+  private final RecordAggregator aggregator;
+  private final TokenBucket rateLimiter;
+  private final LongAdder forgottenSendSuccesses = new LongAdder();
+  private final LongAdder forgottenSendFailures = new LongAdder();
+  private volatile SendErrorListener sendErrorListener =
+      (body, attributes, error) -> log.error("Failed to send message: {}", body, error);
 
   /**
    * Constructs a new SnsProducer with the given configuration and default transformer. The default
@@ -35,8 +52,21 @@ public class SnsProducer<T> implements MessageProducer<T> {
    * @param transformer The function to transform messages from type T to String.
    */
   public SnsProducer(SnsConfig snsConfig, Function<T, String> transformer) {
+    this(snsConfig, MessageCodec.fromFunction(transformer));
+  }
+
+  /**
+   * Constructs a new SnsProducer with the given configuration and codec.
+   *
+   * @param snsConfig The SNS configuration.
+   * @param codec The codec used to encode messages of type T.
+   */
+  public SnsProducer(SnsConfig snsConfig, MessageCodec<T> codec) {
     this.snsClient = new SnsClient(snsConfig);
-    this.transformer = transformer;
+    this.codec = codec;
+    this.rateLimiter = newRateLimiter(snsConfig);
+    this.outbox = this.newOutbox(snsConfig);
+    this.aggregator = this.newAggregator(snsConfig);
   }
 
   /**
@@ -59,25 +89,42 @@ public class SnsProducer<T> implements MessageProducer<T> {
    */
   public SnsProducer(
       SnsConfig snsConfig, SnsAsyncClient snsAsyncClient, Function<T, String> transformer) {
+    this(snsConfig, snsAsyncClient, MessageCodec.fromFunction(transformer));
+  }
+
+  /**
+   * Constructs a new SnsProducer with the given configuration, SNS client, and codec.
+   *
+   * @param snsConfig The SNS configuration.
+   * @param snsAsyncClient The SNS async client.
+   * @param codec The codec used to encode messages of type T.
+   */
+  public SnsProducer(
+      SnsConfig snsConfig, SnsAsyncClient snsAsyncClient, MessageCodec<T> codec) {
     this.snsClient = new SnsClient(snsConfig, snsAsyncClient);
-    this.transformer = transformer;
+    this.codec = codec;
+    this.rateLimiter = newRateLimiter(snsConfig);
+    this.outbox = this.newOutbox(snsConfig);
+    this.aggregator = this.newAggregator(snsConfig);
   }
 
   /**
-   * Publishes a message asynchronously to the SNS topic. The message is transformed to a string
-   * before publishing.
+   * Publishes a message asynchronously to the SNS topic. The message is encoded with the codec
+   * before publishing. If aggregation is enabled, the message is buffered and published as part of
+   * a batch. If rate limiting is enabled, a publish over the rate is delayed without blocking the
+   * caller.
    *
    * @param message The message to publish.
    * @return A CompletableFuture that completes when the message is published.
    */
   @Override
   public CompletableFuture<Void> send(T message) {
-    return this.snsClient.publish(transformer.apply(message));
+    return this.sendThrottled(this.codec.encode(message), Map.of());
   }
 
   /**
    * Publishes a message asynchronously to the SNS topic with custom attributes. The message is
-   * transformed to a string before publishing.
+   * encoded with the codec before publishing. Messages with attributes are never aggregated.
    *
    * @param message The message to publish.
    * @param attributes User-defined message attributes (e.g., routing keys, metadata).
@@ -85,7 +132,83 @@ public class SnsProducer<T> implements MessageProducer<T> {
    */
   @Override
   public CompletableFuture<Void> send(T message, Map<String, Object> attributes) {
-    return this.snsClient.publish(transformer.apply(message), attributes);
+    return this.sendThrottled(this.codec.encode(message), attributes);
+  }
+
+  /**
+   * Publishes a message without returning a future. When neither aggregation nor the outbox is
+   * enabled, the completion is attached directly to the SDK future, skipping the stages that build
+   * the caller's future. The SDK still creates a future for each request.
+   *
+   * @param message The message to publish.
+   */
+  @Override
+  public void sendAndForget(T message) {
+    this.sendAndForget(message, null);
+  }
+
+  /**
+   * Publishes a message with custom attributes without returning a future.
+   *
+   * @param message The message to publish.
+   * @param attributes User-defined message attributes (e.g., routing keys, metadata).
+   */
+  @Override
+  public void sendAndForget(T message, Map<String, Object> attributes) {
+    String body = this.codec.encode(message);
+    long waitNanos = this.reserveSend();
+    if (waitNanos == 0) {
+      this.forget(body, attributes);
+      return;
+    }
+    CompletableFuture.delayedExecutor(waitNanos, TimeUnit.NANOSECONDS)
+        .execute(
+            () -> {
+              try {
+                this.forget(body, attributes);
+              } catch (RuntimeException e) {
+                this.onForgottenSendComplete(body, attributes, e);
+              }
+            });
+  }
+
+  /**
+   * Sets the listener notified when a fire-and-forget send fails. Failures are logged until a
+   * listener is set.
+   *
+   * @param listener The listener.
+   */
+  @Override
+  public void setSendErrorListener(SendErrorListener listener) {
+    this.sendErrorListener = listener;
+  }
+
+  /**
+   * Returns the number of fire-and-forget sends that were published.
+   *
+   * @return The number of successful fire-and-forget sends.
+   */
+  public long getForgottenSendSuccesses() {
+    return this.forgottenSendSuccesses.sum();
+  }
+
+  /**
+   * Returns the number of fire-and-forget sends that failed.
+   *
+   * @return The number of failed fire-and-forget sends.
+   */
+  public long getForgottenSendFailures() {
+    return this.forgottenSendFailures.sum();
+  }
+
+  /**
+   * Returns the number of publishes that were hedged because they were slow.
+   *
+   * @return The number of hedged publishes, or 0 if hedging is disabled.
+   */
+  public long getHedgedSends() {
+    Hedger hedger = this.snsClient.getHedger();
+    return hedger == null ? 0 : hedger.getHedges();
   }
 
   /**
@@ -104,6 +227,92 @@ public class SnsProducer<T> implements MessageProducer<T> {
    */
   @Override
   public void close() {
+    if (this.aggregator != null) {
+      this.aggregator.close();
+    }
+    if (this.outbox != null) {
+      this.outbox.close();
+    }
     this.snsClient.close();
   }
+
+  private CompletableFuture<Void> sendThrottled(String body, Map<String, Object> attributes) {
+    long waitNanos = this.reserveSend();
+    if (waitNanos == 0) {
+      return this.sendEncoded(body, attributes);
+    }
+    return Futures.startAfter(waitNanos, () -> this.sendEncoded(body, attributes));
+  }
+
+  private void forget(String body, Map<String, Object> attributes) {
+    if (this.aggregator == null && this.outbox == null) {
+      this.snsClient.publishAndForget(
+          body, attributes, error -> this.onForgottenSendComplete(body, attributes, error));
+      return;
+    }
+    this.sendEncoded(body, attributes)
+        .whenComplete((v, error) -> this.onForgottenSendComplete(body, attributes, error));
+  }
+
+  private CompletableFuture<Void> sendEncoded(String body, Map<String, Object> attributes) {
+    if (this.aggregator != null && (attributes == null || attributes.isEmpty())) {
+      return this.aggregator.add(body);
+    }
+    return this.dispatch(body, attributes);
+  }
+
+  private void onForgottenSendComplete(
+      String body, Map<String, Object> attributes, Throwable error) {
+    if (error == null) {
+      this.forgottenSendSuccesses.increment();
+      return;
+    }
+    this.forgottenSendFailures.increment();
+    try {
+      this.sendErrorListener.onError(body, attributes, error);
+    } catch (RuntimeException e) {
+      log.error("Send error listener failed", e);
+    }
+  }
+
+  private CompletableFuture<Void> dispatch(String body, Map<String, Object> attributes) {
+    return this.outbox == null
+        ? this.snsClient.publish(body, attributes)
+        : this.outbox.append(body, attributes);
+  }
+
+  private RecordAggregator newAggregator(SnsConfig snsConfig) {
+    if (!snsConfig.getAggregationConfig().isEnabled()) {
+      return null;
+    }
+    return new RecordAggregator(snsConfig.getAggregationConfig(), this::dispatch);
+  }
+
+  private static TokenBucket newRateLimiter(SnsConfig snsConfig) {
+    if (!(snsConfig.getRateLimitConfig().getPermitsPerSecond() > 0)) {
+      return null;
+    }
+    return new TokenBucket(snsConfig.getRateLimitConfig());
+  }
+
+  private Outbox newOutbox(SnsConfig snsConfig) {
+    if (snsConfig.getOutboxConfig().getDirectory() == null) {
+      return null;
+    }
+    return new Outbox(snsConfig.getOutboxConfig(), this::drainSend);
+  }
+
+  private CompletableFuture<Void> drainSend(String body, Map<String, Object> attributes) {
+    // Runs on the outbox drainer thread, so waiting for permits paces the drainer
+    long waitNanos = this.rateLimiter == null ? 0 : this.rateLimiter.reserve(1);
+    if (waitNanos > 0) {
+      LockSupport.parkNanos(waitNanos);
+    }
+    return this.snsClient.publish(body, attributes);
+  }
+
+  private long reserveSend() {
+    // With the outbox enabled, the sends that drain it take the permits instead
+    return this.rateLimiter == null || this.outbox != null ? 0 : this.rateLimiter.reserve(1);
+  }
 }
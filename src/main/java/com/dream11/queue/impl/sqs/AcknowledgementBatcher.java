@@ -0,0 +1,181 @@
+package com.dream11.queue.impl.sqs;
+
+import com.dream11.queue.config.AcknowledgementConfig;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Buffers acknowledgements and deletes them with batch requests. A batch is deleted when it
+ * reaches the batch size or when its linger time elapses. With a linger time of zero, every
+ * acknowledgement is deleted right away.
+ */
+@Slf4j
+final class AcknowledgementBatcher implements AutoCloseable {
+  private final SqsClient sqsClient;
+  private final int maxBatchSize;
+  private final long lingerMillis;
+  private final ScheduledExecutorService scheduler;
+  private final boolean ownsScheduler;
+  private final Set<CompletableFuture<Void>> inFlight = ConcurrentHashMap.newKeySet();
+
+  private Batch current;
+  private boolean closed;
+
+  AcknowledgementBatcher(AcknowledgementConfig acknowledgementConfig, SqsClient sqsClient) {
+    this(acknowledgementConfig, sqsClient, null);
+  }
+
+  /**
+   * Constructs a batcher whose linger times elapse on the given scheduler, which the batcher does
+   * not shut down.
+   *
+   * @param acknowledgementConfig The acknowledgement configuration.
+   * @param sqsClient The SQS client of the queue.
+   * @param scheduler The shared scheduler, or null to create one for this batcher.
+   */
+  AcknowledgementBatcher(
+      AcknowledgementConfig acknowledgementConfig,
+      SqsClient sqsClient,
+      ScheduledExecutorService scheduler) {
+    if (acknowledgementConfig.getLingerMillis() < 0) {
+      throw new IllegalArgumentException("lingerMillis must not be negative");
+    }
+    this.sqsClient = sqsClient;
+    this.maxBatchSize = Math.max(1, acknowledgementConfig.getMaxBatchSize());
+    this.lingerMillis = acknowledgementConfig.getLingerMillis();
+    this.ownsScheduler = scheduler == null;
+    this.scheduler = this.ownsScheduler ? newScheduler() : scheduler;
+  }
+
+  /**
+   * Adds a message to the current batch.
+   *
+   * @param receiptHandle The receipt handle of the message.
+   * @return A CompletableFuture that completes when the message is deleted.
+   */
+  CompletableFuture<Void> add(String receiptHandle) {
+    Batch filled = null;
+    CompletableFuture<Void> future = new CompletableFuture<>();
+    synchronized (this) {
+      if (this.closed) {
+        return CompletableFuture.failedFuture(
+            new IllegalStateException("Acknowledgements are closed"));
+      }
+      if (this.current == null) {
+        this.current = this.newBatch();
+      }
+      this.current.add(receiptHandle, future);
+      if (this.current.receiptHandles.size() >= this.maxBatchSize || this.lingerMillis == 0) {
+        filled = this.current;
+        this.current = null;
+      }
+    }
+    if (filled != null) {
+      this.send(filled);
+    }
+    return future;
+  }
+
+  /** Deletes the current batch, if any, without waiting for it to complete. */
+  void flush() {
+    Batch batch;
+    synchronized (this) {
+      batch = this.current;
+      this.current = null;
+    }
+    if (batch != null) {
+      this.send(batch);
+    }
+  }
+
+  /** Deletes the current batch and waits for all batches in flight to complete. */
+  @Override
+  public void close() {
+    synchronized (this) {
+      this.closed = true;
+    }
+    this.flush();
+    if (this.ownsScheduler) {
+      this.scheduler.shutdownNow();
+    }
+    CompletableFuture.allOf(this.inFlight.toArray(new CompletableFuture[0]))
+        .exceptionally(e -> null)
+        .join();
+  }
+
+  private static ScheduledExecutorService newScheduler() {
+    return Executors.newSingleThreadScheduledExecutor(
+        runnable -> {
+          Thread thread = new Thread(runnable, "message-kit-acknowledgements");
+          thread.setDaemon(true);
+          return thread;
+        });
+  }
+
+  private Batch newBatch() {
+    Batch batch = new Batch();
+    if (this.lingerMillis > 0) {
+      this.scheduler.schedule(() -> this.flush(batch), this.lingerMillis, TimeUnit.MILLISECONDS);
+    }
+    return batch;
+  }
+
+  private void flush(Batch batch) {
+    synchronized (this) {
+      if (this.current != batch) {
+        return;
+      }
+      this.current = null;
+    }
+    this.send(batch);
+  }
+
+  private void send(Batch batch) {
+    CompletableFuture<Void> sent = new CompletableFuture<>();
+    this.inFlight.add(sent);
+    sent.whenComplete((v, e) -> this.inFlight.remove(sent));
+    CompletableFuture<List<String>> request;
+    try {
+      request = this.sqsClient.deleteMessages(batch.receiptHandles);
+    } catch (RuntimeException e) {
+      request = CompletableFuture.failedFuture(e);
+    }
+    request.whenComplete(
+        (failed, error) -> {
+          if (error != null) {
+            log.error("Failed to delete batch of {} messages", batch.futures.size(), error);
+            batch.futures.forEach(future -> future.completeExceptionally(error));
+          } else {
+            Set<String> failedHandles = new HashSet<>(failed);
+            for (int i = 0; i < batch.futures.size(); i++) {
+              if (failedHandles.contains(batch.receiptHandles.get(i))) {
+                batch.futures
+                    .get(i)
+                    .completeExceptionally(new IllegalStateException("Failed to delete message"));
+              } else {
+                batch.futures.get(i).complete(null);
+              }
+            }
+          }
+          sent.complete(null);
+        });
+  }
+
+  private static final class Batch {
+    private final List<String> receiptHandles = new ArrayList<>();
+    private final List<CompletableFuture<Void>> futures = new ArrayList<>();
+
+    private void add(String receiptHandle, CompletableFuture<Void> future) {
+      this.receiptHandles.add(receiptHandle);
+      this.futures.add(future);
+    }
+  }
+}
@@ -0,0 +1,497 @@
+package com.dream11.queue.impl.sqs;
+
+import com.dream11.queue.Message;
+import com.dream11.queue.config.HeartbeatConfig;
+import com.dream11.queue.config.MultiplexConfig;
+import com.dream11.queue.consumer.MessageConsumer;
+import com.dream11.queue.consumer.MessageRouter;
+import com.dream11.queue.util.Threads;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import lombok.extern.slf4j.Slf4j;
+import software.amazon.awssdk.services.sqs.SqsAsyncClient;
+
+/**
+ * Consumer over many queues, such as thousands of mostly idle per-tenant queues, that multiplexes
+ * them over one shared SQS client and a few receives in flight. Queues are polled in the order
+ * they are due: a queue that returned messages is due again right away, and a queue that returned
+ * none is due after its idle backoff, which doubles with every further empty receive. A queue is
+ * only long-polled until the next queue is due, so busy queues are polled often and idle queues
+ * rarely.
+ *
+ * <p>Queues are only polled while a receive is waiting for messages, so an engine whose handlers
+ * are all busy stops polling. Messages of polls that complete after the waiting receive returned
+ * are kept for the next receive. The pickup latency of each queue, from the time a message was
+ * sent to the time it was first received, is measured per queue.
+ *
+ * <p>Acknowledgements, releases, lease checks, rejections and heartbeats are passed by a {@link
+ * MessageRouter} to the consumer of the queue the message was received from. The consumers of the
+ * queues share the client and one scheduler, created with the heartbeat configuration of the first
+ * queue, that runs the heartbeats and acknowledgement linger times of all queues, so the number of
+ * threads does not grow with the number of queues. The consumers do not close them; they are
+ * closed with this consumer.
+ */
+@Slf4j
+public class MultiplexedSqsConsumer implements MessageConsumer {
+  private final MultiplexConfig multiplexConfig;
+  private final SqsAsyncClient sqsAsyncClient;
+  private final ScheduledExecutorService scheduler;
+  private final Map<String, PolledQueue> queues = new LinkedHashMap<>();
+
+  /** The queues that are not being polled, in the order they are due. Guarded by this. */
+  private final PriorityQueue<PolledQueue> due =
+      new PriorityQueue<>((a, b) -> Long.compare(a.nextPollNanos - b.nextPollNanos, 0));
+
+  /** Receives waiting for messages, oldest first. Guarded by this. */
+  private final Deque<Waiter> waiters = new ArrayDeque<>();
+
+  /** Batches received while no receive was waiting. Guarded by this. */
+  private final Deque<List<Message>> buffer = new ArrayDeque<>();
+
+  /** The consumer each received message came from. */
+  private final MessageRouter router = new MessageRouter();
+
+  private final Set<CompletableFuture<List<Message>>> pendingPolls =
+      ConcurrentHashMap.newKeySet();
+  private final LongAdder polls = new LongAdder();
+  private final LongAdder emptyPolls = new LongAdder();
+  private int inFlight;
+  private long wakeUpNanos;
+  private boolean wakeUpScheduled;
+  private volatile boolean closing;
+
+  /**
+   * Constructs a new MultiplexedSqsConsumer with one SQS client for all queues, created for the
+   * region and endpoint of the queues.
+   *
+   * @param sqsConfigs The configurations of the queues, all in the same region.
+   * @param multiplexConfig The multiplexing configuration.
+   * @throws IllegalArgumentException if no queue is given, the queues are in different regions or
+   *     the configuration is invalid.
+   */
+  public MultiplexedSqsConsumer(List<SqsConfig> sqsConfigs, MultiplexConfig multiplexConfig) {
+    this(sqsConfigs, multiplexConfig, newSqsAsyncClient(sqsConfigs));
+  }
+
+  /**
+   * Constructs a new MultiplexedSqsConsumer with the given SQS client for all queues. This
+   * constructor is useful when you want to provide a custom SQS client.
+   *
+   * @param sqsConfigs The configurations of the queues.
+   * @param multiplexConfig The multiplexing configuration.
+   * @param sqsAsyncClient The SQS async client shared by all queues.
+   * @throws IllegalArgumentException if no queue is given or the configuration is invalid.
+   */
+  public MultiplexedSqsConsumer(
+      List<SqsConfig> sqsConfigs, MultiplexConfig multiplexConfig, SqsAsyncClient sqsAsyncClient) {
+    if (sqsConfigs.isEmpty()) {
+      throw new IllegalArgumentException("At least one queue is required");
+    }
+    if (multiplexConfig.getPollSlots() <= 0) {
+      throw new IllegalArgumentException("pollSlots must be positive");
+    }
+    if (multiplexConfig.getIdleBackoffMillis() <= 0
+        || multiplexConfig.getMaxIdleBackoffMillis() < multiplexConfig.getIdleBackoffMillis()) {
+      throw new IllegalArgumentException(
+          "idleBackoffMillis must be positive and at most maxIdleBackoffMillis");
+    }
+    this.multiplexConfig = multiplexConfig;
+    this.sqsAsyncClient = sqsAsyncClient;
+    HeartbeatConfig heartbeatConfig = sqsConfigs.get(0).getHeartbeatConfig();
+    this.scheduler =
+        Threads.newScheduler(
+            heartbeatConfig.getExecutorThreadPoolSize(), heartbeatConfig.isVirtualThreads());
+    long now = System.nanoTime();
+    for (SqsConfig sqsConfig : sqsConfigs) {
+      SqsConsumer consumer =
+          new SqsConsumer(
+              sqsConfig, new SqsClient(sqsConfig, sqsAsyncClient, true), this.scheduler);
+      PolledQueue queue = new PolledQueue(sqsConfig.getQueueUrl(), consumer, now);
+      if (this.queues.putIfAbsent(queue.queueUrl, queue) != null) {
+        this.scheduler.shutdown();
+        throw new IllegalArgumentException("Duplicate queue: " + queue.queueUrl);
+      }
+      this.due.add(queue);
+    }
+  }
+
+  /**
+   * Returns the messages received from the queues without waiting for messages.
+   *
+   * @return A CompletableFuture containing a list of received messages.
+   */
+  @Override
+  public CompletableFuture<List<Message>> receive() {
+    return this.receive(0);
+  }
+
+  /**
+   * Returns the messages received from one of the queues, polling the queues that are due until
+   * one of them returns messages or the timeout elapses.
+   *
+   * @param timeout The timeout in seconds to wait for messages.
+   * @return A CompletableFuture containing a list of messages of one queue, empty if no queue
+   *     returned messages within the timeout.
+   */
+  @Override
+  public CompletableFuture<List<Message>> receive(int timeout) {
+    if (this.closing) {
+      return CompletableFuture.failedFuture(new IllegalStateException("Consumer is closed"));
+    }
+    Waiter waiter = new Waiter(System.nanoTime() + TimeUnit.SECONDS.toNanos(timeout));
+    synchronized (this) {
+      List<Message> buffered = this.buffer.poll();
+      if (buffered != null) {
+        return CompletableFuture.completedFuture(buffered);
+      }
+      this.waiters.add(waiter);
+    }
+    waiter.result.whenComplete(
+        (messages, error) -> {
+          synchronized (this) {
+            this.waiters.remove(waiter);
+          }
+        });
+    if (timeout > 0) {
+      CompletableFuture.delayedExecutor(timeout, TimeUnit.SECONDS)
+          .execute(() -> waiter.result.complete(List.of()));
+    }
+    this.pump();
+    synchronized (this) {
+      // Without a timeout, return right away if there was nothing to poll.
+      if (timeout <= 0 && this.inFlight == 0) {
+        waiter.result.complete(List.of());
+      }
+    }
+    return waiter.result;
+  }
+
+  @Override
+  public CompletableFuture<Void> acknowledgeMessage(Message message) {
+    return this.router.acknowledgeMessage(message);
+  }
+
+  @Override
+  public CompletableFuture<Void> release(List<Message> messages) {
+    return this.router.release(messages);
+  }
+
+  @Override
+  public CompletableFuture<List<Message>> refreshLeases(List<Message> messages) {
+    return this.router.refreshLeases(messages);
+  }
+
+  @Override
+  public CompletableFuture<Boolean> reject(Message message, Throwable error) {
+    return this.router.reject(message, error);
+  }
+
+  @Override
+  public CompletableFuture<Void> sendHeartbeat(Message message) {
+    return this.router.sendHeartbeat(message);
+  }
+
+  /**
+   * Returns the number of receives from the queues.
+   *
+   * @return The number of polls.
+   */
+  public long getPolls() {
+    return this.polls.sum();
+  }
+
+  /**
+   * Returns the number of receives from the queues that returned no messages.
+   *
+   * @return The number of empty polls.
+   */
+  public long getEmptyPolls() {
+    return this.emptyPolls.sum();
+  }
+
+  /**
+   * Returns the number of messages received from a queue.
+   *
+   * @param queueUrl The URL of the queue.
+   * @return The number of received messages.
+   * @throws IllegalArgumentException if the queue is not consumed by this consumer.
+   */
+  public long getReceivedMessages(String queueUrl) {
+    return this.queue(queueUrl).receivedMessages.sum();
+  }
+
+  /**
+   * Returns the average pickup latency of a queue: the time from when a message was sent to when
+   * it was first received. Messages received again after their visibility timeout are not counted.
+   *
+   * @param queueUrl The URL of the queue.
+   * @return The average pickup latency in milliseconds, or 0 if no message has been received.
+   * @throws IllegalArgumentException if the queue is not consumed by this consumer.
+   */
+  public long getPickupLatencyMillis(String queueUrl) {
+    PolledQueue queue = this.queue(queueUrl);
+    long pickedUp = queue.pickedUpMessages.sum();
+    return pickedUp == 0 ? 0 : queue.pickupLatencyMillis.sum() / pickedUp;
+  }
+
+  /**
+   * Cancels pending receives, releases the messages received but not returned, then closes the
+   * consumers of all queues, the shared scheduler and the shared client.
+   */
+  @Override
+  public void close() {
+    this.closing = true;
+    List<Waiter> waiting;
+    List<Message> unreturned = new ArrayList<>();
+    synchronized (this) {
+      waiting = new ArrayList<>(this.waiters);
+      this.buffer.forEach(unreturned::addAll);
+      this.buffer.clear();
+    }
+    waiting.forEach(waiter -> waiter.result.cancel(true));
+    this.pendingPolls.forEach(poll -> poll.cancel(true));
+    if (!unreturned.isEmpty()) {
+      try {
+        this.release(unreturned).join();
+      } catch (RuntimeException e) {
+        log.warn("Failed to release {} unreturned messages", unreturned.size(), e);
+      }
+    }
+    for (PolledQueue queue : this.queues.values()) {
+      try {
+        queue.consumer.close();
+      } catch (RuntimeException e) {
+        log.warn("Failed to close the consumer of queue {}", queue.queueUrl, e);
+      }
+    }
+    this.scheduler.shutdown();
+    this.sqsAsyncClient.close();
+  }
+
+  /** Starts polls of the queues that are due, while receives are waiting and slots are free. */
+  private void pump() {
+    List<PolledQueue> started = new ArrayList<>();
+    List<Integer> waits = new ArrayList<>();
+    synchronized (this) {
+      long now = System.nanoTime();
+      while (!this.closing
+          && !this.waiters.isEmpty()
+          && this.inFlight < this.multiplexConfig.getPollSlots()
+          && !this.due.isEmpty()) {
+        PolledQueue queue = this.due.peek();
+        long untilDue = queue.nextPollNanos - now;
+        if (untilDue > 0) {
+          this.wakeUpIn(untilDue, now);
+          break;
+        }
+        this.due.poll();
+        // Long-poll only until the next queue is due or the oldest waiting receive times out.
+        PolledQueue next = this.due.peek();
+        long waitNanos = this.waiters.peek().deadlineNanos - now;
+        if (next != null) {
+          waitNanos = Math.min(waitNanos, next.nextPollNanos - now);
+        }
+        long waitSeconds = Math.max(0, TimeUnit.NANOSECONDS.toSeconds(waitNanos));
+        waits.add((int) Math.min(this.multiplexConfig.getMaxWaitSeconds(), waitSeconds));
+        started.add(queue);
+        this.inFlight++;
+      }
+    }
+    for (int i = 0; i < started.size(); i++) {
+      this.poll(started.get(i), waits.get(i));
+    }
+  }
+
+  private void wakeUpIn(long nanos, long now) {
+    if (this.wakeUpScheduled && this.wakeUpNanos - (now + nanos) <= 0) {
+      return;
+    }
+    this.wakeUpScheduled = true;
+    this.wakeUpNanos = now + nanos;
+    CompletableFuture.delayedExecutor(nanos, TimeUnit.NANOSECONDS)
+        .execute(
+            () -> {
+              synchronized (this) {
+                if (this.wakeUpNanos - (now + nanos) != 0) {
+                  return;
+                }
+                this.wakeUpScheduled = false;
+              }
+              this.pump();
+            });
+  }
+
+  private void poll(PolledQueue queue, int waitSeconds) {
+    CompletableFuture<List<Message>> poll;
+    try {
+      poll = queue.consumer.receive(waitSeconds);
+    } catch (RuntimeException e) {
+      poll = CompletableFuture.failedFuture(e);
+    }
+    this.pendingPolls.add(poll);
+    CompletableFuture<List<Message>> pending = poll;
+    poll.whenComplete(
+        (messages, error) -> {
+          this.pendingPolls.remove(pending);
+          if (error != null && !this.closing) {
+            log.warn("Failed to receive messages from queue {}", queue.queueUrl, error);
+          }
+          this.onPolled(queue, error == null ? messages : List.of());
+        });
+  }
+
+  private void onPolled(PolledQueue queue, List<Message> messages) {
+    long now = System.nanoTime();
+    this.polls.increment();
+    if (messages.isEmpty()) {
+      this.emptyPolls.increment();
+    } else {
+      this.recordPickup(queue, messages);
+      this.router.received(messages, queue.consumer);
+    }
+    List<Waiter> expired = new ArrayList<>();
+    synchronized (this) {
+      this.inFlight--;
+      if (messages.isEmpty()) {
+        queue.backoffMillis =
+            queue.backoffMillis == 0
+                ? this.multiplexConfig.getIdleBackoffMillis()
+                : Math.min(queue.backoffMillis * 2, this.multiplexConfig.getMaxIdleBackoffMillis());
+        queue.nextPollNanos = now + TimeUnit.MILLISECONDS.toNanos(queue.backoffMillis);
+      } else {
+        queue.backoffMillis = 0;
+        queue.nextPollNanos = now;
+        this.buffer.add(messages);
+      }
+      if (!this.closing) {
+        this.due.add(queue);
+      }
+      for (Waiter waiter : this.waiters) {
+        if (waiter.deadlineNanos - now <= 0) {
+          expired.add(waiter);
+        }
+      }
+    }
+    this.deliver();
+    expired.forEach(waiter -> waiter.result.complete(List.of()));
+    this.pump();
+    if (this.closing && !messages.isEmpty()) {
+      this.releaseBuffered();
+    }
+  }
+
+  /** Hands buffered batches to waiting receives, oldest first. */
+  private void deliver() {
+    while (true) {
+      Waiter waiter;
+      List<Message> messages;
+      synchronized (this) {
+        if (this.waiters.isEmpty() || this.buffer.isEmpty()) {
+          return;
+        }
+        waiter = this.waiters.poll();
+        messages = this.buffer.poll();
+      }
+      if (!waiter.result.complete(messages)) {
+        synchronized (this) {
+          this.buffer.addFirst(messages);
+        }
+      }
+    }
+  }
+
+  /** Releases messages of polls that completed while the consumer was closing. */
+  private void releaseBuffered() {
+    List<Message> unreturned = new ArrayList<>();
+    synchronized (this) {
+      this.buffer.forEach(unreturned::addAll);
+      this.buffer.clear();
+    }
+    if (!unreturned.isEmpty()) {
+      this.release(unreturned)
+          .exceptionally(
+              e -> {
+                log.warn("Failed to release {} unreturned messages", unreturned.size(), e);
+                return null;
+              });
+    }
+  }
+
+  private void recordPickup(PolledQueue queue, List<Message> messages) {
+    long now = System.currentTimeMillis();
+    queue.receivedMessages.add(messages.size());
+    Set<Message> received = Collections.newSetFromMap(new IdentityHashMap<>());
+    for (Message message : messages) {
+      Message parent = SqsConsumer.received(message);
+      // Records of an aggregated message were picked up together.
+      if (!(parent instanceof SqsMessage) || !received.add(parent)) {
+        continue;
+      }
+      SqsMessage sqsMessage = (SqsMessage) parent;
+      long sentTimestamp = sqsMessage.getSentTimestamp();
+      if (sentTimestamp > 0 && sqsMessage.getReceiveCount() == 1) {
+        queue.pickupLatencyMillis.add(Math.max(0, now - sentTimestamp));
+        queue.pickedUpMessages.increment();
+      }
+    }
+  }
+
+  private PolledQueue queue(String queueUrl) {
+    PolledQueue queue = this.queues.get(queueUrl);
+    if (queue == null) {
+      throw new IllegalArgumentException("Queue is not consumed by this consumer: " + queueUrl);
+    }
+    return queue;
+  }
+
+  private static SqsAsyncClient newSqsAsyncClient(List<SqsConfig> sqsConfigs) {
+    if (sqsConfigs.isEmpty()) {
+      throw new IllegalArgumentException("At least one queue is required");
+    }
+    String region = sqsConfigs.get(0).getRegion();
+    if (sqsConfigs.stream().anyMatch(sqsConfig -> !region.equals(sqsConfig.getRegion()))) {
+      throw new IllegalArgumentException("All queues must be in the same region");
+    }
+    return SqsClient.newSqsAsyncClient(sqsConfigs.get(0));
+  }
+
+  private static final class PolledQueue {
+    private final String queueUrl;
+    private final SqsConsumer consumer;
+    private final LongAdder receivedMessages = new LongAdder();
+    private final LongAdder pickedUpMessages = new LongAdder();
+    private final LongAdder pickupLatencyMillis = new LongAdder();
+
+    // Guarded by the MultiplexedSqsConsumer.
+    private long nextPollNanos;
+    private long backoffMillis;
+
+    private PolledQueue(String queueUrl, SqsConsumer consumer, long now) {
+      this.queueUrl = queueUrl;
+      this.consumer = consumer;
+      this.nextPollNanos = now;
+    }
+  }
+
+  private static final class Waiter {
+    private final CompletableFuture<List<Message>> result = new CompletableFuture<>();
+    private final long deadlineNanos;
+
+    private Waiter(long deadlineNanos) {
+      this.deadlineNanos = deadlineNanos;
+    }
+  }
+}
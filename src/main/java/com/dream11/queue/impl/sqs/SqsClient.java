@@ -1,40 +1,108 @@
 package com.dream11.queue.impl.sqs;
 
-import com.dream11.queue.util.MessageAttributeConverter;
+import com.dream11.queue.claimcheck.ClaimCheck;
+import com.dream11.queue.codec.PayloadCompressor;
+import com.dream11.queue.config.DeadLetterConfig;
+import com.dream11.queue.hedging.Hedger;
+import com.dream11.queue.retry.BatchRetrier;
+import com.dream11.queue.retry.EntryFailure;
+import com.dream11.queue.util.CompletionExecutors;
+import com.dream11.queue.util.Futures;
+import com.dream11.queue.util.MessageAttributeEncoder;
+import com.dream11.queue.util.RequestOverrides;
+import com.dream11.queue.util.RetryPolicies;
 import java.net.URI;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 import software.amazon.awssdk.auth.credentials.DefaultCredentialsProvider;
+import software.amazon.awssdk.awscore.AwsRequestOverrideConfiguration;
+import software.amazon.awssdk.core.SdkBytes;
 import software.amazon.awssdk.regions.Region;
 import software.amazon.awssdk.services.sqs.SqsAsyncClient;
 import software.amazon.awssdk.services.sqs.SqsAsyncClientBuilder;
+import software.amazon.awssdk.services.sqs.model.BatchResultErrorEntry;
+import software.amazon.awssdk.services.sqs.model.ChangeMessageVisibilityBatchRequest;
+import software.amazon.awssdk.services.sqs.model.ChangeMessageVisibilityBatchRequestEntry;
 import software.amazon.awssdk.services.sqs.model.ChangeMessageVisibilityRequest;
+import software.amazon.awssdk.services.sqs.model.DeleteMessageBatchRequest;
+import software.amazon.awssdk.services.sqs.model.DeleteMessageBatchRequestEntry;
 import software.amazon.awssdk.services.sqs.model.DeleteMessageRequest;
 import software.amazon.awssdk.services.sqs.model.Message;
 import software.amazon.awssdk.services.sqs.model.MessageAttributeValue;
 import software.amazon.awssdk.services.sqs.model.ReceiveMessageRequest;
 import software.amazon.awssdk.services.sqs.model.ReceiveMessageResponse;
 import software.amazon.awssdk.services.sqs.model.SendMessageRequest;
+import software.amazon.awssdk.services.sqs.model.SendMessageResponse;
 
 /**
  * Client for interacting with Amazon SQS. This class handles the low-level operations of sending,
  * receiving, and managing messages in an SQS queue.
  */
 public class SqsClient {
+  /** The maximum delay, in seconds, that SQS supports for a single message. */
+  public static final int MAX_DELAY_SECONDS = 900;
+
+  /** The maximum number of entries that SQS accepts in a single batch request. */
+  public static final int MAX_BATCH_ENTRIES = 10;
+
+  private static final String APPROXIMATE_RECEIVE_COUNT = "ApproximateReceiveCount";
+  private static final String SENT_TIMESTAMP = "SentTimestamp";
+
   private final SqsConfig sqsConfig;
   private final SqsAsyncClient sqsAsyncClient;
+  private final MessageAttributeEncoder<MessageAttributeValue> attributeEncoder;
+  private final PayloadCompressor payloadCompressor;
+  private final ClaimCheck claimCheck;
+  private final Hedger hedger;
+  private final AwsRequestOverrideConfiguration requestOverride;
+  private final Executor completionExecutor;
+  private final BatchRetrier batchRetrier;
+  private final Integer visibilityTimeout;
+  private final List<String> systemAttributeNames;
+  private final boolean shared;
 
   /**
    * Constructs a new SqsClient with the given configuration and SQS client. This constructor is
-   * useful when you want to provide a custom SQS client.
+   * useful when you want to provide a custom SQS client. The completion executor of a provided
+   * client cannot be changed, so with a configured completion executor each request completes on
+   * the client's executor first and then hands off to the configured one.
    *
    * @param sqsConfig The SQS configuration.
    * @param sqsAsyncClient The SQS async client.
    */
   public SqsClient(SqsConfig sqsConfig, SqsAsyncClient sqsAsyncClient) {
+    this(sqsConfig, sqsAsyncClient, false);
+  }
+
+  /**
+   * Constructs a new SqsClient with the given SQS client. A shared client is used by the clients of
+   * other queues too, so it is not closed with this client, and the time each message was sent is
+   * requested with every receive so that the pickup latency of each queue can be measured.
+   *
+   * @param sqsConfig The SQS configuration.
+   * @param sqsAsyncClient The SQS async client.
+   * @param shared Whether the SQS async client is shared with the clients of other queues.
+   */
+  SqsClient(SqsConfig sqsConfig, SqsAsyncClient sqsAsyncClient, boolean shared) {
     this.sqsConfig = sqsConfig;
     this.sqsAsyncClient = sqsAsyncClient;
+    this.attributeEncoder = newAttributeEncoder(sqsConfig);
+    this.payloadCompressor = new PayloadCompressor(sqsConfig.getCompressionConfig());
+    this.claimCheck = new ClaimCheck(sqsConfig.getClaimCheckConfig());
+    this.hedger = newHedger(sqsConfig);
+    this.requestOverride = RequestOverrides.of(sqsConfig.getTimeoutConfig());
+    this.completionExecutor = sqsConfig.getCompletionConfig().getExecutor();
+    this.batchRetrier = new BatchRetrier(sqsConfig.getRetryConfig());
+    this.visibilityTimeout = newVisibilityTimeout(sqsConfig);
+    this.systemAttributeNames = newSystemAttributeNames(sqsConfig, shared);
+    this.shared = shared;
   }
 
   /**
@@ -46,14 +114,17 @@ public class SqsClient {
    */
   public SqsClient(SqsConfig sqsConfig) {
     this.sqsConfig = sqsConfig;
-    SqsAsyncClientBuilder sqsClientBuilder =
-        SqsAsyncClient.builder()
-            .credentialsProvider(DefaultCredentialsProvider.create())
-            .region(Region.of(sqsConfig.getRegion()));
-    if (this.sqsConfig.getEndpoint() != null && !this.sqsConfig.getEndpoint().isEmpty()) {
-      sqsClientBuilder.endpointOverride(URI.create(sqsConfig.getEndpoint()));
-    }
-    this.sqsAsyncClient = sqsClientBuilder.build();
+    this.sqsAsyncClient = newSqsAsyncClient(sqsConfig);
+    this.attributeEncoder = newAttributeEncoder(sqsConfig);
+    this.payloadCompressor = new PayloadCompressor(sqsConfig.getCompressionConfig());
+    this.claimCheck = new ClaimCheck(sqsConfig.getClaimCheckConfig());
+    this.hedger = newHedger(sqsConfig);
+    this.requestOverride = RequestOverrides.of(sqsConfig.getTimeoutConfig());
+    this.completionExecutor = null;
+    this.batchRetrier = new BatchRetrier(sqsConfig.getRetryConfig());
+    this.visibilityTimeout = newVisibilityTimeout(sqsConfig);
+    this.systemAttributeNames = newSystemAttributeNames(sqsConfig, false);
+    this.shared = false;
   }
 
   /**
@@ -68,21 +139,41 @@ public class SqsClient {
 
   /**
    * Receives a list of messages asynchronously with a specified timeout. The number of messages
-   * received is determined by the configuration.
+   * received is determined by the configuration. Cancelling the returned future, or failing it
+   * with a {@link java.util.concurrent.TimeoutException}, aborts the request. If leases are
+   * tracked, the configured visibility timeout is requested; otherwise the queue's default applies.
+   * The approximate receive count is requested when messages are dead-lettered by receive count.
    *
    * @param timeout The timeout in seconds to wait for messages.
    * @return A CompletableFuture containing a list of received messages.
    */
   public CompletableFuture<List<Message>> receive(int timeout) {
-    return this.sqsAsyncClient
-        .receiveMessage(
-            ReceiveMessageRequest.builder()
-                .queueUrl(this.sqsConfig.getQueueUrl())
-                .waitTimeSeconds(timeout)
-                .maxNumberOfMessages(this.sqsConfig.getReceiveConfig().getMaxMessages())
-                .messageAttributeNames("All")
-                .build())
-        .thenApply(ReceiveMessageResponse::messages);
+    return this.receive(timeout, this.sqsConfig.getReceiveConfig().getMaxMessages());
+  }
+
+  /**
+   * Receives at most the given number of messages asynchronously with a specified timeout,
+   * otherwise like {@link #receive(int)}.
+   *
+   * @param timeout The timeout in seconds to wait for messages.
+   * @param maxMessages The maximum number of messages to receive.
+   * @return A CompletableFuture containing a list of received messages.
+   */
+  public CompletableFuture<List<Message>> receive(int timeout, int maxMessages) {
+    CompletableFuture<ReceiveMessageResponse> request =
+        this.onCompletionExecutor(
+            this.sqsAsyncClient.receiveMessage(
+                ReceiveMessageRequest.builder()
+                    .queueUrl(this.sqsConfig.getQueueUrl())
+                    .waitTimeSeconds(timeout)
+                    .maxNumberOfMessages(maxMessages)
+                    .messageAttributeNames("All")
+                    .visibilityTimeout(this.visibilityTimeout)
+                    .attributeNamesWithStrings(this.systemAttributeNames)
+                    .overrideConfiguration(this.requestOverride)
+                    .build()));
+    return Futures.propagateCancellation(
+        request.thenApply(ReceiveMessageResponse::messages), request);
   }
 
   /**
@@ -93,13 +184,13 @@ public class SqsClient {
    * @return A CompletableFuture that completes when the message is deleted.
    */
   public CompletableFuture<Void> deleteMessage(String receiptHandle) {
-    return this.sqsAsyncClient
-        .deleteMessage(
+    return this.completion(
+        this.sqsAsyncClient.deleteMessage(
             DeleteMessageRequest.builder()
                 .queueUrl(sqsConfig.getQueueUrl())
                 .receiptHandle(receiptHandle)
-                .build())
-        .thenAccept(__ -> {});
+                .overrideConfiguration(this.requestOverride)
+                .build()));
   }
 
   /**
@@ -113,27 +204,119 @@ public class SqsClient {
   }
 
   /**
-   * Sends a message asynchronously to the SQS queue with custom attributes.
+   * Sends a message asynchronously to the SQS queue with custom attributes. The message is
+   * compressed first if compression is configured and the message is long enough. If the result is
+   * still larger than the claim-check threshold, it is stored in the blob store and only its key is
+   * sent. Cancelling the returned future, or failing it with a {@link
+   * java.util.concurrent.TimeoutException}, aborts the request.
    *
    * @param message The message to send.
    * @param attributes User-defined message attributes (can be null or empty).
    * @return A CompletableFuture that completes when the message is sent.
    */
   public CompletableFuture<Void> send(String message, Map<String, Object> attributes) {
+    return this.send(message, attributes, 0);
+  }
+
+  /**
+   * Sends a message asynchronously to the SQS queue, delaying its delivery. The message is
+   * compressed and claim-checked as in {@link #send(String, Map)}.
+   *
+   * @param message The message to send.
+   * @param attributes User-defined message attributes (can be null or empty).
+   * @param delaySeconds The delay in seconds, at most 900. 0 uses the queue's default delay.
+   * @return A CompletableFuture that completes when the message is sent.
+   */
+  public CompletableFuture<Void> send(
+      String message, Map<String, Object> attributes, int delaySeconds) {
+    CompletableFuture<SendMessageResponse> request =
+        this.sendAsync(message, attributes, delaySeconds);
+    return Futures.propagateCancellation(request.thenAccept(__ -> {}), request);
+  }
+
+  /**
+   * Sends a message and passes its outcome to a callback instead of returning a future. The
+   * callback is attached to the SDK future with {@code whenComplete}, which still creates one
+   * dependent future, but the stages {@link #send(String, Map)} adds for the caller are skipped.
+   * The callback is invoked with the failure, or with null once the message is sent. The message
+   * is compressed and claim-checked as in {@link #send(String, Map)}.
+   *
+   * @param message The message to send.
+   * @param attributes User-defined message attributes (can be null or empty).
+   * @param completion Invoked once with the failure, or null on success.
+   */
+  public void sendAndForget(
+      String message, Map<String, Object> attributes, Consumer<Throwable> completion) {
+    this.sendAsync(message, attributes, 0)
+        .whenComplete((response, error) -> completion.accept(error));
+  }
+
+  /**
+   * Sends a message previously received from a queue again, unchanged, with the given delay. The
+   * body and message attributes are copied as received, so a compressed or offloaded body is not
+   * decoded again.
+   *
+   * @param message The received message.
+   * @param delaySeconds The delay in seconds, at most 900.
+   * @return A CompletableFuture that completes when the message is sent.
+   */
+  public CompletableFuture<Void> resend(Message message, int delaySeconds) {
+    return this.completion(
+        this.sqsAsyncClient.sendMessage(
+            SendMessageRequest.builder()
+                .queueUrl(this.sqsConfig.getQueueUrl())
+                .messageBody(message.body())
+                .messageAttributes(message.messageAttributes())
+                .delaySeconds(delaySeconds)
+                .overrideConfiguration(this.requestOverride)
+                .build()));
+  }
+
+  private CompletableFuture<SendMessageResponse> sendAsync(
+      String message, Map<String, Object> attributes, int delaySeconds) {
+    String compressed = this.payloadCompressor.compress(message);
+    if (compressed != null) {
+      message = compressed;
+      attributes = this.payloadCompressor.markCompressed(attributes);
+    }
+    if (this.claimCheck.shouldOffload(message)) {
+      Map<String, Object> offloadedAttributes = this.claimCheck.markOffloaded(attributes);
+      return this.claimCheck
+          .offload(message)
+          .thenCompose(
+              key ->
+                  this.sendRequest(
+                      this.buildRequest(key, offloadedAttributes, delaySeconds), false));
+    }
+    return this.sendRequest(this.buildRequest(message, attributes, delaySeconds), true);
+  }
+
+  private CompletableFuture<SendMessageResponse> sendRequest(
+      SendMessageRequest request, boolean hedged) {
+    // A hedged duplicate of an offloaded send would share its blob, which the first delivery to be
+    // acknowledged deletes, so offloaded sends are never hedged
+    if (this.hedger == null || !hedged) {
+      return this.onCompletionExecutor(this.sqsAsyncClient.sendMessage(request));
+    }
+    return this.onCompletionExecutor(
+        this.hedger.execute(() -> this.sqsAsyncClient.sendMessage(request)));
+  }
+
+  private SendMessageRequest buildRequest(
+      String message, Map<String, Object> attributes, int delaySeconds) {
     SendMessageRequest.Builder requestBuilder =
-        SendMessageRequest.builder().queueUrl(sqsConfig.getQueueUrl()).messageBody(message);
-
-    Map<String, MessageAttributeValue> messageAttributes =
-        MessageAttributeConverter.convert(
-            attributes,
-            (dataType, stringValue) ->
-                MessageAttributeValue.builder()
-                    .dataType(dataType)
-                    .stringValue(stringValue)
-                    .build());
+        SendMessageRequest.builder()
+            .queueUrl(sqsConfig.getQueueUrl())
+            .messageBody(message)
+            .overrideConfiguration(this.requestOverride);
+    if (delaySeconds > 0) {
+      requestBuilder.delaySeconds(delaySeconds);
+    }
+
+    Map<String, MessageAttributeValue> messageAttributes = this.attributeEncoder.encode(attributes);
     requestBuilder.messageAttributes(messageAttributes);
 
-    return this.sqsAsyncClient.sendMessage(requestBuilder.build()).thenAccept(__ -> {});
+    return requestBuilder.build();
   }
 
   /**
@@ -146,18 +329,202 @@ public class SqsClient {
    */
   public CompletableFuture<Void> changeMessageVisibility(
       String receiptHandle, int visibilityTimeout) {
-    return this.sqsAsyncClient
-        .changeMessageVisibility(
+    return this.completion(
+        this.sqsAsyncClient.changeMessageVisibility(
             ChangeMessageVisibilityRequest.builder()
                 .queueUrl(this.sqsConfig.getQueueUrl())
                 .receiptHandle(receiptHandle)
                 .visibilityTimeout(visibilityTimeout)
-                .build())
-        .thenAccept(__ -> {});
+                .overrideConfiguration(this.requestOverride)
+                .build()));
   }
 
-  /** Closes the SQS client, releasing any resources. */
+  /**
+   * Deletes messages with batch requests of up to {@link #MAX_BATCH_ENTRIES} messages. Messages
+   * that fail with a transient error are retried on their own, without the rest of their batch.
+   *
+   * @param receiptHandles The receipt handles of the messages to delete.
+   * @return A CompletableFuture with the receipt handles of the messages that could not be deleted.
+   */
+  public CompletableFuture<List<String>> deleteMessages(List<String> receiptHandles) {
+    return this.inBatches(receiptHandles, this::deleteBatch);
+  }
+
+  /**
+   * Changes the visibility timeout of messages with batch requests of up to {@link
+   * #MAX_BATCH_ENTRIES} messages. Messages that fail with a transient error are retried on their
+   * own, without the rest of their batch.
+   *
+   * @param receiptHandles The receipt handles of the messages.
+   * @param visibilityTimeout The new visibility timeout in seconds.
+   * @return A CompletableFuture with the receipt handles of the messages whose visibility could not
+   *     be changed.
+   */
+  public CompletableFuture<List<String>> changeMessageVisibility(
+      List<String> receiptHandles, int visibilityTimeout) {
+    return this.inBatches(
+        receiptHandles, entries -> this.changeVisibilityBatch(entries, visibilityTimeout));
+  }
+
+  /**
+   * Returns the retrier of batch entries, which reports how often entries were retried.
+   *
+   * @return The batch retrier.
+   */
+  public BatchRetrier getBatchRetrier() {
+    return this.batchRetrier;
+  }
+
+  /**
+   * Returns the hedger of sends, which reports how often sends were hedged.
+   *
+   * @return The hedger, or null if hedging is disabled.
+   */
+  public Hedger getHedger() {
+    return this.hedger;
+  }
+
+  /** Closes the SQS client, releasing any resources. A shared SQS async client is left open. */
   public void close() {
-    this.sqsAsyncClient.close();
+    if (!this.shared) {
+      this.sqsAsyncClient.close();
+    }
+  }
+
+  private CompletableFuture<List<String>> inBatches(
+      List<String> receiptHandles,
+      Function<Map<String, String>, CompletableFuture<List<EntryFailure>>> attempt) {
+    List<CompletableFuture<Map<String, String>>> batches = new ArrayList<>();
+    for (int from = 0; from < receiptHandles.size(); from += MAX_BATCH_ENTRIES) {
+      Map<String, String> entries = new LinkedHashMap<>();
+      int to = Math.min(receiptHandles.size(), from + MAX_BATCH_ENTRIES);
+      for (int i = from; i < to; i++) {
+        entries.put(String.valueOf(i - from), receiptHandles.get(i));
+      }
+      batches.add(this.batchRetrier.execute(entries, attempt));
+    }
+    return CompletableFuture.allOf(batches.toArray(new CompletableFuture<?>[0]))
+        .thenApply(
+            v ->
+                batches.stream()
+                    .flatMap(batch -> batch.join().values().stream())
+                    .collect(Collectors.toList()));
+  }
+
+  private CompletableFuture<List<EntryFailure>> deleteBatch(Map<String, String> entries) {
+    DeleteMessageBatchRequest request =
+        DeleteMessageBatchRequest.builder()
+            .queueUrl(this.sqsConfig.getQueueUrl())
+            .entries(
+                entries.entrySet().stream()
+                    .map(
+                        entry ->
+                            DeleteMessageBatchRequestEntry.builder()
+                                .id(entry.getKey())
+                                .receiptHandle(entry.getValue())
+                                .build())
+                    .collect(Collectors.toList()))
+            .overrideConfiguration(this.requestOverride)
+            .build();
+    return this.onCompletionExecutor(this.sqsAsyncClient.deleteMessageBatch(request))
+        .thenApply(response -> entryFailures(response.failed()));
+  }
+
+  private CompletableFuture<List<EntryFailure>> changeVisibilityBatch(
+      Map<String, String> entries, int visibilityTimeout) {
+    ChangeMessageVisibilityBatchRequest request =
+        ChangeMessageVisibilityBatchRequest.builder()
+            .queueUrl(this.sqsConfig.getQueueUrl())
+            .entries(
+                entries.entrySet().stream()
+                    .map(
+                        entry ->
+                            ChangeMessageVisibilityBatchRequestEntry.builder()
+                                .id(entry.getKey())
+                                .receiptHandle(entry.getValue())
+                                .visibilityTimeout(visibilityTimeout)
+                                .build())
+                    .collect(Collectors.toList()))
+            .overrideConfiguration(this.requestOverride)
+            .build();
+    return this.onCompletionExecutor(this.sqsAsyncClient.changeMessageVisibilityBatch(request))
+        .thenApply(response -> entryFailures(response.failed()));
+  }
+
+  private static List<EntryFailure> entryFailures(List<BatchResultErrorEntry> failed) {
+    return failed.stream()
+        .map(
+            entry ->
+                new EntryFailure(
+                    entry.id(), entry.code(), Boolean.TRUE.equals(entry.senderFault())))
+        .collect(Collectors.toList());
+  }
+
+  private CompletableFuture<Void> completion(CompletableFuture<?> request) {
+    CompletableFuture<?> completed = this.onCompletionExecutor(request);
+    return Futures.propagateCancellation(completed.thenAccept(__ -> {}), completed);
+  }
+
+  private <T> CompletableFuture<T> onCompletionExecutor(CompletableFuture<T> request) {
+    return this.completionExecutor == null
+        ? request
+        : Futures.completeOn(request, this.completionExecutor);
+  }
+
+  private static Hedger newHedger(SqsConfig sqsConfig) {
+    return sqsConfig.getHedgingConfig().isEnabled()
+        ? new Hedger(sqsConfig.getHedgingConfig())
+        : null;
+  }
+
+  private static Integer newVisibilityTimeout(SqsConfig sqsConfig) {
+    return sqsConfig.getLeaseConfig().isEnabled()
+        ? sqsConfig.getLeaseConfig().getVisibilityTimeoutSeconds()
+        : null;
+  }
+
+  /**
+   * Creates an SQS async client using the default credentials provider and the region and
+   * endpoint of the given configuration.
+   *
+   * @param sqsConfig The SQS configuration.
+   * @return The SQS async client.
+   */
+  static SqsAsyncClient newSqsAsyncClient(SqsConfig sqsConfig) {
+    SqsAsyncClientBuilder sqsClientBuilder =
+        SqsAsyncClient.builder()
+            .credentialsProvider(DefaultCredentialsProvider.create())
+            .region(Region.of(sqsConfig.getRegion()))
+            .overrideConfiguration(RetryPolicies.clientOverride(sqsConfig.getRetryConfig()))
+            .asyncConfiguration(
+                CompletionExecutors.asyncConfiguration(sqsConfig.getCompletionConfig()));
+    if (sqsConfig.getEndpoint() != null && !sqsConfig.getEndpoint().isEmpty()) {
+      sqsClientBuilder.endpointOverride(URI.create(sqsConfig.getEndpoint()));
+    }
+    return sqsClientBuilder.build();
+  }
+
+  private static List<String> newSystemAttributeNames(SqsConfig sqsConfig, boolean shared) {
+    if (shared) {
+      // The receive count tells first receives, whose pickup latency is measured, from retries.
+      return List.of(APPROXIMATE_RECEIVE_COUNT, SENT_TIMESTAMP);
+    }
+    DeadLetterConfig deadLetterConfig = sqsConfig.getDeadLetterConfig();
+    return deadLetterConfig.getProducer() != null && deadLetterConfig.getMaxReceiveCount() > 0
+        ? List.of(APPROXIMATE_RECEIVE_COUNT)
+        : null;
+  }
+
+  private static MessageAttributeEncoder<MessageAttributeValue> newAttributeEncoder(
+      SqsConfig sqsConfig) {
+    return new MessageAttributeEncoder<>(
+        sqsConfig.getAttributeConfig(),
+        (dataType, stringValue) ->
+            MessageAttributeValue.builder().dataType(dataType).stringValue(stringValue).build(),
+        (dataType, binaryValue) ->
+            MessageAttributeValue.builder()
+                .dataType(dataType)
+                .binaryValue(SdkBytes.fromByteArray(binaryValue))
+                .build());
   }
 }
@@ -1,8 +1,22 @@
 package com.dream11.queue.impl.sqs;
 
 import com.dream11.queue.QueueProvider;
+import com.dream11.queue.config.AcknowledgementConfig;
+import com.dream11.queue.config.AggregationConfig;
+import com.dream11.queue.config.AttributeConfig;
+import com.dream11.queue.config.ClaimCheckConfig;
+import com.dream11.queue.config.CompletionConfig;
+import com.dream11.queue.config.CompressionConfig;
+import com.dream11.queue.config.DeadLetterConfig;
+import com.dream11.queue.config.DrainConfig;
 import com.dream11.queue.config.HeartbeatConfig;
+import com.dream11.queue.config.HedgingConfig;
+import com.dream11.queue.config.LeaseConfig;
+import com.dream11.queue.config.OutboxConfig;
 import com.dream11.queue.config.QueueConfig;
+import com.dream11.queue.config.RateLimitConfig;
+import com.dream11.queue.config.RetryConfig;
+import com.dream11.queue.config.TimeoutConfig;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Getter;
@@ -27,6 +41,49 @@ public class SqsConfig implements QueueConfig {
   /** The configuration for heartbeat settings. */
   @Builder.Default private HeartbeatConfig heartbeatConfig = new HeartbeatConfig();
 
+  /** The configuration for encoding message attributes. */
+  @Builder.Default private AttributeConfig attributeConfig = new AttributeConfig();
+
+  /** The configuration for compressing message bodies. */
+  @Builder.Default private CompressionConfig compressionConfig = new CompressionConfig();
+
+  /** The configuration for offloading large message bodies to a blob store. */
+  @Builder.Default private ClaimCheckConfig claimCheckConfig = new ClaimCheckConfig();
+
+  /** The configuration for packing several messages into one provider message. */
+  @Builder.Default private AggregationConfig aggregationConfig = new AggregationConfig();
+
+  /** The configuration for the local outbox that stores sends during provider outages. */
+  @Builder.Default private OutboxConfig outboxConfig = new OutboxConfig();
+
+  /** The configuration for limiting the rate of sends and receives. */
+  @Builder.Default private RateLimitConfig rateLimitConfig = new RateLimitConfig();
+
+  /** The configuration for hedging slow sends. */
+  @Builder.Default private HedgingConfig hedgingConfig = new HedgingConfig();
+
+  /** The configuration for the default deadlines of requests. */
+  @Builder.Default private TimeoutConfig timeoutConfig = new TimeoutConfig();
+
+  /** The configuration for retrying failed requests. */
+  @Builder.Default private RetryConfig retryConfig = new RetryConfig();
+
+  /** The configuration for the threads that complete returned futures. */
+  @Builder.Default private CompletionConfig completionConfig = new CompletionConfig();
+
+  /** The configuration for batching acknowledgements. */
+  @Builder.Default
+  private AcknowledgementConfig acknowledgementConfig = new AcknowledgementConfig();
+
+  /** The configuration for draining the consumer on close. */
+  @Builder.Default private DrainConfig drainConfig = new DrainConfig();
+
+  /** The configuration for tracking the leases of received messages. */
+  @Builder.Default private LeaseConfig leaseConfig = new LeaseConfig();
+
+  /** The configuration for moving poison messages to a dead-letter queue. */
+  @Builder.Default private DeadLetterConfig deadLetterConfig = new DeadLetterConfig();
+
   /**
    * Returns the provider type for this configuration.
    *
@@ -1,21 +1,40 @@
 package com.dream11.queue.impl.sqs;
 
 import com.dream11.queue.Message;
-import com.dream11.queue.Metadata;
+import com.dream11.queue.aggregation.AggregatedEnvelope;
+import com.dream11.queue.claimcheck.ClaimCheck;
+import com.dream11.queue.config.DeadLetterConfig;
+import com.dream11.queue.config.DrainConfig;
+import com.dream11.queue.config.LeaseConfig;
+import com.dream11.queue.consumer.LeaseAction;
 import com.dream11.queue.consumer.MessageConsumer;
+import com.dream11.queue.ratelimit.TokenBucket;
+import com.dream11.queue.util.DeadLetterAttributes;
+import com.dream11.queue.util.Futures;
+import com.dream11.queue.util.ReservedAttributes;
+import com.dream11.queue.util.Threads;
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CancellationException;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.Executors;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.ScheduledFuture;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
 import java.util.stream.Collectors;
 import lombok.Getter;
 import lombok.extern.slf4j.Slf4j;
 import software.amazon.awssdk.services.sqs.SqsAsyncClient;
+import software.amazon.awssdk.services.sqs.model.MessageAttributeValue;
 
 /**
  * Implementation of MessageConsumer for Amazon SQS. This consumer handles receiving and
@@ -26,7 +45,28 @@ public class SqsConsumer implements MessageConsumer {
 
   public static final String RECEIPT_HANDLE = "RECEIPT_HANDLE";
   public static final String RAW_MESSAGE = "RAW_MESSAGE";
+  private static final int MAX_ERROR_LENGTH = 1024;
   private final SqsClient sqsClient;
+  private final ClaimCheck claimCheck;
+  private final TokenBucket rateLimiter;
+  private final LongAdder throttledReceives = new LongAdder();
+  private final LongAdder receiveWaitNanos = new LongAdder();
+  private final LongAdder deferredMessages = new LongAdder();
+  private final LongAdder releasedMessages = new LongAdder();
+  private final LongAdder extendedLeases = new LongAdder();
+  private final LongAdder expiredLeases = new LongAdder();
+  private final LongAdder deadLetteredMessages = new LongAdder();
+  private final AcknowledgementBatcher acknowledgementBatcher;
+
+  /**
+   * The leases of received messages that have not been acknowledged, released or rejected yet. The
+   * key is the message ID. Aggregated messages are tracked as a whole rather than per record.
+   * Messages are only tracked when draining or lease tracking is enabled.
+   */
+  private final Map<String, Lease> unacknowledged = new ConcurrentHashMap<>();
+
+  private final Set<CompletableFuture<?>> pendingReceives = ConcurrentHashMap.newKeySet();
+  private volatile boolean closing;
 
   @Getter private final SqsConfig sqsConfig;
 
@@ -37,6 +77,7 @@ public class SqsConsumer implements MessageConsumer {
   private final Map<String, ScheduledFuture<?>> heartbeatFutures = new ConcurrentHashMap<>();
 
   private final ScheduledExecutorService executorService;
+  private final boolean ownsExecutorService;
 
   /**
    * Constructs a new SqsConsumer with the given configuration. Creates a new SQS client using the
@@ -45,11 +86,7 @@ public class SqsConsumer implements MessageConsumer {
    * @param sqsConfig The SQS configuration.
    */
   public SqsConsumer(SqsConfig sqsConfig) {
-    this.sqsClient = new SqsClient(sqsConfig);
-    this.sqsConfig = sqsConfig;
-    this.executorService =
-        Executors.newScheduledThreadPool(
-            sqsConfig.getHeartbeatConfig().getExecutorThreadPoolSize());
+    this(sqsConfig, new SqsClient(sqsConfig));
   }
 
   /**
@@ -60,11 +97,40 @@ public class SqsConsumer implements MessageConsumer {
    * @param sqsAsyncClient The SQS async client.
    */
   public SqsConsumer(SqsConfig sqsConfig, SqsAsyncClient sqsAsyncClient) {
-    this.sqsClient = new SqsClient(sqsConfig, sqsAsyncClient);
+    this(sqsConfig, new SqsClient(sqsConfig, sqsAsyncClient));
+  }
+
+  /**
+   * Constructs a new SqsConsumer with the given configuration and client.
+   *
+   * @param sqsConfig The SQS configuration.
+   * @param sqsClient The SQS client.
+   */
+  SqsConsumer(SqsConfig sqsConfig, SqsClient sqsClient) {
+    this(sqsConfig, sqsClient, null);
+  }
+
+  /**
+   * Constructs a new SqsConsumer whose heartbeats and acknowledgement linger times run on the given
+   * scheduler, so that many consumers share its threads. The consumer does not shut it down.
+   *
+   * @param sqsConfig The SQS configuration.
+   * @param sqsClient The SQS client.
+   * @param scheduler The shared scheduler, or null to create one for this consumer.
+   */
+  SqsConsumer(SqsConfig sqsConfig, SqsClient sqsClient, ScheduledExecutorService scheduler) {
+    this.sqsClient = sqsClient;
     this.sqsConfig = sqsConfig;
+    this.claimCheck = new ClaimCheck(sqsConfig.getClaimCheckConfig());
+    this.rateLimiter = newRateLimiter(sqsConfig);
+    this.acknowledgementBatcher = newAcknowledgementBatcher(sqsConfig, this.sqsClient, scheduler);
+    this.ownsExecutorService = scheduler == null;
     this.executorService =
-        Executors.newScheduledThreadPool(
-            sqsConfig.getHeartbeatConfig().getExecutorThreadPoolSize());
+        this.ownsExecutorService
+            ? Threads.newScheduler(
+                sqsConfig.getHeartbeatConfig().getExecutorThreadPoolSize(),
+                sqsConfig.getHeartbeatConfig().isVirtualThreads())
+            : scheduler;
   }
 
   /**
@@ -80,45 +146,190 @@ public class SqsConsumer implements MessageConsumer {
 
   /**
    * Receives a list of messages asynchronously with a specified timeout. The number of messages
-   * received is determined by the configuration.
+   * received is determined by the configuration. Bodies offloaded to the blob store are fetched in
+   * parallel before the returned future completes, and aggregated messages are unpacked into one
+   * message per record. A body that cannot be fetched fails only its own message: the message is
+   * still returned, and its {@link Message#getBody()} throws an {@link IllegalStateException} with
+   * the blob store error as the cause, so that the handler fails and the message is rejected.
+   *
+   * <p>Messages sent with {@link SqsProducer#sendDelayed} that arrive before they are due are not
+   * returned. They are sent back to the queue with the remaining delay, up to 15 minutes per hop,
+   * and the received copy is deleted.
+   *
+   * <p>If rate limiting is enabled, each call reserves one permit per message it may receive and
+   * refunds the permits for messages it did not receive. A call over the rate is started later on
+   * a timer instead of sleeping the calling thread, and the time it waited is added to {@link
+   * #getReceiveWaitNanos()}.
    *
    * @param timeout The timeout in seconds to wait for messages.
-   * @return A CompletableFuture containing a list of received messages.
+   * @return A CompletableFuture containing a list of received messages, failed with an {@link
+   *     IllegalStateException} once the consumer is closing.
    */
   @Override
   public CompletableFuture<List<Message>> receive(int timeout) {
-    return this.sqsClient
-        .receive(timeout)
-        .thenApply(
-            messages -> messages.stream().map(this::buildMessage).collect(Collectors.toList()))
-        .thenApply(
-            messages -> {
-              if (this.getSqsConfig().getHeartbeatConfig().getHeartbeatInterval() > 0) {
-                this.sendHeartbeats(messages);
-              }
-              return messages;
-            });
+    return this.receive(timeout, this.getSqsConfig().getReceiveConfig().getMaxMessages());
+  }
+
+  /**
+   * Receives at most the given number of messages, and no more than the configured maximum,
+   * otherwise like {@link #receive(int)}.
+   *
+   * @param timeout The timeout in seconds to wait for messages.
+   * @param maxMessages The maximum number of messages to receive.
+   * @return A CompletableFuture containing a list of received messages, failed with an {@link
+   *     IllegalStateException} once the consumer is closing.
+   * @throws IllegalArgumentException if maxMessages is not positive.
+   */
+  @Override
+  public CompletableFuture<List<Message>> receive(int timeout, int maxMessages) {
+    if (maxMessages <= 0) {
+      throw new IllegalArgumentException("maxMessages must be positive");
+    }
+    if (this.closing) {
+      return CompletableFuture.failedFuture(new IllegalStateException("Consumer is closed"));
+    }
+    int limit = Math.min(maxMessages, this.getSqsConfig().getReceiveConfig().getMaxMessages());
+    if (this.rateLimiter == null) {
+      return this.receiveNow(timeout, limit, 0);
+    }
+    long waitNanos = this.rateLimiter.reserve(limit);
+    if (waitNanos == 0) {
+      return this.receiveNow(timeout, limit, limit);
+    }
+    this.throttledReceives.increment();
+    this.receiveWaitNanos.add(waitNanos);
+    log.debug("Receive throttled for {} ms", TimeUnit.NANOSECONDS.toMillis(waitNanos));
+    return Futures.startAfter(waitNanos, () -> this.receiveNow(timeout, limit, limit));
+  }
+
+  /**
+   * Returns the number of receive calls that were delayed by the rate limit.
+   *
+   * @return The number of throttled receive calls.
+   */
+  public long getThrottledReceives() {
+    return this.throttledReceives.sum();
+  }
+
+  /**
+   * Returns the total time receive calls were delayed by the rate limit.
+   *
+   * @return The total wait time in nanoseconds.
+   */
+  public long getReceiveWaitNanos() {
+    return this.receiveWaitNanos.sum();
+  }
+
+  /**
+   * Returns the number of received messages that were sent back to the queue because they were not
+   * yet due.
+   *
+   * @return The number of deferred messages.
+   */
+  public long getDeferredMessages() {
+    return this.deferredMessages.sum();
+  }
+
+  /**
+   * Returns the number of received messages that were made visible again without being processed.
+   *
+   * @return The number of released messages.
+   */
+  public long getReleasedMessages() {
+    return this.releasedMessages.sum();
+  }
+
+  /**
+   * Returns the number of leases of buffered messages that were extended before dispatch.
+   *
+   * @return The number of extended leases.
+   */
+  public long getExtendedLeases() {
+    return this.extendedLeases.sum();
+  }
+
+  /**
+   * Returns the number of messages whose lease expired before they were dispatched. These messages
+   * were dropped, as another consumer may already have received them again.
+   *
+   * @return The number of expired leases.
+   */
+  public long getExpiredLeases() {
+    return this.expiredLeases.sum();
+  }
+
+  /**
+   * Returns the number of messages moved to the dead-letter queue and deleted from this queue.
+   *
+   * @return The number of dead-lettered messages.
+   */
+  public long getDeadLetteredMessages() {
+    return this.deadLetteredMessages.sum();
+  }
+
+  private CompletableFuture<List<Message>> receiveNow(int timeout, int maxMessages, int permits) {
+    CompletableFuture<List<software.amazon.awssdk.services.sqs.model.Message>> request =
+        this.sqsClient.receive(timeout, maxMessages);
+    this.pendingReceives.add(request);
+    request.whenComplete((received, error) -> this.pendingReceives.remove(request));
+    CompletableFuture<Long> receivedAt = request.thenApply(received -> System.nanoTime());
+    CompletableFuture<List<Message>> messages =
+        request
+            .thenApply(
+                received -> {
+                  if (this.rateLimiter != null) {
+                    this.rateLimiter.refund(permits - received.size());
+                  }
+                  return received;
+                })
+            .thenApply(this::deferEarlyMessages)
+            .thenApply(
+                received ->
+                    received.stream().map(this::buildMessage).collect(Collectors.toList()))
+            .thenCompose(this::resolveClaimChecks)
+            .thenCombine(receivedAt, this::track)
+            .thenApply(
+                received -> {
+                  if (this.getSqsConfig().getHeartbeatConfig().getHeartbeatInterval() > 0) {
+                    this.sendHeartbeats(received);
+                  }
+                  return received;
+                })
+            .thenApply(this::unpackAggregates)
+            .thenApply(this::deadLetterRedeliveredMessages);
+    return Futures.propagateCancellation(messages, request);
   }
 
   /**
    * Acknowledges a message by deleting it from the SQS queue. This indicates that the message has
-   * been successfully processed.
+   * been successfully processed. An offloaded body is then deleted from the blob store; failing to
+   * delete it is logged and does not fail the acknowledgement.
+   *
+   * <p>A record unpacked from an aggregated message is only marked as acknowledged, and the
+   * aggregated message is deleted when its last record is acknowledged.
+   *
+   * <p>If acknowledgements are batched, the message is deleted with the next batch request.
+   *
+   * <p>If the delete fails, the heartbeat of the message is stopped and the message is released,
+   * so that it is received again right away instead of staying hidden.
    *
    * @param message The message to acknowledge.
-   * @return A CompletableFuture that completes when the message is deleted.
+   * @return A CompletableFuture that completes when the message is deleted, or immediately for a
+   *     record that is not the last of its aggregated message.
    */
   @Override
   public CompletableFuture<Void> acknowledgeMessage(Message message) {
-    return this.sqsClient
-        .deleteMessage(this.getReceiptHandle(message))
-        .thenAccept(
-            v -> {
-              ScheduledFuture<?> future =
-                  this.heartbeatFutures.remove(message.getMetadata().getId());
-              if (future != null) {
-                future.cancel(true);
-              }
-            });
+    return this.acknowledgeMessage(message, true);
+  }
+
+  private CompletableFuture<Void> acknowledgeMessage(Message message, boolean releaseClaimCheck) {
+    if (message instanceof SqsRecordMessage) {
+      SqsRecordMessage record = (SqsRecordMessage) message;
+      return record.acknowledge()
+          ? this.deleteMessage(record.getParent(), releaseClaimCheck)
+          : CompletableFuture.completedFuture(null);
+    }
+    return this.deleteMessage(message, releaseClaimCheck);
   }
 
   /**
@@ -129,22 +340,305 @@ public class SqsConsumer implements MessageConsumer {
    */
   @Override
   public CompletableFuture<Void> sendHeartbeat(Message message) {
-    return this.sqsClient.changeMessageVisibility(
-        this.getReceiptHandle(message),
-        this.getSqsConfig().getHeartbeatConfig().getHeartbeatInterval() * 2);
+    int visibilityTimeout = this.getSqsConfig().getHeartbeatConfig().getHeartbeatInterval() * 2;
+    long sentAt = System.nanoTime();
+    return this.sqsClient
+        .changeMessageVisibility(this.getReceiptHandle(message), visibilityTimeout)
+        .thenRun(
+            () -> {
+              Lease lease = this.unacknowledged.get(message.getMetadata().getId());
+              if (lease != null) {
+                lease.extendTo(sentAt + TimeUnit.SECONDS.toNanos(visibilityTimeout));
+              }
+            });
+  }
+
+  /**
+   * Checks the leases of buffered messages before they are dispatched. If lease tracking is
+   * enabled, messages whose visibility timeout expires within the configured minimum are extended
+   * or released, with batch requests. Messages whose lease has already expired are dropped and
+   * counted in {@link #getExpiredLeases()}; they are not released, as another consumer may already
+   * have received them again. Messages whose lease could not be extended are dropped too.
+   *
+   * @param messages The buffered messages.
+   * @return A CompletableFuture containing the messages that can be dispatched, in order.
+   */
+  @Override
+  public CompletableFuture<List<Message>> refreshLeases(List<Message> messages) {
+    LeaseConfig leaseConfig = this.getSqsConfig().getLeaseConfig();
+    if (!leaseConfig.isEnabled()) {
+      return CompletableFuture.completedFuture(messages);
+    }
+    long now = System.nanoTime();
+    long minRemainingNanos = TimeUnit.MILLISECONDS.toNanos(leaseConfig.getMinRemainingMillis());
+    Set<String> dropped = new HashSet<>();
+    Map<String, Lease> expiring = new LinkedHashMap<>();
+    for (Message message : messages) {
+      String id = received(message).getMetadata().getId();
+      Lease lease = this.unacknowledged.get(id);
+      if (lease == null) {
+        continue;
+      }
+      long remainingNanos = lease.expiresAtNanos - now;
+      if (remainingNanos <= 0) {
+        if (dropped.add(id)) {
+          this.expire(lease, now);
+        }
+      } else if (remainingNanos < minRemainingNanos) {
+        expiring.putIfAbsent(id, lease);
+      }
+    }
+    if (dropped.isEmpty() && expiring.isEmpty()) {
+      return CompletableFuture.completedFuture(messages);
+    }
+    CompletableFuture<Set<String>> failed;
+    if (expiring.isEmpty()) {
+      failed = CompletableFuture.completedFuture(Set.of());
+    } else if (leaseConfig.getAction() == LeaseAction.RELEASE) {
+      List<Message> released = new ArrayList<>();
+      expiring.values().forEach(lease -> released.add(lease.message));
+      failed =
+          this.releaseMessages(released)
+              .handle(
+                  (v, error) -> {
+                    if (error != null) {
+                      log.warn("Failed to release messages whose lease was expiring", error);
+                    }
+                    return expiring.keySet();
+                  });
+    } else {
+      failed = this.extendLeases(expiring.values(), leaseConfig.getVisibilityTimeoutSeconds());
+    }
+    return failed.thenApply(
+        ids -> {
+          dropped.addAll(ids);
+          List<Message> dispatchable = new ArrayList<>(messages.size());
+          for (Message message : messages) {
+            if (!dropped.contains(received(message).getMetadata().getId())) {
+              dispatchable.add(message);
+            }
+          }
+          return dispatchable;
+        });
+  }
+
+  /**
+   * Releases received messages by setting their visibility timeout to zero, with batch requests.
+   * Their heartbeats are stopped. Releasing a record unpacked from an aggregated message releases
+   * the whole aggregated message, so its other records are received again too.
+   *
+   * @param messages The messages to release.
+   * @return A CompletableFuture that completes when the messages are released, failed with an
+   *     {@link IllegalStateException} if any of them could not be released.
+   */
+  @Override
+  public CompletableFuture<Void> release(List<Message> messages) {
+    Map<String, Message> received = new LinkedHashMap<>();
+    for (Message message : messages) {
+      Message parent = received(message);
+      received.putIfAbsent(parent.getMetadata().getId(), parent);
+    }
+    return this.releaseMessages(received.values());
+  }
+
+  /**
+   * Moves a message whose handler failed to the dead-letter queue if the failure is classified as
+   * non-retryable by the dead-letter configuration. The message is sent to the dead-letter
+   * producer with the {@link DeadLetterAttributes} describing the failure, and is then
+   * acknowledged. A record unpacked from an aggregated message is moved on its own.
+   *
+   * <p>A message left to be received again, or that could not be moved, has its heartbeat stopped,
+   * so it becomes visible again once its current visibility timeout expires. For a record unpacked
+   * from an aggregated message, the heartbeat of the whole aggregated message is stopped.
+   *
+   * @param message The message whose handler failed.
+   * @param error The exception thrown by the handler.
+   * @return A CompletableFuture containing true if the message was moved, or false if it was left
+   *     to be received again.
+   */
+  @Override
+  public CompletableFuture<Boolean> reject(Message message, Throwable error) {
+    DeadLetterConfig deadLetterConfig = this.getSqsConfig().getDeadLetterConfig();
+    if (deadLetterConfig.getProducer() == null
+        || !isNonRetryable(error, deadLetterConfig.getNonRetryableExceptions())) {
+      this.leaveForRedelivery(received(message));
+      return CompletableFuture.completedFuture(false);
+    }
+    return this.deadLetter(message, DeadLetterAttributes.NON_RETRYABLE_ERROR, error)
+        .whenComplete(
+            (v, e) -> {
+              if (e != null) {
+                this.leaveForRedelivery(received(message));
+              }
+            })
+        .thenApply(v -> true);
   }
 
   /**
    * Closes the SQS consumer, releasing any resources. This method should be called when the
    * consumer is no longer needed.
+   *
+   * <p>Receives are stopped and pending receives are cancelled. If draining is enabled, closing
+   * then waits up to the drain timeout for received messages to be acknowledged, while their
+   * heartbeats keep running. Batched acknowledgements are deleted before the client is closed, and
+   * messages still unacknowledged are released with batch requests so that they are received again
+   * right away.
    */
   @Override
   public void close() {
+    this.closing = true;
+    this.pendingReceives.forEach(receive -> receive.cancel(true));
+    DrainConfig drainConfig = this.getSqsConfig().getDrainConfig();
+    if (drainConfig.isEnabled()) {
+      this.awaitAcknowledgements(drainConfig.getTimeoutMillis());
+    }
+    if (this.acknowledgementBatcher != null) {
+      this.acknowledgementBatcher.close();
+    }
+    if (drainConfig.isEnabled() && drainConfig.isReleaseUnacknowledged()) {
+      this.releaseUnacknowledged();
+    }
     this.heartbeatFutures.values().forEach(future -> future.cancel(true));
-    this.executorService.shutdown();
+    if (this.ownsExecutorService) {
+      this.executorService.shutdown();
+    }
     this.sqsClient.close();
   }
 
+  private List<Message> track(List<Message> messages, long receivedAtNanos) {
+    LeaseConfig leaseConfig = this.getSqsConfig().getLeaseConfig();
+    if (!leaseConfig.isEnabled() && !this.getSqsConfig().getDrainConfig().isEnabled()) {
+      return messages;
+    }
+    long expiresAtNanos =
+        leaseConfig.isEnabled()
+            ? receivedAtNanos + TimeUnit.SECONDS.toNanos(leaseConfig.getVisibilityTimeoutSeconds())
+            : Long.MAX_VALUE;
+    messages.forEach(
+        message ->
+            this.unacknowledged.put(
+                message.getMetadata().getId(),
+                new Lease(message, receivedAtNanos, expiresAtNanos)));
+    return messages;
+  }
+
+  private CompletableFuture<Set<String>> extendLeases(
+      Collection<Lease> leases, int visibilityTimeout) {
+    List<String> receiptHandles = new ArrayList<>();
+    leases.forEach(lease -> receiptHandles.add(this.getReceiptHandle(lease.message)));
+    long sentAt = System.nanoTime();
+    return this.sqsClient
+        .changeMessageVisibility(receiptHandles, visibilityTimeout)
+        .handle(
+            (failed, error) -> {
+              if (error != null) {
+                log.warn("Failed to extend the leases of {} messages", leases.size(), error);
+              }
+              Set<String> failedHandles = failed == null ? null : new HashSet<>(failed);
+              Set<String> failedIds = new HashSet<>();
+              for (Lease lease : leases) {
+                String receiptHandle = this.getReceiptHandle(lease.message);
+                if (failedHandles == null || failedHandles.contains(receiptHandle)) {
+                  failedIds.add(lease.message.getMetadata().getId());
+                  this.stopHeartbeat(lease.message);
+                  this.untrack(lease.message);
+                } else {
+                  lease.extendTo(sentAt + TimeUnit.SECONDS.toNanos(visibilityTimeout));
+                  this.extendedLeases.increment();
+                }
+              }
+              return failedIds;
+            });
+  }
+
+  private void expire(Lease lease, long now) {
+    this.expiredLeases.increment();
+    this.stopHeartbeat(lease.message);
+    this.untrack(lease.message);
+    log.warn(
+        "Lease of message {} expired before it was dispatched, {} ms after it was received",
+        lease.message.getMetadata().getId(),
+        TimeUnit.NANOSECONDS.toMillis(now - lease.receivedAtNanos));
+  }
+
+  private void untrack(Message message) {
+    if (this.unacknowledged.remove(message.getMetadata().getId()) != null) {
+      synchronized (this.unacknowledged) {
+        this.unacknowledged.notifyAll();
+      }
+    }
+  }
+
+  /** Stops extending the visibility of a message, so that it is received again. */
+  private void leaveForRedelivery(Message message) {
+    this.stopHeartbeat(message);
+    this.untrack(message);
+  }
+
+  private void stopHeartbeat(Message message) {
+    ScheduledFuture<?> future = this.heartbeatFutures.remove(message.getMetadata().getId());
+    if (future != null) {
+      future.cancel(true);
+    }
+  }
+
+  private void awaitAcknowledgements(long timeoutMillis) {
+    long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeoutMillis);
+    synchronized (this.unacknowledged) {
+      long remaining = deadline - System.nanoTime();
+      while (!this.unacknowledged.isEmpty() && remaining > 0) {
+        try {
+          TimeUnit.NANOSECONDS.timedWait(this.unacknowledged, remaining);
+        } catch (InterruptedException e) {
+          Thread.currentThread().interrupt();
+          return;
+        }
+        remaining = deadline - System.nanoTime();
+      }
+    }
+    if (!this.unacknowledged.isEmpty()) {
+      log.warn(
+          "{} messages were not acknowledged within the drain timeout",
+          this.unacknowledged.size());
+    }
+  }
+
+  private void releaseUnacknowledged() {
+    List<Message> messages = new ArrayList<>();
+    this.unacknowledged.values().forEach(lease -> messages.add(lease.message));
+    if (messages.isEmpty()) {
+      return;
+    }
+    try {
+      this.releaseMessages(messages).join();
+    } catch (CompletionException | CancellationException e) {
+      log.warn("Failed to release unacknowledged messages", e);
+    }
+  }
+
+  private CompletableFuture<Void> releaseMessages(Collection<Message> messages) {
+    if (messages.isEmpty()) {
+      return CompletableFuture.completedFuture(null);
+    }
+    List<String> receiptHandles = new ArrayList<>();
+    for (Message message : messages) {
+      // Stop the heartbeat first, or it would hide the message again.
+      this.stopHeartbeat(message);
+      this.untrack(message);
+      receiptHandles.add(this.getReceiptHandle(message));
+    }
+    return this.sqsClient
+        .changeMessageVisibility(receiptHandles, 0)
+        .thenAccept(
+            failed -> {
+              this.releasedMessages.add(receiptHandles.size() - failed.size());
+              if (!failed.isEmpty()) {
+                throw new IllegalStateException(
+                    "Failed to release " + failed.size() + " messages");
+              }
+            });
+  }
+
   private void sendHeartbeats(List<Message> messages) {
     messages.forEach(
         message -> {
@@ -168,29 +662,339 @@ public class SqsConsumer implements MessageConsumer {
   }
 
   private Message buildMessage(software.amazon.awssdk.services.sqs.model.Message message) {
-    // Build system metadata
-    Map<String, Object> systemAttributes =
-        Map.of(RECEIPT_HANDLE, message.receiptHandle(), RAW_MESSAGE, message);
+    return new SqsMessage(message);
+  }
 
-    Metadata metadata =
-        Metadata.builder().id(message.messageId()).attributes(systemAttributes).build();
+  private CompletableFuture<Void> deleteMessage(Message message, boolean releaseClaimCheck) {
+    String receiptHandle = this.getReceiptHandle(message);
+    // A message being deleted is no longer waited for or released when the consumer closes.
+    this.untrack(message);
+    CompletableFuture<Void> request =
+        this.acknowledgementBatcher == null
+            ? this.sqsClient.deleteMessage(receiptHandle)
+            : this.acknowledgementBatcher.add(receiptHandle);
+    CompletableFuture<Void> deleted =
+        request
+            .whenComplete(
+                (v, error) -> {
+                  if (error == null) {
+                    this.stopHeartbeat(message);
+                  } else {
+                    this.releaseUndeleted(message);
+                  }
+                })
+            .thenCompose(
+                v ->
+                    releaseClaimCheck
+                        ? this.releaseClaimCheck(message)
+                        : CompletableFuture.<Void>completedFuture(null));
+    return Futures.propagateCancellation(deleted, request);
+  }
+
+  /** Releases a message whose delete failed, so it is received again instead of kept hidden. */
+  private void releaseUndeleted(Message message) {
+    this.releaseMessages(List.of(message))
+        .whenComplete(
+            (v, error) -> {
+              if (error != null) {
+                log.warn(
+                    "Failed to release message {} whose delete failed",
+                    message.getMetadata().getId(),
+                    error);
+              }
+            });
+  }
 
-    // Extract user-controlled message attributes from SQS message
-    Map<String, Object> userAttributes = new HashMap<>();
-    if (message.messageAttributes() != null) {
-      message
-          .messageAttributes()
-          .forEach((key, value) -> userAttributes.put(key, value.stringValue()));
+  private List<software.amazon.awssdk.services.sqs.model.Message> deferEarlyMessages(
+      List<software.amazon.awssdk.services.sqs.model.Message> messages) {
+    List<software.amazon.awssdk.services.sqs.model.Message> due = null;
+    long now = System.currentTimeMillis();
+    for (int i = 0; i < messages.size(); i++) {
+      software.amazon.awssdk.services.sqs.model.Message message = messages.get(i);
+      long remainingMillis = remainingDelayMillis(message, now);
+      if (remainingMillis <= 0) {
+        if (due != null) {
+          due.add(message);
+        }
+        continue;
+      }
+      if (due == null) {
+        due = new ArrayList<>(messages.subList(0, i));
+      }
+      this.defer(message, remainingMillis);
     }
+    return due == null ? messages : due;
+  }
 
-    return Message.builder()
-        .body(message.body())
-        .metadata(metadata)
-        .attributes(userAttributes)
-        .build();
+  private void defer(
+      software.amazon.awssdk.services.sqs.model.Message message, long remainingMillis) {
+    long delaySeconds = (remainingMillis + 999) / 1000;
+    this.deferredMessages.increment();
+    this.sqsClient
+        .resend(message, (int) Math.min(delaySeconds, SqsClient.MAX_DELAY_SECONDS))
+        .thenCompose(v -> this.sqsClient.deleteMessage(message.receiptHandle()))
+        .whenComplete(
+            (v, error) -> {
+              if (error != null) {
+                log.warn("Failed to defer message: {}", message.messageId(), error);
+              }
+            });
+  }
+
+  private static long remainingDelayMillis(
+      software.amazon.awssdk.services.sqs.model.Message message, long now) {
+    if (!message.hasMessageAttributes()) {
+      return 0;
+    }
+    MessageAttributeValue dueAt = message.messageAttributes().get(ReservedAttributes.DUE_AT);
+    if (dueAt == null) {
+      return 0;
+    }
+    try {
+      return Long.parseLong(dueAt.stringValue()) - now;
+    } catch (NumberFormatException e) {
+      log.warn("Ignoring malformed due time of message: {}", message.messageId());
+      return 0;
+    }
+  }
+
+  private List<Message> deadLetterRedeliveredMessages(List<Message> messages) {
+    DeadLetterConfig deadLetterConfig = this.getSqsConfig().getDeadLetterConfig();
+    if (deadLetterConfig.getProducer() == null || deadLetterConfig.getMaxReceiveCount() <= 0) {
+      return messages;
+    }
+    List<Message> result = null;
+    for (int i = 0; i < messages.size(); i++) {
+      Message message = messages.get(i);
+      if (receiveCount(message) <= deadLetterConfig.getMaxReceiveCount()) {
+        if (result != null) {
+          result.add(message);
+        }
+        continue;
+      }
+      if (result == null) {
+        result = new ArrayList<>(messages.subList(0, i));
+      }
+      this.deadLetter(message, DeadLetterAttributes.MAX_RECEIVE_COUNT_EXCEEDED, null)
+          .whenComplete(
+              (v, error) -> {
+                if (error != null) {
+                  // Left to its visibility timeout, the message is moved on its next receive.
+                  this.leaveForRedelivery(received(message));
+                }
+              });
+    }
+    return result == null ? messages : result;
+  }
+
+  /**
+   * Sends a copy of the message to the dead-letter queue, then acknowledges it. A message whose
+   * body could not be fetched is moved as its blob key, marked as offloaded, and its blob is kept
+   * so that the copy can still be resolved.
+   */
+  private CompletableFuture<Void> deadLetter(Message message, String reason, Throwable error) {
+    boolean movesBlobKey = isUnresolved(message);
+    Map<String, Object> attributes =
+        movesBlobKey
+            ? this.claimCheck.markOffloaded(message.getAttributes())
+            : new HashMap<>(message.getAttributes());
+    attributes.put(DeadLetterAttributes.REASON, reason);
+    attributes.put(DeadLetterAttributes.SOURCE_QUEUE, this.getSqsConfig().getQueueUrl());
+    attributes.put(DeadLetterAttributes.RECEIVE_COUNT, receiveCount(message));
+    if (error != null) {
+      attributes.put(DeadLetterAttributes.ERROR, describe(error));
+    }
+    CompletableFuture<Void> sent;
+    try {
+      sent =
+          this.getSqsConfig()
+              .getDeadLetterConfig()
+              .getProducer()
+              .send(
+                  movesBlobKey ? ((SqsMessage) message).getClaimCheckKey() : message.getBody(),
+                  attributes);
+    } catch (RuntimeException e) {
+      sent = CompletableFuture.failedFuture(e);
+    }
+    return sent.thenCompose(v -> this.acknowledgeMessage(message, !movesBlobKey))
+        .whenComplete(
+            (v, e) -> {
+              if (e != null) {
+                log.error(
+                    "Failed to move message {} to the dead-letter queue",
+                    message.getMetadata().getId(),
+                    e);
+              } else {
+                this.deadLetteredMessages.increment();
+                log.warn(
+                    "Moved message {} to the dead-letter queue: {}",
+                    message.getMetadata().getId(),
+                    reason);
+              }
+            });
+  }
+
+  private static boolean isUnresolved(Message message) {
+    return message instanceof SqsMessage && ((SqsMessage) message).getPayloadError() != null;
+  }
+
+  private static boolean isNonRetryable(
+      Throwable error, Set<Class<? extends Throwable>> nonRetryableExceptions) {
+    for (Throwable cause = error; cause != null; cause = cause.getCause()) {
+      for (Class<? extends Throwable> type : nonRetryableExceptions) {
+        if (type.isInstance(cause)) {
+          return true;
+        }
+      }
+    }
+    return false;
+  }
+
+  private static String describe(Throwable error) {
+    String description =
+        error.getMessage() == null
+            ? error.getClass().getName()
+            : error.getClass().getName() + ": " + error.getMessage();
+    return description.length() > MAX_ERROR_LENGTH
+        ? description.substring(0, MAX_ERROR_LENGTH)
+        : description;
+  }
+
+  private static int receiveCount(Message message) {
+    Message received = received(message);
+    return received instanceof SqsMessage ? ((SqsMessage) received).getReceiveCount() : 0;
+  }
+
+  private List<Message> unpackAggregates(List<Message> messages) {
+    List<Message> result = null;
+    for (int i = 0; i < messages.size(); i++) {
+      Message message = messages.get(i);
+      if (!((SqsMessage) message).isAggregated()) {
+        if (result != null) {
+          result.add(message);
+        }
+        continue;
+      }
+      if (result == null) {
+        result = new ArrayList<>(messages.subList(0, i));
+      }
+      List<String> records;
+      try {
+        records = AggregatedEnvelope.decode(message.getBody());
+      } catch (IllegalArgumentException | IllegalStateException e) {
+        log.error("Failed to unpack aggregated message: {}", message.getMetadata().getId(), e);
+        result.add(message);
+        continue;
+      }
+      AtomicInteger pending = new AtomicInteger(records.size());
+      for (int index = 0; index < records.size(); index++) {
+        result.add(new SqsRecordMessage((SqsMessage) message, index, records.get(index), pending));
+      }
+    }
+    return result == null ? messages : result;
+  }
+
+  private CompletableFuture<List<Message>> resolveClaimChecks(List<Message> messages) {
+    if (!this.claimCheck.isEnabled()) {
+      return CompletableFuture.completedFuture(messages);
+    }
+    List<CompletableFuture<Void>> futures = new ArrayList<>();
+    for (Message message : messages) {
+      SqsMessage sqsMessage = (SqsMessage) message;
+      String key = sqsMessage.getClaimCheckKey();
+      if (key != null) {
+        futures.add(this.resolveClaimCheck(sqsMessage, key));
+      }
+    }
+    return CompletableFuture.allOf(futures.toArray(new CompletableFuture[0]))
+        .thenApply(__ -> messages);
+  }
+
+  /** Fetches the body of one message. A failure is kept on the message and never fails others. */
+  private CompletableFuture<Void> resolveClaimCheck(SqsMessage message, String key) {
+    CompletableFuture<String> payload;
+    try {
+      payload = this.claimCheck.resolve(key);
+    } catch (RuntimeException e) {
+      payload = CompletableFuture.failedFuture(e);
+    }
+    return payload.handle(
+        (resolved, error) -> {
+          if (error == null) {
+            message.setPayload(resolved);
+          } else {
+            Throwable cause = error instanceof CompletionException ? error.getCause() : error;
+            log.warn(
+                "Failed to fetch offloaded body {} of message: {}",
+                key,
+                message.getMetadata().getId(),
+                cause);
+            message.setPayloadError(cause);
+          }
+          return null;
+        });
+  }
+
+  private CompletableFuture<Void> releaseClaimCheck(Message message) {
+    if (!this.claimCheck.isEnabled() || !(message instanceof SqsMessage)) {
+      return CompletableFuture.completedFuture(null);
+    }
+    String key = ((SqsMessage) message).getClaimCheckKey();
+    if (key == null) {
+      return CompletableFuture.completedFuture(null);
+    }
+    return this.claimCheck
+        .release(key)
+        .exceptionally(
+            e -> {
+              log.warn("Failed to delete offloaded body {} of message: {}", key, message, e);
+              return null;
+            });
+  }
+
+  static Message received(Message message) {
+    return message instanceof SqsRecordMessage ? ((SqsRecordMessage) message).getParent() : message;
+  }
+
+  private static TokenBucket newRateLimiter(SqsConfig sqsConfig) {
+    if (!(sqsConfig.getRateLimitConfig().getPermitsPerSecond() > 0)) {
+      return null;
+    }
+    return new TokenBucket(sqsConfig.getRateLimitConfig());
+  }
+
+  private static AcknowledgementBatcher newAcknowledgementBatcher(
+      SqsConfig sqsConfig, SqsClient sqsClient, ScheduledExecutorService scheduler) {
+    if (!sqsConfig.getAcknowledgementConfig().isBatched()) {
+      return null;
+    }
+    return new AcknowledgementBatcher(sqsConfig.getAcknowledgementConfig(), sqsClient, scheduler);
   }
 
   private String getReceiptHandle(Message message) {
+    String receiptHandle = message.getMetadata().getReceiptHandle();
+    if (receiptHandle != null) {
+      return receiptHandle;
+    }
     return message.getMetadata().getAttributes().get(RECEIPT_HANDLE).toString();
   }
+
+  /** A received message and the time its visibility timeout expires. */
+  private static final class Lease {
+    private final Message message;
+    private final long receivedAtNanos;
+    private volatile long expiresAtNanos;
+
+    private Lease(Message message, long receivedAtNanos, long expiresAtNanos) {
+      this.message = message;
+      this.receivedAtNanos = receivedAtNanos;
+      this.expiresAtNanos = expiresAtNanos;
+    }
+
+    private synchronized void extendTo(long expiresAtNanos) {
+      if (expiresAtNanos > this.expiresAtNanos) {
+        this.expiresAtNanos = expiresAtNanos;
+      }
+    }
+  }
 }
@@ -0,0 +1,271 @@
+package com.dream11.queue.impl.sqs;
+
+import com.dream11.queue.Message;
+import com.dream11.queue.Metadata;
+import com.dream11.queue.codec.PayloadCompressor;
+import com.dream11.queue.util.MessageAttributeConverter;
+import com.dream11.queue.util.ReservedAttributes;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+import software.amazon.awssdk.services.sqs.model.MessageAttributeValue;
+import software.amazon.awssdk.services.sqs.model.MessageSystemAttributeName;
+
+/**
+ * A lazy view of an SQS message. The body, id and receipt handle are read straight from the
+ * underlying SDK message, and the attribute maps are only materialised the first time they are
+ * accessed. Typed attribute getters decode from the attribute's data type and cache the result.
+ * Compressed bodies are decompressed on first access, and reserved attributes are hidden.
+ * Claim-checked bodies are resolved by the consumer through {@link #setPayload(String)}, or marked
+ * as failed through {@link #setPayloadError(Throwable)}.
+ */
+final class SqsMessage extends Message {
+  private final software.amazon.awssdk.services.sqs.model.Message message;
+  private final SqsMetadata metadata;
+  private volatile String payload;
+  private volatile Throwable payloadError;
+  private volatile String body;
+  private volatile Map<String, Object> attributes;
+  private volatile Map<String, Object> decodedAttributes;
+
+  /**
+   * Constructs a new SqsMessage backed by the given SDK message.
+   *
+   * @param message The SDK message received from SQS.
+   */
+  SqsMessage(software.amazon.awssdk.services.sqs.model.Message message) {
+    this.message = message;
+    this.metadata = new SqsMetadata(message);
+  }
+
+  /**
+   * Returns the body of the message.
+   *
+   * @return The body, fetched from the blob store if it was offloaded.
+   * @throws IllegalStateException if the offloaded body could not be fetched.
+   */
+  @Override
+  public String getBody() {
+    String result = this.body;
+    if (result == null) {
+      Throwable error = this.payloadError;
+      if (error != null) {
+        throw new IllegalStateException(
+            "Failed to fetch the offloaded body of message " + this.metadata.getId(), error);
+      }
+      String source = this.payload == null ? this.message.body() : this.payload;
+      MessageAttributeValue compression = this.getMessageAttribute(ReservedAttributes.COMPRESSION);
+      result =
+          compression == null
+              ? source
+              : PayloadCompressor.decompress(source, compression.stringValue());
+      this.body = result;
+    }
+    return result;
+  }
+
+  /**
+   * Returns the blob key of a claim-checked message.
+   *
+   * @return The key sent in place of the body, or null if the body was not offloaded.
+   */
+  String getClaimCheckKey() {
+    return this.getMessageAttribute(ReservedAttributes.CLAIM_CHECK) == null
+        ? null
+        : this.message.body();
+  }
+
+  /**
+   * Checks if the body packs several records produced with aggregation enabled.
+   *
+   * @return true if the body is an aggregated envelope.
+   */
+  boolean isAggregated() {
+    return this.getMessageAttribute(ReservedAttributes.AGGREGATED) != null;
+  }
+
+  /**
+   * Returns the approximate number of times the message was received, if it was requested with
+   * the receive.
+   *
+   * @return The receive count, or 0 if it is not known.
+   */
+  int getReceiveCount() {
+    if (!this.message.hasAttributes()) {
+      return 0;
+    }
+    String count =
+        this.message.attributes().get(MessageSystemAttributeName.APPROXIMATE_RECEIVE_COUNT);
+    return count == null ? 0 : Integer.parseInt(count);
+  }
+
+  /**
+   * Returns the time the message was sent, if it was requested with the receive.
+   *
+   * @return The time in milliseconds since the epoch, or 0 if it is not known.
+   */
+  long getSentTimestamp() {
+    if (!this.message.hasAttributes()) {
+      return 0;
+    }
+    String timestamp = this.message.attributes().get(MessageSystemAttributeName.SENT_TIMESTAMP);
+    return timestamp == null ? 0 : Long.parseLong(timestamp);
+  }
+
+  /**
+   * Replaces the body sent through SQS with the payload fetched from the blob store. Must be called
+   * before the body is first accessed.
+   *
+   * @param payload The offloaded payload, still compressed if it was sent compressed.
+   */
+  void setPayload(String payload) {
+    this.payload = payload;
+  }
+
+  /**
+   * Marks the offloaded body as failed to fetch, so that {@link #getBody()} throws for this message
+   * alone. Must be called before the body is first accessed.
+   *
+   * @param payloadError The error the blob store failed with.
+   */
+  void setPayloadError(Throwable payloadError) {
+    this.payloadError = payloadError;
+  }
+
+  /**
+   * Returns the error the offloaded body failed to fetch with.
+   *
+   * @return The error, or null if the body was fetched or not offloaded.
+   */
+  Throwable getPayloadError() {
+    return this.payloadError;
+  }
+
+  @Override
+  public Metadata getMetadata() {
+    return this.metadata;
+  }
+
+  @Override
+  public Map<String, Object> getAttributes() {
+    Map<String, Object> result = this.attributes;
+    if (result == null) {
+      result = new HashMap<>();
+      if (this.message.hasMessageAttributes()) {
+        Map<String, Object> userAttributes = result;
+        this.message
+            .messageAttributes()
+            .forEach(
+                (key, value) -> {
+                  if (!ReservedAttributes.isReserved(key)) {
+                    userAttributes.put(key, toObject(value));
+                  }
+                });
+      }
+      this.attributes = result;
+    }
+    return result;
+  }
+
+  @Override
+  public Long getLong(String key) {
+    return this.decode(key, Long.class, value -> Long.valueOf(value.stringValue()));
+  }
+
+  @Override
+  public Double getDouble(String key) {
+    return this.decode(key, Double.class, value -> Double.valueOf(value.stringValue()));
+  }
+
+  @Override
+  public Boolean getBoolean(String key) {
+    return this.decode(key, Boolean.class, value -> parseBoolean(key, value.stringValue()));
+  }
+
+  /** Returns a copy of the cached bytes, so callers cannot change what other callers see. */
+  @Override
+  public byte[] getBinary(String key) {
+    byte[] bytes =
+        this.decode(
+            key,
+            byte[].class,
+            value -> {
+              if (!isBinary(value)) {
+                throw new IllegalArgumentException(
+                    "Message attribute '" + key + "' is not binary");
+              }
+              return value.binaryValue().asByteArray();
+            });
+    return bytes == null ? null : bytes.clone();
+  }
+
+  private <V> V decode(String key, Class<V> type, Function<MessageAttributeValue, V> decoder) {
+    Map<String, Object> cache = this.decodedAttributes;
+    if (cache != null) {
+      Object cached = cache.get(key);
+      if (type.isInstance(cached)) {
+        return type.cast(cached);
+      }
+    }
+    MessageAttributeValue value = this.getMessageAttribute(key);
+    if (value == null) {
+      return null;
+    }
+    V decoded = decoder.apply(value);
+    if (cache == null) {
+      cache = new ConcurrentHashMap<>();
+      this.decodedAttributes = cache;
+    }
+    cache.put(key, decoded);
+    return decoded;
+  }
+
+  private MessageAttributeValue getMessageAttribute(String key) {
+    return this.message.hasMessageAttributes() ? this.message.messageAttributes().get(key) : null;
+  }
+
+  private static Object toObject(MessageAttributeValue value) {
+    return isBinary(value) ? value.binaryValue().asByteArray() : value.stringValue();
+  }
+
+  private static boolean isBinary(MessageAttributeValue value) {
+    return value.dataType() != null
+        && value.dataType().startsWith(MessageAttributeConverter.BINARY);
+  }
+
+  /** Metadata view over the SDK message. System attributes are built on first access. */
+  static final class SqsMetadata extends Metadata {
+    private final software.amazon.awssdk.services.sqs.model.Message message;
+    private volatile Map<String, Object> attributes;
+
+    SqsMetadata(software.amazon.awssdk.services.sqs.model.Message message) {
+      this.message = message;
+    }
+
+    @Override
+    public String getId() {
+      return this.message.messageId();
+    }
+
+    @Override
+    public String getReceiptHandle() {
+      return this.message.receiptHandle();
+    }
+
+    @Override
+    public Map<String, Object> getAttributes() {
+      Map<String, Object> result = this.attributes;
+      if (result == null) {
+        result =
+            Map.of(
+                SqsConsumer.RECEIPT_HANDLE,
+                this.message.receiptHandle(),
+                SqsConsumer.RAW_MESSAGE,
+                this.message);
+        this.attributes = result;
+      }
+      return result;
+    }
+  }
+}
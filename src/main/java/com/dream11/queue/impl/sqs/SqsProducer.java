@@ -1,22 +1,42 @@
 package com.dream11.queue.impl.sqs;
 
+import com.dream11.queue.aggregation.RecordAggregator;
+import com.dream11.queue.codec.MessageCodec;
+import com.dream11.queue.hedging.Hedger;
+import com.dream11.queue.outbox.Outbox;
 import com.dream11.queue.producer.MessageProducer;
+import com.dream11.queue.producer.SendErrorListener;
+import com.dream11.queue.ratelimit.TokenBucket;
+import com.dream11.queue.util.Futures;
+import com.dream11.queue.util.ReservedAttributes;
+import java.time.Duration;
 import java.util.Map;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
 import java.util.function.Function;
+import java.util.function.Supplier;
 import lombok.extern.slf4j.Slf4j;
 import software.amazon.awssdk.services.sqs.SqsAsyncClient;
 
 /**
- * Implementation of MessageProducer for Amazon SQS. This producer handles sending messages to an
- * SQS queue and provides functionality to transform messages before sending.
+ * Implementation of MessageProducer for Amazon SQS. This producer handles sending messages to
+ * an SQS queue and encodes messages with a {@link MessageCodec} before sending.
  *
  * @param <T> The type of message that this producer will handle.
  */
 @Slf4j
 public class SqsProducer<T> implements MessageProducer<T> {
   private final SqsClient sqsClient;
-  private final Function<T, String> transformer;
+  private final MessageCodec<T> codec;
+  private final Outbox outbox;
+  private final RecordAggregator aggregator;
+  private final TokenBucket rateLimiter;
+  private final LongAdder forgottenSendSuccesses = new LongAdder();
+  private final LongAdder forgottenSendFailures = new LongAdder();
+  private volatile SendErrorListener sendErrorListener =
+      (body, attributes, error) -> log.error("Failed to send message: {}", body, error);
 
   /**
    * Constructs a new SqsProducer with the given configuration and default transformer. The default
@@ -35,8 +55,21 @@ public class SqsProducer<T> implements MessageProducer<T> {
    * @param transformer The function to transform messages from type T to String.
    */
   public SqsProducer(SqsConfig sqsConfig, Function<T, String> transformer) {
+    this(sqsConfig, MessageCodec.fromFunction(transformer));
+  }
+
+  /**
+   * Constructs a new SqsProducer with the given configuration and codec.
+   *
+   * @param sqsConfig The SQS configuration.
+   * @param codec The codec used to encode messages of type T.
+   */
+  public SqsProducer(SqsConfig sqsConfig, MessageCodec<T> codec) {
     this.sqsClient = new SqsClient(sqsConfig);
-    this.transformer = transformer;
+    this.codec = codec;
+    this.rateLimiter = newRateLimiter(sqsConfig);
+    this.outbox = this.newOutbox(sqsConfig);
+    this.aggregator = this.newAggregator(sqsConfig);
   }
 
   /**
@@ -59,25 +92,41 @@ public class SqsProducer<T> implements MessageProducer<T> {
    */
   public SqsProducer(
       SqsConfig sqsConfig, SqsAsyncClient sqsAsyncClient, Function<T, String> transformer) {
+    this(sqsConfig, sqsAsyncClient, MessageCodec.fromFunction(transformer));
+  }
+
+  /**
+   * Constructs a new SqsProducer with the given configuration, SQS client, and codec.
+   *
+   * @param sqsConfig The SQS configuration.
+   * @param sqsAsyncClient The SQS async client.
+   * @param codec The codec used to encode messages of type T.
+   */
+  public SqsProducer(
+      SqsConfig sqsConfig, SqsAsyncClient sqsAsyncClient, MessageCodec<T> codec) {
     this.sqsClient = new SqsClient(sqsConfig, sqsAsyncClient);
-    this.transformer = transformer;
+    this.codec = codec;
+    this.rateLimiter = newRateLimiter(sqsConfig);
+    this.outbox = this.newOutbox(sqsConfig);
+    this.aggregator = this.newAggregator(sqsConfig);
   }
 
   /**
-   * Sends a message asynchronously to the SQS queue. The message is transformed to a string before
-   * sending.
+   * Sends a message asynchronously to the SQS queue. The message is encoded with the codec before
+   * sending. If aggregation is enabled, the message is buffered and sent as part of a batch. If
+   * rate limiting is enabled, a send over the rate is delayed without blocking the caller.
    *
    * @param message The message to send.
    * @return A CompletableFuture that completes when the message is sent.
    */
   @Override
   public CompletableFuture<Void> send(T message) {
-    return this.sqsClient.send(transformer.apply(message));
+    return this.sendThrottled(this.codec.encode(message), Map.of());
   }
 
   /**
    * Sends a message asynchronously to the SQS queue with custom attributes. The message is
-   * transformed to a string before sending.
+   * encoded with the codec before sending. Messages with attributes are never aggregated.
    *
    * @param message The message to send.
    * @param attributes User-defined message attributes (e.g., routing keys, metadata).
@@ -85,7 +134,122 @@ public class SqsProducer<T> implements MessageProducer<T> {
    */
   @Override
   public CompletableFuture<Void> send(T message, Map<String, Object> attributes) {
-    return this.sqsClient.send(transformer.apply(message), attributes);
+    return this.sendThrottled(this.codec.encode(message), attributes);
+  }
+
+  /**
+   * Sends a message asynchronously to the SQS queue, delaying its delivery by the given duration.
+   *
+   * @param message The message to send.
+   * @param delay The delay. Zero or negative delays send the message immediately.
+   * @return A CompletableFuture that completes when the message is sent.
+   * @see #sendDelayed(Object, Map, Duration)
+   */
+  @Override
+  public CompletableFuture<Void> sendDelayed(T message, Duration delay) {
+    return this.sendDelayed(message, Map.of(), delay);
+  }
+
+  /**
+   * Sends a message asynchronously to the SQS queue with custom attributes, delaying its delivery
+   * by the given duration. The message carries its due time in a reserved attribute. Delays of up
+   * to 15 minutes use the native SQS delay. Longer delays are sent with the maximum native delay,
+   * and {@link SqsConsumer} sends the message back to the queue until it is due, so it is never
+   * handed to the caller early. Delayed messages are never aggregated. With the outbox enabled,
+   * the message is stored and sent without a native delay, and the consumer holds it back instead.
+   *
+   * @param message The message to send.
+   * @param attributes User-defined message attributes (e.g., routing keys, metadata).
+   * @param delay The delay. Zero or negative delays send the message immediately.
+   * @return A CompletableFuture that completes when the message is sent.
+   */
+  @Override
+  public CompletableFuture<Void> sendDelayed(
+      T message, Map<String, Object> attributes, Duration delay) {
+    if (delay.isZero() || delay.isNegative()) {
+      return this.send(message, attributes);
+    }
+    String body = this.codec.encode(message);
+    Map<String, Object> delayed =
+        ReservedAttributes.with(
+            attributes, ReservedAttributes.DUE_AT, System.currentTimeMillis() + delay.toMillis());
+    return this.throttled(() -> this.dispatchDelayed(body, delayed, delay));
+  }
+
+  /**
+   * Sends a message without returning a future. When neither aggregation nor the outbox is
+   * enabled, the completion is attached directly to the SDK future, skipping the stages that build
+   * the caller's future. The SDK still creates a future for each request.
+   *
+   * @param message The message to send.
+   */
+  @Override
+  public void sendAndForget(T message) {
+    this.sendAndForget(message, null);
+  }
+
+  /**
+   * Sends a message with custom attributes without returning a future.
+   *
+   * @param message The message to send.
+   * @param attributes User-defined message attributes (e.g., routing keys, metadata).
+   */
+  @Override
+  public void sendAndForget(T message, Map<String, Object> attributes) {
+    String body = this.codec.encode(message);
+    long waitNanos = this.reserveSend();
+    if (waitNanos == 0) {
+      this.forget(body, attributes);
+      return;
+    }
+    CompletableFuture.delayedExecutor(waitNanos, TimeUnit.NANOSECONDS)
+        .execute(
+            () -> {
+              try {
+                this.forget(body, attributes);
+              } catch (RuntimeException e) {
+                this.onForgottenSendComplete(body, attributes, e);
+              }
+            });
+  }
+
+  /**
+   * Sets the listener notified when a fire-and-forget send fails. Failures are logged until a
+   * listener is set.
+   *
+   * @param listener The listener.
+   */
+  @Override
+  public void setSendErrorListener(SendErrorListener listener) {
+    this.sendErrorListener = listener;
+  }
+
+  /**
+   * Returns the number of fire-and-forget sends that were sent.
+   *
+   * @return The number of successful fire-and-forget sends.
+   */
+  public long getForgottenSendSuccesses() {
+    return this.forgottenSendSuccesses.sum();
+  }
+
+  /**
+   * Returns the number of fire-and-forget sends that failed.
+   *
+   * @return The number of failed fire-and-forget sends.
+   */
+  public long getForgottenSendFailures() {
+    return this.forgottenSendFailures.sum();
+  }
+
+  /**
+   * Returns the number of sends that were hedged because they were slow.
+   *
+   * @return The number of hedged sends, or 0 if hedging is disabled.
+   */
+  public long getHedgedSends() {
+    Hedger hedger = this.sqsClient.getHedger();
+    return hedger == null ? 0 : hedger.getHedges();
   }
 
   /**
@@ -104,6 +268,106 @@ public class SqsProducer<T> implements MessageProducer<T> {
    */
   @Override
   public void close() {
+    if (this.aggregator != null) {
+      this.aggregator.close();
+    }
+    if (this.outbox != null) {
+      this.outbox.close();
+    }
     this.sqsClient.close();
   }
+
+  private CompletableFuture<Void> sendThrottled(String body, Map<String, Object> attributes) {
+    return this.throttled(() -> this.sendEncoded(body, attributes));
+  }
+
+  private CompletableFuture<Void> throttled(Supplier<CompletableFuture<Void>> send) {
+    long waitNanos = this.reserveSend();
+    if (waitNanos == 0) {
+      return send.get();
+    }
+    return Futures.startAfter(waitNanos, send);
+  }
+
+  private CompletableFuture<Void> dispatchDelayed(
+      String body, Map<String, Object> attributes, Duration delay) {
+    if (this.outbox != null) {
+      return this.outbox.append(body, attributes);
+    }
+    long delaySeconds = (delay.toMillis() + 999) / 1000;
+    return this.sqsClient.send(
+        body, attributes, (int) Math.min(delaySeconds, SqsClient.MAX_DELAY_SECONDS));
+  }
+
+  private void forget(String body, Map<String, Object> attributes) {
+    if (this.aggregator == null && this.outbox == null) {
+      this.sqsClient.sendAndForget(
+          body, attributes, error -> this.onForgottenSendComplete(body, attributes, error));
+      return;
+    }
+    this.sendEncoded(body, attributes)
+        .whenComplete((v, error) -> this.onForgottenSendComplete(body, attributes, error));
+  }
+
+  private CompletableFuture<Void> sendEncoded(String body, Map<String, Object> attributes) {
+    if (this.aggregator != null && (attributes == null || attributes.isEmpty())) {
+      return this.aggregator.add(body);
+    }
+    return this.dispatch(body, attributes);
+  }
+
+  private void onForgottenSendComplete(
+      String body, Map<String, Object> attributes, Throwable error) {
+    if (error == null) {
+      this.forgottenSendSuccesses.increment();
+      return;
+    }
+    this.forgottenSendFailures.increment();
+    try {
+      this.sendErrorListener.onError(body, attributes, error);
+    } catch (RuntimeException e) {
+      log.error("Send error listener failed", e);
+    }
+  }
+
+  private CompletableFuture<Void> dispatch(String body, Map<String, Object> attributes) {
+    return this.outbox == null
+        ? this.sqsClient.send(body, attributes)
+        : this.outbox.append(body, attributes);
+  }
+
+  private RecordAggregator newAggregator(SqsConfig sqsConfig) {
+    if (!sqsConfig.getAggregationConfig().isEnabled()) {
+      return null;
+    }
+    return new RecordAggregator(sqsConfig.getAggregationConfig(), this::dispatch);
+  }
+
+  private static TokenBucket newRateLimiter(SqsConfig sqsConfig) {
+    if (!(sqsConfig.getRateLimitConfig().getPermitsPerSecond() > 0)) {
+      return null;
+    }
+    return new TokenBucket(sqsConfig.getRateLimitConfig());
+  }
+
+  private Outbox newOutbox(SqsConfig sqsConfig) {
+    if (sqsConfig.getOutboxConfig().getDirectory() == null) {
+      return null;
+    }
+    return new Outbox(sqsConfig.getOutboxConfig(), this::drainSend);
+  }
+
+  private CompletableFuture<Void> drainSend(String body, Map<String, Object> attributes) {
+    // Runs on the outbox drainer thread, so waiting for permits paces the drainer
+    long waitNanos = this.rateLimiter == null ? 0 : this.rateLimiter.reserve(1);
+    if (waitNanos > 0) {
+      LockSupport.parkNanos(waitNanos);
+    }
+    return this.sqsClient.send(body, attributes);
+  }
+
+  private long reserveSend() {
+    // With the outbox enabled, the sends that drain it take the permits instead
+    return this.rateLimiter == null || this.outbox != null ? 0 : this.rateLimiter.reserve(1);
+  }
 }
@@ -0,0 +1,86 @@
+package com.dream11.queue.impl.sqs;
+
+import com.dream11.queue.Message;
+import com.dream11.queue.Metadata;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * One record unpacked from an aggregated SQS message. Records share the receipt handle and
+ * attributes of their parent, and the parent is deleted once every record is acknowledged.
+ */
+final class SqsRecordMessage extends Message {
+  private final SqsMessage parent;
+  private final String body;
+  private final Metadata metadata;
+  private final AtomicInteger pending;
+  private final AtomicBoolean acknowledged = new AtomicBoolean();
+
+  /**
+   * Constructs a new SqsRecordMessage.
+   *
+   * @param parent The aggregated message the record was unpacked from.
+   * @param index The position of the record in the parent.
+   * @param body The record.
+   * @param pending The number of records of the parent not yet acknowledged, shared by all of them.
+   */
+  SqsRecordMessage(SqsMessage parent, int index, String body, AtomicInteger pending) {
+    this.parent = parent;
+    this.body = body;
+    this.metadata =
+        new Metadata(
+            parent.getMetadata().getId() + "#" + index,
+            parent.getMetadata().getReceiptHandle(),
+            parent.getMetadata().getAttributes());
+    this.pending = pending;
+  }
+
+  /**
+   * Marks this record as acknowledged. Acknowledging the same record twice has no effect.
+   *
+   * @return true if this was the last record of the parent left to acknowledge.
+   */
+  boolean acknowledge() {
+    return this.acknowledged.compareAndSet(false, true) && this.pending.decrementAndGet() == 0;
+  }
+
+  SqsMessage getParent() {
+    return this.parent;
+  }
+
+  @Override
+  public String getBody() {
+    return this.body;
+  }
+
+  @Override
+  public Metadata getMetadata() {
+    return this.metadata;
+  }
+
+  @Override
+  public Map<String, Object> getAttributes() {
+    return this.parent.getAttributes();
+  }
+
+  @Override
+  public Long getLong(String key) {
+    return this.parent.getLong(key);
+  }
+
+  @Override
+  public Double getDouble(String key) {
+    return this.parent.getDouble(key);
+  }
+
+  @Override
+  public Boolean getBoolean(String key) {
+    return this.parent.getBoolean(key);
+  }
+
+  @Override
+  public byte[] getBinary(String key) {
+    return this.parent.getBinary(key);
+  }
+}
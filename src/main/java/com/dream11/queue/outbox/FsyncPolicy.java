@@ -0,0 +1,13 @@
+package com.dream11.queue.outbox;
+
+/** When the outbox forces appended records from the page cache to disk. */
+public enum FsyncPolicy {
+  /** Force after every append. Survives power loss, at the cost of one msync per send. */
+  ALWAYS,
+
+  /** Force periodically. A power loss can lose the records appended since the last force. */
+  INTERVAL,
+
+  /** Leave flushing to the operating system. Survives process crashes but not power loss. */
+  NEVER
+}
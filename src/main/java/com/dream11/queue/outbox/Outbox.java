@@ -0,0 +1,408 @@
+package com.dream11.queue.outbox;
+
+import com.dream11.queue.config.OutboxConfig;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.channels.OverlappingFileLockException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.BiFunction;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Durable local write-ahead outbox for producers. Sends are appended to memory-mapped {@link
+ * Segment} files and acknowledged once stored, and a background drainer publishes them in batches,
+ * retrying failures with exponential backoff until they succeed. Sent records are tombstoned, and
+ * segments are deleted once all their records are sent. Records left on disk are replayed when an
+ * outbox is opened on the same directory, so delivery is at least once.
+ *
+ * <p>A send that the sender rejects synchronously, such as one with invalid attributes, can never
+ * succeed and is dropped with an error log.
+ */
+@Slf4j
+public class Outbox implements AutoCloseable {
+  private static final String LOCK_FILE = "outbox.lock";
+
+  private final Path directory;
+  private final int segmentBytes;
+  private final int maxSegments;
+  private final FsyncPolicy fsyncPolicy;
+  private final int drainBatchSize;
+  private final long retryBackoffMillis;
+  private final long maxRetryBackoffMillis;
+  private final BiFunction<String, Map<String, Object>, CompletableFuture<Void>> sender;
+  private final FileChannel lockChannel;
+  private final FileLock lock;
+  private final Deque<Segment> segments = new ArrayDeque<>();
+  private final Thread drainer;
+  private final ScheduledExecutorService fsyncScheduler;
+  private final LongAdder sentRecords = new LongAdder();
+
+  private Segment readSegment;
+  private int readPosition;
+  private long pendingRecords;
+  private boolean closed;
+
+  /**
+   * Opens the outbox in the configured directory, replays any records left by a previous run, and
+   * starts the drainer.
+   *
+   * @param outboxConfig The outbox configuration.
+   * @param sender Sends a message body with the given attributes to the queue provider.
+   * @throws IllegalStateException if another outbox has the directory open.
+   */
+  public Outbox(
+      OutboxConfig outboxConfig,
+      BiFunction<String, Map<String, Object>, CompletableFuture<Void>> sender) {
+    this.directory = outboxConfig.getDirectory();
+    this.segmentBytes = outboxConfig.getSegmentBytes();
+    this.maxSegments =
+        (int) Math.max(2, outboxConfig.getMaxDiskBytes() / outboxConfig.getSegmentBytes());
+    this.fsyncPolicy = outboxConfig.getFsyncPolicy();
+    this.drainBatchSize = outboxConfig.getDrainBatchSize();
+    this.retryBackoffMillis = outboxConfig.getRetryBackoffMillis();
+    this.maxRetryBackoffMillis = outboxConfig.getMaxRetryBackoffMillis();
+    this.sender = sender;
+    try {
+      Files.createDirectories(this.directory);
+      this.lockChannel =
+          FileChannel.open(
+              this.directory.resolve(LOCK_FILE),
+              StandardOpenOption.CREATE,
+              StandardOpenOption.WRITE);
+      this.lock = tryLock(this.lockChannel);
+    } catch (IOException e) {
+      throw new UncheckedIOException("Failed to open outbox directory: " + this.directory, e);
+    }
+    if (this.lock == null) {
+      this.closeQuietly(this.lockChannel);
+      throw new IllegalStateException("Outbox directory is in use: " + this.directory);
+    }
+    this.replay();
+    this.drainer = new Thread(this::drain, "message-kit-outbox-drainer");
+    this.drainer.setDaemon(true);
+    this.drainer.start();
+    if (this.fsyncPolicy == FsyncPolicy.INTERVAL) {
+      this.fsyncScheduler =
+          Executors.newSingleThreadScheduledExecutor(
+              runnable -> {
+                Thread thread = new Thread(runnable, "message-kit-outbox-fsync");
+                thread.setDaemon(true);
+                return thread;
+              });
+      this.fsyncScheduler.scheduleWithFixedDelay(
+          this::forceAll,
+          outboxConfig.getFsyncIntervalMillis(),
+          outboxConfig.getFsyncIntervalMillis(),
+          TimeUnit.MILLISECONDS);
+    } else {
+      this.fsyncScheduler = null;
+    }
+  }
+
+  /**
+   * Appends a send to the outbox.
+   *
+   * @param body The encoded message body.
+   * @param attributes User-defined message attributes (can be null or empty).
+   * @return A CompletableFuture that completes when the send is stored, or fails if the outbox has
+   *     reached its disk limit.
+   * @throws IllegalArgumentException if an attribute has an unsupported type or the send does not
+   *     fit in a segment.
+   * @throws IllegalStateException if the outbox is closed.
+   */
+  public CompletableFuture<Void> append(String body, Map<String, Object> attributes) {
+    byte[] payload = new OutboxRecord(body, attributes).encode();
+    if (payload.length > this.segmentBytes - Segment.HEADER_BYTES) {
+      throw new IllegalArgumentException(
+          "Message of " + payload.length + " bytes does not fit in an outbox segment");
+    }
+    synchronized (this) {
+      if (this.closed) {
+        throw new IllegalStateException("Outbox is closed");
+      }
+      Segment active = this.segments.getLast();
+      if (!active.hasRoom(payload.length)) {
+        if (this.segments.size() >= this.maxSegments) {
+          return CompletableFuture.failedFuture(
+              new IllegalStateException("Outbox is full: " + this.directory));
+        }
+        if (this.fsyncPolicy != FsyncPolicy.NEVER) {
+          active.force();
+        }
+        active = Segment.create(this.directory, active.getSequence() + 1, this.segmentBytes);
+        this.segments.addLast(active);
+      }
+      active.append(payload);
+      if (this.fsyncPolicy == FsyncPolicy.ALWAYS) {
+        active.force();
+      }
+      this.pendingRecords++;
+      this.notifyAll();
+    }
+    return CompletableFuture.completedFuture(null);
+  }
+
+  /**
+   * Returns the number of stored sends not yet published.
+   *
+   * @return The number of pending sends.
+   */
+  public synchronized long getPendingRecords() {
+    return this.pendingRecords;
+  }
+
+  /**
+   * Returns the number of sends published since the outbox was opened.
+   *
+   * @return The number of published sends.
+   */
+  public long getSentRecords() {
+    return this.sentRecords.sum();
+  }
+
+  /**
+   * Stops the drainer after its current batch, forces all segments to disk and releases the
+   * directory. Sends still pending are published when the outbox is next opened.
+   */
+  @Override
+  public void close() {
+    synchronized (this) {
+      if (this.closed) {
+        return;
+      }
+      this.closed = true;
+      this.notifyAll();
+    }
+    try {
+      this.drainer.join();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+    if (this.fsyncScheduler != null) {
+      this.fsyncScheduler.shutdownNow();
+    }
+    synchronized (this) {
+      for (Segment segment : this.segments) {
+        if (this.fsyncPolicy != FsyncPolicy.NEVER) {
+          segment.force();
+        }
+        segment.close();
+      }
+    }
+    try {
+      this.lock.release();
+    } catch (IOException e) {
+      log.warn("Failed to release outbox lock: {}", this.directory, e);
+    }
+    this.closeQuietly(this.lockChannel);
+  }
+
+  private void replay() {
+    try (Stream<Path> files = Files.list(this.directory)) {
+      List<Path> paths =
+          files
+              .filter(path -> Segment.isSegment(path.getFileName().toString()))
+              .sorted(Comparator.comparing(path -> path.getFileName().toString()))
+              .collect(Collectors.toList());
+      for (Path path : paths) {
+        Segment segment = Segment.open(path);
+        this.segments.addLast(segment);
+        this.pendingRecords += segment.getLiveRecords();
+      }
+    } catch (IOException e) {
+      throw new UncheckedIOException("Failed to list outbox directory: " + this.directory, e);
+    }
+    long sequence = this.segments.isEmpty() ? 0 : this.segments.getLast().getSequence() + 1;
+    if (this.segments.isEmpty() || this.segments.getLast().capacity() != this.segmentBytes) {
+      this.segments.addLast(Segment.create(this.directory, sequence, this.segmentBytes));
+    }
+    this.readSegment = this.segments.getFirst();
+    this.readPosition = 0;
+    if (this.pendingRecords > 0) {
+      log.info("Replaying {} pending sends from outbox {}", this.pendingRecords, this.directory);
+    }
+  }
+
+  private void drain() {
+    long backoff = this.retryBackoffMillis;
+    List<Entry> batch;
+    while ((batch = this.awaitBatch()) != null) {
+      while (!batch.isEmpty()) {
+        batch = this.send(batch);
+        if (batch.isEmpty()) {
+          backoff = this.retryBackoffMillis;
+        } else if (this.pause(backoff)) {
+          backoff = Math.min(backoff * 2, this.maxRetryBackoffMillis);
+        } else {
+          return;
+        }
+      }
+      this.trim();
+    }
+  }
+
+  private synchronized List<Entry> awaitBatch() {
+    while (!this.closed) {
+      List<Entry> batch = this.read();
+      if (!batch.isEmpty()) {
+        return batch;
+      }
+      try {
+        this.wait();
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        return null;
+      }
+    }
+    return null;
+  }
+
+  private List<Entry> read() {
+    List<Entry> batch = new ArrayList<>(this.drainBatchSize);
+    while (batch.size() < this.drainBatchSize) {
+      int length = this.readSegment.lengthAt(this.readPosition);
+      if (length == 0) {
+        if (this.readSegment == this.segments.getLast()) {
+          break;
+        }
+        this.readSegment = this.next(this.readSegment);
+        this.readPosition = 0;
+        continue;
+      }
+      if (length > 0) {
+        OutboxRecord record = OutboxRecord.decode(this.readSegment.payloadAt(this.readPosition));
+        batch.add(new Entry(this.readSegment, this.readPosition, record));
+      }
+      this.readPosition += Segment.HEADER_BYTES + Math.abs(length);
+    }
+    return batch;
+  }
+
+  private List<Entry> send(List<Entry> batch) {
+    List<CompletableFuture<Void>> futures = new ArrayList<>(batch.size());
+    for (Entry entry : batch) {
+      CompletableFuture<Void> future;
+      try {
+        future = this.sender.apply(entry.record.getBody(), entry.record.getAttributes());
+      } catch (RuntimeException e) {
+        log.error("Dropping outbox send that cannot be published", e);
+        future = null;
+      }
+      futures.add(future);
+    }
+    CompletableFuture.allOf(
+            futures.stream().filter(Objects::nonNull).toArray(CompletableFuture[]::new))
+        .exceptionally(e -> null)
+        .join();
+    List<Entry> failed = new ArrayList<>();
+    Throwable failure = null;
+    synchronized (this) {
+      for (int i = 0; i < batch.size(); i++) {
+        Entry entry = batch.get(i);
+        CompletableFuture<Void> future = futures.get(i);
+        if (future != null && future.isCompletedExceptionally()) {
+          failed.add(entry);
+          if (failure == null) {
+            failure = future.handle((v, e) -> e).join();
+          }
+          continue;
+        }
+        entry.segment.tombstone(entry.position);
+        this.pendingRecords--;
+        if (future != null) {
+          this.sentRecords.increment();
+        }
+      }
+      if (this.fsyncPolicy == FsyncPolicy.ALWAYS) {
+        batch.stream().map(entry -> entry.segment).distinct().forEach(Segment::force);
+      }
+    }
+    if (failure != null) {
+      log.warn("Failed to publish {} outbox sends, retrying", failed.size(), failure);
+    }
+    return failed;
+  }
+
+  private synchronized boolean pause(long millis) {
+    long deadline = System.currentTimeMillis() + millis;
+    long remaining = millis;
+    while (!this.closed && remaining > 0) {
+      try {
+        this.wait(remaining);
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        return false;
+      }
+      remaining = deadline - System.currentTimeMillis();
+    }
+    return !this.closed;
+  }
+
+  private synchronized void trim() {
+    while (this.segments.getFirst() != this.readSegment
+        && this.segments.getFirst().getLiveRecords() == 0) {
+      this.segments.removeFirst().delete();
+    }
+  }
+
+  private synchronized void forceAll() {
+    this.segments.forEach(Segment::force);
+  }
+
+  private Segment next(Segment segment) {
+    Iterator<Segment> iterator = this.segments.iterator();
+    while (iterator.hasNext()) {
+      if (iterator.next() == segment) {
+        return iterator.next();
+      }
+    }
+    throw new IllegalStateException("Outbox segment is no longer open");
+  }
+
+  private static FileLock tryLock(FileChannel channel) throws IOException {
+    try {
+      return channel.tryLock();
+    } catch (OverlappingFileLockException e) {
+      return null;
+    }
+  }
+
+  private void closeQuietly(FileChannel channel) {
+    try {
+      channel.close();
+    } catch (IOException e) {
+      log.warn("Failed to close outbox lock file: {}", this.directory, e);
+    }
+  }
+
+  private static final class Entry {
+    private final Segment segment;
+    private final int position;
+    private final OutboxRecord record;
+
+    private Entry(Segment segment, int position, OutboxRecord record) {
+      this.segment = segment;
+      this.position = position;
+      this.record = record;
+    }
+  }
+}
@@ -0,0 +1,169 @@
+package com.dream11.queue.outbox;
+
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import lombok.Getter;
+
+/**
+ * A send stored in the outbox: the encoded message body and its attributes. Attribute values keep
+ * their type, and numbers keep their exact text, so a replayed send is encoded like the original.
+ */
+@Getter
+final class OutboxRecord {
+  private static final byte STRING = 'S';
+  private static final byte NUMBER = 'N';
+  private static final byte BOOLEAN = 'B';
+  private static final byte BINARY = 'Y';
+
+  private final String body;
+  private final Map<String, Object> attributes;
+
+  OutboxRecord(String body, Map<String, Object> attributes) {
+    this.body = body;
+    this.attributes = attributes == null ? Collections.emptyMap() : attributes;
+  }
+
+  /**
+   * Serialises this record.
+   *
+   * @return The serialised record.
+   * @throws IllegalArgumentException if an attribute value has an unsupported type.
+   */
+  byte[] encode() {
+    byte[] body = this.body.getBytes(StandardCharsets.UTF_8);
+    List<byte[]> parts = new ArrayList<>(this.attributes.size() * 2);
+    byte[] tags = new byte[this.attributes.size()];
+    int size = 4 + body.length + 4;
+    int index = 0;
+    for (Map.Entry<String, Object> entry : this.attributes.entrySet()) {
+      byte[] key = entry.getKey().getBytes(StandardCharsets.UTF_8);
+      Object value = entry.getValue();
+      byte[] bytes;
+      if (value instanceof String) {
+        tags[index] = STRING;
+        bytes = ((String) value).getBytes(StandardCharsets.UTF_8);
+      } else if (value instanceof Number) {
+        tags[index] = NUMBER;
+        bytes = value.toString().getBytes(StandardCharsets.UTF_8);
+      } else if (value instanceof Boolean) {
+        tags[index] = BOOLEAN;
+        bytes = value.toString().getBytes(StandardCharsets.UTF_8);
+      } else if (value instanceof byte[]) {
+        tags[index] = BINARY;
+        bytes = (byte[]) value;
+      } else {
+        throw new IllegalArgumentException(
+            "Unsupported attribute type for key '"
+                + entry.getKey()
+                + "': "
+                + (value == null ? "null" : value.getClass().getName())
+                + ". Supported types: String, Number, Boolean, byte[]");
+      }
+      parts.add(key);
+      parts.add(bytes);
+      size += 4 + key.length + 1 + 4 + bytes.length;
+      index++;
+    }
+    ByteBuffer buffer = ByteBuffer.allocate(size);
+    buffer.putInt(body.length).put(body).putInt(this.attributes.size());
+    for (int i = 0; i < tags.length; i++) {
+      byte[] key = parts.get(i * 2);
+      byte[] bytes = parts.get(i * 2 + 1);
+      buffer.putInt(key.length).put(key).put(tags[i]).putInt(bytes.length).put(bytes);
+    }
+    return buffer.array();
+  }
+
+  /**
+   * Deserialises a record written by {@link #encode()}.
+   *
+   * @param buffer The serialised record, positioned at its start.
+   * @return The record.
+   */
+  static OutboxRecord decode(ByteBuffer buffer) {
+    String body = readString(buffer);
+    int count = buffer.getInt();
+    Map<String, Object> attributes = new HashMap<>(count * 2);
+    for (int i = 0; i < count; i++) {
+      String key = readString(buffer);
+      byte tag = buffer.get();
+      byte[] bytes = new byte[buffer.getInt()];
+      buffer.get(bytes);
+      switch (tag) {
+        case STRING:
+          attributes.put(key, new String(bytes, StandardCharsets.UTF_8));
+          break;
+        case NUMBER:
+          attributes.put(key, new StoredNumber(new String(bytes, StandardCharsets.UTF_8)));
+          break;
+        case BOOLEAN:
+          attributes.put(key, Boolean.valueOf(new String(bytes, StandardCharsets.UTF_8)));
+          break;
+        case BINARY:
+          attributes.put(key, bytes);
+          break;
+        default:
+          throw new IllegalArgumentException("Unknown attribute tag in outbox record: " + tag);
+      }
+    }
+    return new OutboxRecord(body, attributes);
+  }
+
+  private static String readString(ByteBuffer buffer) {
+    byte[] bytes = new byte[buffer.getInt()];
+    buffer.get(bytes);
+    return new String(bytes, StandardCharsets.UTF_8);
+  }
+
+  /** A number attribute that renders exactly as the number originally sent. */
+  static final class StoredNumber extends Number {
+    private static final long serialVersionUID = 1L;
+
+    private final String text;
+
+    StoredNumber(String text) {
+      this.text = text;
+    }
+
+    @Override
+    public int intValue() {
+      return new BigDecimal(this.text).intValue();
+    }
+
+    @Override
+    public long longValue() {
+      return new BigDecimal(this.text).longValue();
+    }
+
+    @Override
+    public float floatValue() {
+      return Float.parseFloat(this.text);
+    }
+
+    @Override
+    public double doubleValue() {
+      return Double.parseDouble(this.text);
+    }
+
+    @Override
+    public boolean equals(Object other) {
+      return other instanceof StoredNumber && this.text.equals(((StoredNumber) other).text);
+    }
+
+    @Override
+    public int hashCode() {
+      return this.text.hashCode();
+    }
+
+    @Override
+    public String toString() {
+      return this.text;
+    }
+  }
+}
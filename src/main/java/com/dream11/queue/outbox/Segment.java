@@ -0,0 +1,222 @@
+package com.dream11.queue.outbox;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.zip.CRC32;
+
+/**
+ * A memory-mapped, preallocated outbox file. Records are laid out back to back as a length, a
+ * CRC32 of the payload, and the payload. The length is written last, so a zero length marks the
+ * end of the written records, and a sent record is tombstoned by negating its length. Not
+ * thread-safe; the {@link Outbox} serialises access.
+ */
+final class Segment {
+  static final int HEADER_BYTES = 8;
+  private static final String PREFIX = "outbox-";
+  private static final String SUFFIX = ".seg";
+
+  private final long sequence;
+  private final Path path;
+  private final FileChannel channel;
+  private final MappedByteBuffer buffer;
+  private int writePosition;
+  private int liveRecords;
+
+  private Segment(long sequence, Path path, FileChannel channel, int size) throws IOException {
+    this.sequence = sequence;
+    this.path = path;
+    this.channel = channel;
+    this.buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+  }
+
+  /**
+   * Creates a new, empty segment file.
+   *
+   * @param directory The outbox directory.
+   * @param sequence The sequence number of the segment, used to order segments on replay.
+   * @param size The size of the segment in bytes.
+   * @return The segment.
+   */
+  static Segment create(Path directory, long sequence, int size) {
+    Path path = directory.resolve(String.format("%s%020d%s", PREFIX, sequence, SUFFIX));
+    try {
+      FileChannel channel =
+          FileChannel.open(
+              path,
+              StandardOpenOption.CREATE_NEW,
+              StandardOpenOption.READ,
+              StandardOpenOption.WRITE);
+      return new Segment(sequence, path, channel, size);
+    } catch (IOException e) {
+      throw new UncheckedIOException("Failed to create outbox segment: " + path, e);
+    }
+  }
+
+  /**
+   * Opens an existing segment file and finds the end of its valid records. A record whose payload
+   * does not match its checksum was torn by a crash, and it ends the segment.
+   *
+   * @param path The segment file.
+   * @return The segment.
+   */
+  static Segment open(Path path) {
+    String name = path.getFileName().toString();
+    long sequence =
+        Long.parseLong(name.substring(PREFIX.length(), name.length() - SUFFIX.length()));
+    try {
+      FileChannel channel =
+          FileChannel.open(path, StandardOpenOption.READ, StandardOpenOption.WRITE);
+      Segment segment = new Segment(sequence, path, channel, (int) channel.size());
+      segment.recover();
+      return segment;
+    } catch (IOException e) {
+      throw new UncheckedIOException("Failed to open outbox segment: " + path, e);
+    }
+  }
+
+  /**
+   * Checks if the given file name belongs to a segment.
+   *
+   * @param name The file name.
+   * @return true if the file is a segment.
+   */
+  static boolean isSegment(String name) {
+    return name.startsWith(PREFIX) && name.endsWith(SUFFIX);
+  }
+
+  long getSequence() {
+    return this.sequence;
+  }
+
+  int getLiveRecords() {
+    return this.liveRecords;
+  }
+
+  int capacity() {
+    return this.buffer.capacity();
+  }
+
+  boolean hasRoom(int payloadLength) {
+    return (long) this.writePosition + HEADER_BYTES + payloadLength <= this.buffer.capacity();
+  }
+
+  /**
+   * Appends a record. The caller must check {@link #hasRoom(int)} first.
+   *
+   * @param payload The record payload.
+   */
+  void append(byte[] payload) {
+    int position = this.writePosition;
+    ByteBuffer view = this.buffer.duplicate();
+    view.position(position + HEADER_BYTES);
+    view.put(payload);
+    this.buffer.putInt(position + 4, checksum(payload, 0, payload.length));
+    this.buffer.putInt(position, payload.length);
+    this.writePosition = position + HEADER_BYTES + payload.length;
+    this.liveRecords++;
+  }
+
+  /**
+   * Returns the length stored at the given position.
+   *
+   * @param position The position of a record.
+   * @return The payload length, negative if the record is tombstoned, or 0 past the last record.
+   */
+  int lengthAt(int position) {
+    return position >= this.writePosition ? 0 : this.buffer.getInt(position);
+  }
+
+  /**
+   * Reads the payload of the record at the given position.
+   *
+   * @param position The position of a record that is not tombstoned.
+   * @return A read-only view of the payload.
+   */
+  ByteBuffer payloadAt(int position) {
+    int length = this.buffer.getInt(position);
+    ByteBuffer view = this.buffer.asReadOnlyBuffer();
+    view.position(position + HEADER_BYTES).limit(position + HEADER_BYTES + length);
+    return view.slice();
+  }
+
+  /**
+   * Tombstones the record at the given position so it is skipped on replay.
+   *
+   * @param position The position of a record that is not tombstoned.
+   */
+  void tombstone(int position) {
+    int length = this.buffer.getInt(position);
+    if (length > 0) {
+      this.buffer.putInt(position, -length);
+      this.liveRecords--;
+    }
+  }
+
+  void force() {
+    this.buffer.force();
+  }
+
+  /** Closes the file. The mapping is released when the buffer is garbage collected. */
+  void close() {
+    try {
+      this.channel.close();
+    } catch (IOException e) {
+      throw new UncheckedIOException("Failed to close outbox segment: " + this.path, e);
+    }
+  }
+
+  /** Closes and deletes the file. */
+  void delete() {
+    this.close();
+    try {
+      Files.deleteIfExists(this.path);
+    } catch (IOException e) {
+      throw new UncheckedIOException("Failed to delete outbox segment: " + this.path, e);
+    }
+  }
+
+  private void recover() {
+    int position = 0;
+    int capacity = this.buffer.capacity();
+    while (position + HEADER_BYTES <= capacity) {
+      int length = this.buffer.getInt(position);
+      int size = Math.abs(length);
+      if (size <= 0 || size > capacity - position - HEADER_BYTES) {
+        break;
+      }
+      if (checksum(this.buffer, position + HEADER_BYTES, size)
+          != this.buffer.getInt(position + 4)) {
+        break;
+      }
+      if (length > 0) {
+        this.liveRecords++;
+      }
+      position += HEADER_BYTES + size;
+    }
+    this.writePosition = position;
+    // Clear a torn record so a later append cannot leave stale bytes that look valid.
+    if (position + HEADER_BYTES <= capacity) {
+      this.buffer.putInt(position, 0);
+    }
+  }
+
+  private static int checksum(byte[] data, int offset, int length) {
+    CRC32 crc = new CRC32();
+    crc.update(data, offset, length);
+    return (int) crc.getValue();
+  }
+
+  private static int checksum(ByteBuffer data, int offset, int length) {
+    ByteBuffer view = data.duplicate();
+    view.position(offset).limit(offset + length);
+    CRC32 crc = new CRC32();
+    crc.update(view);
+    return (int) crc.getValue();
+  }
+}
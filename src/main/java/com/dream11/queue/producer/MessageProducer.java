@@ -1,5 +1,7 @@
 package com.dream11.queue.producer;
 
+import com.dream11.queue.util.Futures;
+import java.time.Duration;
 import java.util.Map;
 import java.util.concurrent.CompletableFuture;
 
@@ -31,6 +33,98 @@ public interface MessageProducer<T> extends AutoCloseable {
         "Message attributes are not supported by this provider");
   }
 
+  /**
+   * Sends a message asynchronously, failing the returned future with a {@link
+   * java.util.concurrent.TimeoutException} if the send has not completed within the deadline.
+   *
+   * @param message The message to send.
+   * @param deadline The deadline. Null, zero or negative values wait indefinitely.
+   * @return A CompletableFuture that completes when the message is sent.
+   */
+  default CompletableFuture<Void> sendWithDeadline(T message, Duration deadline) {
+    return Futures.withDeadline(this.send(message), deadline);
+  }
+
+  /**
+   * Sends a message asynchronously with custom attributes, failing the returned future with a
+   * {@link java.util.concurrent.TimeoutException} if the send has not completed within the
+   * deadline.
+   *
+   * @param message The message to send.
+   * @param attributes User-defined message attributes (e.g., routing keys, metadata).
+   * @param deadline The deadline. Null, zero or negative values wait indefinitely.
+   * @return A CompletableFuture that completes when the message is sent.
+   * @throws UnsupportedOperationException if the provider does not support message attributes.
+   */
+  default CompletableFuture<Void> sendWithDeadline(
+      T message, Map<String, Object> attributes, Duration deadline) {
+    return Futures.withDeadline(this.send(message, attributes), deadline);
+  }
+
+  /**
+   * Sends a message asynchronously, delaying its delivery to consumers by the given duration.
+   *
+   * @param message The message to send.
+   * @param delay The delay. Zero or negative delays send the message immediately.
+   * @return A CompletableFuture that completes when the message is sent.
+   * @throws UnsupportedOperationException if the provider does not support delayed sends.
+   */
+  default CompletableFuture<Void> sendDelayed(T message, Duration delay) {
+    throw new UnsupportedOperationException("Delayed sends are not supported by this provider");
+  }
+
+  /**
+   * Sends a message asynchronously with custom attributes, delaying its delivery to consumers by
+   * the given duration.
+   *
+   * @param message The message to send.
+   * @param attributes User-defined message attributes (e.g., routing keys, metadata).
+   * @param delay The delay. Zero or negative delays send the message immediately.
+   * @return A CompletableFuture that completes when the message is sent.
+   * @throws UnsupportedOperationException if the provider does not support delayed sends.
+   */
+  default CompletableFuture<Void> sendDelayed(
+      T message, Map<String, Object> attributes, Duration delay) {
+    throw new UnsupportedOperationException("Delayed sends are not supported by this provider");
+  }
+
+  /**
+   * Sends a message without returning a future, for high-volume paths that ignore the result.
+   * Failures are reported to the listener set with {@link #setSendErrorListener}, and successes
+   * are only counted.
+   *
+   * @param message The message to send.
+   * @throws UnsupportedOperationException if the provider does not support fire-and-forget sends.
+   */
+  default void sendAndForget(T message) {
+    throw new UnsupportedOperationException(
+        "Fire-and-forget sends are not supported by this provider");
+  }
+
+  /**
+   * Sends a message with custom attributes without returning a future. Failures are reported to
+   * the listener set with {@link #setSendErrorListener}, and successes are only counted.
+   *
+   * @param message The message to send.
+   * @param attributes User-defined message attributes (e.g., routing keys, metadata).
+   * @throws UnsupportedOperationException if the provider does not support fire-and-forget sends.
+   */
+  default void sendAndForget(T message, Map<String, Object> attributes) {
+    throw new UnsupportedOperationException(
+        "Fire-and-forget sends are not supported by this provider");
+  }
+
+  /**
+   * Sets the listener notified when a fire-and-forget send fails. By default failures are logged.
+   *
+   * @param listener The listener.
+   * @throws UnsupportedOperationException if the provider does not support fire-and-forget sends.
+   */
+  default void setSendErrorListener(SendErrorListener listener) {
+    throw new UnsupportedOperationException(
+        "Fire-and-forget sends are not supported by this provider");
+  }
+
   /**
    * Checks if this producer supports sending messages with custom attributes.
    *
@@ -1,5 +1,6 @@
 package com.dream11.queue.producer;
 
+import com.dream11.queue.codec.MessageCodec;
 import com.dream11.queue.config.QueueConfig;
 import com.dream11.queue.impl.sns.SnsConfig;
 import com.dream11.queue.impl.sns.SnsProducer;
@@ -36,4 +37,27 @@ public class MessageProducerFactory {
             "Invalid message producer type: " + config.getProvider());
     }
   }
+
+  /**
+   * Creates a MessageProducer based on the provided configuration, encoding messages with the given
+   * codec. The type of producer created depends on the provider specified in the configuration.
+   *
+   * @param config The configuration for the message producer.
+   * @param codec The codec used to encode messages.
+   * @return A new MessageProducer instance.
+   * @throws IllegalArgumentException if the provider type is invalid.
+   * @param <T> The type of message that the producer will handle.
+   */
+  public <T> MessageProducer<T> create(
+      @NonNull QueueConfig config, @NonNull MessageCodec<T> codec) {
+    switch (config.getProvider()) {
+      case SQS:
+        return new SqsProducer<>((SqsConfig) config, codec);
+      case SNS:
+        return new SnsProducer<>((SnsConfig) config, codec);
+      default:
+        throw new IllegalArgumentException(
+            "Invalid message producer type: " + config.getProvider());
+    }
+  }
 }
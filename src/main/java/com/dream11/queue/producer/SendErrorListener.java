@@ -0,0 +1,20 @@
+package com.dream11.queue.producer;
+
+import java.util.Map;
+
+/**
+ * Receives the failures of messages sent with {@link MessageProducer#sendAndForget(Object)}, which
+ * have no future to report them on. Listeners are invoked on the thread that completes the send,
+ * typically an SDK thread, so they must not block.
+ */
+@FunctionalInterface
+public interface SendErrorListener {
+  /**
+   * Called when a fire-and-forget send fails.
+   *
+   * @param body The encoded message body.
+   * @param attributes The message attributes (can be null or empty).
+   * @param error The failure.
+   */
+  void onError(String body, Map<String, Object> attributes, Throwable error);
+}
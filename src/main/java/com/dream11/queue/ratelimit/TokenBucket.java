@@ -0,0 +1,90 @@
+package com.dream11.queue.ratelimit;
+
+import com.dream11.queue.config.RateLimitConfig;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+/**
+ * Lock-free token bucket. The whole state is the time at which the bucket is next empty, updated
+ * with a compare-and-set, so concurrent callers never block each other. Callers reserve permits
+ * and are told how long to wait before using them, instead of being put to sleep.
+ */
+public class TokenBucket {
+  private final long intervalNanos;
+  private final long burstNanos;
+  private final LongSupplier clock;
+  private final AtomicLong emptyAt;
+
+  /**
+   * Constructs a new TokenBucket with the given configuration.
+   *
+   * @param rateLimitConfig The rate limit configuration.
+   * @throws IllegalArgumentException if the rate is not positive.
+   */
+  public TokenBucket(RateLimitConfig rateLimitConfig) {
+    this(rateLimitConfig, System::nanoTime);
+  }
+
+  TokenBucket(RateLimitConfig rateLimitConfig, LongSupplier clock) {
+    if (!(rateLimitConfig.getPermitsPerSecond() > 0)) {
+      throw new IllegalArgumentException(
+          "permitsPerSecond must be positive: " + rateLimitConfig.getPermitsPerSecond());
+    }
+    this.intervalNanos =
+        Math.max(1, Math.round(1_000_000_000d / rateLimitConfig.getPermitsPerSecond()));
+    this.burstNanos = this.intervalNanos * Math.max(1, rateLimitConfig.getBurst());
+    this.clock = clock;
+    this.emptyAt = new AtomicLong(clock.getAsLong());
+  }
+
+  /**
+   * Reserves permits, waiting for them if the bucket does not hold enough.
+   *
+   * @param permits The number of permits.
+   * @return The time in nanoseconds to wait before using the permits, or 0 to use them now.
+   */
+  public long reserve(int permits) {
+    long cost = permits * this.intervalNanos;
+    while (true) {
+      long now = this.clock.getAsLong();
+      long current = this.emptyAt.get();
+      long next = Math.max(current, now) + cost;
+      if (this.emptyAt.compareAndSet(current, next)) {
+        return Math.max(0, next - this.burstNanos - now);
+      }
+    }
+  }
+
+  /**
+   * Takes permits only if they are available now.
+   *
+   * @param permits The number of permits.
+   * @return true if the permits were taken.
+   */
+  public boolean tryAcquire(int permits) {
+    long cost = permits * this.intervalNanos;
+    while (true) {
+      long now = this.clock.getAsLong();
+      long current = this.emptyAt.get();
+      long next = Math.max(current, now) + cost;
+      if (next - this.burstNanos > now) {
+        return false;
+      }
+      if (this.emptyAt.compareAndSet(current, next)) {
+        return true;
+      }
+    }
+  }
+
+  /**
+   * Returns reserved permits that were not used, such as when a receive returns fewer messages
+   * than it reserved.
+   *
+   * @param permits The number of permits.
+   */
+  public void refund(int permits) {
+    if (permits > 0) {
+      this.emptyAt.addAndGet(-permits * this.intervalNanos);
+    }
+  }
+}
@@ -0,0 +1,156 @@
+package com.dream11.queue.retry;
+
+import com.dream11.queue.config.RetryConfig;
+import com.dream11.queue.util.Futures;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+
+/**
+ * Retries the failed entries of batch requests. Only the entries that failed are sent again, after
+ * a full-jitter backoff that starts higher when the entries were throttled. Entries failing through
+ * their own fault are not retried. Each retried request takes tokens from a retry budget and each
+ * successful request gives tokens back, so retries stop while most requests are failing.
+ */
+public class BatchRetrier {
+  private final RetryConfig retryConfig;
+  private final AtomicInteger budget;
+  private final LongAdder retriedEntries = new LongAdder();
+  private final LongAdder rejectedRetries = new LongAdder();
+
+  /**
+   * Constructs a new BatchRetrier with the given configuration.
+   *
+   * @param retryConfig The retry configuration.
+   */
+  public BatchRetrier(RetryConfig retryConfig) {
+    this.retryConfig = retryConfig;
+    this.budget = new AtomicInteger(retryConfig.getRetryBudget());
+  }
+
+  /**
+   * Sends a batch request, then sends the entries that failed with a transient error again until
+   * they succeed, the retries are exhausted or the budget runs out. A request that fails as a
+   * whole fails the returned future; such failures are retried by the SDK.
+   *
+   * @param entries The entries of the batch by id.
+   * @param attempt Sends the given entries and returns the entries that failed.
+   * @param <E> The type of the entries.
+   * @return A CompletableFuture with the entries that could not be processed, by id.
+   */
+  public <E> CompletableFuture<Map<String, E>> execute(
+      Map<String, E> entries,
+      Function<Map<String, E>, CompletableFuture<List<EntryFailure>>> attempt) {
+    return this.execute(entries, attempt, 0, 0);
+  }
+
+  private <E> CompletableFuture<Map<String, E>> execute(
+      Map<String, E> entries,
+      Function<Map<String, E>, CompletableFuture<List<EntryFailure>>> attempt,
+      int retries,
+      int acquired) {
+    return attempt
+        .apply(entries)
+        .thenCompose(
+            failures -> {
+              if (failures.isEmpty()) {
+                this.release(retries == 0 ? 1 : acquired);
+                return CompletableFuture.completedFuture(new LinkedHashMap<>());
+              }
+              Map<String, E> failed = new LinkedHashMap<>();
+              Map<String, E> retryable = new LinkedHashMap<>();
+              boolean throttled = false;
+              for (EntryFailure failure : failures) {
+                E entry = entries.get(failure.getId());
+                if (entry == null) {
+                  continue;
+                }
+                if (failure.isSenderFault() || retries >= this.retryConfig.getMaxRetries()) {
+                  failed.put(failure.getId(), entry);
+                } else {
+                  retryable.put(failure.getId(), entry);
+                  throttled |= failure.isThrottled();
+                }
+              }
+              if (retryable.isEmpty()) {
+                return CompletableFuture.completedFuture(failed);
+              }
+              int cost =
+                  throttled
+                      ? this.retryConfig.getThrottlingRetryCost()
+                      : this.retryConfig.getRetryCost();
+              if (!this.tryAcquire(cost)) {
+                this.rejectedRetries.increment();
+                failed.putAll(retryable);
+                return CompletableFuture.completedFuture(failed);
+              }
+              this.retriedEntries.add(retryable.size());
+              return Futures.startAfter(
+                      this.backoffNanos(retries, throttled),
+                      () -> this.execute(retryable, attempt, retries + 1, cost))
+                  .thenApply(
+                      stillFailed -> {
+                        stillFailed.putAll(failed);
+                        return stillFailed;
+                      });
+            });
+  }
+
+  /**
+   * Returns the number of batch entries that were sent again.
+   *
+   * @return The number of retried entries.
+   */
+  public long getRetriedEntries() {
+    return this.retriedEntries.sum();
+  }
+
+  /**
+   * Returns the number of retries refused because the retry budget was exhausted.
+   *
+   * @return The number of refused retries.
+   */
+  public long getRejectedRetries() {
+    return this.rejectedRetries.sum();
+  }
+
+  private long backoffNanos(int retries, boolean throttled) {
+    long baseDelay =
+        throttled
+            ? this.retryConfig.getThrottlingBaseDelayMillis()
+            : this.retryConfig.getBaseDelayMillis();
+    long bound =
+        Math.min(this.retryConfig.getMaxBackoffMillis(), baseDelay << Math.min(retries, 30));
+    return TimeUnit.MILLISECONDS.toNanos(ThreadLocalRandom.current().nextLong(bound + 1));
+  }
+
+  private boolean tryAcquire(int cost) {
+    if (this.retryConfig.getRetryBudget() <= 0) {
+      return true;
+    }
+    while (true) {
+      int available = this.budget.get();
+      if (available < cost) {
+        return false;
+      }
+      if (this.budget.compareAndSet(available, available - cost)) {
+        return true;
+      }
+    }
+  }
+
+  private void release(int tokens) {
+    int capacity = this.retryConfig.getRetryBudget();
+    if (capacity <= 0 || tokens <= 0) {
+      return;
+    }
+    this.budget.accumulateAndGet(
+        tokens, (available, added) -> Math.min(capacity, available + added));
+  }
+}
@@ -0,0 +1,27 @@
+package com.dream11.queue.retry;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/** A failed entry of a batch request, as reported by the provider. */
+@Getter
+@AllArgsConstructor
+public class EntryFailure {
+  /** The id of the entry within the batch. */
+  private final String id;
+
+  /** The error code reported by the provider. */
+  private final String code;
+
+  /** Whether the failure was caused by the entry itself. Such failures are not retried. */
+  private final boolean senderFault;
+
+  /**
+   * Returns whether the provider rejected the entry because requests are being throttled.
+   *
+   * @return True if the entry was throttled.
+   */
+  public boolean isThrottled() {
+    return this.code != null && this.code.contains("Throttl");
+  }
+}
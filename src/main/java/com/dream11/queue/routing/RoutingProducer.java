@@ -0,0 +1,344 @@
+package com.dream11.queue.routing;
+
+import com.dream11.queue.codec.MessageCodec;
+import com.dream11.queue.config.RoutingConfig;
+import com.dream11.queue.impl.sns.SnsClient;
+import com.dream11.queue.impl.sns.SnsConfig;
+import com.dream11.queue.impl.sqs.SqsClient;
+import com.dream11.queue.impl.sqs.SqsConfig;
+import com.dream11.queue.producer.SendErrorListener;
+import com.dream11.queue.util.RetryPolicies;
+import java.net.URI;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import lombok.extern.slf4j.Slf4j;
+import software.amazon.awssdk.auth.credentials.DefaultCredentialsProvider;
+import software.amazon.awssdk.regions.Region;
+import software.amazon.awssdk.services.sns.SnsAsyncClient;
+import software.amazon.awssdk.services.sns.SnsAsyncClientBuilder;
+import software.amazon.awssdk.services.sqs.SqsAsyncClient;
+import software.amazon.awssdk.services.sqs.SqsAsyncClientBuilder;
+import software.amazon.awssdk.services.sqs.model.GetQueueUrlRequest;
+import software.amazon.awssdk.services.sqs.model.GetQueueUrlResponse;
+
+/**
+ * Producer that takes the destination with each send, for services that route messages to many
+ * queues or topics chosen at runtime. A destination is one of:
+ *
+ * <ul>
+ *   <li>an SNS topic ARN, published to in the region of the ARN;
+ *   <li>an SQS queue URL, sent to in the region of the URL, or the configured region when the URL
+ *       does not name one;
+ *   <li>an SQS queue name, resolved to its URL in the configured region.
+ * </ul>
+ *
+ * <p>One async client is created per provider and region and shared by all destinations in it.
+ *
+ * @param <T> The type of message that this producer will handle.
+ */
+@Slf4j
+public class RoutingProducer<T> implements AutoCloseable {
+  private static final Pattern SQS_HOST =
+      Pattern.compile("^(?:sqs\\.([a-z0-9-]+)|([a-z0-9-]+)\\.queue)\\.amazonaws\\.com(?:\\.cn)?$");
+
+  private final RoutingConfig routingConfig;
+  private final MessageCodec<T> codec;
+  private final Function<String, SqsAsyncClient> sqsClientFactory;
+  private final Function<String, SnsAsyncClient> snsClientFactory;
+  private final Map<String, SqsAsyncClient> sqsAsyncClients = new ConcurrentHashMap<>();
+  private final Map<String, SnsAsyncClient> snsAsyncClients = new ConcurrentHashMap<>();
+  private final Map<String, SqsClient> queues = new ConcurrentHashMap<>();
+  private final Map<String, SnsClient> topics = new ConcurrentHashMap<>();
+  private final Map<String, CompletableFuture<String>> queueUrls = new ConcurrentHashMap<>();
+  private final LongAdder forgottenSendSuccesses = new LongAdder();
+  private final LongAdder forgottenSendFailures = new LongAdder();
+  private volatile SendErrorListener sendErrorListener =
+      (body, attributes, error) -> log.error("Failed to send message: {}", body, error);
+
+  /**
+   * Constructs a new RoutingProducer with the given configuration and codec. Clients use the
+   * default credentials provider.
+   *
+   * @param routingConfig The routing configuration.
+   * @param codec The codec used to encode messages of type T.
+   */
+  public RoutingProducer(RoutingConfig routingConfig, MessageCodec<T> codec) {
+    this.routingConfig = routingConfig;
+    this.codec = codec;
+    this.sqsClientFactory = this::newSqsAsyncClient;
+    this.snsClientFactory = this::newSnsAsyncClient;
+  }
+
+  /**
+   * Constructs a new RoutingProducer with the given configuration, codec and client factories.
+   * This constructor is useful when you want to provide custom clients.
+   *
+   * @param routingConfig The routing configuration.
+   * @param codec The codec used to encode messages of type T.
+   * @param sqsClientFactory Creates the SQS async client of a region.
+   * @param snsClientFactory Creates the SNS async client of a region.
+   */
+  public RoutingProducer(
+      RoutingConfig routingConfig,
+      MessageCodec<T> codec,
+      Function<String, SqsAsyncClient> sqsClientFactory,
+      Function<String, SnsAsyncClient> snsClientFactory) {
+    this.routingConfig = routingConfig;
+    this.codec = codec;
+    this.sqsClientFactory = sqsClientFactory;
+    this.snsClientFactory = snsClientFactory;
+  }
+
+  /**
+   * Sends a message asynchronously to the given destination.
+   *
+   * @param destination The topic ARN, queue URL or queue name.
+   * @param message The message to send.
+   * @return A CompletableFuture that completes when the message is sent.
+   */
+  public CompletableFuture<Void> send(String destination, T message) {
+    return this.send(destination, message, Map.of());
+  }
+
+  /**
+   * Sends a message asynchronously to the given destination with custom attributes.
+   *
+   * @param destination The topic ARN, queue URL or queue name.
+   * @param message The message to send.
+   * @param attributes User-defined message attributes (e.g., routing keys, metadata).
+   * @return A CompletableFuture that completes when the message is sent.
+   * @throws IllegalArgumentException if the destination is an ARN of another service.
+   */
+  public CompletableFuture<Void> send(
+      String destination, T message, Map<String, Object> attributes) {
+    String body = this.codec.encode(message);
+    if (isArn(destination)) {
+      return this.topic(destination).publish(body, attributes);
+    }
+    if (isUrl(destination)) {
+      return this.queue(destination).send(body, attributes);
+    }
+    return this.resolveQueueUrl(destination)
+        .thenCompose(queueUrl -> this.queue(queueUrl).send(body, attributes));
+  }
+
+  /**
+   * Sends a message to the given destination without returning a future. Failures are reported to
+   * the listener set with {@link #setSendErrorListener}.
+   *
+   * @param destination The topic ARN, queue URL or queue name.
+   * @param message The message to send.
+   */
+  public void sendAndForget(String destination, T message) {
+    this.sendAndForget(destination, message, null);
+  }
+
+  /**
+   * Sends a message with custom attributes to the given destination without returning a future.
+   *
+   * @param destination The topic ARN, queue URL or queue name.
+   * @param message The message to send.
+   * @param attributes User-defined message attributes (e.g., routing keys, metadata).
+   */
+  public void sendAndForget(String destination, T message, Map<String, Object> attributes) {
+    String body = this.codec.encode(message);
+    Consumer<Throwable> completion =
+        error -> this.onForgottenSendComplete(body, attributes, error);
+    if (isArn(destination)) {
+      this.topic(destination).publishAndForget(body, attributes, completion);
+    } else if (isUrl(destination)) {
+      this.queue(destination).sendAndForget(body, attributes, completion);
+    } else {
+      this.resolveQueueUrl(destination)
+          .whenComplete(
+              (queueUrl, error) -> {
+                if (error != null) {
+                  completion.accept(error);
+                } else {
+                  this.queue(queueUrl).sendAndForget(body, attributes, completion);
+                }
+              });
+    }
+  }
+
+  /**
+   * Looks up the URL of a queue in the configured region. With {@link
+   * RoutingConfig#isCacheQueueUrls()} the URL is cached after the first successful lookup, and
+   * concurrent lookups of the same name share one request.
+   *
+   * @param queueName The name of the queue.
+   * @return A CompletableFuture containing the queue URL.
+   */
+  public CompletableFuture<String> resolveQueueUrl(String queueName) {
+    if (!this.routingConfig.isCacheQueueUrls()) {
+      return this.getQueueUrl(queueName);
+    }
+    CompletableFuture<String> queueUrl =
+        this.queueUrls.computeIfAbsent(queueName, this::getQueueUrl);
+    queueUrl.whenComplete(
+        (url, error) -> {
+          if (error != null) {
+            this.queueUrls.remove(queueName, queueUrl);
+          }
+        });
+    return queueUrl;
+  }
+
+  /**
+   * Sets the listener notified when a fire-and-forget send fails. Failures are logged until a
+   * listener is set.
+   *
+   * @param listener The listener.
+   */
+  public void setSendErrorListener(SendErrorListener listener) {
+    this.sendErrorListener = listener;
+  }
+
+  /**
+   * Returns the number of fire-and-forget sends that were sent.
+   *
+   * @return The number of successful fire-and-forget sends.
+   */
+  public long getForgottenSendSuccesses() {
+    return this.forgottenSendSuccesses.sum();
+  }
+
+  /**
+   * Returns the number of fire-and-forget sends that failed.
+   *
+   * @return The number of failed fire-and-forget sends.
+   */
+  public long getForgottenSendFailures() {
+    return this.forgottenSendFailures.sum();
+  }
+
+  /** Closes the async client of every region. */
+  @Override
+  public void close() {
+    this.sqsAsyncClients.values().forEach(SqsAsyncClient::close);
+    this.snsAsyncClients.values().forEach(SnsAsyncClient::close);
+  }
+
+  private CompletableFuture<String> getQueueUrl(String queueName) {
+    return this.sqsAsyncClients
+        .computeIfAbsent(this.defaultRegion(), this.sqsClientFactory)
+        .getQueueUrl(GetQueueUrlRequest.builder().queueName(queueName).build())
+        .thenApply(GetQueueUrlResponse::queueUrl);
+  }
+
+  private SqsClient queue(String queueUrl) {
+    return this.queues.computeIfAbsent(
+        queueUrl,
+        url -> {
+          String region = queueRegion(url);
+          SqsConfig sqsConfig =
+              SqsConfig.builder()
+                  .queueUrl(url)
+                  .region(region)
+                  .attributeConfig(this.routingConfig.getAttributeConfig())
+                  .compressionConfig(this.routingConfig.getCompressionConfig())
+                  .claimCheckConfig(this.routingConfig.getClaimCheckConfig())
+                  .retryConfig(this.routingConfig.getRetryConfig())
+                  .build();
+          return new SqsClient(
+              sqsConfig, this.sqsAsyncClients.computeIfAbsent(region, this.sqsClientFactory));
+        });
+  }
+
+  private SnsClient topic(String topicArn) {
+    return this.topics.computeIfAbsent(
+        topicArn,
+        arn -> {
+          String region = topicRegion(arn);
+          SnsConfig snsConfig =
+              SnsConfig.builder()
+                  .topicArn(arn)
+                  .region(region)
+                  .attributeConfig(this.routingConfig.getAttributeConfig())
+                  .compressionConfig(this.routingConfig.getCompressionConfig())
+                  .claimCheckConfig(this.routingConfig.getClaimCheckConfig())
+                  .retryConfig(this.routingConfig.getRetryConfig())
+                  .build();
+          return new SnsClient(
+              snsConfig, this.snsAsyncClients.computeIfAbsent(region, this.snsClientFactory));
+        });
+  }
+
+  private String queueRegion(String queueUrl) {
+    Matcher matcher = SQS_HOST.matcher(String.valueOf(URI.create(queueUrl).getHost()));
+    if (!matcher.matches()) {
+      return this.defaultRegion();
+    }
+    return matcher.group(1) != null ? matcher.group(1) : matcher.group(2);
+  }
+
+  private static String topicRegion(String topicArn) {
+    // arn:partition:service:region:account:resource
+    String[] parts = topicArn.split(":", 6);
+    if (parts.length != 6 || !"sns".equals(parts[2]) || parts[3].isEmpty()) {
+      throw new IllegalArgumentException("Not an SNS topic ARN: " + topicArn);
+    }
+    return parts[3];
+  }
+
+  private String defaultRegion() {
+    if (this.routingConfig.getRegion() == null) {
+      throw new IllegalStateException("A region is required to resolve queue names and URLs");
+    }
+    return this.routingConfig.getRegion();
+  }
+
+  private void onForgottenSendComplete(
+      String body, Map<String, Object> attributes, Throwable error) {
+    if (error == null) {
+      this.forgottenSendSuccesses.increment();
+      return;
+    }
+    this.forgottenSendFailures.increment();
+    try {
+      this.sendErrorListener.onError(body, attributes, error);
+    } catch (RuntimeException e) {
+      log.error("Send error listener failed", e);
+    }
+  }
+
+  private SqsAsyncClient newSqsAsyncClient(String region) {
+    SqsAsyncClientBuilder builder =
+        SqsAsyncClient.builder()
+            .credentialsProvider(DefaultCredentialsProvider.create())
+            .region(Region.of(region))
+            .overrideConfiguration(
+                RetryPolicies.clientOverride(this.routingConfig.getRetryConfig()));
+    if (this.routingConfig.getEndpoint() != null && !this.routingConfig.getEndpoint().isEmpty()) {
+      builder.endpointOverride(URI.create(this.routingConfig.getEndpoint()));
+    }
+    return builder.build();
+  }
+
+  private SnsAsyncClient newSnsAsyncClient(String region) {
+    SnsAsyncClientBuilder builder =
+        SnsAsyncClient.builder()
+            .credentialsProvider(DefaultCredentialsProvider.create())
+            .region(Region.of(region))
+            .overrideConfiguration(
+                RetryPolicies.clientOverride(this.routingConfig.getRetryConfig()));
+    if (this.routingConfig.getEndpoint() != null && !this.routingConfig.getEndpoint().isEmpty()) {
+      builder.endpointOverride(URI.create(this.routingConfig.getEndpoint()));
+    }
+    return builder.build();
+  }
+
+  private static boolean isArn(String destination) {
+    return destination.startsWith("arn:");
+  }
+
+  private static boolean isUrl(String destination) {
+    return destination.startsWith("https://") || destination.startsWith("http://");
+  }
+}
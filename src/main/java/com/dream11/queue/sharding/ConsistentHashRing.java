@@ -0,0 +1,71 @@
+package com.dream11.queue.sharding;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Immutable consistent hash ring. Each shard is placed on the ring at several points derived from
+ * its name, so adding a shard only moves the keys that fall between its points and their
+ * predecessors, and a shard keeps its keys regardless of the order shards were added in.
+ *
+ * @param <S> The type of the shards.
+ */
+final class ConsistentHashRing<S> {
+  private final long[] points;
+  private final Object[] owners;
+
+  ConsistentHashRing(Map<String, S> shards, int virtualNodes) {
+    if (shards.isEmpty()) {
+      throw new IllegalArgumentException("At least one shard is required");
+    }
+    if (virtualNodes < 1) {
+      throw new IllegalArgumentException("virtualNodes must be positive: " + virtualNodes);
+    }
+    TreeMap<Long, String> ring = new TreeMap<>();
+    for (String shard : shards.keySet()) {
+      for (int i = 0; i < virtualNodes; i++) {
+        // On the rare collision the smaller name wins, so placement does not depend on order.
+        ring.merge(hash(shard + "#" + i), shard, (a, b) -> a.compareTo(b) <= 0 ? a : b);
+      }
+    }
+    this.points = new long[ring.size()];
+    this.owners = new Object[ring.size()];
+    int index = 0;
+    for (Map.Entry<Long, String> entry : ring.entrySet()) {
+      this.points[index] = entry.getKey();
+      this.owners[index++] = shards.get(entry.getValue());
+    }
+  }
+
+  /**
+   * Returns the shard owning the given key, which is the first shard point at or after the key's
+   * hash, wrapping around the ring.
+   *
+   * @param key The routing key.
+   * @return The shard.
+   */
+  @SuppressWarnings("unchecked")
+  S shardFor(String key) {
+    int index = Arrays.binarySearch(this.points, hash(key));
+    if (index < 0) {
+      index = -index - 1;
+    }
+    return (S) this.owners[index == this.points.length ? 0 : index];
+  }
+
+  /** 64-bit FNV-1a over the UTF-16 characters, followed by the MurmurHash3 finalizer. */
+  static long hash(String value) {
+    long hash = 0xcbf29ce484222325L;
+    for (int i = 0; i < value.length(); i++) {
+      hash ^= value.charAt(i);
+      hash *= 0x100000001b3L;
+    }
+    hash ^= hash >>> 33;
+    hash *= 0xff51afd7ed558ccdL;
+    hash ^= hash >>> 33;
+    hash *= 0xc4ceb9fe1a85ec53L;
+    hash ^= hash >>> 33;
+    return hash;
+  }
+}
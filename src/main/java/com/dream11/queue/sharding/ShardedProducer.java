@@ -0,0 +1,333 @@
+package com.dream11.queue.sharding;
+
+import com.dream11.queue.codec.MessageCodec;
+import com.dream11.queue.config.ShardingConfig;
+import com.dream11.queue.impl.sqs.SqsConfig;
+import com.dream11.queue.impl.sqs.SqsProducer;
+import com.dream11.queue.producer.MessageProducer;
+import com.dream11.queue.producer.SendErrorListener;
+import com.dream11.queue.util.Futures;
+import java.time.Duration;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * MessageProducer that spreads one logical stream over several shard queues, so the stream can go
+ * past the throughput limit of a single queue. Each message is routed by the hash of its key on a
+ * consistent hash ring, so messages with the same key always go to the same shard, and adding a
+ * shard only moves a small share of keys to it.
+ *
+ * @param <T> The type of message that this producer will handle.
+ */
+@Slf4j
+public class ShardedProducer<T> implements MessageProducer<T> {
+  private final Function<T, String> keyFunction;
+  private final int virtualNodes;
+  private final Object lock = new Object();
+  private volatile Map<String, Shard<T>> shards;
+  private volatile ConsistentHashRing<Shard<T>> ring;
+  private volatile SendErrorListener sendErrorListener;
+
+  /**
+   * Constructs a new ShardedProducer with an SqsProducer per shard queue. Shards are named by their
+   * queue URL.
+   *
+   * @param shardConfigs The SQS configuration of each shard queue.
+   * @param codec The codec used to encode messages of type T.
+   * @param keyFunction The function returning the routing key of a message.
+   */
+  public ShardedProducer(
+      List<SqsConfig> shardConfigs, MessageCodec<T> codec, Function<T, String> keyFunction) {
+    this(shardConfigs, codec, keyFunction, new ShardingConfig());
+  }
+
+  /**
+   * Constructs a new ShardedProducer with an SqsProducer per shard queue. Shards are named by their
+   * queue URL.
+   *
+   * @param shardConfigs The SQS configuration of each shard queue.
+   * @param codec The codec used to encode messages of type T.
+   * @param keyFunction The function returning the routing key of a message.
+   * @param shardingConfig The sharding configuration.
+   */
+  public ShardedProducer(
+      List<SqsConfig> shardConfigs,
+      MessageCodec<T> codec,
+      Function<T, String> keyFunction,
+      ShardingConfig shardingConfig) {
+    this(sqsProducers(shardConfigs, codec), keyFunction, shardingConfig);
+  }
+
+  /**
+   * Constructs a new ShardedProducer over the given producers with the default sharding
+   * configuration.
+   *
+   * @param shards The producer of each shard, keyed by shard name.
+   * @param keyFunction The function returning the routing key of a message.
+   */
+  public ShardedProducer(
+      Map<String, ? extends MessageProducer<T>> shards, Function<T, String> keyFunction) {
+    this(shards, keyFunction, new ShardingConfig());
+  }
+
+  /**
+   * Constructs a new ShardedProducer over the given producers.
+   *
+   * @param shards The producer of each shard, keyed by shard name. The name places the shard on the
+   *     hash ring, so it must stay the same across restarts for keys to keep their shard.
+   * @param keyFunction The function returning the routing key of a message.
+   * @param shardingConfig The sharding configuration.
+   */
+  public ShardedProducer(
+      Map<String, ? extends MessageProducer<T>> shards,
+      Function<T, String> keyFunction,
+      ShardingConfig shardingConfig) {
+    this.keyFunction = keyFunction;
+    this.virtualNodes = shardingConfig.getVirtualNodes();
+    Map<String, Shard<T>> byName = new LinkedHashMap<>();
+    shards.forEach((name, producer) -> byName.put(name, new Shard<>(name, producer)));
+    this.shards = byName;
+    this.ring = new ConsistentHashRing<>(byName, this.virtualNodes);
+  }
+
+  /**
+   * Adds a shard. Only the keys that now hash to the new shard move, and messages already sent are
+   * not moved.
+   *
+   * @param name The name of the shard.
+   * @param producer The producer of the shard.
+   * @throws IllegalArgumentException if a shard with the name already exists.
+   */
+  public void addShard(String name, MessageProducer<T> producer) {
+    synchronized (this.lock) {
+      if (this.shards.containsKey(name)) {
+        throw new IllegalArgumentException("Shard already exists: " + name);
+      }
+      if (this.sendErrorListener != null) {
+        producer.setSendErrorListener(this.sendErrorListener);
+      }
+      Map<String, Shard<T>> byName = new LinkedHashMap<>(this.shards);
+      byName.put(name, new Shard<>(name, producer));
+      this.ring = new ConsistentHashRing<>(byName, this.virtualNodes);
+      this.shards = byName;
+    }
+  }
+
+  /**
+   * Returns the name of the shard a message is routed to.
+   *
+   * @param message The message.
+   * @return The name of the shard.
+   * @throws IllegalArgumentException if the key function returns null.
+   */
+  public String shardFor(T message) {
+    return this.lookup(message).name;
+  }
+
+  /**
+   * Sends a message to the shard owning its key.
+   *
+   * @param message The message to send.
+   * @return A CompletableFuture that completes when the message is sent.
+   */
+  @Override
+  public CompletableFuture<Void> send(T message) {
+    Shard<T> shard = this.route(message);
+    return shard.track(shard.producer.send(message));
+  }
+
+  /**
+   * Sends a message with custom attributes to the shard owning its key.
+   *
+   * @param message The message to send.
+   * @param attributes User-defined message attributes (e.g., routing keys, metadata).
+   * @return A CompletableFuture that completes when the message is sent.
+   */
+  @Override
+  public CompletableFuture<Void> send(T message, Map<String, Object> attributes) {
+    Shard<T> shard = this.route(message);
+    return shard.track(shard.producer.send(message, attributes));
+  }
+
+  /**
+   * Sends a message to the shard owning its key, delaying its delivery by the given duration.
+   *
+   * @param message The message to send.
+   * @param delay The delay. Zero or negative delays send the message immediately.
+   * @return A CompletableFuture that completes when the message is sent.
+   * @throws UnsupportedOperationException if the shard producer does not support delayed sends.
+   */
+  @Override
+  public CompletableFuture<Void> sendDelayed(T message, Duration delay) {
+    Shard<T> shard = this.route(message);
+    return shard.track(shard.producer.sendDelayed(message, delay));
+  }
+
+  /**
+   * Sends a message with custom attributes to the shard owning its key, delaying its delivery by
+   * the given duration.
+   *
+   * @param message The message to send.
+   * @param attributes User-defined message attributes (e.g., routing keys, metadata).
+   * @param delay The delay. Zero or negative delays send the message immediately.
+   * @return A CompletableFuture that completes when the message is sent.
+   * @throws UnsupportedOperationException if the shard producer does not support delayed sends.
+   */
+  @Override
+  public CompletableFuture<Void> sendDelayed(
+      T message, Map<String, Object> attributes, Duration delay) {
+    Shard<T> shard = this.route(message);
+    return shard.track(shard.producer.sendDelayed(message, attributes, delay));
+  }
+
+  /**
+   * Sends a message to the shard owning its key without returning a future. Failures are reported
+   * by the shard producer and are not counted by {@link #getFailedCounts()}.
+   *
+   * @param message The message to send.
+   */
+  @Override
+  public void sendAndForget(T message) {
+    this.route(message).producer.sendAndForget(message);
+  }
+
+  /**
+   * Sends a message with custom attributes to the shard owning its key without returning a future.
+   *
+   * @param message The message to send.
+   * @param attributes User-defined message attributes (e.g., routing keys, metadata).
+   */
+  @Override
+  public void sendAndForget(T message, Map<String, Object> attributes) {
+    this.route(message).producer.sendAndForget(message, attributes);
+  }
+
+  /**
+   * Sets the listener notified when a fire-and-forget send to any shard fails.
+   *
+   * @param listener The listener.
+   */
+  @Override
+  public void setSendErrorListener(SendErrorListener listener) {
+    synchronized (this.lock) {
+      this.sendErrorListener = listener;
+      this.shards.values().forEach(shard -> shard.producer.setSendErrorListener(listener));
+    }
+  }
+
+  /**
+   * Returns true if every shard supports message attributes.
+   *
+   * @return true if message attributes are supported by all shards.
+   */
+  @Override
+  public boolean supportsMessageAttributes() {
+    return this.shards.values().stream()
+        .allMatch(shard -> shard.producer.supportsMessageAttributes());
+  }
+
+  /**
+   * Returns the names of the shards.
+   *
+   * @return The shard names, in the order they were added.
+   */
+  public Set<String> getShards() {
+    return Collections.unmodifiableSet(this.shards.keySet());
+  }
+
+  /**
+   * Returns the number of messages routed to each shard. Sampling this periodically gives the
+   * throughput of each shard.
+   *
+   * @return The number of messages routed, keyed by shard name.
+   */
+  public Map<String, Long> getRoutedCounts() {
+    return this.snapshot(shard -> shard.routed.sum());
+  }
+
+  /**
+   * Returns the number of sends that failed on each shard. Fire-and-forget sends are not counted.
+   *
+   * @return The number of failed sends, keyed by shard name.
+   */
+  public Map<String, Long> getFailedCounts() {
+    return this.snapshot(shard -> shard.failed.sum());
+  }
+
+  /** Closes every shard producer. */
+  @Override
+  public void close() {
+    synchronized (this.lock) {
+      this.shards.forEach(
+          (name, shard) -> {
+            try {
+              shard.producer.close();
+            } catch (RuntimeException e) {
+              log.error("Failed to close shard producer: {}", name, e);
+            }
+          });
+    }
+  }
+
+  private Shard<T> route(T message) {
+    Shard<T> shard = this.lookup(message);
+    shard.routed.increment();
+    return shard;
+  }
+
+  private Shard<T> lookup(T message) {
+    String key = this.keyFunction.apply(message);
+    if (key == null) {
+      throw new IllegalArgumentException("Shard key must not be null: " + message);
+    }
+    return this.ring.shardFor(key);
+  }
+
+  private Map<String, Long> snapshot(Function<Shard<T>, Long> counter) {
+    Map<String, Long> counts = new LinkedHashMap<>();
+    this.shards.forEach((name, shard) -> counts.put(name, counter.apply(shard)));
+    return counts;
+  }
+
+  private static <T> Map<String, MessageProducer<T>> sqsProducers(
+      List<SqsConfig> shardConfigs, MessageCodec<T> codec) {
+    Map<String, MessageProducer<T>> producers = new LinkedHashMap<>();
+    for (SqsConfig config : shardConfigs) {
+      if (producers.containsKey(config.getQueueUrl())) {
+        throw new IllegalArgumentException("Duplicate shard queue: " + config.getQueueUrl());
+      }
+      producers.put(config.getQueueUrl(), new SqsProducer<>(config, codec));
+    }
+    return producers;
+  }
+
+  private static final class Shard<T> {
+    private final String name;
+    private final MessageProducer<T> producer;
+    private final LongAdder routed = new LongAdder();
+    private final LongAdder failed = new LongAdder();
+
+    private Shard(String name, MessageProducer<T> producer) {
+      this.name = name;
+      this.producer = producer;
+    }
+
+    private CompletableFuture<Void> track(CompletableFuture<Void> future) {
+      CompletableFuture<Void> tracked =
+          future.whenComplete(
+              (v, error) -> {
+                if (error != null) {
+                  this.failed.increment();
+                }
+              });
+      return Futures.propagateCancellation(tracked, future);
+    }
+  }
+}
@@ -0,0 +1,62 @@
+package com.dream11.queue.util;
+
+/** The type of a message attribute declared in a {@link MessageAttributeSchema}. */
+public enum AttributeType {
+  /** A String value, sent as the AWS String type. */
+  STRING(MessageAttributeConverter.STRING, String.class),
+
+  /** A Number value (Integer, Long, Double, etc.), sent as the AWS Number type. */
+  NUMBER(MessageAttributeConverter.NUMBER, Number.class),
+
+  /** A Boolean value, sent as the AWS String type ("true" or "false"). */
+  BOOLEAN(MessageAttributeConverter.STRING, Boolean.class),
+
+  /** A byte[] value, sent as the AWS Binary type. */
+  BINARY(MessageAttributeConverter.BINARY, byte[].class);
+
+  private final String dataType;
+  private final Class<?> javaType;
+
+  AttributeType(String dataType, Class<?> javaType) {
+    this.dataType = dataType;
+    this.javaType = javaType;
+  }
+
+  /**
+   * Returns the AWS data type used for attributes of this type.
+   *
+   * @return The AWS data type.
+   */
+  public String getDataType() {
+    return this.dataType;
+  }
+
+  /**
+   * Checks if the given value can be encoded as this type.
+   *
+   * @param value The value to check.
+   * @return true if the value is an instance of this type's Java type.
+   */
+  public boolean accepts(Object value) {
+    return this.javaType.isInstance(value);
+  }
+
+  /**
+   * Returns the type of the given value, or null if the value's type is not supported.
+   *
+   * @param value The attribute value.
+   * @return The attribute type, or null.
+   */
+  public static AttributeType of(Object value) {
+    if (value instanceof String) {
+      return STRING;
+    } else if (value instanceof Number) {
+      return NUMBER;
+    } else if (value instanceof Boolean) {
+      return BOOLEAN;
+    } else if (value instanceof byte[]) {
+      return BINARY;
+    }
+    return null;
+  }
+}
@@ -0,0 +1,31 @@
+package com.dream11.queue.util;
+
+import com.dream11.queue.config.CompletionConfig;
+import java.util.concurrent.Executor;
+import lombok.experimental.UtilityClass;
+import software.amazon.awssdk.core.client.config.ClientAsyncConfiguration;
+import software.amazon.awssdk.core.client.config.SdkAdvancedAsyncClientOption;
+
+/** Builds the completion executor configuration of the clients created by this library. */
+@UtilityClass
+public class CompletionExecutors {
+
+  /**
+   * Returns the client configuration that completes SDK futures on the configured executor, or on
+   * the I/O threads in direct mode.
+   *
+   * @param completionConfig The completion configuration.
+   * @return The client configuration.
+   */
+  public ClientAsyncConfiguration asyncConfiguration(CompletionConfig completionConfig) {
+    ClientAsyncConfiguration.Builder builder = ClientAsyncConfiguration.builder();
+    if (completionConfig.getExecutor() != null) {
+      builder.advancedOption(
+          SdkAdvancedAsyncClientOption.FUTURE_COMPLETION_EXECUTOR, completionConfig.getExecutor());
+    } else if (completionConfig.isDirectCompletion()) {
+      Executor direct = Runnable::run;
+      builder.advancedOption(SdkAdvancedAsyncClientOption.FUTURE_COMPLETION_EXECUTOR, direct);
+    }
+    return builder.build();
+  }
+}
@@ -0,0 +1,29 @@
+package com.dream11.queue.util;
+
+import lombok.experimental.UtilityClass;
+
+/**
+ * Message attributes added to messages moved to a dead-letter queue by a consumer. Unlike {@link
+ * ReservedAttributes}, they are visible to consumers of the dead-letter queue.
+ */
+@UtilityClass
+public class DeadLetterAttributes {
+
+  /** Why the message was moved, one of the reason constants of this class. */
+  public static final String REASON = "DeadLetterReason";
+
+  /** The class and message of the exception that made the message non-retryable. */
+  public static final String ERROR = "DeadLetterError";
+
+  /** The URL of the queue the message was moved from. */
+  public static final String SOURCE_QUEUE = "DeadLetterSourceQueue";
+
+  /** The number of times the message was received from the source queue. */
+  public static final String RECEIVE_COUNT = "DeadLetterReceiveCount";
+
+  /** The message was received more times than the configured maximum. */
+  public static final String MAX_RECEIVE_COUNT_EXCEEDED = "MaxReceiveCountExceeded";
+
+  /** The handler failed with an exception classified as non-retryable. */
+  public static final String NON_RETRYABLE_ERROR = "NonRetryableError";
+}
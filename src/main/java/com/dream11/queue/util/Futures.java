@@ -0,0 +1,119 @@
+package com.dream11.queue.util;
+
+import java.time.Duration;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
+import lombok.experimental.UtilityClass;
+
+/** Helpers for deadlines and cancellation of the futures returned by producers and consumers. */
+@UtilityClass
+public class Futures {
+
+  /**
+   * Fails the future with a {@link TimeoutException} if it has not completed within the deadline.
+   * Futures returned by this library cancel their underlying request when this happens.
+   *
+   * @param future The future.
+   * @param deadline The deadline. Null, zero or negative values leave the future unchanged.
+   * @param <T> The type of the future's result.
+   * @return The same future.
+   */
+  public <T> CompletableFuture<T> withDeadline(CompletableFuture<T> future, Duration deadline) {
+    if (deadline == null || deadline.isZero() || deadline.isNegative()) {
+      return future;
+    }
+    return future.orTimeout(deadline.toNanos(), TimeUnit.NANOSECONDS);
+  }
+
+  /**
+   * Returns a future that completes on the given executor once the source future completes.
+   * Cancelling the returned future cancels the source future. If the executor rejects the task, the
+   * returned future completes on the thread that completed the source future.
+   *
+   * @param future The source future.
+   * @param executor The executor.
+   * @param <T> The type of the future's result.
+   * @return A CompletableFuture that completes on the executor.
+   */
+  public <T> CompletableFuture<T> completeOn(CompletableFuture<T> future, Executor executor) {
+    CompletableFuture<T> result = new CompletableFuture<>();
+    future.whenComplete(
+        (value, error) -> {
+          Runnable completion = () -> complete(result, value, error);
+          try {
+            executor.execute(completion);
+          } catch (RejectedExecutionException e) {
+            completion.run();
+          }
+        });
+    return propagateCancellation(result, future);
+  }
+
+  /**
+   * Starts a call after a delay without blocking the caller. If the returned future is cancelled or
+   * times out before the delay ends, the call is not started; afterwards, cancellation is passed on
+   * to the call's future.
+   *
+   * @param delayNanos The delay in nanoseconds.
+   * @param call Starts the call.
+   * @param <T> The type of the call's result.
+   * @return A CompletableFuture that completes with the call's result.
+   */
+  public <T> CompletableFuture<T> startAfter(
+      long delayNanos, Supplier<CompletableFuture<T>> call) {
+    CompletableFuture<T> result = new CompletableFuture<>();
+    CompletableFuture.delayedExecutor(delayNanos, TimeUnit.NANOSECONDS)
+        .execute(
+            () -> {
+              if (result.isDone()) {
+                return;
+              }
+              CompletableFuture<T> started;
+              try {
+                started = call.get();
+              } catch (RuntimeException e) {
+                result.completeExceptionally(e);
+                return;
+              }
+              propagateCancellation(result, started);
+              started.whenComplete((value, error) -> complete(result, value, error));
+            });
+    return result;
+  }
+
+  /**
+   * Cancels the source future when the derived future is cancelled or times out. Futures derived
+   * with {@code thenApply} or {@code thenCompose} do not do this on their own, so without it
+   * cancelling a returned future leaves the request it depends on running.
+   *
+   * @param derived The future returned to the caller.
+   * @param source The future of the underlying request.
+   * @param <T> The type of the derived future's result.
+   * @return The derived future.
+   */
+  public <T> CompletableFuture<T> propagateCancellation(
+      CompletableFuture<T> derived, CompletableFuture<?> source) {
+    if (derived != source) {
+      derived.whenComplete(
+          (value, error) -> {
+            if (error instanceof CancellationException || error instanceof TimeoutException) {
+              source.cancel(true);
+            }
+          });
+    }
+    return derived;
+  }
+
+  private <T> void complete(CompletableFuture<T> result, T value, Throwable error) {
+    if (error == null) {
+      result.complete(value);
+    } else {
+      result.completeExceptionally(error);
+    }
+  }
+}
@@ -16,12 +16,13 @@ import lombok.experimental.UtilityClass;
  *   <li>String: Converted as-is to AWS String type
  *   <li>Number (Integer, Long, Float, Double, etc.): Converted to AWS Number type
  *   <li>Boolean: Converted to AWS String type ("true" or "false") - AWS has no native Boolean type
+ *   <li>Binary data (byte[]): Converted to AWS Binary type, only when a binary value factory is
+ *       provided
  * </ul>
  *
  * <p>Unsupported types (will throw IllegalArgumentException):
  *
  * <ul>
- *   <li>Binary data (byte[])
  *   <li>Collections (List, Set, Array)
  *   <li>Maps
  *   <li>Custom objects
@@ -31,6 +32,15 @@ import lombok.experimental.UtilityClass;
 @UtilityClass
 public class MessageAttributeConverter {
 
+  /** AWS data type for string attributes. */
+  public static final String STRING = "String";
+
+  /** AWS data type for numeric attributes. */
+  public static final String NUMBER = "Number";
+
+  /** AWS data type for binary attributes. */
+  public static final String BINARY = "Binary";
+
   /**
    * Converts a map of generic objects to AWS MessageAttributeValue objects. This method supports
    * String, Number, and Boolean types only. Unsupported types will cause an
@@ -46,6 +56,29 @@ public class MessageAttributeConverter {
    */
   public <T> Map<String, T> convert(
       Map<String, Object> attributes, BiFunction<String, String, T> attributeValueFactory) {
+    return convert(attributes, attributeValueFactory, null);
+  }
+
+  /**
+   * Converts a map of generic objects to AWS MessageAttributeValue objects. This method supports
+   * String, Number, Boolean and byte[] types. Unsupported types will cause an
+   * IllegalArgumentException.
+   *
+   * @param attributes The attributes to convert (can be null or empty, must not contain null
+   *     values)
+   * @param attributeValueFactory Factory function that creates a service-specific
+   *     MessageAttributeValue given a dataType and stringValue
+   * @param binaryValueFactory Factory function that creates a service-specific
+   *     MessageAttributeValue given a dataType and binary value, or null if binary values are not
+   *     supported
+   * @param <T> The AWS MessageAttributeValue type (e.g., SQS or SNS MessageAttributeValue)
+   * @return A map of converted MessageAttributeValue objects
+   * @throws IllegalArgumentException if any attribute value is null or of an unsupported type
+   */
+  public <T> Map<String, T> convert(
+      Map<String, Object> attributes,
+      BiFunction<String, String, T> attributeValueFactory,
+      BiFunction<String, byte[], T> binaryValueFactory) {
 
     if (attributes == null || attributes.isEmpty()) {
       return Map.of();
@@ -58,25 +91,21 @@ public class MessageAttributeConverter {
             throw new IllegalArgumentException("Message attribute '" + key + "' cannot be null");
           }
 
-          String dataType;
-          String stringValue;
-
           if (value instanceof String || value instanceof Boolean) {
-            dataType = "String";
-            stringValue = value.toString();
+            messageAttributes.put(key, attributeValueFactory.apply(STRING, value.toString()));
           } else if (value instanceof Number) {
-            dataType = "Number";
-            stringValue = value.toString();
+            messageAttributes.put(key, attributeValueFactory.apply(NUMBER, value.toString()));
+          } else if (value instanceof byte[] && binaryValueFactory != null) {
+            messageAttributes.put(key, binaryValueFactory.apply(BINARY, (byte[]) value));
           } else {
             throw new IllegalArgumentException(
                 "Unsupported message attribute type for key '"
                     + key
                     + "': "
                     + value.getClass().getName()
-                    + ". Supported types: String, Number, Boolean");
+                    + ". Supported types: String, Number, Boolean"
+                    + (binaryValueFactory != null ? ", byte[]" : ""));
           }
-
-          messageAttributes.put(key, attributeValueFactory.apply(dataType, stringValue));
         });
     return messageAttributes;
   }
@@ -0,0 +1,169 @@
+package com.dream11.queue.util;
+
+import com.dream11.queue.config.AttributeConfig;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BiFunction;
+
+/**
+ * Encodes message attributes to AWS MessageAttributeValue objects using a precompiled {@link
+ * MessageAttributeSchema} and an optional bounded cache of encoded values. AWS
+ * MessageAttributeValue objects are immutable, so the same instance can be shared by every message
+ * that carries the same key and value.
+ *
+ * <p>Attributes declared in the schema are encoded without type detection and must match their
+ * declared type. Other attributes are typed from their value, as in {@link
+ * MessageAttributeConverter}. Binary values are never cached.
+ *
+ * <p>Once the cache is full, new values are encoded on every send and nothing is evicted. This
+ * keeps lookups lock-free and suits the low-cardinality values the cache is meant for.
+ *
+ * @param <T> The AWS MessageAttributeValue type (e.g., SQS or SNS MessageAttributeValue)
+ */
+public class MessageAttributeEncoder<T> {
+  private final Map<String, KeyEncoder> declaredEncoders = new HashMap<>();
+  private final Map<String, KeyEncoder> dynamicEncoders = new ConcurrentHashMap<>();
+  private final BiFunction<String, String, T> attributeValueFactory;
+  private final BiFunction<String, byte[], T> binaryValueFactory;
+  private final int valueCacheSize;
+  private final AtomicInteger cacheEntries = new AtomicInteger();
+
+  /**
+   * Constructs a new MessageAttributeEncoder, compiling the schema from the given configuration.
+   *
+   * @param attributeConfig The attribute configuration.
+   * @param attributeValueFactory Factory function that creates a service-specific
+   *     MessageAttributeValue given a dataType and stringValue
+   * @param binaryValueFactory Factory function that creates a service-specific
+   *     MessageAttributeValue given a dataType and binary value
+   */
+  public MessageAttributeEncoder(
+      AttributeConfig attributeConfig,
+      BiFunction<String, String, T> attributeValueFactory,
+      BiFunction<String, byte[], T> binaryValueFactory) {
+    this.attributeValueFactory = attributeValueFactory;
+    this.binaryValueFactory = binaryValueFactory;
+    this.valueCacheSize = Math.max(0, attributeConfig.getValueCacheSize());
+    if (attributeConfig.getSchema() != null) {
+      attributeConfig
+          .getSchema()
+          .getAttributes()
+          .forEach((key, type) -> this.declaredEncoders.put(key, new KeyEncoder(type)));
+    }
+  }
+
+  /**
+   * Encodes the given attributes.
+   *
+   * @param attributes The attributes to encode (can be null or empty, must not contain null
+   *     values)
+   * @return A map of encoded MessageAttributeValue objects
+   * @throws IllegalArgumentException if any attribute value is null, of an unsupported type, or
+   *     does not match its declared type
+   */
+  public Map<String, T> encode(Map<String, Object> attributes) {
+    if (attributes == null || attributes.isEmpty()) {
+      return Map.of();
+    }
+    if (this.declaredEncoders.isEmpty() && this.valueCacheSize == 0) {
+      return MessageAttributeConverter.convert(
+          attributes, this.attributeValueFactory, this.binaryValueFactory);
+    }
+
+    Map<String, T> messageAttributes = new HashMap<>((int) (attributes.size() / 0.75f) + 1);
+    attributes.forEach((key, value) -> messageAttributes.put(key, this.encode(key, value)));
+    return messageAttributes;
+  }
+
+  private T encode(String key, Object value) {
+    if (value == null) {
+      throw new IllegalArgumentException("Message attribute '" + key + "' cannot be null");
+    }
+
+    KeyEncoder encoder = this.declaredEncoders.get(key);
+    if (encoder != null) {
+      if (!encoder.type.accepts(value)) {
+        throw new IllegalArgumentException(
+            "Message attribute '"
+                + key
+                + "' is declared as "
+                + encoder.type
+                + " but was: "
+                + value.getClass().getName());
+      }
+      return encoder.encode(value);
+    }
+
+    AttributeType type = AttributeType.of(value);
+    if (type == null) {
+      throw new IllegalArgumentException(
+          "Unsupported message attribute type for key '"
+              + key
+              + "': "
+              + value.getClass().getName()
+              + ". Supported types: String, Number, Boolean, byte[]");
+    }
+    encoder = this.dynamicEncoders.get(key);
+    if (encoder == null && type != AttributeType.BINARY && this.hasCacheRoom()) {
+      // Encoders hold no slot of their own. They are only created while values can be cached.
+      encoder = this.dynamicEncoders.computeIfAbsent(key, k -> new KeyEncoder(type));
+    }
+    return encoder != null && encoder.type == type
+        ? encoder.encode(value)
+        : this.newValue(type, value);
+  }
+
+  private T newValue(AttributeType type, Object value) {
+    if (type == AttributeType.BINARY) {
+      return this.binaryValueFactory.apply(type.getDataType(), (byte[]) value);
+    }
+    return this.attributeValueFactory.apply(type.getDataType(), value.toString());
+  }
+
+  private boolean hasCacheRoom() {
+    return this.cacheEntries.get() < this.valueCacheSize;
+  }
+
+  private boolean reserveCacheEntry() {
+    int entries;
+    while ((entries = this.cacheEntries.get()) < this.valueCacheSize) {
+      if (this.cacheEntries.compareAndSet(entries, entries + 1)) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  /** The compiled encoder for a single attribute key, with its cache of encoded values. */
+  private final class KeyEncoder {
+    private final AttributeType type;
+    private final Map<Object, T> values = new ConcurrentHashMap<>();
+
+    private KeyEncoder(AttributeType type) {
+      this.type = type;
+    }
+
+    private T encode(Object value) {
+      if (this.type == AttributeType.BINARY) {
+        return MessageAttributeEncoder.this.newValue(this.type, value);
+      }
+      T encoded = this.values.get(value);
+      if (encoded == null) {
+        encoded = MessageAttributeEncoder.this.newValue(this.type, value);
+        if (MessageAttributeEncoder.this.hasCacheRoom()) {
+          // A slot is only reserved once the insert wins, so lost races do not use one up.
+          T existing = this.values.putIfAbsent(value, encoded);
+          if (existing != null) {
+            return existing;
+          }
+          if (!MessageAttributeEncoder.this.reserveCacheEntry()) {
+            this.values.remove(value, encoded);
+          }
+        }
+      }
+      return encoded;
+    }
+  }
+}
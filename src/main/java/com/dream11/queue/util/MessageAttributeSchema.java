@@ -0,0 +1,27 @@
+package com.dream11.queue.util;
+
+import java.util.Map;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.Singular;
+
+/**
+ * Declares the type of each message attribute a producer sends. A {@link MessageAttributeEncoder}
+ * compiles the schema once, so declared attributes skip the per-message type detection.
+ *
+ * <p>Example:
+ *
+ * <pre>{@code
+ * MessageAttributeSchema schema =
+ *     MessageAttributeSchema.builder()
+ *         .attribute("eventType", AttributeType.STRING)
+ *         .attribute("version", AttributeType.NUMBER)
+ *         .build();
+ * }</pre>
+ */
+@Getter
+@Builder
+public class MessageAttributeSchema {
+  /** The declared type of each attribute, by key. */
+  @Singular private Map<String, AttributeType> attributes;
+}
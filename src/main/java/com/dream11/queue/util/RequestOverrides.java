@@ -0,0 +1,30 @@
+package com.dream11.queue.util;
+
+import com.dream11.queue.config.TimeoutConfig;
+import java.time.Duration;
+import lombok.experimental.UtilityClass;
+import software.amazon.awssdk.awscore.AwsRequestOverrideConfiguration;
+
+/** Builds the per-request configuration applied to every provider request. */
+@UtilityClass
+public class RequestOverrides {
+
+  /**
+   * Returns the request configuration carrying the configured deadlines. Applying it per request,
+   * rather than on the client, makes the deadlines apply to user-supplied clients too.
+   *
+   * @param timeoutConfig The timeout configuration.
+   * @return The request configuration.
+   */
+  public AwsRequestOverrideConfiguration of(TimeoutConfig timeoutConfig) {
+    AwsRequestOverrideConfiguration.Builder builder = AwsRequestOverrideConfiguration.builder();
+    if (timeoutConfig.getApiCallTimeoutMillis() > 0) {
+      builder.apiCallTimeout(Duration.ofMillis(timeoutConfig.getApiCallTimeoutMillis()));
+    }
+    if (timeoutConfig.getApiCallAttemptTimeoutMillis() > 0) {
+      builder.apiCallAttemptTimeout(
+          Duration.ofMillis(timeoutConfig.getApiCallAttemptTimeoutMillis()));
+    }
+    return builder.build();
+  }
+}
@@ -0,0 +1,52 @@
+package com.dream11.queue.util;
+
+import java.util.HashMap;
+import java.util.Map;
+import lombok.experimental.UtilityClass;
+
+/**
+ * Message attributes set by this library to describe how a message body was encoded. They share
+ * the {@link #PREFIX} prefix and are hidden from the attributes exposed to consumers.
+ */
+@UtilityClass
+public class ReservedAttributes {
+
+  /** Prefix shared by all reserved attribute keys. */
+  public static final String PREFIX = "messagekit.";
+
+  /** Name of the compression algorithm applied to the message body. */
+  public static final String COMPRESSION = PREFIX + "compression";
+
+  /** Marks a message whose body is a key into the claim-check blob store. */
+  public static final String CLAIM_CHECK = PREFIX + "claim-check";
+
+  /** Number of records packed into an aggregated message body. */
+  public static final String AGGREGATED = PREFIX + "aggregated";
+
+  /** Time, in epoch milliseconds, before which a delayed message must not be handled. */
+  public static final String DUE_AT = PREFIX + "due-at";
+
+  /**
+   * Checks if the given attribute key is reserved by this library.
+   *
+   * @param key The attribute key.
+   * @return true if the key is reserved.
+   */
+  public boolean isReserved(String key) {
+    return key.startsWith(PREFIX);
+  }
+
+  /**
+   * Returns a copy of the given attributes with a reserved attribute added.
+   *
+   * @param attributes The user attributes (can be null).
+   * @param key The reserved attribute key.
+   * @param value The reserved attribute value.
+   * @return A new map containing the user attributes and the reserved attribute.
+   */
+  public Map<String, Object> with(Map<String, Object> attributes, String key, Object value) {
+    Map<String, Object> result = attributes == null ? new HashMap<>() : new HashMap<>(attributes);
+    result.put(key, value);
+    return result;
+  }
+}
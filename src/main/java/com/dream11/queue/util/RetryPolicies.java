@@ -0,0 +1,64 @@
+package com.dream11.queue.util;
+
+import com.dream11.queue.config.RetryConfig;
+import java.time.Duration;
+import lombok.experimental.UtilityClass;
+import software.amazon.awssdk.core.client.config.ClientOverrideConfiguration;
+import software.amazon.awssdk.core.retry.RetryPolicy;
+import software.amazon.awssdk.core.retry.backoff.FullJitterBackoffStrategy;
+import software.amazon.awssdk.core.retry.conditions.TokenBucketExceptionCostFunction;
+import software.amazon.awssdk.core.retry.conditions.TokenBucketRetryCondition;
+
+/** Builds the SDK retry configuration of the clients created by this library. */
+@UtilityClass
+public class RetryPolicies {
+
+  /**
+   * Returns the client configuration carrying the retry policy for the given configuration.
+   *
+   * @param retryConfig The retry configuration.
+   * @return The client configuration.
+   */
+  public ClientOverrideConfiguration clientOverride(RetryConfig retryConfig) {
+    return ClientOverrideConfiguration.builder().retryPolicy(of(retryConfig)).build();
+  }
+
+  /**
+   * Returns the SDK retry policy for the given configuration. Throttled requests back off from
+   * their own base delay, and the retry budget is a token bucket shared by all requests of the
+   * client.
+   *
+   * @param retryConfig The retry configuration.
+   * @return The retry policy.
+   */
+  public RetryPolicy of(RetryConfig retryConfig) {
+    Duration maxBackoff = Duration.ofMillis(retryConfig.getMaxBackoffMillis());
+    RetryPolicy.Builder builder =
+        RetryPolicy.builder()
+            .numRetries(retryConfig.getMaxRetries())
+            .backoffStrategy(
+                FullJitterBackoffStrategy.builder()
+                    .baseDelay(Duration.ofMillis(retryConfig.getBaseDelayMillis()))
+                    .maxBackoffTime(maxBackoff)
+                    .build())
+            .throttlingBackoffStrategy(
+                FullJitterBackoffStrategy.builder()
+                    .baseDelay(Duration.ofMillis(retryConfig.getThrottlingBaseDelayMillis()))
+                    .maxBackoffTime(maxBackoff)
+                    .build());
+    if (retryConfig.getRetryBudget() > 0) {
+      builder.retryCapacityCondition(
+          TokenBucketRetryCondition.builder()
+              .tokenBucketSize(retryConfig.getRetryBudget())
+              .exceptionCostFunction(
+                  TokenBucketExceptionCostFunction.builder()
+                      .throttlingExceptionCost(retryConfig.getThrottlingRetryCost())
+                      .defaultExceptionCost(retryConfig.getRetryCost())
+                      .build())
+              .build());
+    } else {
+      builder.retryCapacityCondition(null);
+    }
+    return builder.build();
+  }
+}
@@ -0,0 +1,54 @@
+package com.dream11.queue.util;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+import lombok.experimental.UtilityClass;
+
+/**
+ * Creates the executors of the library. This is the implementation for Java 11 to 20, which only
+ * has platform threads; the multi-release JAR replaces it on Java 21 and later with one that can
+ * use virtual threads.
+ */
+@UtilityClass
+public class Threads {
+
+  /**
+   * Returns whether this runtime can run tasks on virtual threads.
+   *
+   * @return False, as virtual threads require Java 21.
+   */
+  public boolean virtualThreadsSupported() {
+    return false;
+  }
+
+  /**
+   * Creates the executor that runs message handlers.
+   *
+   * @param name The prefix of the thread names.
+   * @param threads The number of platform threads.
+   * @param virtual Whether to use virtual threads. Ignored, as virtual threads require Java 21.
+   * @return The executor.
+   */
+  public ExecutorService newHandlerExecutor(String name, int threads, boolean virtual) {
+    return Executors.newFixedThreadPool(threads, namedThreads(name));
+  }
+
+  /**
+   * Creates a scheduler, such as the one sending heartbeats.
+   *
+   * @param threads The number of threads.
+   * @param virtual Whether to use virtual threads. Ignored, as virtual threads require Java 21.
+   * @return The scheduler.
+   */
+  public ScheduledExecutorService newScheduler(int threads, boolean virtual) {
+    return Executors.newScheduledThreadPool(threads);
+  }
+
+  private ThreadFactory namedThreads(String name) {
+    AtomicInteger count = new AtomicInteger();
+    return runnable -> new Thread(runnable, name + "-" + count.getAndIncrement());
+  }
+}
@@ -0,0 +1,35 @@
+package com.dream11.queue.util;
+
+import lombok.experimental.UtilityClass;
+
+/** Helpers for sizing message bodies, whose provider limits are expressed in UTF-8 bytes. */
+@UtilityClass
+public class Utf8 {
+
+  /**
+   * Returns the number of bytes the given text occupies when encoded as UTF-8, without encoding
+   * it.
+   *
+   * @param value The text.
+   * @return The encoded length in bytes.
+   */
+  public long encodedLength(CharSequence value) {
+    long length = 0;
+    for (int i = 0; i < value.length(); i++) {
+      char c = value.charAt(i);
+      if (c < 0x80) {
+        length++;
+      } else if (c < 0x800) {
+        length += 2;
+      } else if (Character.isHighSurrogate(c)
+          && i + 1 < value.length()
+          && Character.isLowSurrogate(value.charAt(i + 1))) {
+        length += 4;
+        i++;
+      } else {
+        length += 3;
+      }
+    }
+    return length;
+  }
+}
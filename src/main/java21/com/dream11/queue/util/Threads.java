@@ -0,0 +1,61 @@
+package com.dream11.queue.util;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+import lombok.experimental.UtilityClass;
+
+/**
+ * Creates the executors of the library. This is the implementation for Java 21 and later, packaged
+ * in the multi-release JAR, which can run tasks on virtual threads.
+ */
+@UtilityClass
+public class Threads {
+
+  /**
+   * Returns whether this runtime can run tasks on virtual threads.
+   *
+   * @return True, as this runtime is Java 21 or later.
+   */
+  public boolean virtualThreadsSupported() {
+    return true;
+  }
+
+  /**
+   * Creates the executor that runs message handlers. With virtual threads every handler runs on a
+   * new virtual thread, and the caller bounds how many run at once.
+   *
+   * @param name The prefix of the thread names.
+   * @param threads The number of platform threads, when virtual threads are not used.
+   * @param virtual Whether to use virtual threads.
+   * @return The executor.
+   */
+  public ExecutorService newHandlerExecutor(String name, int threads, boolean virtual) {
+    if (virtual) {
+      return Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name(name + "-", 0).factory());
+    }
+    return Executors.newFixedThreadPool(threads, namedThreads(name));
+  }
+
+  /**
+   * Creates a scheduler, such as the one sending heartbeats. With virtual threads the scheduled
+   * tasks run on virtual threads, so a task blocking on I/O does not hold a platform thread.
+   *
+   * @param threads The number of threads.
+   * @param virtual Whether to use virtual threads.
+   * @return The scheduler.
+   */
+  public ScheduledExecutorService newScheduler(int threads, boolean virtual) {
+    if (virtual) {
+      return Executors.newScheduledThreadPool(threads, Thread.ofVirtual().factory());
+    }
+    return Executors.newScheduledThreadPool(threads);
+  }
+
+  private ThreadFactory namedThreads(String name) {
+    AtomicInteger count = new AtomicInteger();
+    return runnable -> new Thread(runnable, name + "-" + count.getAndIncrement());
+  }
+}
@@ -0,0 +1,83 @@
+package com.dream11.queue;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import com.dream11.queue.codec.MessageCodec;
+import java.util.Map;
+import org.junit.jupiter.api.Test;
+
+class MessageTest {
+
+  @Test
+  void testTypedGettersDecodeStringAttributes() {
+    // Arrange
+    Message message =
+        Message.builder()
+            .body("test message")
+            .attributes(Map.of("count", "42", "score", "99.5", "enabled", "true"))
+            .build();
+
+    // Act & Assert
+    assertThat(message.getLong("count")).isEqualTo(42L);
+    assertThat(message.getDouble("score")).isEqualTo(99.5);
+    assertThat(message.getBoolean("enabled")).isTrue();
+  }
+
+  @Test
+  void testTypedGettersReturnTypedAttributes() {
+    // Arrange
+    byte[] bytes = {1, 2, 3};
+    Message message =
+        Message.builder()
+            .body("test message")
+            .attributes(Map.of("count", 42, "score", 99.5f, "enabled", false, "bytes", bytes))
+            .build();
+
+    // Act & Assert
+    assertThat(message.getLong("count")).isEqualTo(42L);
+    assertThat(message.getDouble("score")).isEqualTo(99.5);
+    assertThat(message.getBoolean("enabled")).isFalse();
+    assertThat(message.getBinary("bytes")).isSameAs(bytes);
+  }
+
+  @Test
+  void testTypedGettersReturnNullForMissingAttributes() {
+    // Arrange
+    Message message = Message.builder().body("test message").build();
+
+    // Act & Assert
+    assertThat(message.getLong("missing")).isNull();
+    assertThat(message.getDouble("missing")).isNull();
+    assertThat(message.getBoolean("missing")).isNull();
+    assertThat(message.getBinary("missing")).isNull();
+  }
+
+  @Test
+  void testTypedGettersRejectInvalidValues() {
+    // Arrange
+    Message message =
+        Message.builder().body("test message").attributes(Map.of("key", "value")).build();
+
+    // Act & Assert
+    assertThatThrownBy(() -> message.getLong("key")).isInstanceOf(NumberFormatException.class);
+    assertThatThrownBy(() -> message.getBoolean("key"))
+        .isInstanceOf(IllegalArgumentException.class)
+        .hasMessageContaining("is not a boolean");
+    assertThatThrownBy(() -> message.getBinary("key"))
+        .isInstanceOf(IllegalArgumentException.class)
+        .hasMessageContaining("is not binary");
+  }
+
+  @Test
+  void testDecodeBody() {
+    // Arrange
+    Message message = Message.builder().body("test message").build();
+
+    // Act
+    String body = message.decodeBody(MessageCodec.ofString());
+
+    // Assert
+    assertThat(body).isEqualTo("test message");
+  }
+}
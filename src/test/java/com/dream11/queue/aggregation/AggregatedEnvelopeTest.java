@@ -0,0 +1,48 @@
+package com.dream11.queue.aggregation;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+class AggregatedEnvelopeTest {
+
+  @Test
+  void testEncodeAndDecode() {
+    // Arrange
+    List<String> records = List.of("hello", "", "12:34", "{\"id\":1}", "é€😀");
+
+    // Act
+    String body = AggregatedEnvelope.encode(records);
+
+    // Assert
+    assertThat(body).startsWith("5:hello0:5:12:34");
+    assertThat(AggregatedEnvelope.decode(body)).isEqualTo(records);
+  }
+
+  @Test
+  void testEncodedLengthMatchesEnvelopeSize() {
+    // Arrange
+    List<String> records = List.of("hello", "x".repeat(1234), "é€😀");
+
+    // Act
+    long expected = records.stream().mapToLong(AggregatedEnvelope::encodedLength).sum();
+
+    // Assert
+    assertThat(AggregatedEnvelope.encode(records).getBytes(StandardCharsets.UTF_8))
+        .hasSize((int) expected);
+  }
+
+  @ParameterizedTest
+  @ValueSource(strings = {"hello", ":hello", "x:hello", "9:hello", "-1:hello", "5:hello3:ab"})
+  void testDecodeRejectsMalformedBodies(String body) {
+    // Act & Assert
+    assertThatThrownBy(() -> AggregatedEnvelope.decode(body))
+        .isInstanceOf(IllegalArgumentException.class)
+        .hasMessageStartingWith("Malformed aggregated message body");
+  }
+}
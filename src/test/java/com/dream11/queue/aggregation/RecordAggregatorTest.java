@@ -0,0 +1,123 @@
+package com.dream11.queue.aggregation;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.awaitility.Awaitility.await;
+
+import com.dream11.queue.config.AggregationConfig;
+import com.dream11.queue.util.ReservedAttributes;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutionException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class RecordAggregatorTest {
+
+  private List<String> sentBodies;
+  private List<Map<String, Object>> sentAttributes;
+
+  @BeforeEach
+  void setUp() {
+    sentBodies = new CopyOnWriteArrayList<>();
+    sentAttributes = new CopyOnWriteArrayList<>();
+  }
+
+  @Test
+  void testSendsBatchWhenRecordLimitIsReached() throws Exception {
+    // Arrange
+    RecordAggregator aggregator = newAggregator(config().maxRecords(3).lingerMillis(0).build());
+
+    // Act
+    CompletableFuture<Void> first = aggregator.add("a");
+    aggregator.add("b");
+    CompletableFuture<Void> last = aggregator.add("c");
+
+    // Assert
+    last.get();
+    assertThat(first).isCompleted();
+    assertThat(sentBodies).hasSize(1);
+    assertThat(AggregatedEnvelope.decode(sentBodies.get(0))).containsExactly("a", "b", "c");
+    assertThat(sentAttributes.get(0)).containsEntry(ReservedAttributes.AGGREGATED, 3);
+  }
+
+  @Test
+  void testSendsBatchWhenNextRecordDoesNotFit() throws Exception {
+    // Arrange
+    RecordAggregator aggregator =
+        newAggregator(config().maxBatchBytes(10).lingerMillis(0).build());
+
+    // Act
+    CompletableFuture<Void> first = aggregator.add("abcd");
+    aggregator.add("efgh");
+
+    // Assert
+    first.get();
+    assertThat(sentBodies).containsExactly("4:abcd");
+  }
+
+  @Test
+  void testSendsPartialBatchAfterLinger() {
+    // Arrange
+    RecordAggregator aggregator = newAggregator(config().lingerMillis(10).build());
+
+    // Act
+    CompletableFuture<Void> future = aggregator.add("a");
+
+    // Assert
+    await().atMost(Duration.ofSeconds(5)).until(future::isDone);
+    assertThat(sentBodies).containsExactly("1:a");
+  }
+
+  @Test
+  void testCloseSendsPendingBatch() {
+    // Arrange
+    RecordAggregator aggregator = newAggregator(config().lingerMillis(0).build());
+    CompletableFuture<Void> future = aggregator.add("a");
+
+    // Act
+    aggregator.close();
+
+    // Assert
+    assertThat(future).isCompleted();
+    assertThat(sentBodies).containsExactly("1:a");
+    assertThatThrownBy(() -> aggregator.add("b")).isInstanceOf(IllegalStateException.class);
+  }
+
+  @Test
+  void testSendFailureFailsEveryRecordOfTheBatch() {
+    // Arrange
+    RecordAggregator aggregator =
+        new RecordAggregator(
+            config().maxRecords(2).lingerMillis(0).build(),
+            (body, attributes) ->
+                CompletableFuture.failedFuture(new IllegalStateException("unavailable")));
+
+    // Act
+    CompletableFuture<Void> first = aggregator.add("a");
+    CompletableFuture<Void> second = aggregator.add("b");
+
+    // Assert
+    assertThatThrownBy(first::get)
+        .isInstanceOf(ExecutionException.class)
+        .hasCauseInstanceOf(IllegalStateException.class);
+    assertThatThrownBy(second::get).isInstanceOf(ExecutionException.class);
+  }
+
+  private static AggregationConfig.AggregationConfigBuilder config() {
+    return AggregationConfig.builder().enabled(true);
+  }
+
+  private RecordAggregator newAggregator(AggregationConfig config) {
+    return new RecordAggregator(
+        config,
+        (body, attributes) -> {
+          sentBodies.add(body);
+          sentAttributes.add(attributes);
+          return CompletableFuture.completedFuture(null);
+        });
+  }
+}
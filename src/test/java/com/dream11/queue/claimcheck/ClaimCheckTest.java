@@ -0,0 +1,91 @@
+package com.dream11.queue.claimcheck;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.dream11.queue.config.ClaimCheckConfig;
+import com.dream11.queue.util.ReservedAttributes;
+import java.nio.file.Path;
+import java.util.Map;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class ClaimCheckTest {
+
+  @TempDir Path directory;
+
+  @Test
+  void testDisabledWithoutBlobStore() {
+    // Arrange
+    ClaimCheck claimCheck = new ClaimCheck(new ClaimCheckConfig());
+
+    // Act & Assert
+    assertThat(claimCheck.isEnabled()).isFalse();
+    assertThat(claimCheck.shouldOffload("x".repeat(300 * 1024))).isFalse();
+  }
+
+  @Test
+  void testShouldOffloadCountsUtf8Bytes() {
+    // Arrange
+    ClaimCheck claimCheck =
+        new ClaimCheck(
+            ClaimCheckConfig.builder()
+                .blobStore(new FileSystemBlobStore(directory))
+                .thresholdBytes(10)
+                .build());
+
+    // Act & Assert
+    assertThat(claimCheck.shouldOffload("abcdefghij")).isFalse();
+    assertThat(claimCheck.shouldOffload("abcdefghijk")).isTrue();
+    assertThat(claimCheck.shouldOffload("ééééé")).isFalse();
+    assertThat(claimCheck.shouldOffload("éééééé")).isTrue();
+  }
+
+  @Test
+  void testOffloadResolveAndRelease() {
+    // Arrange
+    ClaimCheck claimCheck =
+        new ClaimCheck(
+            ClaimCheckConfig.builder().blobStore(new FileSystemBlobStore(directory)).build());
+
+    // Act
+    String key = claimCheck.offload("large payload").join();
+    String resolved = claimCheck.resolve(key).join();
+    claimCheck.release(key).join();
+
+    // Assert
+    assertThat(resolved).isEqualTo("large payload");
+    assertThat(directory.resolve(key)).doesNotExist();
+  }
+
+  @Test
+  void testReleaseKeepsBlobWhenDeleteOnAcknowledgeIsDisabled() {
+    // Arrange
+    ClaimCheck claimCheck =
+        new ClaimCheck(
+            ClaimCheckConfig.builder()
+                .blobStore(new FileSystemBlobStore(directory))
+                .deleteOnAcknowledge(false)
+                .build());
+    String key = claimCheck.offload("large payload").join();
+
+    // Act
+    claimCheck.release(key).join();
+
+    // Assert
+    assertThat(directory.resolve(key)).exists();
+  }
+
+  @Test
+  void testMarkOffloaded() {
+    // Arrange
+    ClaimCheck claimCheck = new ClaimCheck(new ClaimCheckConfig());
+
+    // Act
+    Map<String, Object> result = claimCheck.markOffloaded(Map.of("key", "value"));
+
+    // Assert
+    assertThat(result)
+        .containsEntry("key", "value")
+        .containsEntry(ReservedAttributes.CLAIM_CHECK, Boolean.TRUE);
+  }
+}
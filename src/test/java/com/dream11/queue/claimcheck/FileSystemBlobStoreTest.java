@@ -0,0 +1,66 @@
+package com.dream11.queue.claimcheck;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.CompletionException;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class FileSystemBlobStoreTest {
+
+  @TempDir Path directory;
+
+  @Test
+  void testPutAndGet() {
+    // Arrange
+    FileSystemBlobStore blobStore = new FileSystemBlobStore(directory);
+    byte[] data = "payload".getBytes(StandardCharsets.UTF_8);
+
+    // Act
+    blobStore.put("key", data).join();
+    byte[] result = blobStore.get("key").join();
+
+    // Assert
+    assertThat(result).isEqualTo(data);
+    assertThat(directory.resolve("key")).exists();
+  }
+
+  @Test
+  void testDelete() {
+    // Arrange
+    FileSystemBlobStore blobStore = new FileSystemBlobStore(directory);
+    blobStore.put("key", new byte[] {1}).join();
+
+    // Act
+    blobStore.delete("key").join();
+    blobStore.delete("key").join();
+
+    // Assert
+    assertThat(directory.resolve("key")).doesNotExist();
+  }
+
+  @Test
+  void testGetMissingBlobFails() {
+    // Arrange
+    FileSystemBlobStore blobStore = new FileSystemBlobStore(directory);
+
+    // Act & Assert
+    assertThatThrownBy(() -> blobStore.get("missing").join())
+        .isInstanceOf(CompletionException.class);
+  }
+
+  @Test
+  void testRejectsKeysOutsideDirectory() throws Exception {
+    // Arrange
+    FileSystemBlobStore blobStore = new FileSystemBlobStore(directory.resolve("blobs"));
+
+    // Act & Assert
+    assertThatThrownBy(() -> blobStore.put("../escaped", new byte[] {1}).join())
+        .hasCauseInstanceOf(IllegalArgumentException.class);
+    assertThat(Files.exists(directory.resolve("escaped"))).isFalse();
+  }
+}
@@ -0,0 +1,68 @@
+package com.dream11.queue.codec;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+
+class JsonCodecTest {
+
+  @Test
+  void testEncodeAndDecode() {
+    // Arrange
+    JsonCodec<Order> codec = JsonCodec.of(Order.class);
+    Order order = new Order("order-1", 3);
+
+    // Act
+    String body = codec.encode(order);
+    Order decoded = codec.decode(body);
+
+    // Assert
+    assertThat(body).isEqualTo("{\"id\":\"order-1\",\"quantity\":3}");
+    assertThat(decoded.id).isEqualTo("order-1");
+    assertThat(decoded.quantity).isEqualTo(3);
+  }
+
+  @Test
+  void testOfReturnsSharedCodecPerType() {
+    // Act & Assert
+    assertThat(JsonCodec.of(Order.class)).isSameAs(JsonCodec.of(Order.class));
+  }
+
+  @Test
+  void testCustomObjectMapper() {
+    // Arrange
+    JsonCodec<Order> codec = new JsonCodec<>(new ObjectMapper(), Order.class);
+
+    // Act
+    Order decoded = codec.decode("{\"id\":\"order-2\",\"quantity\":5}");
+
+    // Assert
+    assertThat(decoded.id).isEqualTo("order-2");
+    assertThat(decoded.quantity).isEqualTo(5);
+  }
+
+  @Test
+  void testDecodeInvalidJsonThrowsException() {
+    // Arrange
+    JsonCodec<Order> codec = JsonCodec.of(Order.class);
+
+    // Act & Assert
+    assertThatThrownBy(() -> codec.decode("not json"))
+        .isInstanceOf(IllegalArgumentException.class)
+        .hasMessageContaining("Failed to decode message body as JSON");
+  }
+
+  static class Order {
+    public String id;
+    public int quantity;
+
+    Order() {}
+
+    Order(String id, int quantity) {
+      this.id = id;
+      this.quantity = quantity;
+    }
+  }
+}
@@ -0,0 +1,30 @@
+package com.dream11.queue.codec;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import org.junit.jupiter.api.Test;
+
+class MessageCodecTest {
+
+  @Test
+  void testStringCodecIsIdentity() {
+    // Arrange
+    MessageCodec<String> codec = MessageCodec.ofString();
+
+    // Act & Assert
+    assertThat(codec.encode("test message")).isEqualTo("test message");
+    assertThat(codec.decode("test message")).isEqualTo("test message");
+  }
+
+  @Test
+  void testFromFunctionEncodesWithTransformer() {
+    // Arrange
+    MessageCodec<String> codec = MessageCodec.fromFunction(String::toUpperCase);
+
+    // Act & Assert
+    assertThat(codec.encode("test message")).isEqualTo("TEST MESSAGE");
+    assertThatThrownBy(() -> codec.decode("TEST MESSAGE"))
+        .isInstanceOf(UnsupportedOperationException.class);
+  }
+}
@@ -0,0 +1,81 @@
+package com.dream11.queue.codec;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.dream11.queue.config.CompressionConfig;
+import com.dream11.queue.util.ReservedAttributes;
+import java.util.Map;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+
+class PayloadCompressorTest {
+
+  private static final String BODY = "{\"event\":\"order-created\",\"orderId\":12345}".repeat(100);
+
+  @ParameterizedTest
+  @EnumSource(value = Compression.class, names = {"GZIP", "DEFLATE"})
+  void testCompressAndDecompress(Compression algorithm) {
+    // Arrange
+    PayloadCompressor compressor =
+        new PayloadCompressor(CompressionConfig.builder().algorithm(algorithm).build());
+
+    // Act
+    String compressed = compressor.compress(BODY);
+    String decompressed = PayloadCompressor.decompress(compressed, algorithm.name());
+
+    // Assert
+    assertThat(compressed).isNotNull().hasSizeLessThan(BODY.length());
+    assertThat(decompressed).isEqualTo(BODY);
+  }
+
+  @Test
+  void testCompressSkipsShortBodies() {
+    // Arrange
+    PayloadCompressor compressor =
+        new PayloadCompressor(
+            CompressionConfig.builder()
+                .algorithm(Compression.GZIP)
+                .minBodyLength(BODY.length() + 1)
+                .build());
+
+    // Act & Assert
+    assertThat(compressor.compress(BODY)).isNull();
+  }
+
+  @Test
+  void testCompressSkipsBodiesThatDoNotShrink() {
+    // Arrange
+    PayloadCompressor compressor =
+        new PayloadCompressor(
+            CompressionConfig.builder().algorithm(Compression.GZIP).minBodyLength(0).build());
+
+    // Act & Assert
+    assertThat(compressor.compress("short")).isNull();
+  }
+
+  @Test
+  void testCompressDisabledByDefault() {
+    // Arrange
+    PayloadCompressor compressor = new PayloadCompressor(new CompressionConfig());
+
+    // Act & Assert
+    assertThat(compressor.compress(BODY)).isNull();
+  }
+
+  @Test
+  void testMarkCompressed() {
+    // Arrange
+    PayloadCompressor compressor =
+        new PayloadCompressor(CompressionConfig.builder().algorithm(Compression.DEFLATE).build());
+
+    // Act
+    Map<String, Object> attributes = compressor.markCompressed(Map.of("key", "value"));
+
+    // Assert
+    assertThat(attributes)
+        .hasSize(2)
+        .containsEntry("key", "value")
+        .containsEntry(ReservedAttributes.COMPRESSION, "DEFLATE");
+  }
+}
@@ -0,0 +1,101 @@
+package com.dream11.queue.consumer;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.dream11.queue.config.CircuitBreakerConfig;
+import org.junit.jupiter.api.Test;
+
+class CircuitBreakerTest {
+
+  @Test
+  void testOpensWhenFailureRateReachesThreshold() {
+    // Arrange
+    CircuitBreaker circuitBreaker = newCircuitBreaker(60_000);
+    circuitBreaker.record(CircuitBreaker.Permit.CALL, false);
+    circuitBreaker.record(CircuitBreaker.Permit.CALL, false);
+    circuitBreaker.record(CircuitBreaker.Permit.CALL, true);
+
+    // Act
+    boolean opened = circuitBreaker.record(CircuitBreaker.Permit.CALL, true);
+
+    // Assert
+    assertThat(opened).isTrue();
+    assertThat(circuitBreaker.getState()).isEqualTo(CircuitBreakerState.OPEN);
+    assertThat(circuitBreaker.tryAcquire()).isEqualTo(CircuitBreaker.Permit.DENIED);
+  }
+
+  @Test
+  void testHalfOpenLetsOneProbeThroughAndClosesAfterProbesSucceed() throws InterruptedException {
+    // Arrange
+    CircuitBreaker circuitBreaker = newCircuitBreaker(0);
+    open(circuitBreaker);
+    circuitBreaker.awaitPermission();
+
+    // Act
+    CircuitBreaker.Permit first = circuitBreaker.tryAcquire();
+    CircuitBreaker.Permit second = circuitBreaker.tryAcquire();
+    circuitBreaker.record(first, false);
+    circuitBreaker.record(circuitBreaker.tryAcquire(), false);
+
+    // Assert
+    assertThat(first).isEqualTo(CircuitBreaker.Permit.PROBE);
+    assertThat(second).isEqualTo(CircuitBreaker.Permit.DENIED);
+    assertThat(circuitBreaker.getState()).isEqualTo(CircuitBreakerState.CLOSED);
+  }
+
+  @Test
+  void testFailedProbeOpensCircuitAgain() throws InterruptedException {
+    // Arrange
+    CircuitBreaker circuitBreaker = newCircuitBreaker(0);
+    open(circuitBreaker);
+    circuitBreaker.awaitPermission();
+    CircuitBreaker.Permit probe = circuitBreaker.tryAcquire();
+
+    // Act
+    boolean opened = circuitBreaker.record(probe, true);
+
+    // Assert
+    assertThat(opened).isTrue();
+    assertThat(circuitBreaker.tryAcquire()).isEqualTo(CircuitBreaker.Permit.DENIED);
+  }
+
+  @Test
+  void testProbeRunningLongerThanOpenTimeIsAbandoned() throws InterruptedException {
+    // Arrange
+    CircuitBreaker circuitBreaker = newCircuitBreaker(50);
+    open(circuitBreaker);
+    circuitBreaker.awaitPermission();
+    CircuitBreaker.Permit probe = circuitBreaker.tryAcquire();
+
+    // Act
+    boolean abandoned = circuitBreaker.awaitPermission();
+    CircuitBreaker.Permit whileAbandoned = circuitBreaker.tryAcquire();
+    boolean openedByLateOutcome = circuitBreaker.record(probe, true);
+    boolean abandonedAgain = circuitBreaker.awaitPermission();
+
+    // Assert
+    assertThat(abandoned).isTrue();
+    assertThat(whileAbandoned).isEqualTo(CircuitBreaker.Permit.DENIED);
+    assertThat(openedByLateOutcome).isFalse();
+    assertThat(abandonedAgain).isFalse();
+    assertThat(circuitBreaker.getState()).isEqualTo(CircuitBreakerState.HALF_OPEN);
+    assertThat(circuitBreaker.tryAcquire()).isEqualTo(CircuitBreaker.Permit.PROBE);
+  }
+
+  private static CircuitBreaker newCircuitBreaker(long openMillis) {
+    return new CircuitBreaker(
+        CircuitBreakerConfig.builder()
+            .enabled(true)
+            .windowSize(4)
+            .failureRateThreshold(0.5)
+            .openMillis(openMillis)
+            .halfOpenProbes(2)
+            .build());
+  }
+
+  private static void open(CircuitBreaker circuitBreaker) {
+    for (int i = 0; i < 4; i++) {
+      circuitBreaker.record(CircuitBreaker.Permit.CALL, true);
+    }
+  }
+}
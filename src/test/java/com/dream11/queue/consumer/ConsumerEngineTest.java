@@ -0,0 +1,338 @@
+package com.dream11.queue.consumer;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.awaitility.Awaitility.await;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.atLeastOnce;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.dream11.queue.Message;
+import com.dream11.queue.config.CircuitBreakerConfig;
+import com.dream11.queue.config.EngineConfig;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.stubbing.Answer;
+
+class ConsumerEngineTest {
+
+  private MessageConsumer consumer;
+
+  @BeforeEach
+  void setUp() {
+    consumer = mock(MessageConsumer.class);
+    when(consumer.acknowledgeMessage(any())).thenReturn(CompletableFuture.completedFuture(null));
+    when(consumer.refreshLeases(any()))
+        .thenAnswer(invocation -> CompletableFuture.completedFuture(invocation.getArgument(0)));
+    when(consumer.reject(any(), any())).thenReturn(CompletableFuture.completedFuture(false));
+  }
+
+  @Test
+  void testHandlesAndAcknowledgesMessages() {
+    // Arrange
+    receiveOnce(messages(2));
+    List<String> bodies = new ArrayList<>();
+    ConsumerEngine engine = new ConsumerEngine(consumer, message -> add(bodies, message));
+
+    // Act
+    engine.start();
+    await().atMost(Duration.ofSeconds(5)).until(() -> engine.getHandledMessages() == 2);
+    engine.close();
+
+    // Assert
+    assertThat(bodies).containsExactlyInAnyOrder("message-0", "message-1");
+    verify(consumer, times(2)).acknowledgeMessage(any());
+  }
+
+  @Test
+  void testDoesNotAcknowledgeFailedMessages() {
+    // Arrange
+    receiveOnce(messages(1));
+    ConsumerEngine engine =
+        new ConsumerEngine(
+            consumer,
+            message -> {
+              throw new IllegalStateException("handler failed");
+            });
+
+    // Act
+    engine.start();
+    await().atMost(Duration.ofSeconds(5)).until(() -> engine.getFailedMessages() == 1);
+    engine.close();
+
+    // Assert
+    verify(consumer, never()).acknowledgeMessage(any());
+    assertThat(engine.getHandledMessages()).isZero();
+  }
+
+  @Test
+  void testRejectsFailedMessages() {
+    // Arrange
+    receiveOnce(messages(1));
+    IllegalArgumentException error = new IllegalArgumentException("malformed");
+    when(consumer.reject(any(), any())).thenReturn(CompletableFuture.completedFuture(true));
+    ConsumerEngine engine =
+        new ConsumerEngine(
+            consumer,
+            message -> {
+              throw error;
+            });
+
+    // Act
+    engine.start();
+    await().atMost(Duration.ofSeconds(5)).until(() -> engine.getDeadLetteredMessages() == 1);
+    engine.close();
+
+    // Assert
+    verify(consumer).reject(any(), eq(error));
+    verify(consumer, never()).acknowledgeMessage(any());
+  }
+
+  @Test
+  void testFailedAcknowledgementIsNotRejected() {
+    // Arrange
+    receiveOnce(messages(1));
+    when(consumer.acknowledgeMessage(any()))
+        .thenReturn(CompletableFuture.failedFuture(new IllegalArgumentException("delete failed")));
+    ConsumerEngine engine = new ConsumerEngine(consumer, message -> {});
+
+    // Act
+    engine.start();
+    await().atMost(Duration.ofSeconds(5)).until(() -> engine.getFailedAcknowledgements() == 1);
+    engine.close();
+
+    // Assert
+    verify(consumer, never()).reject(any(), any());
+    assertThat(engine.getFailedMessages()).isZero();
+    assertThat(engine.getHandledMessages()).isZero();
+  }
+
+  @Test
+  void testSkipsMessagesWhoseLeaseExpired() {
+    // Arrange
+    receiveOnce(messages(3));
+    when(consumer.refreshLeases(any()))
+        .thenAnswer(
+            invocation -> {
+              List<Message> buffered = invocation.getArgument(0);
+              List<Message> dispatchable = new ArrayList<>(buffered);
+              dispatchable.removeIf(message -> message.getBody().equals("message-1"));
+              return CompletableFuture.completedFuture(dispatchable);
+            });
+    List<String> bodies = new ArrayList<>();
+    ConsumerEngine engine = new ConsumerEngine(consumer, message -> add(bodies, message));
+
+    // Act
+    engine.start();
+    await().atMost(Duration.ofSeconds(5)).until(() -> engine.getHandledMessages() == 2);
+    engine.close();
+
+    // Assert
+    assertThat(bodies).containsExactlyInAnyOrder("message-0", "message-2");
+  }
+
+  @Test
+  void testLimitsConcurrentHandlers() {
+    // Arrange
+    receiveOnce(messages(5));
+    CountDownLatch release = new CountDownLatch(1);
+    AtomicInteger running = new AtomicInteger();
+    AtomicInteger maxRunning = new AtomicInteger();
+    ConsumerEngine engine =
+        new ConsumerEngine(
+            consumer,
+            message -> {
+              maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+              release.await();
+              running.decrementAndGet();
+            },
+            EngineConfig.builder().maxConcurrency(2).build());
+
+    // Act
+    engine.start();
+    await().atMost(Duration.ofSeconds(5)).until(() -> engine.getInFlightMessages() == 2);
+    release.countDown();
+    await().atMost(Duration.ofSeconds(5)).until(() -> engine.getHandledMessages() == 5);
+    engine.close();
+
+    // Assert
+    assertThat(maxRunning.get()).isEqualTo(2);
+  }
+
+  @Test
+  void testCloseCancelsPendingReceive() {
+    // Arrange
+    CompletableFuture<List<Message>> pending = new CompletableFuture<>();
+    when(consumer.receive(anyInt())).thenReturn(pending);
+    ConsumerEngine engine = new ConsumerEngine(consumer, message -> {});
+    engine.start();
+    verify(consumer, timeout(5000)).receive(anyInt());
+
+    // Act
+    engine.close();
+
+    // Assert
+    assertThat(pending).isCancelled();
+  }
+
+  @Test
+  void testCloseReleasesUndispatchedMessages() {
+    // Arrange
+    receiveOnce(messages(3));
+    when(consumer.release(any())).thenReturn(CompletableFuture.completedFuture(null));
+    CountDownLatch release = new CountDownLatch(1);
+    ConsumerEngine engine =
+        new ConsumerEngine(
+            consumer,
+            message -> release.await(),
+            EngineConfig.builder().maxConcurrency(1).shutdownTimeoutMillis(100).build());
+    engine.start();
+    await().atMost(Duration.ofSeconds(5)).until(() -> engine.getInFlightMessages() == 1);
+
+    // Act
+    engine.close();
+
+    // Assert
+    ArgumentCaptor<List<Message>> captor = ArgumentCaptor.forClass(List.class);
+    verify(consumer).release(captor.capture());
+    assertThat(captor.getValue())
+        .extracting(Message::getBody)
+        .containsExactly("message-1", "message-2");
+    assertThat(engine.getReleasedMessages()).isEqualTo(2);
+  }
+
+  @Test
+  void testOpenCircuitReleasesBufferedMessagesAndPausesPolling() {
+    // Arrange
+    receiveOnce(messages(3));
+    when(consumer.release(any())).thenReturn(CompletableFuture.completedFuture(null));
+    ConsumerEngine engine =
+        new ConsumerEngine(
+            consumer,
+            message -> {
+              throw new IllegalStateException("dependency down");
+            },
+            EngineConfig.builder()
+                .maxConcurrency(1)
+                .circuitBreakerConfig(
+                    CircuitBreakerConfig.builder()
+                        .enabled(true)
+                        .windowSize(1)
+                        .failureRateThreshold(1)
+                        .openMillis(60_000)
+                        .build())
+                .build());
+
+    // Act
+    engine.start();
+    await().atMost(Duration.ofSeconds(5)).until(() -> engine.getReleasedMessages() == 2);
+
+    // Assert
+    assertThat(engine.getCircuitBreakerTrips()).isEqualTo(1);
+    assertThat(engine.getCircuitBreakerState()).isEqualTo(CircuitBreakerState.OPEN);
+    assertThat(engine.getFailedMessages()).isEqualTo(1);
+    verify(consumer, times(1)).receive(anyInt());
+    engine.close();
+  }
+
+  @Test
+  void testStartingTwiceFails() {
+    // Arrange
+    when(consumer.receive(anyInt())).thenAnswer(invocation -> new CompletableFuture<>());
+    ConsumerEngine engine = new ConsumerEngine(consumer, message -> {});
+    engine.start();
+
+    // Act & Assert
+    assertThatThrownBy(engine::start).isInstanceOf(IllegalStateException.class);
+    engine.close();
+  }
+
+  @Test
+  void testHalfOpenCircuitKeepsConsumingWhenProbeLeaseExpired() {
+    // Arrange
+    AtomicInteger received = new AtomicInteger();
+    Answer<CompletableFuture<List<Message>>> receiveOne =
+        invocation ->
+            CompletableFuture.completedFuture(
+                List.of(Message.builder().body("message-" + received.getAndIncrement()).build()));
+    when(consumer.receive(anyInt())).thenAnswer(receiveOne);
+    when(consumer.receive(anyInt(), anyInt())).thenAnswer(receiveOne);
+    when(consumer.release(any())).thenReturn(CompletableFuture.completedFuture(null));
+    List<String> bodies = new ArrayList<>();
+    ConsumerEngine engine =
+        new ConsumerEngine(
+            consumer,
+            message -> {
+              if (message.getBody().equals("message-0")) {
+                throw new IllegalStateException("dependency down");
+              }
+              add(bodies, message);
+            },
+            EngineConfig.builder()
+                .maxConcurrency(1)
+                .circuitBreakerConfig(
+                    CircuitBreakerConfig.builder()
+                        .enabled(true)
+                        .windowSize(1)
+                        .failureRateThreshold(1)
+                        .openMillis(100)
+                        .halfOpenProbes(1)
+                        .build())
+                .build());
+    // The lease of the first message received while the circuit is half-open has expired.
+    AtomicBoolean expired = new AtomicBoolean();
+    when(consumer.refreshLeases(any()))
+        .thenAnswer(
+            invocation ->
+                CompletableFuture.completedFuture(
+                    engine.getCircuitBreakerState() == CircuitBreakerState.HALF_OPEN
+                            && expired.compareAndSet(false, true)
+                        ? List.<Message>of()
+                        : invocation.<List<Message>>getArgument(0)));
+
+    // Act
+    engine.start();
+    await().atMost(Duration.ofSeconds(5)).until(() -> engine.getHandledMessages() >= 1);
+    engine.close();
+
+    // Assert
+    assertThat(expired).isTrue();
+    assertThat(bodies).isNotEmpty();
+    assertThat(engine.getCircuitBreakerTrips()).isEqualTo(1);
+    assertThat(engine.getCircuitBreakerState()).isEqualTo(CircuitBreakerState.CLOSED);
+    verify(consumer, atLeastOnce()).receive(anyInt(), eq(1));
+  }
+
+  private void receiveOnce(List<Message> messages) {
+    when(consumer.receive(anyInt()))
+        .thenReturn(CompletableFuture.completedFuture(messages))
+        .thenAnswer(invocation -> new CompletableFuture<>());
+  }
+
+  private static List<Message> messages(int count) {
+    List<Message> messages = new ArrayList<>();
+    for (int i = 0; i < count; i++) {
+      messages.add(Message.builder().body("message-" + i).build());
+    }
+    return messages;
+  }
+
+  private static synchronized void add(List<String> bodies, Message message) {
+    bodies.add(message.getBody());
+  }
+}
@@ -0,0 +1,90 @@
+package com.dream11.queue.consumer;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.dream11.queue.Message;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class MessageRouterTest {
+
+  private MessageConsumer first;
+  private MessageConsumer second;
+  private MessageRouter router;
+
+  @BeforeEach
+  void setUp() {
+    first = mock(MessageConsumer.class);
+    second = mock(MessageConsumer.class);
+    router = new MessageRouter();
+  }
+
+  @Test
+  void testReleasesWithConsumerOfEachMessage() {
+    // Arrange
+    Message a = Message.builder().body("a").build();
+    Message b = Message.builder().body("b").build();
+    router.received(List.of(a), first);
+    router.received(List.of(b), second);
+    when(first.release(any())).thenReturn(CompletableFuture.completedFuture(null));
+    when(second.release(any())).thenReturn(CompletableFuture.completedFuture(null));
+
+    // Act
+    router.release(List.of(a, b)).join();
+
+    // Assert
+    verify(first).release(List.of(a));
+    verify(second).release(List.of(b));
+    assertThat(router.getRoutedMessages()).isZero();
+  }
+
+  @Test
+  void testRejectsUnknownMessage() {
+    // Act
+    CompletableFuture<Void> acknowledgement =
+        router.acknowledgeMessage(Message.builder().body("a").build());
+
+    // Assert
+    assertThat(acknowledgement).isCompletedExceptionally();
+    verify(first, never()).acknowledgeMessage(any());
+  }
+
+  @Test
+  void testFailedAcknowledgementForgetsMessage() {
+    // Arrange
+    Message message = Message.builder().body("a").build();
+    router.received(List.of(message), first);
+    when(first.acknowledgeMessage(message))
+        .thenReturn(CompletableFuture.failedFuture(new IllegalStateException("delete failed")));
+
+    // Act
+    CompletableFuture<Void> acknowledgement = router.acknowledgeMessage(message);
+
+    // Assert
+    assertThat(acknowledgement).isCompletedExceptionally();
+    assertThat(router.getRoutedMessages()).isZero();
+  }
+
+  @Test
+  void testFailedReleaseForgetsMessages() {
+    // Arrange
+    Message message = Message.builder().body("a").build();
+    router.received(List.of(message), first);
+    when(first.release(any()))
+        .thenReturn(CompletableFuture.failedFuture(new IllegalStateException("release failed")));
+
+    // Act
+    CompletableFuture<Void> release = router.release(List.of(message));
+
+    // Assert
+    assertThat(release).isCompletedExceptionally();
+    assertThat(router.getRoutedMessages()).isZero();
+  }
+}
@@ -0,0 +1,198 @@
+package com.dream11.queue.consumer;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.awaitility.Awaitility.await;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.CALLS_REAL_METHODS;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.dream11.queue.Message;
+import com.dream11.queue.config.IterationConfig;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+
+class MessageSpliteratorTest {
+
+  private MessageConsumer consumer;
+
+  @BeforeEach
+  void setUp() {
+    consumer = mock(MessageConsumer.class, CALLS_REAL_METHODS);
+  }
+
+  @Test
+  void testIteratesUntilConsecutiveEmptyReceives() {
+    // Arrange
+    when(consumer.receive(anyInt()))
+        .thenReturn(received("a", "b"))
+        .thenReturn(received())
+        .thenReturn(received("c"))
+        .thenReturn(received());
+    List<String> bodies = new ArrayList<>();
+
+    // Act
+    for (Message message : consumer) {
+      bodies.add(message.getBody());
+    }
+
+    // Assert
+    assertThat(bodies).containsExactly("a", "b", "c");
+    verify(consumer, times(6)).receive(anyInt());
+  }
+
+  @Test
+  void testReceivesLazilyAndPrefetchesNextBatch() {
+    // Arrange
+    when(consumer.receive(anyInt())).thenReturn(received("a", "b")).thenReturn(received("c"));
+    Iterator<Message> iterator = consumer.iterator();
+    verify(consumer, times(0)).receive(anyInt());
+
+    // Act
+    Message first = iterator.next();
+
+    // Assert
+    assertThat(first.getBody()).isEqualTo("a");
+    verify(consumer, times(2)).receive(anyInt());
+  }
+
+  @Test
+  void testClosingStreamCancelsPendingReceive() {
+    // Arrange
+    CompletableFuture<List<Message>> pending = new CompletableFuture<>();
+    when(consumer.receive(anyInt())).thenReturn(received("a", "b")).thenReturn(pending);
+
+    // Act
+    List<String> bodies;
+    try (Stream<Message> stream = consumer.stream()) {
+      bodies = stream.limit(1).map(Message::getBody).collect(Collectors.toList());
+    }
+
+    // Assert
+    assertThat(bodies).containsExactly("a");
+    assertThat(pending).isCancelled();
+  }
+
+  @Test
+  void testClosingStreamReleasesUnconsumedMessages() {
+    // Arrange
+    when(consumer.receive(anyInt())).thenReturn(received("a", "b", "c")).thenReturn(received());
+    when(consumer.release(anyList())).thenReturn(CompletableFuture.completedFuture(null));
+
+    // Act
+    try (Stream<Message> stream = consumer.stream()) {
+      stream.limit(1).forEach(message -> {});
+    }
+
+    // Assert
+    ArgumentCaptor<List<Message>> captor = ArgumentCaptor.forClass(List.class);
+    verify(consumer).release(captor.capture());
+    assertThat(captor.getValue()).extracting(Message::getBody).containsExactly("b", "c");
+  }
+
+  @Test
+  void testChecksLeasesOncePerInterval() {
+    // Arrange
+    when(consumer.receive(anyInt())).thenReturn(received("a", "b", "c")).thenReturn(received());
+    IterationConfig iterationConfig =
+        IterationConfig.builder().leaseCheckIntervalMillis(60_000).build();
+
+    // Act
+    List<String> bodies;
+    try (Stream<Message> stream = consumer.stream(iterationConfig)) {
+      bodies = stream.map(Message::getBody).collect(Collectors.toList());
+    }
+
+    // Assert
+    assertThat(bodies).containsExactly("a", "b", "c");
+    verify(consumer, never()).refreshLeases(anyList());
+  }
+
+  @Test
+  void testClosingStreamFromAnotherThreadEndsIteration() throws Exception {
+    // Arrange
+    CompletableFuture<List<Message>> pending = new CompletableFuture<>();
+    when(consumer.receive(anyInt())).thenReturn(received("a", "b")).thenReturn(pending);
+    List<String> bodies = Collections.synchronizedList(new ArrayList<>());
+    Stream<Message> stream = consumer.stream();
+    Thread iterating = new Thread(() -> stream.forEach(message -> bodies.add(message.getBody())));
+    iterating.start();
+    await().atMost(Duration.ofSeconds(5)).until(() -> bodies.size() == 2);
+
+    // Act
+    stream.close();
+    iterating.join(5_000);
+
+    // Assert
+    assertThat(iterating.isAlive()).isFalse();
+    assertThat(pending).isCancelled();
+    assertThat(bodies).containsExactly("a", "b");
+  }
+
+  @Test
+  void testParallelStreamReceivesEveryMessage() {
+    // Arrange
+    AtomicInteger next = new AtomicInteger();
+    when(consumer.receive(anyInt()))
+        .thenAnswer(
+            invocation ->
+                CompletableFuture.supplyAsync(
+                    () -> {
+                      List<Message> messages = new ArrayList<>();
+                      for (int i = 0; i < 10; i++) {
+                        int body = next.getAndIncrement();
+                        if (body < 500) {
+                          messages.add(Message.builder().body(String.valueOf(body)).build());
+                        }
+                      }
+                      return messages;
+                    }));
+    IterationConfig iterationConfig =
+        IterationConfig.builder().emptyReceivesToDrain(1).maxConcurrentReceives(4).build();
+
+    // Act
+    long count;
+    try (Stream<Message> stream = consumer.stream(iterationConfig)) {
+      count = stream.parallel().map(Message::getBody).distinct().count();
+    }
+
+    // Assert
+    assertThat(count).isEqualTo(500);
+  }
+
+  @Test
+  void testFailedReceiveFailsIteration() {
+    // Arrange
+    when(consumer.receive(anyInt()))
+        .thenReturn(CompletableFuture.failedFuture(new IllegalStateException("unavailable")));
+    Iterator<Message> iterator = consumer.iterator();
+
+    // Act & Assert
+    assertThatThrownBy(iterator::hasNext)
+        .isInstanceOf(IllegalStateException.class)
+        .hasRootCauseMessage("unavailable");
+  }
+
+  private static CompletableFuture<List<Message>> received(String... bodies) {
+    List<Message> messages = new ArrayList<>();
+    for (String body : bodies) {
+      messages.add(Message.builder().body(body).build());
+    }
+    return CompletableFuture.completedFuture(messages);
+  }
+}
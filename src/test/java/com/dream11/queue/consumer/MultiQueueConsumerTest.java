@@ -0,0 +1,165 @@
+package com.dream11.queue.consumer;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.dream11.queue.Message;
+import com.dream11.queue.config.MultiQueueConfig;
+import com.dream11.queue.impl.sqs.SqsConfig;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class MultiQueueConsumerTest {
+
+  private MessageConsumer high;
+  private MessageConsumer low;
+
+  @BeforeEach
+  void setUp() {
+    high = mock(MessageConsumer.class);
+    low = mock(MessageConsumer.class);
+    when(high.acknowledgeMessage(any())).thenReturn(CompletableFuture.completedFuture(null));
+    when(low.acknowledgeMessage(any())).thenReturn(CompletableFuture.completedFuture(null));
+  }
+
+  @Test
+  void testPriorityPollingPrefersEarlierQueues() {
+    // Arrange
+    givenMessages(high, "high");
+    givenMessages(low, "low");
+    MultiQueueConsumer consumer = newConsumer(new MultiQueueConfig());
+
+    // Act
+    List<String> bodies = receiveBodies(consumer, 3);
+
+    // Assert
+    assertThat(bodies).containsExactly("high", "high", "high");
+    verify(low, never()).receive(anyInt());
+  }
+
+  @Test
+  void testIdleQueueBacksOff() {
+    // Arrange
+    givenNoMessages(high);
+    givenMessages(low, "low");
+    MultiQueueConsumer consumer = newConsumer(new MultiQueueConfig());
+
+    // Act
+    List<String> bodies = receiveBodies(consumer, 3);
+
+    // Assert
+    assertThat(bodies).containsExactly("low", "low", "low");
+    verify(high, times(1)).receive(anyInt());
+    assertThat(consumer.getEmptyPolls()).isEqualTo(1);
+  }
+
+  @Test
+  void testWeightedPollingFollowsWeights() {
+    // Arrange
+    givenMessages(high, "high");
+    givenMessages(low, "low");
+    MultiQueueConsumer consumer =
+        newConsumer(
+            MultiQueueConfig.builder()
+                .policy(PollingPolicy.WEIGHTED)
+                .weights(List.of(3, 1))
+                .build());
+
+    // Act
+    List<String> bodies = receiveBodies(consumer, 8);
+
+    // Assert
+    assertThat(bodies).filteredOn("high"::equals).hasSize(6);
+    assertThat(bodies).filteredOn("low"::equals).hasSize(2);
+  }
+
+  @Test
+  void testStarvedQueueIsPolledFirst() throws InterruptedException {
+    // Arrange
+    givenMessages(high, "high");
+    givenMessages(low, "low");
+    MultiQueueConsumer consumer =
+        newConsumer(MultiQueueConfig.builder().maxStarvationMillis(50).build());
+    consumer.receive(1).join();
+    Thread.sleep(60);
+
+    // Act
+    List<String> bodies = receiveBodies(consumer, 2);
+
+    // Assert
+    assertThat(bodies).containsExactly("low", "high");
+  }
+
+  @Test
+  void testAcknowledgesWithQueueOfMessage() {
+    // Arrange
+    givenNoMessages(high);
+    givenMessages(low, "low");
+    MultiQueueConsumer consumer = newConsumer(new MultiQueueConfig());
+    Message message = consumer.receive(1).join().get(0);
+
+    // Act
+    consumer.acknowledgeMessage(message).join();
+
+    // Assert
+    verify(low).acknowledgeMessage(message);
+    verify(high, never()).acknowledgeMessage(any());
+    assertThat(consumer.acknowledgeMessage(message)).isCompletedExceptionally();
+  }
+
+  @Test
+  void testReceiveWithoutMessagesReturnsEmptyList() {
+    // Arrange
+    givenNoMessages(high);
+    givenNoMessages(low);
+    MultiQueueConsumer consumer = newConsumer(new MultiQueueConfig());
+
+    // Act
+    List<Message> messages = consumer.receive(0).join();
+
+    // Assert
+    assertThat(messages).isEmpty();
+    assertThat(consumer.getPolls()).isEqualTo(2);
+  }
+
+  private MultiQueueConsumer newConsumer(MultiQueueConfig multiQueueConfig) {
+    Map<String, MessageConsumer> consumers = Map.of("high", high, "low", low);
+    return new MultiQueueConsumer(
+        List.of(sqsConfig("high"), sqsConfig("low")),
+        multiQueueConfig,
+        sqsConfig -> consumers.get(sqsConfig.getQueueUrl()));
+  }
+
+  private static SqsConfig sqsConfig(String queueUrl) {
+    return SqsConfig.builder().queueUrl(queueUrl).region("us-east-1").build();
+  }
+
+  private static void givenMessages(MessageConsumer consumer, String body) {
+    when(consumer.receive(anyInt()))
+        .thenAnswer(
+            invocation ->
+                CompletableFuture.completedFuture(List.of(Message.builder().body(body).build())));
+  }
+
+  private static void givenNoMessages(MessageConsumer consumer) {
+    when(consumer.receive(anyInt())).thenReturn(CompletableFuture.completedFuture(List.of()));
+  }
+
+  private static List<String> receiveBodies(MultiQueueConsumer consumer, int receives) {
+    List<String> bodies = new ArrayList<>();
+    for (int i = 0; i < receives; i++) {
+      consumer.receive(1).join().forEach(message -> bodies.add(message.getBody()));
+    }
+    return bodies;
+  }
+}
@@ -0,0 +1,127 @@
+package com.dream11.queue.hedging;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.awaitility.Awaitility.await;
+
+import com.dream11.queue.config.HedgingConfig;
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.Test;
+
+class HedgerTest {
+
+  @Test
+  void testSlowCallIsHedgedAndLosingAttemptCancelled() throws Exception {
+    // Arrange
+    Hedger hedger = newHedger(1.0);
+    CompletableFuture<String> stalled = new CompletableFuture<>();
+    AtomicInteger attempts = new AtomicInteger();
+
+    // Act
+    CompletableFuture<String> result =
+        hedger.execute(
+            () ->
+                attempts.getAndIncrement() == 0
+                    ? stalled
+                    : CompletableFuture.completedFuture("hedge"));
+
+    // Assert
+    assertThat(result.get(5, TimeUnit.SECONDS)).isEqualTo("hedge");
+    await().atMost(Duration.ofSeconds(5)).until(stalled::isCancelled);
+    assertThat(hedger.getHedges()).isEqualTo(1);
+    assertThat(hedger.getHedgeWins()).isEqualTo(1);
+  }
+
+  @Test
+  void testFastCallIsNotHedged() throws Exception {
+    // Arrange
+    Hedger hedger = newHedger(1.0);
+    AtomicInteger attempts = new AtomicInteger();
+
+    // Act
+    String value =
+        hedger
+            .execute(
+                () -> {
+                  attempts.incrementAndGet();
+                  return CompletableFuture.completedFuture("primary");
+                })
+            .get();
+
+    // Assert
+    assertThat(value).isEqualTo("primary");
+    Thread.sleep(100);
+    assertThat(attempts).hasValue(1);
+    assertThat(hedger.getHedges()).isZero();
+  }
+
+  @Test
+  void testResultFailsOnlyWhenEveryAttemptFailed() throws Exception {
+    // Arrange
+    Hedger hedger = newHedger(1.0);
+    CompletableFuture<String> primary = new CompletableFuture<>();
+    AtomicInteger attempts = new AtomicInteger();
+    CompletableFuture<String> result =
+        hedger.execute(
+            () ->
+                attempts.getAndIncrement() == 0
+                    ? primary
+                    : CompletableFuture.failedFuture(new IllegalStateException("hedge failed")));
+    await().atMost(Duration.ofSeconds(5)).until(() -> hedger.getHedges() == 1);
+
+    // Act
+    primary.complete("primary");
+
+    // Assert
+    assertThat(result.get(5, TimeUnit.SECONDS)).isEqualTo("primary");
+  }
+
+  @Test
+  void testCallsWonByHedgesKeepDelayAtSlowLatency() throws Exception {
+    // Arrange
+    Hedger hedger = newHedger(1.0);
+
+    // Act
+    for (int i = 0; i < 160; i++) {
+      boolean slow = i % 5 == 0;
+      AtomicInteger attempts = new AtomicInteger();
+      hedger
+          .execute(
+              () ->
+                  slow && attempts.getAndIncrement() == 0
+                      ? new CompletableFuture<String>()
+                      : CompletableFuture.completedFuture("value"))
+          .get(5, TimeUnit.SECONDS);
+    }
+
+    // Assert
+    assertThat(hedger.getHedgeWins()).isEqualTo(32);
+    assertThat(hedger.getDelayNanos()).isGreaterThan(TimeUnit.MILLISECONDS.toNanos(10));
+  }
+
+  @Test
+  void testHedgesAreLimitedByRatio() throws Exception {
+    // Arrange
+    Hedger hedger = newHedger(0);
+    CompletableFuture<String> stalled = new CompletableFuture<>();
+
+    // Act
+    CompletableFuture<String> result = hedger.execute(() -> stalled);
+    Thread.sleep(100);
+
+    // Assert
+    assertThat(result).isNotDone();
+    assertThat(hedger.getHedges()).isZero();
+  }
+
+  private static Hedger newHedger(double maxHedgeRatio) {
+    return new Hedger(
+        HedgingConfig.builder()
+            .enabled(true)
+            .maxDelayMillis(20)
+            .maxHedgeRatio(maxHedgeRatio)
+            .build());
+  }
+}
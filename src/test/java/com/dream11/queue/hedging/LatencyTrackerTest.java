@@ -0,0 +1,50 @@
+package com.dream11.queue.hedging;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.Test;
+
+class LatencyTrackerTest {
+
+  @Test
+  void testBucketsContainTheirValues() {
+    for (long micros = 0; micros < 1_000_000; micros += 7) {
+      // Act
+      int bucket = LatencyTracker.bucket(micros);
+
+      // Assert
+      assertThat(LatencyTracker.upperBound(bucket)).isGreaterThanOrEqualTo(micros);
+      if (bucket > 0) {
+        assertThat(LatencyTracker.upperBound(bucket - 1)).isLessThan(micros);
+      }
+    }
+  }
+
+  @Test
+  void testPercentileIsWithinBucketPrecision() {
+    // Arrange
+    LatencyTracker tracker = new LatencyTracker();
+    for (int i = 1; i <= 1_000; i++) {
+      tracker.record(TimeUnit.MILLISECONDS.toNanos(i));
+    }
+
+    // Act
+    long p95 = tracker.percentileMicros(0.95);
+
+    // Assert
+    assertThat(p95).isBetween(950_000L, (long) (950_000 * 1.125));
+  }
+
+  @Test
+  void testPercentileIsUnknownUntilEnoughSamples() {
+    // Arrange
+    LatencyTracker tracker = new LatencyTracker();
+    for (int i = 1; i < LatencyTracker.MIN_SAMPLES; i++) {
+      tracker.record(TimeUnit.MILLISECONDS.toNanos(i));
+    }
+
+    // Act & Assert
+    assertThat(tracker.percentileMicros(0.95)).isEqualTo(-1);
+  }
+}
@@ -155,4 +155,24 @@ class SnsClientTest {
     assertThat(request.message()).isEqualTo(message);
     assertThat(request.messageAttributes()).isNullOrEmpty();
   }
+
+  @Test
+  void testPublishWithBinaryAttributes() throws Exception {
+    // Arrange
+    String message = "test message";
+    Map<String, Object> attributes = new HashMap<>();
+    attributes.put("payload", new byte[] {1, 2, 3});
+
+    // Act
+    snsClient.publish(message, attributes).get();
+
+    // Assert
+    ArgumentCaptor<PublishRequest> captor = ArgumentCaptor.forClass(PublishRequest.class);
+    verify(mockSnsAsyncClient).publish(captor.capture());
+    PublishRequest request = captor.getValue();
+    assertThat(request.messageAttributes()).hasSize(1);
+    assertThat(request.messageAttributes().get("payload").dataType()).isEqualTo("Binary");
+    assertThat(request.messageAttributes().get("payload").binaryValue().asByteArray())
+        .containsExactly(1, 2, 3);
+  }
 }
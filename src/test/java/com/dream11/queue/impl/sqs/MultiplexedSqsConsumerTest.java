@@ -0,0 +1,211 @@
+package com.dream11.queue.impl.sqs;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.awaitility.Awaitility.await;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.atLeastOnce;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.dream11.queue.Message;
+import com.dream11.queue.config.HeartbeatConfig;
+import com.dream11.queue.config.MultiplexConfig;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import software.amazon.awssdk.services.sqs.SqsAsyncClient;
+import software.amazon.awssdk.services.sqs.model.ChangeMessageVisibilityRequest;
+import software.amazon.awssdk.services.sqs.model.ChangeMessageVisibilityResponse;
+import software.amazon.awssdk.services.sqs.model.DeleteMessageRequest;
+import software.amazon.awssdk.services.sqs.model.DeleteMessageResponse;
+import software.amazon.awssdk.services.sqs.model.MessageSystemAttributeName;
+import software.amazon.awssdk.services.sqs.model.ReceiveMessageRequest;
+import software.amazon.awssdk.services.sqs.model.ReceiveMessageResponse;
+
+class MultiplexedSqsConsumerTest {
+
+  private SqsAsyncClient mockSqsAsyncClient;
+  private Map<String, AtomicInteger> polls;
+
+  @BeforeEach
+  void setUp() {
+    mockSqsAsyncClient = mock(SqsAsyncClient.class);
+    when(mockSqsAsyncClient.deleteMessage(any(DeleteMessageRequest.class)))
+        .thenReturn(CompletableFuture.completedFuture(DeleteMessageResponse.builder().build()));
+    polls = Map.of("busy", new AtomicInteger(), "idle", new AtomicInteger());
+  }
+
+  @Test
+  void testPollsBusyQueuesAgainAndBacksOffIdleQueues() throws Exception {
+    // Arrange
+    givenQueues(1);
+    MultiplexedSqsConsumer consumer = newConsumer();
+
+    // Act
+    List<Message> messages = new ArrayList<>();
+    for (int i = 0; i < 5; i++) {
+      messages.addAll(consumer.receive(1).get());
+    }
+    consumer.close();
+
+    // Assert
+    assertThat(messages).hasSize(5);
+    assertThat(polls.get("busy").get()).isGreaterThanOrEqualTo(5);
+    assertThat(polls.get("idle").get()).isEqualTo(1);
+    assertThat(consumer.getReceivedMessages("busy")).isGreaterThanOrEqualTo(5);
+  }
+
+  @Test
+  void testMeasuresPickupLatencyOfFirstReceives() throws Exception {
+    // Arrange
+    givenQueues(1, 2);
+    MultiplexedSqsConsumer consumer = newConsumer();
+
+    // Act
+    consumer.receive(1).get();
+    consumer.receive(1).get();
+    consumer.close();
+
+    // Assert
+    assertThat(consumer.getPickupLatencyMillis("busy")).isBetween(1_000L, 60_000L);
+    assertThat(consumer.getPickupLatencyMillis("idle")).isZero();
+  }
+
+  @Test
+  void testRequestsSentTimestampAndSharesClient() throws Exception {
+    // Arrange
+    givenQueues(1);
+    MultiplexedSqsConsumer consumer = newConsumer();
+    Message message = consumer.receive(1).get().get(0);
+
+    // Act
+    consumer.acknowledgeMessage(message).get();
+    consumer.close();
+
+    // Assert
+    ArgumentCaptor<ReceiveMessageRequest> captor =
+        ArgumentCaptor.forClass(ReceiveMessageRequest.class);
+    verify(mockSqsAsyncClient, atLeastOnce()).receiveMessage(captor.capture());
+    assertThat(captor.getValue().attributeNamesAsStrings()).contains("SentTimestamp");
+    verify(mockSqsAsyncClient).deleteMessage(any(DeleteMessageRequest.class));
+    verify(mockSqsAsyncClient, times(1)).close();
+  }
+
+  @Test
+  void testReceiveWithoutMessagesReturnsEmptyList() throws Exception {
+    // Arrange
+    givenQueues();
+    MultiplexedSqsConsumer consumer = newConsumer();
+
+    // Act
+    List<Message> messages = consumer.receive(0).get();
+    consumer.close();
+
+    // Assert
+    assertThat(messages).isEmpty();
+    assertThat(consumer.getEmptyPolls()).isEqualTo(2);
+  }
+
+  @Test
+  void testHeartbeatsOfAllQueuesShareOneScheduler() throws Exception {
+    // Arrange
+    when(mockSqsAsyncClient.receiveMessage(any(ReceiveMessageRequest.class)))
+        .thenAnswer(
+            invocation -> {
+              ReceiveMessageRequest request = invocation.getArgument(0);
+              return CompletableFuture.completedFuture(
+                  ReceiveMessageResponse.builder()
+                      .messages(sentMessage("message-" + request.queueUrl(), 1))
+                      .build());
+            });
+    Map<String, String> heartbeatThreads = new ConcurrentHashMap<>();
+    when(mockSqsAsyncClient.changeMessageVisibility(any(ChangeMessageVisibilityRequest.class)))
+        .thenAnswer(
+            invocation -> {
+              ChangeMessageVisibilityRequest request = invocation.getArgument(0);
+              heartbeatThreads.put(request.queueUrl(), Thread.currentThread().getName());
+              return CompletableFuture.completedFuture(
+                  ChangeMessageVisibilityResponse.builder().build());
+            });
+    HeartbeatConfig heartbeatConfig =
+        HeartbeatConfig.builder().heartbeatInterval(1).executorThreadPoolSize(1).build();
+    MultiplexedSqsConsumer consumer =
+        new MultiplexedSqsConsumer(
+            List.of(sqsConfig("busy", heartbeatConfig), sqsConfig("idle", heartbeatConfig)),
+            new MultiplexConfig(),
+            mockSqsAsyncClient);
+
+    // Act
+    consumer.receive(1).get();
+    consumer.receive(1).get();
+    await().until(() -> heartbeatThreads.size() == 2);
+    consumer.close();
+
+    // Assert
+    assertThat(Set.copyOf(heartbeatThreads.values())).hasSize(1);
+  }
+
+  private MultiplexedSqsConsumer newConsumer() {
+    return new MultiplexedSqsConsumer(
+        List.of(sqsConfig("busy"), sqsConfig("idle")),
+        new MultiplexConfig(),
+        mockSqsAsyncClient);
+  }
+
+  private static SqsConfig sqsConfig(String queueUrl) {
+    return sqsConfig(queueUrl, new HeartbeatConfig());
+  }
+
+  private static SqsConfig sqsConfig(String queueUrl, HeartbeatConfig heartbeatConfig) {
+    return SqsConfig.builder()
+        .queueUrl(queueUrl)
+        .region("us-east-1")
+        .heartbeatConfig(heartbeatConfig)
+        .build();
+  }
+
+  /**
+   * Stubs receives from the queue "busy" to return one message per receive, with the given receive
+   * counts in turn and then the last one, and receives from the queue "idle" to return none.
+   */
+  private void givenQueues(int... receiveCounts) {
+    AtomicInteger received = new AtomicInteger();
+    when(mockSqsAsyncClient.receiveMessage(any(ReceiveMessageRequest.class)))
+        .thenAnswer(
+            invocation -> {
+              ReceiveMessageRequest request = invocation.getArgument(0);
+              polls.get(request.queueUrl()).incrementAndGet();
+              ReceiveMessageResponse.Builder response = ReceiveMessageResponse.builder();
+              if (request.queueUrl().equals("busy") && receiveCounts.length > 0) {
+                int id = received.getAndIncrement();
+                int receiveCount = receiveCounts[Math.min(id, receiveCounts.length - 1)];
+                response.messages(sentMessage("message-" + id, receiveCount));
+              }
+              return CompletableFuture.completedFuture(response.build());
+            });
+  }
+
+  private static software.amazon.awssdk.services.sqs.model.Message sentMessage(
+      String id, int receiveCount) {
+    return software.amazon.awssdk.services.sqs.model.Message.builder()
+        .messageId(id)
+        .receiptHandle("receipt-" + id)
+        .body("payload of " + id)
+        .attributes(
+            Map.of(
+                MessageSystemAttributeName.SENT_TIMESTAMP,
+                String.valueOf(System.currentTimeMillis() - 1_000),
+                MessageSystemAttributeName.APPROXIMATE_RECEIVE_COUNT,
+                String.valueOf(receiveCount)))
+        .build();
+  }
+}
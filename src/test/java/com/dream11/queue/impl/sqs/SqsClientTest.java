@@ -1,18 +1,45 @@
 package com.dream11.queue.impl.sqs;
 
+import static java.nio.charset.StandardCharsets.UTF_8;
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.awaitility.Awaitility.await;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
+import com.dream11.queue.claimcheck.FileSystemBlobStore;
+import com.dream11.queue.codec.Compression;
+import com.dream11.queue.codec.PayloadCompressor;
+import com.dream11.queue.config.AttributeConfig;
+import com.dream11.queue.config.ClaimCheckConfig;
+import com.dream11.queue.config.CompletionConfig;
+import com.dream11.queue.config.CompressionConfig;
+import com.dream11.queue.config.HedgingConfig;
+import com.dream11.queue.config.RetryConfig;
+import com.dream11.queue.config.TimeoutConfig;
+import com.dream11.queue.util.Futures;
+import com.dream11.queue.util.ReservedAttributes;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
 import org.mockito.ArgumentCaptor;
+import software.amazon.awssdk.awscore.AwsRequestOverrideConfiguration;
 import software.amazon.awssdk.services.sqs.SqsAsyncClient;
+import software.amazon.awssdk.services.sqs.model.BatchResultErrorEntry;
+import software.amazon.awssdk.services.sqs.model.DeleteMessageBatchRequest;
+import software.amazon.awssdk.services.sqs.model.DeleteMessageBatchResponse;
 import software.amazon.awssdk.services.sqs.model.SendMessageRequest;
 import software.amazon.awssdk.services.sqs.model.SendMessageResponse;
 
@@ -152,4 +179,304 @@ class SqsClientTest {
     assertThat(request.messageBody()).isEqualTo(message);
     assertThat(request.messageAttributes()).isNullOrEmpty();
   }
+
+  @Test
+  void testSendWithBinaryAttributes() throws Exception {
+    // Arrange
+    String message = "test message";
+    Map<String, Object> attributes = new HashMap<>();
+    attributes.put("payload", new byte[] {1, 2, 3});
+
+    // Act
+    sqsClient.send(message, attributes).get();
+
+    // Assert
+    ArgumentCaptor<SendMessageRequest> captor = ArgumentCaptor.forClass(SendMessageRequest.class);
+    verify(mockSqsAsyncClient).sendMessage(captor.capture());
+    SendMessageRequest request = captor.getValue();
+    assertThat(request.messageAttributes()).hasSize(1);
+    assertThat(request.messageAttributes().get("payload").dataType()).isEqualTo("Binary");
+    assertThat(request.messageAttributes().get("payload").binaryValue().asByteArray())
+        .containsExactly(1, 2, 3);
+  }
+
+  @Test
+  void testSendReusesCachedAttributeValues() throws Exception {
+    // Arrange
+    SqsConfig sqsConfig =
+        SqsConfig.builder()
+            .region("us-east-1")
+            .queueUrl("test-queue-url")
+            .attributeConfig(AttributeConfig.builder().valueCacheSize(10).build())
+            .build();
+    SqsClient cachingClient = new SqsClient(sqsConfig, mockSqsAsyncClient);
+    Map<String, Object> attributes = Map.of("eventType", "order-created");
+
+    // Act
+    cachingClient.send("first message", attributes).get();
+    cachingClient.send("second message", attributes).get();
+
+    // Assert
+    ArgumentCaptor<SendMessageRequest> captor = ArgumentCaptor.forClass(SendMessageRequest.class);
+    verify(mockSqsAsyncClient, times(2)).sendMessage(captor.capture());
+    List<SendMessageRequest> requests = captor.getAllValues();
+    assertThat(requests.get(1).messageAttributes().get("eventType"))
+        .isSameAs(requests.get(0).messageAttributes().get("eventType"));
+  }
+
+  @Test
+  void testSendCompressesLongMessages() throws Exception {
+    // Arrange
+    SqsConfig sqsConfig =
+        SqsConfig.builder()
+            .region("us-east-1")
+            .queueUrl("test-queue-url")
+            .compressionConfig(
+                CompressionConfig.builder().algorithm(Compression.GZIP).minBodyLength(100).build())
+            .build();
+    SqsClient compressingClient = new SqsClient(sqsConfig, mockSqsAsyncClient);
+    String message = "test message ".repeat(100);
+
+    // Act
+    compressingClient.send(message, Map.of("key", "value")).get();
+
+    // Assert
+    ArgumentCaptor<SendMessageRequest> captor = ArgumentCaptor.forClass(SendMessageRequest.class);
+    verify(mockSqsAsyncClient).sendMessage(captor.capture());
+    SendMessageRequest request = captor.getValue();
+    assertThat(request.messageBody()).hasSizeLessThan(message.length());
+    assertThat(PayloadCompressor.decompress(request.messageBody(), "GZIP")).isEqualTo(message);
+    assertThat(request.messageAttributes().get(ReservedAttributes.COMPRESSION).stringValue())
+        .isEqualTo("GZIP");
+    assertThat(request.messageAttributes().get("key").stringValue()).isEqualTo("value");
+  }
+
+  @Test
+  void testSendOffloadsLargeMessages(@TempDir Path directory) throws Exception {
+    // Arrange
+    FileSystemBlobStore blobStore = new FileSystemBlobStore(directory);
+    SqsConfig sqsConfig =
+        SqsConfig.builder()
+            .region("us-east-1")
+            .queueUrl("test-queue-url")
+            .claimCheckConfig(
+                ClaimCheckConfig.builder().blobStore(blobStore).thresholdBytes(100).build())
+            .build();
+    SqsClient offloadingClient = new SqsClient(sqsConfig, mockSqsAsyncClient);
+    String message = "x".repeat(101);
+
+    // Act
+    offloadingClient.send(message, Map.of("key", "value")).get();
+
+    // Assert
+    ArgumentCaptor<SendMessageRequest> captor = ArgumentCaptor.forClass(SendMessageRequest.class);
+    verify(mockSqsAsyncClient).sendMessage(captor.capture());
+    SendMessageRequest request = captor.getValue();
+    assertThat(blobStore.get(request.messageBody()).get()).isEqualTo(message.getBytes(UTF_8));
+    assertThat(request.messageAttributes()).containsKey(ReservedAttributes.CLAIM_CHECK);
+    assertThat(request.messageAttributes().get("key").stringValue()).isEqualTo("value");
+  }
+
+  @Test
+  void testSendAndForgetInvokesCompletion() {
+    // Arrange
+    IllegalStateException failure = new IllegalStateException("throttled");
+    when(mockSqsAsyncClient.sendMessage(any(SendMessageRequest.class)))
+        .thenReturn(CompletableFuture.completedFuture(SendMessageResponse.builder().build()))
+        .thenReturn(CompletableFuture.failedFuture(failure));
+    List<Throwable> completions = new ArrayList<>();
+
+    // Act
+    sqsClient.sendAndForget("first", null, completions::add);
+    sqsClient.sendAndForget("second", null, completions::add);
+
+    // Assert
+    assertThat(completions).containsExactly(null, failure);
+  }
+
+  @Test
+  void testHedgedSendCompletesWithSecondRequest() throws Exception {
+    // Arrange
+    CompletableFuture<SendMessageResponse> stalled = new CompletableFuture<>();
+    when(mockSqsAsyncClient.sendMessage(any(SendMessageRequest.class)))
+        .thenReturn(stalled)
+        .thenReturn(CompletableFuture.completedFuture(SendMessageResponse.builder().build()));
+    SqsClient hedgedClient =
+        new SqsClient(
+            SqsConfig.builder()
+                .region("us-east-1")
+                .queueUrl("test-queue-url")
+                .hedgingConfig(HedgingConfig.builder().enabled(true).maxDelayMillis(20).build())
+                .build(),
+            mockSqsAsyncClient);
+
+    // Act
+    hedgedClient.send("test message").get(5, TimeUnit.SECONDS);
+
+    // Assert
+    ArgumentCaptor<SendMessageRequest> captor = ArgumentCaptor.forClass(SendMessageRequest.class);
+    verify(mockSqsAsyncClient, times(2)).sendMessage(captor.capture());
+    assertThat(captor.getAllValues().get(0).messageDeduplicationId()).isNull();
+    assertThat(hedgedClient.getHedger().getHedgeWins()).isEqualTo(1);
+  }
+
+  @Test
+  void testOffloadedSendIsNotHedged(@TempDir Path directory) throws Exception {
+    // Arrange
+    CompletableFuture<SendMessageResponse> stalled = new CompletableFuture<>();
+    when(mockSqsAsyncClient.sendMessage(any(SendMessageRequest.class))).thenReturn(stalled);
+    SqsClient hedgedClient =
+        new SqsClient(
+            SqsConfig.builder()
+                .region("us-east-1")
+                .queueUrl("test-queue-url")
+                .hedgingConfig(HedgingConfig.builder().enabled(true).maxDelayMillis(20).build())
+                .claimCheckConfig(
+                    ClaimCheckConfig.builder()
+                        .blobStore(new FileSystemBlobStore(directory))
+                        .thresholdBytes(100)
+                        .build())
+                .build(),
+            mockSqsAsyncClient);
+
+    // Act
+    CompletableFuture<Void> future = hedgedClient.send("x".repeat(101));
+    Thread.sleep(100);
+    stalled.complete(SendMessageResponse.builder().build());
+    future.get(5, TimeUnit.SECONDS);
+
+    // Assert
+    verify(mockSqsAsyncClient).sendMessage(any(SendMessageRequest.class));
+    assertThat(hedgedClient.getHedger().getHedges()).isZero();
+  }
+
+  @Test
+  void testCancellingSendCancelsRequest() {
+    // Arrange
+    CompletableFuture<SendMessageResponse> request = new CompletableFuture<>();
+    when(mockSqsAsyncClient.sendMessage(any(SendMessageRequest.class))).thenReturn(request);
+
+    // Act
+    sqsClient.send("test message").cancel(true);
+
+    // Assert
+    assertThat(request).isCancelled();
+  }
+
+  @Test
+  void testSendDeadlineCancelsRequest() {
+    // Arrange
+    CompletableFuture<SendMessageResponse> request = new CompletableFuture<>();
+    when(mockSqsAsyncClient.sendMessage(any(SendMessageRequest.class))).thenReturn(request);
+
+    // Act
+    Futures.withDeadline(sqsClient.send("test message"), Duration.ofMillis(20));
+
+    // Assert
+    await().atMost(Duration.ofSeconds(5)).until(request::isCancelled);
+  }
+
+  @Test
+  void testRequestCarriesConfiguredTimeouts() throws Exception {
+    // Arrange
+    SqsClient timedClient =
+        new SqsClient(
+            SqsConfig.builder()
+                .region("us-east-1")
+                .queueUrl("test-queue-url")
+                .timeoutConfig(
+                    TimeoutConfig.builder()
+                        .apiCallTimeoutMillis(2000)
+                        .apiCallAttemptTimeoutMillis(500)
+                        .build())
+                .build(),
+            mockSqsAsyncClient);
+
+    // Act
+    timedClient.send("test message").get();
+
+    // Assert
+    ArgumentCaptor<SendMessageRequest> captor = ArgumentCaptor.forClass(SendMessageRequest.class);
+    verify(mockSqsAsyncClient).sendMessage(captor.capture());
+    AwsRequestOverrideConfiguration override =
+        captor.getValue().overrideConfiguration().orElseThrow();
+    assertThat(override.apiCallTimeout()).contains(Duration.ofMillis(2000));
+    assertThat(override.apiCallAttemptTimeout()).contains(Duration.ofMillis(500));
+  }
+
+  @Test
+  void testDeleteMessagesRetriesOnlyFailedEntries() throws Exception {
+    // Arrange
+    List<String> receiptHandles = new ArrayList<>();
+    for (int i = 0; i < 12; i++) {
+      receiptHandles.add("handle-" + i);
+    }
+    SqsClient retryingClient =
+        new SqsClient(
+            SqsConfig.builder()
+                .region("us-east-1")
+                .queueUrl("test-queue-url")
+                .retryConfig(RetryConfig.builder().baseDelayMillis(1).build())
+                .build(),
+            mockSqsAsyncClient);
+    when(mockSqsAsyncClient.deleteMessageBatch(any(DeleteMessageBatchRequest.class)))
+        .thenReturn(
+            CompletableFuture.completedFuture(
+                DeleteMessageBatchResponse.builder()
+                    .failed(
+                        BatchResultErrorEntry.builder()
+                            .id("1")
+                            .code("InternalError")
+                            .senderFault(false)
+                            .build(),
+                        BatchResultErrorEntry.builder()
+                            .id("2")
+                            .code("ReceiptHandleIsInvalid")
+                            .senderFault(true)
+                            .build())
+                    .build()))
+        .thenReturn(
+            CompletableFuture.completedFuture(DeleteMessageBatchResponse.builder().build()));
+
+    // Act
+    List<String> failed = retryingClient.deleteMessages(receiptHandles).get(5, TimeUnit.SECONDS);
+
+    // Assert
+    ArgumentCaptor<DeleteMessageBatchRequest> captor =
+        ArgumentCaptor.forClass(DeleteMessageBatchRequest.class);
+    verify(mockSqsAsyncClient, times(3)).deleteMessageBatch(captor.capture());
+    assertThat(captor.getAllValues())
+        .extracting(request -> request.entries().size())
+        .containsExactlyInAnyOrder(10, 2, 1);
+    assertThat(captor.getAllValues().get(2).entries().get(0).receiptHandle())
+        .isEqualTo("handle-1");
+    assertThat(failed).containsExactly("handle-2");
+    assertThat(retryingClient.getBatchRetrier().getRetriedEntries()).isEqualTo(1);
+  }
+
+  @Test
+  void testSendCompletesOnConfiguredExecutor() throws Exception {
+    // Arrange
+    ExecutorService executor =
+        Executors.newSingleThreadExecutor(runnable -> new Thread(runnable, "completion"));
+    CompletableFuture<SendMessageResponse> request = new CompletableFuture<>();
+    when(mockSqsAsyncClient.sendMessage(any(SendMessageRequest.class))).thenReturn(request);
+    SqsClient handOffClient =
+        new SqsClient(
+            SqsConfig.builder()
+                .region("us-east-1")
+                .queueUrl("test-queue-url")
+                .completionConfig(CompletionConfig.builder().executor(executor).build())
+                .build(),
+            mockSqsAsyncClient);
+    CompletableFuture<String> thread =
+        handOffClient.send("test message").thenApply(v -> Thread.currentThread().getName());
+
+    // Act
+    request.complete(SendMessageResponse.builder().build());
+
+    // Assert
+    assertThat(thread.get(5, TimeUnit.SECONDS)).isEqualTo("completion");
+    executor.shutdown();
+  }
 }
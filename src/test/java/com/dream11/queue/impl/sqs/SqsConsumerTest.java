@@ -0,0 +1,772 @@
+package com.dream11.queue.impl.sqs;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.tuple;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.atLeastOnce;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.dream11.queue.Message;
+import com.dream11.queue.aggregation.AggregatedEnvelope;
+import com.dream11.queue.claimcheck.BlobStore;
+import com.dream11.queue.claimcheck.FileSystemBlobStore;
+import com.dream11.queue.config.AcknowledgementConfig;
+import com.dream11.queue.config.ClaimCheckConfig;
+import com.dream11.queue.config.DeadLetterConfig;
+import com.dream11.queue.config.DrainConfig;
+import com.dream11.queue.config.HeartbeatConfig;
+import com.dream11.queue.config.LeaseConfig;
+import com.dream11.queue.config.RateLimitConfig;
+import com.dream11.queue.consumer.LeaseAction;
+import com.dream11.queue.producer.MessageProducer;
+import com.dream11.queue.util.DeadLetterAttributes;
+import com.dream11.queue.util.ReservedAttributes;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.ArgumentCaptor;
+import software.amazon.awssdk.services.sqs.SqsAsyncClient;
+import software.amazon.awssdk.services.sqs.model.ChangeMessageVisibilityBatchRequest;
+import software.amazon.awssdk.services.sqs.model.ChangeMessageVisibilityBatchRequestEntry;
+import software.amazon.awssdk.services.sqs.model.ChangeMessageVisibilityBatchResponse;
+import software.amazon.awssdk.services.sqs.model.ChangeMessageVisibilityRequest;
+import software.amazon.awssdk.services.sqs.model.ChangeMessageVisibilityResponse;
+import software.amazon.awssdk.services.sqs.model.DeleteMessageBatchRequest;
+import software.amazon.awssdk.services.sqs.model.DeleteMessageBatchRequestEntry;
+import software.amazon.awssdk.services.sqs.model.DeleteMessageBatchResponse;
+import software.amazon.awssdk.services.sqs.model.DeleteMessageRequest;
+import software.amazon.awssdk.services.sqs.model.DeleteMessageResponse;
+import software.amazon.awssdk.services.sqs.model.MessageAttributeValue;
+import software.amazon.awssdk.services.sqs.model.MessageSystemAttributeName;
+import software.amazon.awssdk.services.sqs.model.ReceiveMessageRequest;
+import software.amazon.awssdk.services.sqs.model.ReceiveMessageResponse;
+import software.amazon.awssdk.services.sqs.model.SendMessageRequest;
+import software.amazon.awssdk.services.sqs.model.SendMessageResponse;
+
+class SqsConsumerTest {
+
+  @TempDir Path directory;
+
+  private SqsAsyncClient mockSqsAsyncClient;
+  private FileSystemBlobStore blobStore;
+  private SqsConsumer sqsConsumer;
+
+  @BeforeEach
+  void setUp() {
+    mockSqsAsyncClient = mock(SqsAsyncClient.class);
+    when(mockSqsAsyncClient.deleteMessage(any(DeleteMessageRequest.class)))
+        .thenReturn(CompletableFuture.completedFuture(DeleteMessageResponse.builder().build()));
+    blobStore = new FileSystemBlobStore(directory);
+    SqsConfig sqsConfig =
+        SqsConfig.builder()
+            .region("us-east-1")
+            .queueUrl("test-queue-url")
+            .claimCheckConfig(ClaimCheckConfig.builder().blobStore(blobStore).build())
+            .build();
+    sqsConsumer = new SqsConsumer(sqsConfig, mockSqsAsyncClient);
+  }
+
+  @AfterEach
+  void tearDown() {
+    sqsConsumer.close();
+  }
+
+  @Test
+  void testReceiveResolvesOffloadedBodies() throws Exception {
+    // Arrange
+    blobStore.put("blob-1", "first payload".getBytes(UTF_8)).get();
+    blobStore.put("blob-2", "second payload".getBytes(UTF_8)).get();
+    givenReceivedMessages(
+        offloadedMessage("message-1", "blob-1"),
+        offloadedMessage("message-2", "blob-2"),
+        software.amazon.awssdk.services.sqs.model.Message.builder()
+            .messageId("message-3")
+            .receiptHandle("receipt-message-3")
+            .body("inline payload")
+            .build());
+
+    // Act
+    List<Message> messages = sqsConsumer.receive().get();
+
+    // Assert
+    assertThat(messages)
+        .extracting(Message::getBody)
+        .containsExactly("first payload", "second payload", "inline payload");
+    assertThat(messages.get(0).getAttributes()).doesNotContainKey(ReservedAttributes.CLAIM_CHECK);
+  }
+
+  @Test
+  void testReceiveFailsOnlyMessagesWhoseBodyCannotBeFetched() throws Exception {
+    // Arrange
+    blobStore.put("blob-1", "first payload".getBytes(UTF_8)).get();
+    givenReceivedMessages(
+        offloadedMessage("message-1", "blob-1"), offloadedMessage("message-2", "missing-blob"));
+
+    // Act
+    List<Message> messages = sqsConsumer.receive().get();
+
+    // Assert
+    assertThat(messages).hasSize(2);
+    assertThat(messages.get(0).getBody()).isEqualTo("first payload");
+    assertThatThrownBy(() -> messages.get(1).getBody())
+        .isInstanceOf(IllegalStateException.class)
+        .hasMessageContaining("message-2")
+        .hasCauseInstanceOf(UncheckedIOException.class);
+  }
+
+  @Test
+  void testAcknowledgeDeletesOffloadedBody() throws Exception {
+    // Arrange
+    blobStore.put("blob-1", "payload".getBytes(UTF_8)).get();
+    givenReceivedMessages(offloadedMessage("message-1", "blob-1"));
+    Message message = sqsConsumer.receive().get().get(0);
+
+    // Act
+    sqsConsumer.acknowledgeMessage(message).get();
+
+    // Assert
+    assertThat(directory.resolve("blob-1")).doesNotExist();
+  }
+
+  @Test
+  void testAcknowledgeSucceedsWhenOffloadedBodyCannotBeDeleted() throws Exception {
+    // Arrange
+    BlobStore failingBlobStore = mock(BlobStore.class);
+    when(failingBlobStore.get("blob-1"))
+        .thenReturn(CompletableFuture.completedFuture("payload".getBytes(UTF_8)));
+    when(failingBlobStore.delete("blob-1"))
+        .thenReturn(CompletableFuture.failedFuture(new IllegalStateException("unavailable")));
+    SqsConsumer consumer =
+        new SqsConsumer(
+            SqsConfig.builder()
+                .region("us-east-1")
+                .queueUrl("test-queue-url")
+                .claimCheckConfig(ClaimCheckConfig.builder().blobStore(failingBlobStore).build())
+                .build(),
+            mockSqsAsyncClient);
+    givenReceivedMessages(offloadedMessage("message-1", "blob-1"));
+    Message message = consumer.receive().get().get(0);
+
+    // Act
+    CompletableFuture<Void> result = consumer.acknowledgeMessage(message);
+
+    // Assert
+    assertThat(result).succeedsWithin(Duration.ofSeconds(5));
+    verify(failingBlobStore).delete("blob-1");
+    consumer.close();
+  }
+
+  @Test
+  void testReceiveUnpacksAggregatedMessages() throws Exception {
+    // Arrange
+    givenReceivedMessages(
+        aggregatedMessage("message-1", List.of("first", "second")),
+        software.amazon.awssdk.services.sqs.model.Message.builder()
+            .messageId("message-2")
+            .receiptHandle("receipt-message-2")
+            .body("inline payload")
+            .build());
+
+    // Act
+    List<Message> messages = sqsConsumer.receive().get();
+
+    // Assert
+    assertThat(messages)
+        .extracting(Message::getBody)
+        .containsExactly("first", "second", "inline payload");
+    assertThat(messages.get(0).getMetadata().getReceiptHandle()).isEqualTo("receipt-message-1");
+    assertThat(messages.get(1).getMetadata().getReceiptHandle()).isEqualTo("receipt-message-1");
+    assertThat(messages.get(0).getMetadata().getId())
+        .isNotEqualTo(messages.get(1).getMetadata().getId());
+    assertThat(messages.get(0).getAttributes()).containsEntry("key", "value");
+    assertThat(messages.get(0).getAttributes()).doesNotContainKey(ReservedAttributes.AGGREGATED);
+  }
+
+  @Test
+  void testAggregatedMessageIsDeletedOnceAllRecordsAreAcknowledged() throws Exception {
+    // Arrange
+    givenReceivedMessages(aggregatedMessage("message-1", List.of("first", "second")));
+    List<Message> messages = sqsConsumer.receive().get();
+
+    // Act
+    sqsConsumer.acknowledgeMessage(messages.get(0)).get();
+    sqsConsumer.acknowledgeMessage(messages.get(0)).get();
+
+    // Assert
+    verify(mockSqsAsyncClient, never()).deleteMessage(any(DeleteMessageRequest.class));
+
+    // Act
+    sqsConsumer.acknowledgeMessage(messages.get(1)).get();
+
+    // Assert
+    ArgumentCaptor<DeleteMessageRequest> captor =
+        ArgumentCaptor.forClass(DeleteMessageRequest.class);
+    verify(mockSqsAsyncClient, times(1)).deleteMessage(captor.capture());
+    assertThat(captor.getValue().receiptHandle()).isEqualTo("receipt-message-1");
+  }
+
+  @Test
+  void testReceiveOverRateLimitIsDelayedAndReportsWait() throws Exception {
+    // Arrange
+    givenReceivedMessages(
+        software.amazon.awssdk.services.sqs.model.Message.builder()
+            .messageId("message-1")
+            .receiptHandle("receipt-message-1")
+            .body("payload")
+            .build());
+    try (SqsConsumer consumer = newRateLimitedConsumer()) {
+      consumer.receive().get();
+
+      // Act
+      CompletableFuture<List<Message>> throttled = consumer.receive();
+
+      // Assert
+      assertThat(throttled).isNotDone();
+      assertThat(throttled.get(5, TimeUnit.SECONDS)).hasSize(1);
+      assertThat(consumer.getThrottledReceives()).isEqualTo(1);
+      assertThat(consumer.getReceiveWaitNanos()).isPositive();
+    }
+  }
+
+  @Test
+  void testEmptyReceiveRefundsPermits() throws Exception {
+    // Arrange
+    givenReceivedMessages();
+    try (SqsConsumer consumer = newRateLimitedConsumer()) {
+      consumer.receive().get();
+
+      // Act
+      consumer.receive().get();
+
+      // Assert
+      assertThat(consumer.getThrottledReceives()).isZero();
+      assertThat(consumer.getReceiveWaitNanos()).isZero();
+    }
+  }
+
+  @Test
+  void testReceiveDefersMessagesThatAreNotDue() throws Exception {
+    // Arrange
+    when(mockSqsAsyncClient.sendMessage(any(SendMessageRequest.class)))
+        .thenReturn(CompletableFuture.completedFuture(SendMessageResponse.builder().build()));
+    long dueAt = System.currentTimeMillis() + Duration.ofHours(2).toMillis();
+    software.amazon.awssdk.services.sqs.model.Message early = delayedMessage("message-1", dueAt);
+    givenReceivedMessages(early, delayedMessage("message-2", System.currentTimeMillis() - 1_000));
+
+    // Act
+    List<Message> messages = sqsConsumer.receive().get();
+
+    // Assert
+    assertThat(messages)
+        .extracting(message -> message.getMetadata().getId())
+        .containsExactly("message-2");
+    assertThat(sqsConsumer.getDeferredMessages()).isEqualTo(1);
+    ArgumentCaptor<SendMessageRequest> sent = ArgumentCaptor.forClass(SendMessageRequest.class);
+    verify(mockSqsAsyncClient).sendMessage(sent.capture());
+    assertThat(sent.getValue().delaySeconds()).isEqualTo(SqsClient.MAX_DELAY_SECONDS);
+    assertThat(sent.getValue().messageBody()).isEqualTo(early.body());
+    assertThat(sent.getValue().messageAttributes()).isEqualTo(early.messageAttributes());
+    ArgumentCaptor<DeleteMessageRequest> deleted =
+        ArgumentCaptor.forClass(DeleteMessageRequest.class);
+    verify(mockSqsAsyncClient).deleteMessage(deleted.capture());
+    assertThat(deleted.getValue().receiptHandle()).isEqualTo("receipt-message-1");
+  }
+
+  @Test
+  void testDrainingCloseReleasesUnacknowledgedMessages() throws Exception {
+    // Arrange
+    givenBatchResponses();
+    givenReceivedMessages(inlineMessage("message-1"), inlineMessage("message-2"));
+    SqsConsumer consumer =
+        newConsumer(
+            SqsConfig.builder()
+                .receiveConfig(SqsConfig.ReceiveConfig.builder().maxMessages(2).build())
+                .drainConfig(DrainConfig.builder().enabled(true).timeoutMillis(50).build()));
+    List<Message> messages = consumer.receive().get();
+    consumer.acknowledgeMessage(messages.get(0)).get();
+
+    // Act
+    consumer.close();
+
+    // Assert
+    ArgumentCaptor<ChangeMessageVisibilityBatchRequest> captor =
+        ArgumentCaptor.forClass(ChangeMessageVisibilityBatchRequest.class);
+    verify(mockSqsAsyncClient).changeMessageVisibilityBatch(captor.capture());
+    assertThat(captor.getValue().entries())
+        .extracting(ChangeMessageVisibilityBatchRequestEntry::receiptHandle)
+        .containsExactly("receipt-message-2");
+    assertThat(captor.getValue().entries().get(0).visibilityTimeout()).isZero();
+    assertThat(consumer.getReleasedMessages()).isEqualTo(1);
+    assertThat(consumer.receive()).isCompletedExceptionally();
+  }
+
+  @Test
+  void testDrainingCloseDoesNotWaitForRejectedMessages() throws Exception {
+    // Arrange
+    givenBatchResponses();
+    givenReceivedMessages(inlineMessage("message-1"));
+    SqsConsumer consumer =
+        newConsumer(
+            SqsConfig.builder()
+                .drainConfig(DrainConfig.builder().enabled(true).timeoutMillis(30_000).build()));
+    Message message = consumer.receive().get().get(0);
+    consumer.reject(message, new IllegalStateException("failed")).get();
+
+    // Act
+    long start = System.nanoTime();
+    consumer.close();
+
+    // Assert
+    assertThat(System.nanoTime() - start).isLessThan(TimeUnit.SECONDS.toNanos(5));
+    verify(mockSqsAsyncClient, never())
+        .changeMessageVisibilityBatch(any(ChangeMessageVisibilityBatchRequest.class));
+  }
+
+  @Test
+  void testBatchedAcknowledgementWithoutLingerIsDeletedRightAway() throws Exception {
+    // Arrange
+    givenBatchResponses();
+    givenReceivedMessages(inlineMessage("message-1"));
+    SqsConsumer consumer =
+        newConsumer(
+            SqsConfig.builder()
+                .acknowledgementConfig(
+                    AcknowledgementConfig.builder().batched(true).lingerMillis(0).build()));
+    Message message = consumer.receive().get().get(0);
+
+    // Act
+    CompletableFuture<Void> acknowledged = consumer.acknowledgeMessage(message);
+
+    // Assert
+    assertThat(acknowledged).succeedsWithin(Duration.ofSeconds(5));
+    verify(mockSqsAsyncClient).deleteMessageBatch(any(DeleteMessageBatchRequest.class));
+    consumer.close();
+  }
+
+  @Test
+  void testCloseDeletesPendingBatchedAcknowledgements() throws Exception {
+    // Arrange
+    givenBatchResponses();
+    givenReceivedMessages(inlineMessage("message-1"), inlineMessage("message-2"));
+    SqsConsumer consumer =
+        newConsumer(
+            SqsConfig.builder()
+                .receiveConfig(SqsConfig.ReceiveConfig.builder().maxMessages(2).build())
+                .acknowledgementConfig(
+                    AcknowledgementConfig.builder().batched(true).lingerMillis(60_000).build()));
+    List<Message> messages = consumer.receive().get();
+    CompletableFuture<Void> first = consumer.acknowledgeMessage(messages.get(0));
+    CompletableFuture<Void> second = consumer.acknowledgeMessage(messages.get(1));
+    assertThat(first).isNotDone();
+
+    // Act
+    consumer.close();
+
+    // Assert
+    assertThat(first).isCompleted();
+    assertThat(second).isCompleted();
+    ArgumentCaptor<DeleteMessageBatchRequest> captor =
+        ArgumentCaptor.forClass(DeleteMessageBatchRequest.class);
+    verify(mockSqsAsyncClient).deleteMessageBatch(captor.capture());
+    assertThat(captor.getValue().entries())
+        .extracting(DeleteMessageBatchRequestEntry::receiptHandle)
+        .containsExactly("receipt-message-1", "receipt-message-2");
+    verify(mockSqsAsyncClient, never()).deleteMessage(any(DeleteMessageRequest.class));
+  }
+
+  @Test
+  void testReleaseMakesAggregatedMessageVisibleOnce() throws Exception {
+    // Arrange
+    givenBatchResponses();
+    givenReceivedMessages(aggregatedMessage("message-1", List.of("first", "second")));
+    List<Message> messages = sqsConsumer.receive().get();
+
+    // Act
+    sqsConsumer.release(messages).get();
+
+    // Assert
+    ArgumentCaptor<ChangeMessageVisibilityBatchRequest> captor =
+        ArgumentCaptor.forClass(ChangeMessageVisibilityBatchRequest.class);
+    verify(mockSqsAsyncClient).changeMessageVisibilityBatch(captor.capture());
+    assertThat(captor.getValue().entries())
+        .extracting(ChangeMessageVisibilityBatchRequestEntry::receiptHandle)
+        .containsExactly("receipt-message-1");
+  }
+
+  @Test
+  void testRefreshLeasesExtendsExpiringLeasesInBatch() throws Exception {
+    // Arrange
+    givenBatchResponses();
+    givenReceivedMessages(inlineMessage("message-1"), inlineMessage("message-2"));
+    SqsConsumer consumer =
+        newLeaseTrackingConsumer(
+            LeaseConfig.builder()
+                .enabled(true)
+                .visibilityTimeoutSeconds(30)
+                .minRemainingMillis(60_000));
+    List<Message> messages = consumer.receive().get();
+
+    // Act
+    List<Message> dispatchable = consumer.refreshLeases(messages).get();
+
+    // Assert
+    assertThat(dispatchable).isEqualTo(messages);
+    assertThat(consumer.getExtendedLeases()).isEqualTo(2);
+    ArgumentCaptor<ChangeMessageVisibilityBatchRequest> captor =
+        ArgumentCaptor.forClass(ChangeMessageVisibilityBatchRequest.class);
+    verify(mockSqsAsyncClient).changeMessageVisibilityBatch(captor.capture());
+    assertThat(captor.getValue().entries())
+        .extracting(ChangeMessageVisibilityBatchRequestEntry::visibilityTimeout)
+        .containsExactly(30, 30);
+    ArgumentCaptor<ReceiveMessageRequest> receive =
+        ArgumentCaptor.forClass(ReceiveMessageRequest.class);
+    verify(mockSqsAsyncClient).receiveMessage(receive.capture());
+    assertThat(receive.getValue().visibilityTimeout()).isEqualTo(30);
+    consumer.close();
+  }
+
+  @Test
+  void testRefreshLeasesReleasesExpiringMessages() throws Exception {
+    // Arrange
+    givenBatchResponses();
+    givenReceivedMessages(inlineMessage("message-1"));
+    SqsConsumer consumer =
+        newLeaseTrackingConsumer(
+            LeaseConfig.builder()
+                .enabled(true)
+                .minRemainingMillis(60_000)
+                .action(LeaseAction.RELEASE));
+    List<Message> messages = consumer.receive().get();
+
+    // Act
+    List<Message> dispatchable = consumer.refreshLeases(messages).get();
+
+    // Assert
+    assertThat(dispatchable).isEmpty();
+    assertThat(consumer.getReleasedMessages()).isEqualTo(1);
+    ArgumentCaptor<ChangeMessageVisibilityBatchRequest> captor =
+        ArgumentCaptor.forClass(ChangeMessageVisibilityBatchRequest.class);
+    verify(mockSqsAsyncClient).changeMessageVisibilityBatch(captor.capture());
+    assertThat(captor.getValue().entries().get(0).visibilityTimeout()).isZero();
+    consumer.close();
+  }
+
+  @Test
+  void testRefreshLeasesDropsExpiredMessages() throws Exception {
+    // Arrange
+    givenReceivedMessages(inlineMessage("message-1"));
+    SqsConsumer consumer =
+        newLeaseTrackingConsumer(
+            LeaseConfig.builder().enabled(true).visibilityTimeoutSeconds(0));
+    List<Message> messages = consumer.receive().get();
+
+    // Act
+    List<Message> dispatchable = consumer.refreshLeases(messages).get();
+
+    // Assert
+    assertThat(dispatchable).isEmpty();
+    assertThat(consumer.getExpiredLeases()).isEqualTo(1);
+    verify(mockSqsAsyncClient, never())
+        .changeMessageVisibilityBatch(any(ChangeMessageVisibilityBatchRequest.class));
+    consumer.close();
+  }
+
+  @Test
+  void testReceiveMovesMessagesOverMaxReceiveCountToDeadLetterQueue() throws Exception {
+    // Arrange
+    MessageProducer<String> deadLetterProducer = newDeadLetterProducer();
+    givenReceivedMessages(receivedMessage("message-1", 3), receivedMessage("message-2", 4));
+    SqsConsumer consumer =
+        newConsumer(
+            SqsConfig.builder()
+                .receiveConfig(SqsConfig.ReceiveConfig.builder().maxMessages(2).build())
+                .deadLetterConfig(
+                    DeadLetterConfig.builder()
+                        .producer(deadLetterProducer)
+                        .maxReceiveCount(3)
+                        .build()));
+
+    // Act
+    List<Message> messages = consumer.receive().get();
+
+    // Assert
+    assertThat(messages)
+        .extracting(message -> message.getMetadata().getId())
+        .containsExactly("message-1");
+    ArgumentCaptor<Map<String, Object>> attributes = ArgumentCaptor.forClass(Map.class);
+    verify(deadLetterProducer).send(eq("payload of message-2"), attributes.capture());
+    assertThat(attributes.getValue())
+        .containsEntry(
+            DeadLetterAttributes.REASON, DeadLetterAttributes.MAX_RECEIVE_COUNT_EXCEEDED)
+        .containsEntry(DeadLetterAttributes.RECEIVE_COUNT, 4)
+        .containsEntry(DeadLetterAttributes.SOURCE_QUEUE, "test-queue-url");
+    ArgumentCaptor<DeleteMessageRequest> deleted =
+        ArgumentCaptor.forClass(DeleteMessageRequest.class);
+    verify(mockSqsAsyncClient).deleteMessage(deleted.capture());
+    assertThat(deleted.getValue().receiptHandle()).isEqualTo("receipt-message-2");
+    assertThat(consumer.getDeadLetteredMessages()).isEqualTo(1);
+    ArgumentCaptor<ReceiveMessageRequest> receive =
+        ArgumentCaptor.forClass(ReceiveMessageRequest.class);
+    verify(mockSqsAsyncClient).receiveMessage(receive.capture());
+    assertThat(receive.getValue().attributeNamesAsStrings()).contains("ApproximateReceiveCount");
+    consumer.close();
+  }
+
+  @Test
+  void testRejectMovesOnlyNonRetryableFailures() throws Exception {
+    // Arrange
+    MessageProducer<String> deadLetterProducer = newDeadLetterProducer();
+    givenReceivedMessages(receivedMessage("message-1", 1));
+    SqsConsumer consumer =
+        newConsumer(
+            SqsConfig.builder()
+                .deadLetterConfig(
+                    DeadLetterConfig.builder()
+                        .producer(deadLetterProducer)
+                        .nonRetryableExceptions(Set.of(IllegalArgumentException.class))
+                        .build()));
+    Message message = consumer.receive().get().get(0);
+
+    // Act
+    boolean retryable = consumer.reject(message, new IllegalStateException("unavailable")).get();
+    boolean poison =
+        consumer
+            .reject(message, new RuntimeException(new IllegalArgumentException("malformed")))
+            .get();
+
+    // Assert
+    assertThat(retryable).isFalse();
+    assertThat(poison).isTrue();
+    ArgumentCaptor<Map<String, Object>> attributes = ArgumentCaptor.forClass(Map.class);
+    verify(deadLetterProducer, times(1)).send(eq("payload of message-1"), attributes.capture());
+    assertThat(attributes.getValue())
+        .containsEntry(DeadLetterAttributes.REASON, DeadLetterAttributes.NON_RETRYABLE_ERROR)
+        .containsEntry(
+            DeadLetterAttributes.ERROR,
+            "java.lang.RuntimeException: java.lang.IllegalArgumentException: malformed");
+    verify(mockSqsAsyncClient).deleteMessage(any(DeleteMessageRequest.class));
+    consumer.close();
+  }
+
+  @Test
+  void testDeadLetteringUnfetchedBodyKeepsBlobAndMarker() throws Exception {
+    // Arrange
+    MessageProducer<String> deadLetterProducer = newDeadLetterProducer();
+    BlobStore failingBlobStore = mock(BlobStore.class);
+    when(failingBlobStore.get("blob-1"))
+        .thenReturn(CompletableFuture.failedFuture(new IllegalStateException("unavailable")));
+    givenReceivedMessages(offloadedMessage("message-1", "blob-1"));
+    SqsConsumer consumer =
+        newConsumer(
+            SqsConfig.builder()
+                .claimCheckConfig(ClaimCheckConfig.builder().blobStore(failingBlobStore).build())
+                .deadLetterConfig(
+                    DeadLetterConfig.builder()
+                        .producer(deadLetterProducer)
+                        .nonRetryableExceptions(Set.of(IllegalStateException.class))
+                        .build()));
+    Message message = consumer.receive().get().get(0);
+
+    // Act
+    boolean moved = consumer.reject(message, new IllegalStateException("no body")).get();
+
+    // Assert
+    assertThat(moved).isTrue();
+    ArgumentCaptor<Map<String, Object>> attributes = ArgumentCaptor.forClass(Map.class);
+    verify(deadLetterProducer).send(eq("blob-1"), attributes.capture());
+    assertThat(attributes.getValue()).containsKey(ReservedAttributes.CLAIM_CHECK);
+    verify(mockSqsAsyncClient).deleteMessage(any(DeleteMessageRequest.class));
+    verify(failingBlobStore, never()).delete(any());
+    consumer.close();
+  }
+
+  @Test
+  void testRejectStopsHeartbeatOfMessageLeftToBeReceivedAgain() throws Exception {
+    // Arrange
+    when(mockSqsAsyncClient.changeMessageVisibility(any(ChangeMessageVisibilityRequest.class)))
+        .thenReturn(
+            CompletableFuture.completedFuture(ChangeMessageVisibilityResponse.builder().build()));
+    givenReceivedMessages(inlineMessage("message-1"), inlineMessage("message-2"));
+    SqsConsumer consumer =
+        newConsumer(
+            SqsConfig.builder()
+                .receiveConfig(SqsConfig.ReceiveConfig.builder().maxMessages(2).build())
+                .heartbeatConfig(HeartbeatConfig.builder().heartbeatInterval(1).build()));
+    List<Message> messages = consumer.receive().get();
+
+    // Act
+    boolean moved = consumer.reject(messages.get(0), new IllegalStateException("failed")).get();
+    Thread.sleep(1_500);
+
+    // Assert
+    assertThat(moved).isFalse();
+    ArgumentCaptor<ChangeMessageVisibilityRequest> extended =
+        ArgumentCaptor.forClass(ChangeMessageVisibilityRequest.class);
+    verify(mockSqsAsyncClient, atLeastOnce()).changeMessageVisibility(extended.capture());
+    assertThat(extended.getAllValues())
+        .extracting(ChangeMessageVisibilityRequest::receiptHandle)
+        .containsOnly("receipt-message-2");
+    consumer.close();
+  }
+
+  @Test
+  void testFailedAcknowledgementStopsHeartbeatAndReleasesMessage() throws Exception {
+    // Arrange
+    givenBatchResponses();
+    when(mockSqsAsyncClient.deleteMessage(any(DeleteMessageRequest.class)))
+        .thenReturn(CompletableFuture.failedFuture(new IllegalStateException("unavailable")));
+    givenReceivedMessages(inlineMessage("message-1"));
+    SqsConsumer consumer =
+        newConsumer(
+            SqsConfig.builder()
+                .heartbeatConfig(HeartbeatConfig.builder().heartbeatInterval(1).build()));
+    Message message = consumer.receive().get().get(0);
+
+    // Act
+    CompletableFuture<Void> result = consumer.acknowledgeMessage(message);
+    Thread.sleep(1_500);
+
+    // Assert
+    assertThat(result).isCompletedExceptionally();
+    verify(mockSqsAsyncClient, never())
+        .changeMessageVisibility(any(ChangeMessageVisibilityRequest.class));
+    ArgumentCaptor<ChangeMessageVisibilityBatchRequest> released =
+        ArgumentCaptor.forClass(ChangeMessageVisibilityBatchRequest.class);
+    verify(mockSqsAsyncClient).changeMessageVisibilityBatch(released.capture());
+    assertThat(released.getValue().entries())
+        .extracting(
+            ChangeMessageVisibilityBatchRequestEntry::receiptHandle,
+            ChangeMessageVisibilityBatchRequestEntry::visibilityTimeout)
+        .containsExactly(tuple("receipt-message-1", 0));
+    consumer.close();
+  }
+
+  @SuppressWarnings("unchecked")
+  private static MessageProducer<String> newDeadLetterProducer() {
+    MessageProducer<String> producer = mock(MessageProducer.class);
+    when(producer.send(any(), any(Map.class))).thenReturn(CompletableFuture.completedFuture(null));
+    return producer;
+  }
+
+  private SqsConsumer newLeaseTrackingConsumer(LeaseConfig.LeaseConfigBuilder leaseConfig) {
+    return newConsumer(
+        SqsConfig.builder()
+            .receiveConfig(SqsConfig.ReceiveConfig.builder().maxMessages(2).build())
+            .leaseConfig(leaseConfig.build()));
+  }
+
+  private SqsConsumer newConsumer(SqsConfig.SqsConfigBuilder builder) {
+    return new SqsConsumer(
+        builder.region("us-east-1").queueUrl("test-queue-url").build(), mockSqsAsyncClient);
+  }
+
+  private void givenBatchResponses() {
+    when(mockSqsAsyncClient.deleteMessageBatch(any(DeleteMessageBatchRequest.class)))
+        .thenReturn(
+            CompletableFuture.completedFuture(DeleteMessageBatchResponse.builder().build()));
+    when(mockSqsAsyncClient.changeMessageVisibilityBatch(
+            any(ChangeMessageVisibilityBatchRequest.class)))
+        .thenReturn(
+            CompletableFuture.completedFuture(
+                ChangeMessageVisibilityBatchResponse.builder().build()));
+  }
+
+  private SqsConsumer newRateLimitedConsumer() {
+    return new SqsConsumer(
+        SqsConfig.builder()
+            .region("us-east-1")
+            .queueUrl("test-queue-url")
+            .rateLimitConfig(RateLimitConfig.builder().permitsPerSecond(2).burst(1).build())
+            .build(),
+        mockSqsAsyncClient);
+  }
+
+  private void givenReceivedMessages(
+      software.amazon.awssdk.services.sqs.model.Message... messages) {
+    when(mockSqsAsyncClient.receiveMessage(any(ReceiveMessageRequest.class)))
+        .thenReturn(
+            CompletableFuture.completedFuture(
+                ReceiveMessageResponse.builder().messages(messages).build()));
+  }
+
+  private static software.amazon.awssdk.services.sqs.model.Message receivedMessage(
+      String id, int receiveCount) {
+    return inlineMessage(id).toBuilder()
+        .attributes(
+            Map.of(
+                MessageSystemAttributeName.APPROXIMATE_RECEIVE_COUNT,
+                String.valueOf(receiveCount)))
+        .build();
+  }
+
+  private static software.amazon.awssdk.services.sqs.model.Message inlineMessage(String id) {
+    return software.amazon.awssdk.services.sqs.model.Message.builder()
+        .messageId(id)
+        .receiptHandle("receipt-" + id)
+        .body("payload of " + id)
+        .build();
+  }
+
+  private static software.amazon.awssdk.services.sqs.model.Message delayedMessage(
+      String id, long dueAt) {
+    return software.amazon.awssdk.services.sqs.model.Message.builder()
+        .messageId(id)
+        .receiptHandle("receipt-" + id)
+        .body("payload of " + id)
+        .messageAttributes(
+            Map.of(
+                ReservedAttributes.DUE_AT,
+                MessageAttributeValue.builder()
+                    .dataType("Number")
+                    .stringValue(Long.toString(dueAt))
+                    .build()))
+        .build();
+  }
+
+  private static software.amazon.awssdk.services.sqs.model.Message offloadedMessage(
+      String id, String key) {
+    return software.amazon.awssdk.services.sqs.model.Message.builder()
+        .messageId(id)
+        .receiptHandle("receipt-" + id)
+        .body(key)
+        .messageAttributes(
+            Map.of(
+                ReservedAttributes.CLAIM_CHECK,
+                MessageAttributeValue.builder().dataType("String").stringValue("true").build()))
+        .build();
+  }
+
+  private static software.amazon.awssdk.services.sqs.model.Message aggregatedMessage(
+      String id, List<String> records) {
+    return software.amazon.awssdk.services.sqs.model.Message.builder()
+        .messageId(id)
+        .receiptHandle("receipt-" + id)
+        .body(AggregatedEnvelope.encode(records))
+        .messageAttributes(
+            Map.of(
+                ReservedAttributes.AGGREGATED,
+                MessageAttributeValue.builder()
+                    .dataType("Number")
+                    .stringValue(String.valueOf(records.size()))
+                    .build(),
+                "key",
+                MessageAttributeValue.builder().dataType("String").stringValue("value").build()))
+        .build();
+  }
+}
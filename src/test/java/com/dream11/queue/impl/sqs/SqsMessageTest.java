@@ -0,0 +1,240 @@
+package com.dream11.queue.impl.sqs;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import com.dream11.queue.Message;
+import com.dream11.queue.codec.Compression;
+import com.dream11.queue.codec.PayloadCompressor;
+import com.dream11.queue.config.CompressionConfig;
+import com.dream11.queue.util.ReservedAttributes;
+import java.util.Map;
+import org.junit.jupiter.api.Test;
+import software.amazon.awssdk.core.SdkBytes;
+import software.amazon.awssdk.services.sqs.model.MessageAttributeValue;
+
+class SqsMessageTest {
+
+  @Test
+  void testBodyAndTypedMetadataAreReadFromSdkMessage() {
+    // Arrange
+    software.amazon.awssdk.services.sqs.model.Message sdkMessage =
+        software.amazon.awssdk.services.sqs.model.Message.builder()
+            .messageId("message-id")
+            .receiptHandle("receipt-handle")
+            .body("test message")
+            .build();
+
+    // Act
+    Message message = new SqsMessage(sdkMessage);
+
+    // Assert
+    assertThat(message.getBody()).isEqualTo("test message");
+    assertThat(message.getMetadata().getId()).isEqualTo("message-id");
+    assertThat(message.getMetadata().getReceiptHandle()).isEqualTo("receipt-handle");
+  }
+
+  @Test
+  void testSystemAttributesAreMaterialisedOnAccess() {
+    // Arrange
+    software.amazon.awssdk.services.sqs.model.Message sdkMessage =
+        software.amazon.awssdk.services.sqs.model.Message.builder()
+            .messageId("message-id")
+            .receiptHandle("receipt-handle")
+            .body("test message")
+            .build();
+    Message message = new SqsMessage(sdkMessage);
+
+    // Act
+    Map<String, Object> systemAttributes = message.getMetadata().getAttributes();
+
+    // Assert
+    assertThat(systemAttributes)
+        .containsEntry(SqsConsumer.RECEIPT_HANDLE, "receipt-handle")
+        .containsEntry(SqsConsumer.RAW_MESSAGE, sdkMessage);
+    assertThat(message.getMetadata().getAttributes()).isSameAs(systemAttributes);
+  }
+
+  @Test
+  void testUserAttributesAreMaterialisedOnAccess() {
+    // Arrange
+    software.amazon.awssdk.services.sqs.model.Message sdkMessage =
+        software.amazon.awssdk.services.sqs.model.Message.builder()
+            .messageId("message-id")
+            .receiptHandle("receipt-handle")
+            .body("test message")
+            .messageAttributes(
+                Map.of(
+                    "key1",
+                    MessageAttributeValue.builder()
+                        .dataType("String")
+                        .stringValue("value1")
+                        .build(),
+                    "priority",
+                    MessageAttributeValue.builder().dataType("Number").stringValue("10").build()))
+            .build();
+    Message message = new SqsMessage(sdkMessage);
+
+    // Act
+    Map<String, Object> attributes = message.getAttributes();
+
+    // Assert
+    assertThat(attributes)
+        .hasSize(2)
+        .containsEntry("key1", "value1")
+        .containsEntry("priority", "10");
+    assertThat(message.getAttributes()).isSameAs(attributes);
+  }
+
+  @Test
+  void testUserAttributesAreEmptyWhenAbsent() {
+    // Arrange
+    software.amazon.awssdk.services.sqs.model.Message sdkMessage =
+        software.amazon.awssdk.services.sqs.model.Message.builder()
+            .messageId("message-id")
+            .receiptHandle("receipt-handle")
+            .body("test message")
+            .build();
+
+    // Act
+    Message message = new SqsMessage(sdkMessage);
+
+    // Assert
+    assertThat(message.getAttributes()).isEmpty();
+  }
+
+  @Test
+  void testTypedGettersDecodeFromDataType() {
+    // Arrange
+    byte[] bytes = {1, 2, 3};
+    software.amazon.awssdk.services.sqs.model.Message sdkMessage =
+        software.amazon.awssdk.services.sqs.model.Message.builder()
+            .messageId("message-id")
+            .receiptHandle("receipt-handle")
+            .body("test message")
+            .messageAttributes(
+                Map.of(
+                    "count",
+                    MessageAttributeValue.builder().dataType("Number").stringValue("42").build(),
+                    "score",
+                    MessageAttributeValue.builder().dataType("Number").stringValue("99.5").build(),
+                    "enabled",
+                    MessageAttributeValue.builder().dataType("String").stringValue("true").build(),
+                    "bytes",
+                    MessageAttributeValue.builder()
+                        .dataType("Binary")
+                        .binaryValue(SdkBytes.fromByteArray(bytes))
+                        .build()))
+            .build();
+    Message message = new SqsMessage(sdkMessage);
+
+    // Act & Assert
+    assertThat(message.getLong("count")).isEqualTo(42L);
+    assertThat(message.getDouble("score")).isEqualTo(99.5);
+    assertThat(message.getBoolean("enabled")).isTrue();
+    assertThat(message.getBinary("bytes")).isEqualTo(bytes);
+    assertThat(message.getAttributes().get("bytes")).isEqualTo(bytes);
+    assertThat(message.getLong("missing")).isNull();
+  }
+
+  @Test
+  void testTypedGettersCacheDecodedValues() {
+    // Arrange
+    software.amazon.awssdk.services.sqs.model.Message sdkMessage =
+        software.amazon.awssdk.services.sqs.model.Message.builder()
+            .messageId("message-id")
+            .receiptHandle("receipt-handle")
+            .body("test message")
+            .messageAttributes(
+                Map.of(
+                    "count",
+                    MessageAttributeValue.builder().dataType("Number").stringValue("42").build()))
+            .build();
+    Message message = new SqsMessage(sdkMessage);
+
+    // Act
+    Long first = message.getLong("count");
+    Double asDouble = message.getDouble("count");
+    Long second = message.getLong("count");
+
+    // Assert
+    assertThat(second).isSameAs(first);
+    assertThat(asDouble).isEqualTo(42.0);
+  }
+
+  @Test
+  void testGetBinaryReturnsCopy() {
+    // Arrange
+    byte[] bytes = {1, 2, 3};
+    software.amazon.awssdk.services.sqs.model.Message sdkMessage =
+        software.amazon.awssdk.services.sqs.model.Message.builder()
+            .messageId("message-id")
+            .receiptHandle("receipt-handle")
+            .body("test message")
+            .messageAttributes(
+                Map.of(
+                    "bytes",
+                    MessageAttributeValue.builder()
+                        .dataType("Binary")
+                        .binaryValue(SdkBytes.fromByteArray(bytes))
+                        .build()))
+            .build();
+    Message message = new SqsMessage(sdkMessage);
+
+    // Act
+    message.getBinary("bytes")[0] = 9;
+
+    // Assert
+    assertThat(message.getBinary("bytes")).containsExactly(1, 2, 3);
+  }
+
+  @Test
+  void testGetBinaryRejectsNonBinaryAttribute() {
+    // Arrange
+    software.amazon.awssdk.services.sqs.model.Message sdkMessage =
+        software.amazon.awssdk.services.sqs.model.Message.builder()
+            .messageId("message-id")
+            .receiptHandle("receipt-handle")
+            .body("test message")
+            .messageAttributes(
+                Map.of(
+                    "key",
+                    MessageAttributeValue.builder()
+                        .dataType("String")
+                        .stringValue("value")
+                        .build()))
+            .build();
+    Message message = new SqsMessage(sdkMessage);
+
+    // Act & Assert
+    assertThatThrownBy(() -> message.getBinary("key"))
+        .isInstanceOf(IllegalArgumentException.class)
+        .hasMessageContaining("is not binary");
+  }
+
+  @Test
+  void testCompressedBodyIsDecompressedAndMarkerIsHidden() {
+    // Arrange
+    String body = "test message ".repeat(200);
+    String compressed =
+        new PayloadCompressor(CompressionConfig.builder().algorithm(Compression.GZIP).build())
+            .compress(body);
+    software.amazon.awssdk.services.sqs.model.Message sdkMessage =
+        software.amazon.awssdk.services.sqs.model.Message.builder()
+            .messageId("message-id")
+            .receiptHandle("receipt-handle")
+            .body(compressed)
+            .messageAttributes(
+                Map.of(
+                    ReservedAttributes.COMPRESSION,
+                    MessageAttributeValue.builder().dataType("String").stringValue("GZIP").build()))
+            .build();
+
+    // Act
+    Message message = new SqsMessage(sdkMessage);
+
+    // Assert
+    assertThat(message.getBody()).isEqualTo(body);
+    assertThat(message.getAttributes()).isEmpty();
+  }
+}
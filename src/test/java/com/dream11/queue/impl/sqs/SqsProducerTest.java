@@ -1,16 +1,31 @@
 package com.dream11.queue.impl.sqs;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.awaitility.Awaitility.await;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
+import com.dream11.queue.aggregation.AggregatedEnvelope;
+import com.dream11.queue.codec.MessageCodec;
+import com.dream11.queue.config.AggregationConfig;
+import com.dream11.queue.config.OutboxConfig;
+import com.dream11.queue.config.RateLimitConfig;
+import com.dream11.queue.util.ReservedAttributes;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.ArgumentCaptor;
 import software.amazon.awssdk.services.sqs.SqsAsyncClient;
 import software.amazon.awssdk.services.sqs.model.SendMessageRequest;
 import software.amazon.awssdk.services.sqs.model.SendMessageResponse;
@@ -125,4 +140,185 @@ class SqsProducerTest {
     // Assert
     verify(mockSqsAsyncClient).sendMessage(any(SendMessageRequest.class));
   }
+
+  @Test
+  void testSendWithCodec() throws Exception {
+    // Arrange
+    SqsProducer<String> producer =
+        new SqsProducer<>(sqsConfig, mockSqsAsyncClient, MessageCodec.ofString());
+    String message = "test message";
+
+    // Act
+    producer.send(message).get();
+
+    // Assert
+    ArgumentCaptor<SendMessageRequest> captor = ArgumentCaptor.forClass(SendMessageRequest.class);
+    verify(mockSqsAsyncClient).sendMessage(captor.capture());
+    assertThat(captor.getValue().messageBody()).isEqualTo(message);
+  }
+
+  @Test
+  void testSendAggregatesMessagesWithoutAttributes() throws Exception {
+    // Arrange
+    SqsConfig aggregatingConfig =
+        SqsConfig.builder()
+            .region("us-east-1")
+            .queueUrl("test-queue-url")
+            .aggregationConfig(
+                AggregationConfig.builder().enabled(true).maxRecords(2).lingerMillis(0).build())
+            .build();
+    SqsProducer<String> producer = new SqsProducer<>(aggregatingConfig, mockSqsAsyncClient);
+
+    // Act
+    producer.send("first");
+    producer.send("second", Map.of()).get();
+    producer.send("third", Map.of("key", "value")).get();
+
+    // Assert
+    ArgumentCaptor<SendMessageRequest> captor = ArgumentCaptor.forClass(SendMessageRequest.class);
+    verify(mockSqsAsyncClient, times(2)).sendMessage(captor.capture());
+    assertThat(AggregatedEnvelope.decode(captor.getAllValues().get(0).messageBody()))
+        .containsExactly("first", "second");
+    assertThat(captor.getAllValues().get(0).messageAttributes())
+        .containsKey(ReservedAttributes.AGGREGATED);
+    assertThat(captor.getAllValues().get(1).messageBody()).isEqualTo("third");
+    producer.close();
+  }
+
+  @Test
+  void testSendAndForgetCountsSuccesses() {
+    // Arrange
+    SqsProducer<String> producer = new SqsProducer<>(sqsConfig, mockSqsAsyncClient);
+
+    // Act
+    producer.sendAndForget("first");
+    producer.sendAndForget("second", Map.of("key", "value"));
+
+    // Assert
+    verify(mockSqsAsyncClient, times(2)).sendMessage(any(SendMessageRequest.class));
+    assertThat(producer.getForgottenSendSuccesses()).isEqualTo(2);
+    assertThat(producer.getForgottenSendFailures()).isZero();
+  }
+
+  @Test
+  void testSendAndForgetReportsFailuresToListener() {
+    // Arrange
+    IllegalStateException failure = new IllegalStateException("throttled");
+    when(mockSqsAsyncClient.sendMessage(any(SendMessageRequest.class)))
+        .thenReturn(CompletableFuture.failedFuture(failure));
+    SqsProducer<String> producer = new SqsProducer<>(sqsConfig, mockSqsAsyncClient);
+    List<Object> reported = new ArrayList<>();
+    producer.setSendErrorListener(
+        (body, attributes, error) -> reported.addAll(List.of(body, attributes, error)));
+
+    // Act
+    producer.sendAndForget("test message", Map.of("key", "value"));
+
+    // Assert
+    assertThat(reported).containsExactly("test message", Map.of("key", "value"), failure);
+    assertThat(producer.getForgottenSendSuccesses()).isZero();
+    assertThat(producer.getForgottenSendFailures()).isEqualTo(1);
+  }
+
+  @Test
+  void testSendOverRateLimitIsDelayedWithoutBlocking() throws Exception {
+    // Arrange
+    SqsConfig rateLimitedConfig =
+        SqsConfig.builder()
+            .region("us-east-1")
+            .queueUrl("test-queue-url")
+            .rateLimitConfig(RateLimitConfig.builder().permitsPerSecond(2).burst(1).build())
+            .build();
+    SqsProducer<String> producer = new SqsProducer<>(rateLimitedConfig, mockSqsAsyncClient);
+
+    // Act
+    CompletableFuture<Void> first = producer.send("first");
+    CompletableFuture<Void> second = producer.send("second");
+
+    // Assert
+    assertThat(first).isCompleted();
+    assertThat(second).isNotDone();
+    second.get(5, TimeUnit.SECONDS);
+    verify(mockSqsAsyncClient, times(2)).sendMessage(any(SendMessageRequest.class));
+  }
+
+  @Test
+  void testOutboxDrainerIsRateLimited(@TempDir Path directory) throws Exception {
+    // Arrange
+    SqsConfig rateLimitedConfig =
+        SqsConfig.builder()
+            .region("us-east-1")
+            .queueUrl("test-queue-url")
+            .rateLimitConfig(RateLimitConfig.builder().permitsPerSecond(2).burst(1).build())
+            .outboxConfig(OutboxConfig.builder().directory(directory).build())
+            .build();
+    SqsProducer<String> producer = new SqsProducer<>(rateLimitedConfig, mockSqsAsyncClient);
+    long start = System.nanoTime();
+
+    // Act
+    for (int i = 0; i < 3; i++) {
+      producer.send("message-" + i).get(1, TimeUnit.SECONDS);
+    }
+    long appendedNanos = System.nanoTime() - start;
+
+    // Assert
+    assertThat(appendedNanos).isLessThan(TimeUnit.MILLISECONDS.toNanos(400));
+    await()
+        .atMost(Duration.ofSeconds(5))
+        .untilAsserted(
+            () -> verify(mockSqsAsyncClient, times(3)).sendMessage(any(SendMessageRequest.class)));
+    assertThat(System.nanoTime() - start)
+        .isGreaterThanOrEqualTo(TimeUnit.MILLISECONDS.toNanos(800));
+    producer.close();
+  }
+
+  @Test
+  void testSendDelayedUsesNativeDelayForShortDelays() throws Exception {
+    // Arrange
+    SqsProducer<String> producer = new SqsProducer<>(sqsConfig, mockSqsAsyncClient);
+    long before = System.currentTimeMillis();
+
+    // Act
+    producer.sendDelayed("test message", Duration.ofMillis(90_500)).get();
+
+    // Assert
+    ArgumentCaptor<SendMessageRequest> captor = ArgumentCaptor.forClass(SendMessageRequest.class);
+    verify(mockSqsAsyncClient).sendMessage(captor.capture());
+    assertThat(captor.getValue().delaySeconds()).isEqualTo(91);
+    long dueAt =
+        Long.parseLong(
+            captor.getValue().messageAttributes().get(ReservedAttributes.DUE_AT).stringValue());
+    assertThat(dueAt).isBetween(before + 90_500, System.currentTimeMillis() + 90_500);
+  }
+
+  @Test
+  void testSendDelayedCapsNativeDelayForLongDelays() throws Exception {
+    // Arrange
+    SqsProducer<String> producer = new SqsProducer<>(sqsConfig, mockSqsAsyncClient);
+
+    // Act
+    producer.sendDelayed("test message", Map.of("key", "value"), Duration.ofHours(3)).get();
+
+    // Assert
+    ArgumentCaptor<SendMessageRequest> captor = ArgumentCaptor.forClass(SendMessageRequest.class);
+    verify(mockSqsAsyncClient).sendMessage(captor.capture());
+    assertThat(captor.getValue().delaySeconds()).isEqualTo(SqsClient.MAX_DELAY_SECONDS);
+    assertThat(captor.getValue().messageAttributes())
+        .containsKeys("key", ReservedAttributes.DUE_AT);
+  }
+
+  @Test
+  void testSendDelayedWithoutDelaySendsImmediately() throws Exception {
+    // Arrange
+    SqsProducer<String> producer = new SqsProducer<>(sqsConfig, mockSqsAsyncClient);
+
+    // Act
+    producer.sendDelayed("test message", Duration.ZERO).get();
+
+    // Assert
+    ArgumentCaptor<SendMessageRequest> captor = ArgumentCaptor.forClass(SendMessageRequest.class);
+    verify(mockSqsAsyncClient).sendMessage(captor.capture());
+    assertThat(captor.getValue().delaySeconds()).isNull();
+    assertThat(captor.getValue().messageAttributes()).doesNotContainKey(ReservedAttributes.DUE_AT);
+  }
 }
@@ -0,0 +1,58 @@
+package com.dream11.queue.outbox;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.nio.ByteBuffer;
+import java.util.Map;
+import org.junit.jupiter.api.Test;
+
+class OutboxRecordTest {
+
+  @Test
+  void testEncodeAndDecodeKeepsAttributeTypes() {
+    // Arrange
+    OutboxRecord record =
+        new OutboxRecord(
+            "body é",
+            Map.of(
+                "string", "value",
+                "long", 42L,
+                "double", 1.5,
+                "boolean", true,
+                "binary", new byte[] {1, 2}));
+
+    // Act
+    OutboxRecord decoded = OutboxRecord.decode(ByteBuffer.wrap(record.encode()));
+
+    // Assert
+    assertThat(decoded.getBody()).isEqualTo("body é");
+    assertThat(decoded.getAttributes().get("string")).isEqualTo("value");
+    assertThat(decoded.getAttributes().get("long")).isInstanceOf(Number.class).hasToString("42");
+    assertThat(decoded.getAttributes().get("double")).isInstanceOf(Number.class).hasToString("1.5");
+    assertThat(decoded.getAttributes().get("boolean")).isEqualTo(Boolean.TRUE);
+    assertThat((byte[]) decoded.getAttributes().get("binary")).containsExactly(1, 2);
+  }
+
+  @Test
+  void testEncodeWithoutAttributes() {
+    // Act
+    OutboxRecord decoded =
+        OutboxRecord.decode(ByteBuffer.wrap(new OutboxRecord("body", null).encode()));
+
+    // Assert
+    assertThat(decoded.getBody()).isEqualTo("body");
+    assertThat(decoded.getAttributes()).isEmpty();
+  }
+
+  @Test
+  void testEncodeRejectsUnsupportedAttributeTypes() {
+    // Arrange
+    OutboxRecord record = new OutboxRecord("body", Map.of("key", new Object()));
+
+    // Act & Assert
+    assertThatThrownBy(record::encode)
+        .isInstanceOf(IllegalArgumentException.class)
+        .hasMessageContaining("Unsupported attribute type for key 'key'");
+  }
+}
@@ -0,0 +1,196 @@
+package com.dream11.queue.outbox;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.awaitility.Awaitility.await;
+
+import com.dream11.queue.config.OutboxConfig;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class OutboxTest {
+
+  @TempDir Path directory;
+
+  private List<String> sent;
+  private AtomicBoolean available;
+
+  @BeforeEach
+  void setUp() {
+    sent = new CopyOnWriteArrayList<>();
+    available = new AtomicBoolean(true);
+  }
+
+  @Test
+  void testAppendedSendsArePublished() throws Exception {
+    // Arrange
+    Outbox outbox = newOutbox(config().build());
+
+    // Act
+    outbox.append("first", Map.of("key", "value")).get();
+    outbox.append("second", null).get();
+
+    // Assert
+    await().atMost(Duration.ofSeconds(5)).until(() -> sent.size() == 2);
+    assertThat(sent).containsExactly("first", "second");
+    assertThat(outbox.getPendingRecords()).isZero();
+    assertThat(outbox.getSentRecords()).isEqualTo(2);
+    outbox.close();
+  }
+
+  @Test
+  void testFailedSendsAreRetried() throws Exception {
+    // Arrange
+    available.set(false);
+    Outbox outbox = newOutbox(config().build());
+
+    // Act
+    outbox.append("first", null).get();
+    Thread.sleep(50);
+    available.set(true);
+
+    // Assert
+    await().atMost(Duration.ofSeconds(5)).until(() -> sent.contains("first"));
+    assertThat(outbox.getPendingRecords()).isZero();
+    outbox.close();
+  }
+
+  @Test
+  void testPendingSendsAreReplayedAfterRestart() throws Exception {
+    // Arrange
+    available.set(false);
+    Outbox outbox = newOutbox(config().segmentBytes(256).build());
+    for (int i = 0; i < 20; i++) {
+      outbox.append("message-" + i, Map.of("index", i)).get();
+    }
+    outbox.close();
+    available.set(true);
+
+    // Act
+    Outbox reopened = newOutbox(config().segmentBytes(256).build());
+
+    // Assert
+    await().atMost(Duration.ofSeconds(5)).until(() -> sent.size() == 20);
+    assertThat(sent)
+        .containsExactlyElementsOf(
+            IntStream.range(0, 20).mapToObj(i -> "message-" + i).collect(Collectors.toList()));
+    await().atMost(Duration.ofSeconds(5)).until(() -> segmentFiles().size() == 1);
+    reopened.close();
+  }
+
+  @Test
+  void testSentSendsAreNotReplayed() throws Exception {
+    // Arrange
+    Outbox outbox = newOutbox(config().build());
+    outbox.append("first", null).get();
+    await().atMost(Duration.ofSeconds(5)).until(() -> sent.size() == 1);
+    outbox.close();
+
+    // Act
+    Outbox reopened = newOutbox(config().build());
+
+    // Assert
+    assertThat(reopened.getPendingRecords()).isZero();
+    reopened.close();
+  }
+
+  @Test
+  void testAppendFailsWhenDiskLimitIsReached() throws Exception {
+    // Arrange
+    available.set(false);
+    Outbox outbox = newOutbox(config().segmentBytes(256).maxDiskBytes(512).build());
+
+    // Act
+    CompletableFuture<Void> result = CompletableFuture.completedFuture(null);
+    for (int i = 0; i < 50 && !result.isCompletedExceptionally(); i++) {
+      result = outbox.append("message-" + i, null);
+    }
+
+    // Assert
+    assertThat(result).isCompletedExceptionally();
+    assertThat(segmentFiles()).hasSize(2);
+    outbox.close();
+  }
+
+  @Test
+  void testSendsRejectedBySenderAreDropped() throws Exception {
+    // Arrange
+    Outbox outbox =
+        new Outbox(
+            config().build(),
+            (body, attributes) -> {
+              throw new IllegalArgumentException("invalid");
+            });
+
+    // Act
+    outbox.append("invalid", null).get();
+
+    // Assert
+    await().atMost(Duration.ofSeconds(5)).until(() -> outbox.getPendingRecords() == 0);
+    assertThat(outbox.getSentRecords()).isZero();
+    outbox.close();
+  }
+
+  @Test
+  void testDirectoryCannotBeOpenedTwice() {
+    // Arrange
+    Outbox outbox = newOutbox(config().build());
+
+    // Act & Assert
+    assertThatThrownBy(() -> newOutbox(config().build()))
+        .isInstanceOf(IllegalStateException.class)
+        .hasMessageContaining("in use");
+    outbox.close();
+  }
+
+  @Test
+  void testAppendAfterCloseFails() {
+    // Arrange
+    Outbox outbox = newOutbox(config().build());
+    outbox.close();
+
+    // Act & Assert
+    assertThatThrownBy(() -> outbox.append("late", null))
+        .isInstanceOf(IllegalStateException.class);
+  }
+
+  private OutboxConfig.OutboxConfigBuilder config() {
+    return OutboxConfig.builder()
+        .directory(directory)
+        .fsyncPolicy(FsyncPolicy.ALWAYS)
+        .retryBackoffMillis(5)
+        .maxRetryBackoffMillis(20);
+  }
+
+  private Outbox newOutbox(OutboxConfig config) {
+    return new Outbox(
+        config,
+        (body, attributes) -> {
+          if (!available.get()) {
+            return CompletableFuture.failedFuture(new IllegalStateException("unavailable"));
+          }
+          sent.add(body);
+          return CompletableFuture.completedFuture(null);
+        });
+  }
+
+  private List<Path> segmentFiles() throws Exception {
+    try (Stream<Path> files = Files.list(directory)) {
+      return files
+          .filter(path -> path.getFileName().toString().endsWith(".seg"))
+          .collect(Collectors.toList());
+    }
+  }
+}
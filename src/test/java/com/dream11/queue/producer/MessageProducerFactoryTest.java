@@ -2,6 +2,7 @@ package com.dream11.queue.producer;
 
 import static org.assertj.core.api.Assertions.assertThat;
 
+import com.dream11.queue.codec.MessageCodec;
 import com.dream11.queue.impl.sns.SnsConfig;
 import com.dream11.queue.impl.sns.SnsProducer;
 import com.dream11.queue.impl.sqs.SqsConfig;
@@ -26,6 +27,19 @@ class MessageProducerFactoryTest {
     assertThat(messageProducer).isInstanceOf(SqsProducer.class);
   }
 
+  @Test
+  void testProducerCreateWithCodec() {
+    // Arrange
+    SqsConfig sqsConfig = SqsConfig.builder().region("us-east-1").queueUrl("").build();
+
+    // Act
+    MessageProducer<String> messageProducer =
+        MessageProducerFactory.create(sqsConfig, MessageCodec.ofString());
+
+    // Assert
+    assertThat(messageProducer).isInstanceOf(SqsProducer.class);
+  }
+
   @ParameterizedTest
   @MethodSource("endpoints")
   void testProducerCreateWhenConfigTypeIsSqsWithEndpointOverride(String endpoint) {
@@ -5,6 +5,7 @@ import static org.assertj.core.api.Assertions.assertThatThrownBy;
 
 import java.util.HashMap;
 import java.util.Map;
+import java.time.Duration;
 import java.util.concurrent.CompletableFuture;
 import org.junit.jupiter.api.Test;
 
@@ -35,6 +36,30 @@ class MessageProducerTest {
     assertThat(supportsAttributes).isFalse();
   }
 
+  @Test
+  void testSendAndForgetThrowsUnsupportedOperationExceptionByDefault() {
+    // Arrange
+    MessageProducer<String> producer = new TestMessageProducerWithoutAttributeSupport();
+
+    // Act & Assert
+    assertThatThrownBy(() -> producer.sendAndForget("test message"))
+        .isInstanceOf(UnsupportedOperationException.class)
+        .hasMessage("Fire-and-forget sends are not supported by this provider");
+    assertThatThrownBy(() -> producer.setSendErrorListener((body, attributes, error) -> {}))
+        .isInstanceOf(UnsupportedOperationException.class);
+  }
+
+  @Test
+  void testSendDelayedThrowsUnsupportedOperationExceptionByDefault() {
+    // Arrange
+    MessageProducer<String> producer = new TestMessageProducerWithoutAttributeSupport();
+
+    // Act & Assert
+    assertThatThrownBy(() -> producer.sendDelayed("test message", Duration.ofMinutes(1)))
+        .isInstanceOf(UnsupportedOperationException.class)
+        .hasMessage("Delayed sends are not supported by this provider");
+  }
+
   /** Test implementation that uses default methods (no attribute support). */
   private static class TestMessageProducerWithoutAttributeSupport
       implements MessageProducer<String> {
@@ -0,0 +1,99 @@
+package com.dream11.queue.ratelimit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import com.dream11.queue.config.RateLimitConfig;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import org.junit.jupiter.api.Test;
+
+class TokenBucketTest {
+
+  private final AtomicLong now = new AtomicLong(1_000_000_000L);
+
+  @Test
+  void testBurstIsAvailableImmediately() {
+    // Arrange
+    TokenBucket bucket = newBucket(10, 3);
+
+    // Act & Assert
+    assertThat(bucket.reserve(1)).isZero();
+    assertThat(bucket.reserve(1)).isZero();
+    assertThat(bucket.reserve(1)).isZero();
+    assertThat(bucket.reserve(1)).isEqualTo(TimeUnit.MILLISECONDS.toNanos(100));
+    assertThat(bucket.reserve(1)).isEqualTo(TimeUnit.MILLISECONDS.toNanos(200));
+  }
+
+  @Test
+  void testPermitsRefillOverTime() {
+    // Arrange
+    TokenBucket bucket = newBucket(10, 1);
+    bucket.reserve(1);
+
+    // Act
+    now.addAndGet(TimeUnit.MILLISECONDS.toNanos(100));
+
+    // Assert
+    assertThat(bucket.reserve(1)).isZero();
+  }
+
+  @Test
+  void testIdleTimeDoesNotAccumulateBeyondBurst() {
+    // Arrange
+    TokenBucket bucket = newBucket(10, 2);
+
+    // Act
+    now.addAndGet(TimeUnit.SECONDS.toNanos(60));
+
+    // Assert
+    assertThat(bucket.tryAcquire(2)).isTrue();
+    assertThat(bucket.tryAcquire(1)).isFalse();
+  }
+
+  @Test
+  void testTryAcquireDoesNotTakePermitsWhenEmpty() {
+    // Arrange
+    TokenBucket bucket = newBucket(10, 1);
+    assertThat(bucket.tryAcquire(1)).isTrue();
+
+    // Act
+    boolean acquired = bucket.tryAcquire(1);
+
+    // Assert
+    assertThat(acquired).isFalse();
+    now.addAndGet(TimeUnit.MILLISECONDS.toNanos(100));
+    assertThat(bucket.tryAcquire(1)).isTrue();
+  }
+
+  @Test
+  void testRefundReturnsUnusedPermits() {
+    // Arrange
+    TokenBucket bucket = newBucket(10, 10);
+    bucket.reserve(10);
+
+    // Act
+    bucket.refund(4);
+
+    // Assert
+    assertThat(bucket.tryAcquire(4)).isTrue();
+    assertThat(bucket.tryAcquire(1)).isFalse();
+  }
+
+  @Test
+  void testRejectsNonPositiveRate() {
+    // Arrange
+    RateLimitConfig config = RateLimitConfig.builder().permitsPerSecond(0).build();
+
+    // Act & Assert
+    assertThatThrownBy(() -> new TokenBucket(config))
+        .isInstanceOf(IllegalArgumentException.class)
+        .hasMessageContaining("permitsPerSecond");
+  }
+
+  private TokenBucket newBucket(double permitsPerSecond, int burst) {
+    return new TokenBucket(
+        RateLimitConfig.builder().permitsPerSecond(permitsPerSecond).burst(burst).build(),
+        now::get);
+  }
+}
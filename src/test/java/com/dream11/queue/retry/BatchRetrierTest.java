@@ -0,0 +1,133 @@
+package com.dream11.queue.retry;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.dream11.queue.config.RetryConfig;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import org.junit.jupiter.api.Test;
+
+class BatchRetrierTest {
+
+  private static final RetryConfig FAST_RETRIES =
+      RetryConfig.builder().baseDelayMillis(1).throttlingBaseDelayMillis(1).build();
+
+  @Test
+  void testRetriesOnlyFailedEntries() throws Exception {
+    // Arrange
+    BatchRetrier retrier = new BatchRetrier(FAST_RETRIES);
+    List<Set<String>> attempts = new ArrayList<>();
+
+    // Act
+    Map<String, String> failed =
+        retrier
+            .execute(
+                entries("a", "b", "c"),
+                entries -> {
+                  attempts.add(entries.keySet());
+                  return CompletableFuture.completedFuture(
+                      attempts.size() == 1
+                          ? List.of(new EntryFailure("b", "ThrottlingException", false))
+                          : List.of());
+                })
+            .get();
+
+    // Assert
+    assertThat(failed).isEmpty();
+    assertThat(attempts).containsExactly(Set.of("a", "b", "c"), Set.of("b"));
+    assertThat(retrier.getRetriedEntries()).isEqualTo(1);
+  }
+
+  @Test
+  void testDoesNotRetrySenderFaults() throws Exception {
+    // Arrange
+    BatchRetrier retrier = new BatchRetrier(FAST_RETRIES);
+    List<Set<String>> attempts = new ArrayList<>();
+
+    // Act
+    Map<String, String> failed =
+        retrier
+            .execute(
+                entries("a", "b"),
+                entries -> {
+                  attempts.add(entries.keySet());
+                  return CompletableFuture.completedFuture(
+                      List.of(new EntryFailure("a", "ReceiptHandleIsInvalid", true)));
+                })
+            .get();
+
+    // Assert
+    assertThat(failed).containsOnlyKeys("a");
+    assertThat(attempts).hasSize(1);
+  }
+
+  @Test
+  void testGivesUpAfterMaxRetries() throws Exception {
+    // Arrange
+    BatchRetrier retrier =
+        new BatchRetrier(RetryConfig.builder().maxRetries(2).baseDelayMillis(1).build());
+    List<Set<String>> attempts = new ArrayList<>();
+
+    // Act
+    Map<String, String> failed =
+        retrier
+            .execute(
+                entries("a", "b"),
+                entries -> {
+                  attempts.add(entries.keySet());
+                  return CompletableFuture.completedFuture(
+                      List.of(new EntryFailure("a", "InternalError", false)));
+                })
+            .get();
+
+    // Assert
+    assertThat(failed).containsOnlyKeys("a");
+    assertThat(attempts).hasSize(3);
+  }
+
+  @Test
+  void testStopsRetryingWhenBudgetIsExhausted() throws Exception {
+    // Arrange
+    BatchRetrier retrier =
+        new BatchRetrier(
+            RetryConfig.builder().baseDelayMillis(1).retryBudget(7).retryCost(5).build());
+    List<Set<String>> attempts = new ArrayList<>();
+
+    // Act
+    Map<String, String> failed =
+        retrier
+            .execute(
+                entries("a"),
+                entries -> {
+                  attempts.add(entries.keySet());
+                  return CompletableFuture.completedFuture(
+                      List.of(new EntryFailure("a", "InternalError", false)));
+                })
+            .get();
+
+    // Assert
+    assertThat(failed).containsOnlyKeys("a");
+    assertThat(attempts).hasSize(2);
+    assertThat(retrier.getRejectedRetries()).isEqualTo(1);
+  }
+
+  @Test
+  void testThrottledEntryIsRecognizedByCode() {
+    // Act & Assert
+    assertThat(new EntryFailure("a", "ThrottlingException", false).isThrottled()).isTrue();
+    assertThat(new EntryFailure("a", "RequestThrottled", false).isThrottled()).isTrue();
+    assertThat(new EntryFailure("a", "InternalError", false).isThrottled()).isFalse();
+  }
+
+  private static Map<String, String> entries(String... ids) {
+    Map<String, String> entries = new LinkedHashMap<>();
+    for (String id : ids) {
+      entries.put(id, "handle-" + id);
+    }
+    return entries;
+  }
+}
@@ -0,0 +1,189 @@
+package com.dream11.queue.routing;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.dream11.queue.codec.MessageCodec;
+import com.dream11.queue.config.RoutingConfig;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import software.amazon.awssdk.services.sns.SnsAsyncClient;
+import software.amazon.awssdk.services.sns.model.PublishRequest;
+import software.amazon.awssdk.services.sns.model.PublishResponse;
+import software.amazon.awssdk.services.sqs.SqsAsyncClient;
+import software.amazon.awssdk.services.sqs.model.GetQueueUrlRequest;
+import software.amazon.awssdk.services.sqs.model.GetQueueUrlResponse;
+import software.amazon.awssdk.services.sqs.model.SendMessageRequest;
+import software.amazon.awssdk.services.sqs.model.SendMessageResponse;
+
+class RoutingProducerTest {
+
+  private static final String QUEUE_URL = "https://sqs.eu-west-1.amazonaws.com/123456789012/orders";
+
+  private SqsAsyncClient mockSqsAsyncClient;
+  private SnsAsyncClient mockSnsAsyncClient;
+  private List<String> sqsRegions;
+  private List<String> snsRegions;
+
+  @BeforeEach
+  void setUp() {
+    mockSqsAsyncClient = mock(SqsAsyncClient.class);
+    when(mockSqsAsyncClient.sendMessage(any(SendMessageRequest.class)))
+        .thenReturn(CompletableFuture.completedFuture(SendMessageResponse.builder().build()));
+    when(mockSqsAsyncClient.getQueueUrl(any(GetQueueUrlRequest.class)))
+        .thenReturn(
+            CompletableFuture.completedFuture(
+                GetQueueUrlResponse.builder()
+                    .queueUrl("https://sqs.us-east-1.amazonaws.com/123456789012/tenant-1")
+                    .build()));
+    mockSnsAsyncClient = mock(SnsAsyncClient.class);
+    when(mockSnsAsyncClient.publish(any(PublishRequest.class)))
+        .thenReturn(CompletableFuture.completedFuture(PublishResponse.builder().build()));
+    sqsRegions = new ArrayList<>();
+    snsRegions = new ArrayList<>();
+  }
+
+  @Test
+  void testSendsToQueueUrlInItsRegion() throws Exception {
+    // Arrange
+    RoutingProducer<String> producer = newProducer(true);
+
+    // Act
+    producer.send(QUEUE_URL, "test message").get();
+
+    // Assert
+    ArgumentCaptor<SendMessageRequest> captor = ArgumentCaptor.forClass(SendMessageRequest.class);
+    verify(mockSqsAsyncClient).sendMessage(captor.capture());
+    assertThat(captor.getValue().queueUrl()).isEqualTo(QUEUE_URL);
+    assertThat(captor.getValue().messageBody()).isEqualTo("test message");
+    assertThat(sqsRegions).containsExactly("eu-west-1");
+  }
+
+  @Test
+  void testSharesOneClientPerRegion() throws Exception {
+    // Arrange
+    RoutingProducer<String> producer = newProducer(true);
+
+    // Act
+    producer.send(QUEUE_URL, "first").get();
+    producer.send("https://sqs.eu-west-1.amazonaws.com/123456789012/payments", "second").get();
+    producer.send("https://sqs.ap-south-1.amazonaws.com/123456789012/orders", "third").get();
+
+    // Assert
+    verify(mockSqsAsyncClient, times(3)).sendMessage(any(SendMessageRequest.class));
+    assertThat(sqsRegions).containsExactly("eu-west-1", "ap-south-1");
+  }
+
+  @Test
+  void testPublishesToTopicArnInItsRegion() throws Exception {
+    // Arrange
+    RoutingProducer<String> producer = newProducer(true);
+    String topicArn = "arn:aws:sns:eu-central-1:123456789012:events";
+
+    // Act
+    producer.send(topicArn, "test message").get();
+
+    // Assert
+    ArgumentCaptor<PublishRequest> captor = ArgumentCaptor.forClass(PublishRequest.class);
+    verify(mockSnsAsyncClient).publish(captor.capture());
+    assertThat(captor.getValue().topicArn()).isEqualTo(topicArn);
+    assertThat(snsRegions).containsExactly("eu-central-1");
+  }
+
+  @Test
+  void testResolvesQueueNamesOnceWhenCached() throws Exception {
+    // Arrange
+    RoutingProducer<String> producer = newProducer(true);
+
+    // Act
+    producer.send("tenant-1", "first").get();
+    producer.send("tenant-1", "second").get();
+
+    // Assert
+    verify(mockSqsAsyncClient).getQueueUrl(any(GetQueueUrlRequest.class));
+    verify(mockSqsAsyncClient, times(2)).sendMessage(any(SendMessageRequest.class));
+  }
+
+  @Test
+  void testResolvesQueueNamesEveryTimeWhenNotCached() throws Exception {
+    // Arrange
+    RoutingProducer<String> producer = newProducer(false);
+
+    // Act
+    producer.send("tenant-1", "first").get();
+    producer.send("tenant-1", "second").get();
+
+    // Assert
+    verify(mockSqsAsyncClient, times(2)).getQueueUrl(any(GetQueueUrlRequest.class));
+  }
+
+  @Test
+  void testFailedLookupIsNotCached() throws Exception {
+    // Arrange
+    when(mockSqsAsyncClient.getQueueUrl(any(GetQueueUrlRequest.class)))
+        .thenReturn(CompletableFuture.failedFuture(new IllegalStateException("unavailable")))
+        .thenReturn(
+            CompletableFuture.completedFuture(
+                GetQueueUrlResponse.builder().queueUrl(QUEUE_URL).build()));
+    RoutingProducer<String> producer = newProducer(true);
+
+    // Act
+    CompletableFuture<Void> failed = producer.send("tenant-1", "first");
+    producer.send("tenant-1", "second").get();
+
+    // Assert
+    assertThat(failed).isCompletedExceptionally();
+    verify(mockSqsAsyncClient, times(2)).getQueueUrl(any(GetQueueUrlRequest.class));
+  }
+
+  @Test
+  void testQueueUrlWithoutRegionUsesConfiguredRegion() throws Exception {
+    // Arrange
+    RoutingProducer<String> producer = newProducer(true);
+
+    // Act
+    producer.send("http://localhost:4566/000000000000/orders", "test message").get();
+
+    // Assert
+    assertThat(sqsRegions).containsExactly("us-east-1");
+  }
+
+  @Test
+  void testSendAndForgetReportsFailedLookup() {
+    // Arrange
+    when(mockSqsAsyncClient.getQueueUrl(any(GetQueueUrlRequest.class)))
+        .thenReturn(CompletableFuture.failedFuture(new IllegalStateException("no such queue")));
+    RoutingProducer<String> producer = newProducer(true);
+    List<Throwable> errors = new ArrayList<>();
+    producer.setSendErrorListener((body, attributes, error) -> errors.add(error));
+
+    // Act
+    producer.sendAndForget("missing", "test message");
+
+    // Assert
+    assertThat(errors).hasSize(1);
+    assertThat(producer.getForgottenSendFailures()).isEqualTo(1);
+  }
+
+  private RoutingProducer<String> newProducer(boolean cacheQueueUrls) {
+    return new RoutingProducer<>(
+        RoutingConfig.builder().region("us-east-1").cacheQueueUrls(cacheQueueUrls).build(),
+        MessageCodec.fromFunction(Object::toString),
+        region -> {
+          sqsRegions.add(region);
+          return mockSqsAsyncClient;
+        },
+        region -> {
+          snsRegions.add(region);
+          return mockSnsAsyncClient;
+        });
+  }
+}
@@ -0,0 +1,83 @@
+package com.dream11.queue.sharding;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import org.junit.jupiter.api.Test;
+
+class ConsistentHashRingTest {
+
+  private static final int KEYS = 20_000;
+
+  @Test
+  void testSpreadsKeysAcrossShards() {
+    // Arrange
+    ConsistentHashRing<String> ring = new ConsistentHashRing<>(shards(4), 128);
+
+    // Act
+    Map<String, Integer> counts = new HashMap<>();
+    for (int i = 0; i < KEYS; i++) {
+      counts.merge(ring.shardFor("key-" + i), 1, Integer::sum);
+    }
+
+    // Assert
+    assertThat(counts).hasSize(4);
+    assertThat(counts.values()).allSatisfy(count -> assertThat(count).isBetween(3_500, 6_500));
+  }
+
+  @Test
+  void testAddingShardOnlyMovesKeysToNewShard() {
+    // Arrange
+    ConsistentHashRing<String> before = new ConsistentHashRing<>(shards(4), 128);
+    ConsistentHashRing<String> after = new ConsistentHashRing<>(shards(5), 128);
+
+    // Act
+    int moved = 0;
+    for (int i = 0; i < KEYS; i++) {
+      String key = "key-" + i;
+      String shard = after.shardFor(key);
+      if (!shard.equals(before.shardFor(key))) {
+        assertThat(shard).isEqualTo("queue-4");
+        moved++;
+      }
+    }
+
+    // Assert
+    assertThat(moved).isBetween(KEYS / 10, KEYS * 3 / 10);
+  }
+
+  @Test
+  void testPlacementDoesNotDependOnShardOrder() {
+    // Arrange
+    Map<String, String> reversed = new LinkedHashMap<>();
+    for (int i = 3; i >= 0; i--) {
+      reversed.put("queue-" + i, "queue-" + i);
+    }
+    ConsistentHashRing<String> ring = new ConsistentHashRing<>(shards(4), 16);
+    ConsistentHashRing<String> reversedRing = new ConsistentHashRing<>(reversed, 16);
+
+    // Act & Assert
+    for (int i = 0; i < 1_000; i++) {
+      assertThat(reversedRing.shardFor("key-" + i)).isEqualTo(ring.shardFor("key-" + i));
+    }
+  }
+
+  @Test
+  void testRejectsEmptyRing() {
+    // Act & Assert
+    assertThatThrownBy(() -> new ConsistentHashRing<>(Map.of(), 128))
+        .isInstanceOf(IllegalArgumentException.class)
+        .hasMessageContaining("At least one shard");
+  }
+
+  private static Map<String, String> shards(int count) {
+    Map<String, String> shards = new LinkedHashMap<>();
+    for (int i = 0; i < count; i++) {
+      shards.put("queue-" + i, "queue-" + i);
+    }
+    return shards;
+  }
+}
@@ -0,0 +1,149 @@
+package com.dream11.queue.sharding;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.dream11.queue.producer.MessageProducer;
+import com.dream11.queue.producer.SendErrorListener;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class ShardedProducerTest {
+
+  private Map<String, MessageProducer<String>> producers;
+  private ShardedProducer<String> shardedProducer;
+
+  @BeforeEach
+  @SuppressWarnings("unchecked")
+  void setUp() {
+    producers = new LinkedHashMap<>();
+    for (int i = 0; i < 3; i++) {
+      MessageProducer<String> producer = mock(MessageProducer.class);
+      when(producer.send(any())).thenReturn(CompletableFuture.completedFuture(null));
+      producers.put("queue-" + i, producer);
+    }
+    shardedProducer = new ShardedProducer<>(producers, message -> message.split(":")[0]);
+  }
+
+  @Test
+  void testSendsMessagesWithSameKeyToSameShard() throws Exception {
+    // Arrange
+    String shard = shardedProducer.shardFor("user-1:first");
+
+    // Act
+    shardedProducer.send("user-1:first").get();
+    shardedProducer.send("user-1:second").get();
+
+    // Assert
+    assertThat(shardedProducer.shardFor("user-1:second")).isEqualTo(shard);
+    verify(producers.get(shard)).send("user-1:first");
+    verify(producers.get(shard)).send("user-1:second");
+    assertThat(shardedProducer.getRoutedCounts()).containsEntry(shard, 2L);
+  }
+
+  @Test
+  void testCountsFailedSendsPerShard() {
+    // Arrange
+    String shard = shardedProducer.shardFor("user-1:first");
+    when(producers.get(shard).send(any()))
+        .thenReturn(CompletableFuture.failedFuture(new IllegalStateException("throttled")));
+
+    // Act
+    CompletableFuture<Void> future = shardedProducer.send("user-1:first");
+
+    // Assert
+    assertThat(future).isCompletedExceptionally();
+    assertThat(shardedProducer.getFailedCounts()).containsEntry(shard, 1L);
+  }
+
+  @Test
+  void testSendDelayedRoutesToShard() throws Exception {
+    // Arrange
+    String shard = shardedProducer.shardFor("user-1:first");
+    Duration delay = Duration.ofMinutes(20);
+    when(producers.get(shard).sendDelayed(any(), any(), any()))
+        .thenReturn(CompletableFuture.completedFuture(null));
+
+    // Act
+    shardedProducer.sendDelayed("user-1:first", Map.of("key", "value"), delay).get();
+
+    // Assert
+    verify(producers.get(shard)).sendDelayed("user-1:first", Map.of("key", "value"), delay);
+    assertThat(shardedProducer.getRoutedCounts()).containsEntry(shard, 1L);
+  }
+
+  @Test
+  void testCancellingSendCancelsShardRequest() {
+    // Arrange
+    String shard = shardedProducer.shardFor("user-1:first");
+    CompletableFuture<Void> request = new CompletableFuture<>();
+    when(producers.get(shard).send(any())).thenReturn(request);
+
+    // Act
+    shardedProducer.send("user-1:first").cancel(true);
+
+    // Assert
+    assertThat(request).isCancelled();
+    assertThat(shardedProducer.getFailedCounts()).containsEntry(shard, 1L);
+  }
+
+  @Test
+  @SuppressWarnings("unchecked")
+  void testAddShardRoutesSomeKeysToNewShard() {
+    // Arrange
+    MessageProducer<String> added = mock(MessageProducer.class);
+    SendErrorListener listener = (body, attributes, error) -> {};
+    shardedProducer.setSendErrorListener(listener);
+
+    // Act
+    shardedProducer.addShard("queue-3", added);
+
+    // Assert
+    assertThat(shardedProducer.getShards()).contains("queue-3");
+    verify(added).setSendErrorListener(listener);
+    boolean routed = false;
+    for (int i = 0; i < 1_000 && !routed; i++) {
+      routed = shardedProducer.shardFor("user-" + i + ":message").equals("queue-3");
+    }
+    assertThat(routed).isTrue();
+  }
+
+  @Test
+  @SuppressWarnings("unchecked")
+  void testAddShardRejectsDuplicateName() {
+    // Act & Assert
+    assertThatThrownBy(() -> shardedProducer.addShard("queue-0", mock(MessageProducer.class)))
+        .isInstanceOf(IllegalArgumentException.class)
+        .hasMessageContaining("queue-0");
+  }
+
+  @Test
+  void testRejectsNullKey() {
+    // Arrange
+    ShardedProducer<String> producer = new ShardedProducer<>(producers, message -> null);
+
+    // Act & Assert
+    assertThatThrownBy(() -> producer.send("message"))
+        .isInstanceOf(IllegalArgumentException.class)
+        .hasMessageContaining("Shard key must not be null");
+    producers.values().forEach(shard -> verify(shard, never()).send(any()));
+  }
+
+  @Test
+  void testCloseClosesAllShards() {
+    // Act
+    shardedProducer.close();
+
+    // Assert
+    producers.values().forEach(producer -> verify(producer).close());
+  }
+}
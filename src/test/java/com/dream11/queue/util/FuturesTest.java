@@ -0,0 +1,175 @@
+package com.dream11.queue.util;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.awaitility.Awaitility.await;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import org.junit.jupiter.api.Test;
+
+class FuturesTest {
+
+  @Test
+  void testWithDeadlineFailsSlowFuture() {
+    // Arrange
+    CompletableFuture<String> future = new CompletableFuture<>();
+
+    // Act
+    CompletableFuture<String> result = Futures.withDeadline(future, Duration.ofMillis(20));
+
+    // Assert
+    assertThatThrownBy(() -> result.get(5, TimeUnit.SECONDS))
+        .isInstanceOf(ExecutionException.class)
+        .hasCauseInstanceOf(TimeoutException.class);
+  }
+
+  @Test
+  void testWithoutDeadlineLeavesFutureUnchanged() {
+    // Arrange
+    CompletableFuture<String> future = new CompletableFuture<>();
+
+    // Act
+    CompletableFuture<String> withNull = Futures.withDeadline(future, null);
+    CompletableFuture<String> withZero = Futures.withDeadline(future, Duration.ZERO);
+
+    // Assert
+    assertThat(withNull).isSameAs(future);
+    assertThat(withZero).isSameAs(future);
+    assertThat(future).isNotDone();
+  }
+
+  @Test
+  void testCancellingDerivedFutureCancelsSource() {
+    // Arrange
+    CompletableFuture<String> source = new CompletableFuture<>();
+    CompletableFuture<Integer> derived =
+        Futures.propagateCancellation(source.thenApply(String::length), source);
+
+    // Act
+    derived.cancel(true);
+
+    // Assert
+    assertThat(source).isCancelled();
+  }
+
+  @Test
+  void testDerivedTimeoutCancelsSource() {
+    // Arrange
+    CompletableFuture<String> source = new CompletableFuture<>();
+    CompletableFuture<Integer> derived =
+        Futures.propagateCancellation(source.thenApply(String::length), source);
+
+    // Act
+    Futures.withDeadline(derived, Duration.ofMillis(20));
+
+    // Assert
+    await().atMost(Duration.ofSeconds(5)).until(source::isCancelled);
+  }
+
+  @Test
+  void testDerivedFailureDoesNotCancelSource() {
+    // Arrange
+    CompletableFuture<String> source = new CompletableFuture<>();
+    CompletableFuture<Integer> derived =
+        Futures.propagateCancellation(source.thenApply(String::length), source);
+
+    // Act
+    derived.completeExceptionally(new IllegalStateException("failed"));
+
+    // Assert
+    assertThat(source).isNotDone();
+  }
+
+  @Test
+  void testStartAfterSkipsCallCancelledWhileWaiting() throws Exception {
+    // Arrange
+    AtomicBoolean started = new AtomicBoolean();
+    CompletableFuture<String> result =
+        Futures.startAfter(
+            TimeUnit.MILLISECONDS.toNanos(50),
+            () -> {
+              started.set(true);
+              return CompletableFuture.completedFuture("sent");
+            });
+
+    // Act
+    result.cancel(true);
+    Thread.sleep(100);
+
+    // Assert
+    assertThat(started).isFalse();
+  }
+
+  @Test
+  void testStartAfterPropagatesCancellationToStartedCall() {
+    // Arrange
+    CompletableFuture<String> call = new CompletableFuture<>();
+    AtomicBoolean started = new AtomicBoolean();
+    CompletableFuture<String> result =
+        Futures.startAfter(
+            0,
+            () -> {
+              started.set(true);
+              return call;
+            });
+    await().atMost(Duration.ofSeconds(5)).untilTrue(started);
+
+    // Act
+    result.cancel(true);
+
+    // Assert
+    assertThat(call).isCancelled();
+  }
+
+  @Test
+  void testCompleteOnHandsOffToExecutor() throws Exception {
+    // Arrange
+    ExecutorService executor =
+        Executors.newSingleThreadExecutor(runnable -> new Thread(runnable, "completion"));
+    CompletableFuture<String> source = new CompletableFuture<>();
+    CompletableFuture<String> thread =
+        Futures.completeOn(source, executor).thenApply(value -> Thread.currentThread().getName());
+
+    // Act
+    source.complete("done");
+
+    // Assert
+    assertThat(thread.get(5, TimeUnit.SECONDS)).isEqualTo("completion");
+    executor.shutdown();
+  }
+
+  @Test
+  void testCompleteOnCompletesInlineWhenExecutorRejects() throws Exception {
+    // Arrange
+    ExecutorService executor = Executors.newSingleThreadExecutor();
+    executor.shutdown();
+    CompletableFuture<String> source = new CompletableFuture<>();
+    CompletableFuture<String> result = Futures.completeOn(source, executor);
+
+    // Act
+    source.complete("done");
+
+    // Assert
+    assertThat(result.get(5, TimeUnit.SECONDS)).isEqualTo("done");
+  }
+
+  @Test
+  void testCancellingHandedOffFutureCancelsSource() {
+    // Arrange
+    CompletableFuture<String> source = new CompletableFuture<>();
+    CompletableFuture<String> result = Futures.completeOn(source, Runnable::run);
+
+    // Act
+    result.cancel(true);
+
+    // Assert
+    assertThat(source).isCancelled();
+  }
+}
@@ -133,6 +133,40 @@ class MessageAttributeConverterTest {
         .hasMessageContaining("Supported types: String, Number, Boolean");
   }
 
+  @Test
+  void testConvertBinaryAttribute() {
+    // Arrange
+    byte[] bytes = {1, 2, 3};
+    Map<String, Object> attributes = Map.of("bytes", bytes, "key", "value");
+
+    // Act
+    Map<String, TestAttributeValue> result =
+        MessageAttributeConverter.convert(
+            attributes, TestAttributeValue::new, TestAttributeValue::new);
+
+    // Assert
+    assertThat(result).hasSize(2);
+    assertThat(result.get("bytes").dataType).isEqualTo("Binary");
+    assertThat(result.get("bytes").binaryValue).isEqualTo(bytes);
+    assertThat(result.get("key").dataType).isEqualTo("String");
+    assertThat(result.get("key").stringValue).isEqualTo("value");
+  }
+
+  @Test
+  void testConvertWithBinaryFactoryRejectsCustomObject() {
+    // Arrange
+    Map<String, Object> attributes = Map.of("custom", new CustomObject("test"));
+
+    // Act & Assert
+    assertThatThrownBy(
+            () ->
+                MessageAttributeConverter.convert(
+                    attributes, TestAttributeValue::new, TestAttributeValue::new))
+        .isInstanceOf(IllegalArgumentException.class)
+        .hasMessageContaining("Unsupported message attribute type for key 'custom'")
+        .hasMessageContaining("Supported types: String, Number, Boolean, byte[]");
+  }
+
   @Test
   void testConvertWithCustomObjectThrowsException() {
     // Arrange
@@ -173,10 +207,18 @@ class MessageAttributeConverterTest {
   static class TestAttributeValue {
     final String dataType;
     final String stringValue;
+    final byte[] binaryValue;
 
     TestAttributeValue(String dataType, String stringValue) {
       this.dataType = dataType;
       this.stringValue = stringValue;
+      this.binaryValue = null;
+    }
+
+    TestAttributeValue(String dataType, byte[] binaryValue) {
+      this.dataType = dataType;
+      this.stringValue = null;
+      this.binaryValue = binaryValue;
     }
   }
 
@@ -0,0 +1,185 @@
+package com.dream11.queue.util;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import com.dream11.queue.config.AttributeConfig;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import org.junit.jupiter.api.Test;
+
+class MessageAttributeEncoderTest {
+
+  private static final MessageAttributeSchema SCHEMA =
+      MessageAttributeSchema.builder()
+          .attribute("eventType", AttributeType.STRING)
+          .attribute("version", AttributeType.NUMBER)
+          .attribute("replay", AttributeType.BOOLEAN)
+          .attribute("signature", AttributeType.BINARY)
+          .build();
+
+  @Test
+  void testEncodeDeclaredAttributes() {
+    // Arrange
+    MessageAttributeEncoder<TestAttributeValue> encoder =
+        newEncoder(AttributeConfig.builder().schema(SCHEMA).build());
+    byte[] signature = {1, 2, 3};
+    Map<String, Object> attributes = new HashMap<>();
+    attributes.put("eventType", "order-created");
+    attributes.put("version", 3);
+    attributes.put("replay", false);
+    attributes.put("signature", signature);
+
+    // Act
+    Map<String, TestAttributeValue> result = encoder.encode(attributes);
+
+    // Assert
+    assertThat(result).hasSize(4);
+    assertThat(result.get("eventType").dataType).isEqualTo("String");
+    assertThat(result.get("eventType").stringValue).isEqualTo("order-created");
+    assertThat(result.get("version").dataType).isEqualTo("Number");
+    assertThat(result.get("version").stringValue).isEqualTo("3");
+    assertThat(result.get("replay").dataType).isEqualTo("String");
+    assertThat(result.get("replay").stringValue).isEqualTo("false");
+    assertThat(result.get("signature").dataType).isEqualTo("Binary");
+    assertThat(result.get("signature").binaryValue).isEqualTo(signature);
+  }
+
+  @Test
+  void testEncodeUndeclaredAttributesByValueType() {
+    // Arrange
+    MessageAttributeEncoder<TestAttributeValue> encoder =
+        newEncoder(AttributeConfig.builder().schema(SCHEMA).build());
+
+    // Act
+    Map<String, TestAttributeValue> result = encoder.encode(Map.of("tenant", "tenant-42"));
+
+    // Assert
+    assertThat(result.get("tenant").dataType).isEqualTo("String");
+    assertThat(result.get("tenant").stringValue).isEqualTo("tenant-42");
+  }
+
+  @Test
+  void testEncodeRejectsValueNotMatchingDeclaredType() {
+    // Arrange
+    MessageAttributeEncoder<TestAttributeValue> encoder =
+        newEncoder(AttributeConfig.builder().schema(SCHEMA).build());
+
+    // Act & Assert
+    assertThatThrownBy(() -> encoder.encode(Map.of("version", "3")))
+        .isInstanceOf(IllegalArgumentException.class)
+        .hasMessageContaining("Message attribute 'version' is declared as NUMBER");
+  }
+
+  @Test
+  void testEncodeRejectsUnsupportedType() {
+    // Arrange
+    MessageAttributeEncoder<TestAttributeValue> encoder =
+        newEncoder(AttributeConfig.builder().valueCacheSize(10).build());
+
+    // Act & Assert
+    assertThatThrownBy(() -> encoder.encode(Map.of("list", List.of("a"))))
+        .isInstanceOf(IllegalArgumentException.class)
+        .hasMessageContaining("Unsupported message attribute type for key 'list'");
+  }
+
+  @Test
+  void testEncodeRejectsNullValue() {
+    // Arrange
+    MessageAttributeEncoder<TestAttributeValue> encoder =
+        newEncoder(AttributeConfig.builder().schema(SCHEMA).build());
+    Map<String, Object> attributes = new HashMap<>();
+    attributes.put("eventType", null);
+
+    // Act & Assert
+    assertThatThrownBy(() -> encoder.encode(attributes))
+        .isInstanceOf(IllegalArgumentException.class)
+        .hasMessageContaining("Message attribute 'eventType' cannot be null");
+  }
+
+  @Test
+  void testEncodeReusesCachedValues() {
+    // Arrange
+    MessageAttributeEncoder<TestAttributeValue> encoder =
+        newEncoder(AttributeConfig.builder().schema(SCHEMA).valueCacheSize(10).build());
+
+    // Act
+    Map<String, TestAttributeValue> first =
+        encoder.encode(Map.of("eventType", "order-created", "tenant", "tenant-42"));
+    Map<String, TestAttributeValue> second =
+        encoder.encode(Map.of("eventType", "order-created", "tenant", "tenant-42"));
+
+    // Assert
+    assertThat(second.get("eventType")).isSameAs(first.get("eventType"));
+    assertThat(second.get("tenant")).isSameAs(first.get("tenant"));
+  }
+
+  @Test
+  void testEncodeStopsCachingWhenCacheIsFull() {
+    // Arrange
+    MessageAttributeEncoder<TestAttributeValue> encoder =
+        newEncoder(AttributeConfig.builder().schema(SCHEMA).valueCacheSize(1).build());
+    encoder.encode(Map.of("eventType", "order-created"));
+
+    // Act
+    Map<String, TestAttributeValue> first = encoder.encode(Map.of("eventType", "order-updated"));
+    Map<String, TestAttributeValue> second = encoder.encode(Map.of("eventType", "order-updated"));
+
+    // Assert
+    assertThat(second.get("eventType")).isNotSameAs(first.get("eventType"));
+    assertThat(second.get("eventType").stringValue).isEqualTo("order-updated");
+  }
+
+  @Test
+  void testEncodeCachesUndeclaredValueInSingleSlot() {
+    // Arrange
+    MessageAttributeEncoder<TestAttributeValue> encoder =
+        newEncoder(AttributeConfig.builder().valueCacheSize(1).build());
+
+    // Act
+    Map<String, TestAttributeValue> first = encoder.encode(Map.of("tenant", "tenant-42"));
+    Map<String, TestAttributeValue> second = encoder.encode(Map.of("tenant", "tenant-42"));
+
+    // Assert
+    assertThat(second.get("tenant")).isSameAs(first.get("tenant"));
+  }
+
+  @Test
+  void testEncodeWithoutSchemaOrCacheMatchesConverter() {
+    // Arrange
+    MessageAttributeEncoder<TestAttributeValue> encoder = newEncoder(new AttributeConfig());
+
+    // Act
+    Map<String, TestAttributeValue> result = encoder.encode(Map.of("priority", 10));
+
+    // Assert
+    assertThat(result.get("priority").dataType).isEqualTo("Number");
+    assertThat(result.get("priority").stringValue).isEqualTo("10");
+    assertThat(encoder.encode(null)).isEmpty();
+  }
+
+  private static MessageAttributeEncoder<TestAttributeValue> newEncoder(
+      AttributeConfig attributeConfig) {
+    return new MessageAttributeEncoder<>(
+        attributeConfig, TestAttributeValue::new, TestAttributeValue::new);
+  }
+
+  static class TestAttributeValue {
+    final String dataType;
+    final String stringValue;
+    final byte[] binaryValue;
+
+    TestAttributeValue(String dataType, String stringValue) {
+      this.dataType = dataType;
+      this.stringValue = stringValue;
+      this.binaryValue = null;
+    }
+
+    TestAttributeValue(String dataType, byte[] binaryValue) {
+      this.dataType = dataType;
+      this.stringValue = null;
+      this.binaryValue = binaryValue;
+    }
+  }
+}
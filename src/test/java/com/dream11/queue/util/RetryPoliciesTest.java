@@ -0,0 +1,53 @@
+package com.dream11.queue.util;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.dream11.queue.config.RetryConfig;
+import java.time.Duration;
+import org.junit.jupiter.api.Test;
+import software.amazon.awssdk.core.retry.RetryPolicy;
+import software.amazon.awssdk.core.retry.backoff.FullJitterBackoffStrategy;
+import software.amazon.awssdk.core.retry.conditions.TokenBucketRetryCondition;
+
+class RetryPoliciesTest {
+
+  @Test
+  void testPolicyUsesSeparateFullJitterBackoffForThrottling() {
+    // Arrange
+    RetryConfig retryConfig =
+        RetryConfig.builder()
+            .maxRetries(5)
+            .baseDelayMillis(50)
+            .throttlingBaseDelayMillis(400)
+            .build();
+
+    // Act
+    RetryPolicy policy = RetryPolicies.of(retryConfig);
+
+    // Assert
+    assertThat(policy.numRetries()).isEqualTo(5);
+    assertThat(policy.backoffStrategy())
+        .isEqualTo(
+            FullJitterBackoffStrategy.builder()
+                .baseDelay(Duration.ofMillis(50))
+                .maxBackoffTime(Duration.ofSeconds(20))
+                .build());
+    assertThat(policy.throttlingBackoffStrategy())
+        .isEqualTo(
+            FullJitterBackoffStrategy.builder()
+                .baseDelay(Duration.ofMillis(400))
+                .maxBackoffTime(Duration.ofSeconds(20))
+                .build());
+    assertThat(policy.toBuilder().retryCapacityCondition())
+        .isInstanceOf(TokenBucketRetryCondition.class);
+  }
+
+  @Test
+  void testZeroBudgetDisablesRetryCapacityCondition() {
+    // Act
+    RetryPolicy policy = RetryPolicies.of(RetryConfig.builder().retryBudget(0).build());
+
+    // Assert
+    assertThat(policy.toBuilder().retryCapacityCondition()).isNull();
+  }
+}
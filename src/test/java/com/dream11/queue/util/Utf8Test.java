@@ -0,0 +1,20 @@
+package com.dream11.queue.util;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.nio.charset.StandardCharsets;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+class Utf8Test {
+
+  @ParameterizedTest
+  @ValueSource(strings = {"", "a", "é", "€", "😀", "mixed é € 😀 text"})
+  void testEncodedLengthMatchesEncoder(String value) {
+    // Act
+    long length = Utf8.encodedLength(value);
+
+    // Assert
+    assertThat(length).isEqualTo(value.getBytes(StandardCharsets.UTF_8).length);
+  }
+}
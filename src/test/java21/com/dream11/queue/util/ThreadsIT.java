@@ -0,0 +1,61 @@
+package com.dream11.queue.util;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.Test;
+
+class ThreadsIT {
+
+  @Test
+  void testVirtualThreadsAreSupported() {
+    // Act & Assert
+    assertThat(Threads.virtualThreadsSupported()).isTrue();
+  }
+
+  @Test
+  void testHandlerExecutorRunsOnVirtualThreads() throws Exception {
+    // Arrange
+    ExecutorService executor = Threads.newHandlerExecutor("handler", 1, true);
+
+    // Act
+    Thread thread = executor.submit(Thread::currentThread).get(5, TimeUnit.SECONDS);
+    executor.shutdown();
+
+    // Assert
+    assertThat(thread.isVirtual()).isTrue();
+    assertThat(thread.getName()).startsWith("handler-");
+  }
+
+  @Test
+  void testHandlerExecutorRunsOnPlatformThreadsWhenVirtualIsOff() throws Exception {
+    // Arrange
+    ExecutorService executor = Threads.newHandlerExecutor("handler", 1, false);
+
+    // Act
+    Thread thread = executor.submit(Thread::currentThread).get(5, TimeUnit.SECONDS);
+    executor.shutdown();
+
+    // Assert
+    assertThat(thread.isVirtual()).isFalse();
+    assertThat(thread.getName()).isEqualTo("handler-0");
+  }
+
+  @Test
+  void testSchedulerRunsOnVirtualThreads() throws Exception {
+    // Arrange
+    ScheduledExecutorService scheduler = Threads.newScheduler(1, true);
+
+    // Act
+    Thread thread =
+        scheduler
+            .schedule(Thread::currentThread, 1, TimeUnit.MILLISECONDS)
+            .get(5, TimeUnit.SECONDS);
+    scheduler.shutdown();
+
+    // Assert
+    assertThat(thread.isVirtual()).isTrue();
+  }
+}